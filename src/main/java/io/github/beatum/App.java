@@ -1,6 +1,7 @@
 
 package io.github.beatum;
 
+import io.github.beatum.video.CameraWallLayout;
 import io.github.beatum.video.DeviceGroup;
 import io.github.beatum.video.VideoPanel;
 import org.opencv.core.Core;
@@ -11,6 +12,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
@@ -64,8 +66,10 @@ public class App {
             SpringUtilities.makeCompactGrid(inputPanel, 1, 3, 6, 6, 6, 6);
 
             // -------------------- Center camera container --------------------
-            JPanel container = new JPanel(new GridLayout(2, 3, 6, 6));
+            JPanel container = new JPanel(new CameraWallLayout(6, 6));
             DeviceGroup deviceGroup = new DeviceGroup(container, 6);
+            deviceGroup.setCollapsePlaceholders(true);
+            deviceGroup.setFocusOnClick(true); // click a camera to enlarge it
 
             // -------------------- Bottom capture button --------------------
             JButton btnCapture = new JButton("Capture");
@@ -73,7 +77,7 @@ public class App {
 
             // Start streaming
             btnStart.addActionListener(e -> {
-                deviceGroup.openAll();
+                deviceGroup.openAllAsync(deviceGroup.getLifecycleTimeoutMs()); // keeps the EDT responsive
                 btnStart.setEnabled(false);
                 btnCapture.setEnabled(true);
             });
@@ -95,12 +99,12 @@ public class App {
                     return;
                 }
 
-                final Path dir = Path.of(pathText);
+                final Path dir = Paths.get(pathText);
 
                 // Disable capture during saving to avoid re-entrancy
                 btnCapture.setEnabled(false);
 
-                SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
                     @Override
                     protected Void doInBackground() throws Exception {
                         Files.createDirectories(dir);
@@ -0,0 +1,347 @@
+
+package io.github.beatum.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * One segment of a device log: an append-only data file of encoded frames plus a
+ * memory-mapped, fixed-width index.
+ *
+ * <h2>Index file layout</h2>
+ * <pre>
+ * header (16 bytes): magic "ASIX", version, entry count, reserved
+ * entry  (20 bytes): timestamp (long), data offset (long), length (int)
+ * </pre>
+ *
+ * <p>Entries are sorted by timestamp (appends are monotonic), so lookups are binary searches
+ * over the mapped file. The entry count in the header is written last, after the frame data
+ * and the entries: after a crash, frames not yet counted are simply not part of the segment.</p>
+ *
+ * <p>The index is sized for the full capacity while the segment is written and truncated to the
+ * entries it holds when the segment is {@link #seal() sealed} (rolled over or closed).</p>
+ *
+ * <p>Only the store's writer appends; readers may run concurrently, since {@link #count} is
+ * published after the entries it covers.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class Segment {
+
+    static final int MAGIC = 0x41534958; // "ASIX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 20;
+
+    static final String DATA_SUFFIX = ".dat";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private final int device;
+    private final long sequence;
+    private final Path dataFile;
+    private final Path indexFile;
+
+    /** Data file channel: sequential writes while active, positional reads always. */
+    private final FileChannel data;
+
+    /** Mapped index (header + capacity entries while active, header + count entries after reopen). */
+    private final MappedByteBuffer index;
+
+    /** Max number of entries. */
+    private final int capacity;
+
+    /** Entries readable by queries. */
+    private volatile int count;
+
+    /** Bytes of frame data covered by the index. */
+    private volatile long dataSize;
+
+    /** Current size of the index file. */
+    private volatile long indexFileBytes;
+
+    /** Whether the segment no longer accepts appends (opened read-only or sealed). */
+    private boolean sealed;
+
+    private volatile boolean deleted;
+
+    private Segment(int device, long sequence, Path dataFile, Path indexFile,
+                    FileChannel data, MappedByteBuffer index, int capacity, int count, long dataSize,
+                    boolean sealed) {
+        this.device = device;
+        this.sequence = sequence;
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.data = data;
+        this.index = index;
+        this.capacity = capacity;
+        this.count = count;
+        this.dataSize = dataSize;
+        this.indexFileBytes = index.capacity();
+        this.sealed = sealed;
+    }
+
+    /**
+     * Creates a new, empty, writable segment.
+     *
+     * @param dir device directory
+     * @param device device index
+     * @param sequence segment number (file name)
+     * @param capacity max entries
+     */
+    static Segment create(Path dir, int device, long sequence, int capacity) throws IOException {
+        Path dataFile = dir.resolve(fileName(sequence) + DATA_SUFFIX);
+        Path indexFile = dir.resolve(fileName(sequence) + INDEX_SUFFIX);
+
+        FileChannel data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer index;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            index = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * ENTRY_BYTES);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, 0);
+        return new Segment(device, sequence, dataFile, indexFile, data, index, capacity, 0, 0, false);
+    }
+
+    /**
+     * Opens an existing segment read-only.
+     *
+     * @return segment, or null if the index is missing, foreign or empty
+     */
+    static Segment open(Path dir, int device, long sequence) throws IOException {
+        Path dataFile = dir.resolve(fileName(sequence) + DATA_SUFFIX);
+        Path indexFile = dir.resolve(fileName(sequence) + INDEX_SUFFIX);
+        if (!Files.exists(dataFile) || !Files.exists(indexFile)) return null;
+
+        MappedByteBuffer index;
+        int count;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return null;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            ch.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+            count = (int) Math.min(header.getInt(8), (ch.size() - HEADER_BYTES) / ENTRY_BYTES);
+            if (count <= 0) return null;
+            index = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES + (long) count * ENTRY_BYTES);
+        }
+
+        FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ);
+        int last = count - 1;
+        long dataSize = entryOffset(index, last) + entryLength(index, last);
+        if (data.size() < dataSize) {
+            // Data file shorter than the index claims: not a segment this store wrote
+            data.close();
+            return null;
+        }
+        return new Segment(device, sequence, dataFile, indexFile, data, index, count, count, dataSize, true);
+    }
+
+    /** Segment file name without suffix. */
+    static String fileName(long sequence) {
+        return String.format("%012d", sequence);
+    }
+
+    /** Parses a segment number from an index file name, or -1. */
+    static long parseSequence(String indexFileName) {
+        if (!indexFileName.endsWith(INDEX_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(indexFileName.substring(0, indexFileName.length() - INDEX_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // -------------------- Writing (store writer only) --------------------
+
+    /**
+     * Whether {@code frames} more frames of {@code bytes} total fit. An empty segment accepts any
+     * single batch so that frames larger than {@code maxBytes} are still stored.
+     */
+    boolean hasRoom(int frames, long bytes, long maxBytes) {
+        if (count + frames > capacity) return false;
+        return count == 0 || dataSize + bytes <= maxBytes;
+    }
+
+    /**
+     * Appends frames {@code from..to-1} with one gathering write, then indexes them.
+     */
+    void append(List<SegmentStore.Pending> frames, int from, int to) throws IOException {
+        int n = to - from;
+        ByteBuffer[] buffers = new ByteBuffer[n];
+        long bytes = 0;
+        for (int i = 0; i < n; i++) {
+            byte[] payload = frames.get(from + i).data;
+            buffers[i] = ByteBuffer.wrap(payload);
+            bytes += payload.length;
+        }
+        long remaining = bytes;
+        while (remaining > 0) {
+            remaining -= data.write(buffers);
+        }
+
+        long offset = dataSize;
+        int c = count;
+        for (int i = 0; i < n; i++) {
+            SegmentStore.Pending frame = frames.get(from + i);
+            int p = HEADER_BYTES + (c + i) * ENTRY_BYTES;
+            index.putLong(p, frame.timestamp);
+            index.putLong(p + 8, offset);
+            index.putInt(p + 16, frame.data.length);
+            offset += frame.data.length;
+        }
+        index.putInt(8, c + n);
+
+        dataSize = offset;
+        count = c + n; // publish
+    }
+
+    /**
+     * Stops appends and truncates the index file to the entries written, so that sealed segments
+     * only occupy what they hold. Where a mapped file cannot be truncated (Windows), the index
+     * keeps its full size and {@link #getDiskBytes()} keeps counting it.
+     */
+    void seal() {
+        if (sealed) return;
+        sealed = true;
+        long used = HEADER_BYTES + (long) count * ENTRY_BYTES;
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+            ch.truncate(used);
+            indexFileBytes = used;
+        } catch (IOException ignored) {
+            // Keeps the full-capacity index
+        }
+    }
+
+    // -------------------- Reading --------------------
+
+    int getDevice() {
+        return device;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /** Bytes on disk of this segment (data plus index file, full capacity until sealed). */
+    long getDiskBytes() {
+        return dataSize + indexFileBytes;
+    }
+
+    /** Timestamp of the first entry ({@code Long.MIN_VALUE} while empty). */
+    long getFirstTimestamp() {
+        return count == 0 ? Long.MIN_VALUE : timestampAt(0);
+    }
+
+    /** Timestamp of the last entry ({@code Long.MIN_VALUE} while empty). */
+    long getLastTimestamp() {
+        int n = count;
+        return n == 0 ? Long.MIN_VALUE : timestampAt(n - 1);
+    }
+
+    long timestampAt(int i) {
+        return index.getLong(HEADER_BYTES + i * ENTRY_BYTES);
+    }
+
+    long offsetAt(int i) {
+        return entryOffset(index, i);
+    }
+
+    int lengthAt(int i) {
+        return entryLength(index, i);
+    }
+
+    /** First entry with timestamp {@code >= ts} among the first {@code n} entries (n if none). */
+    int lowerBound(long ts, int n) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) < ts) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First entry with timestamp {@code > ts} among the first {@code n} entries (n if none). */
+    int upperBound(long ts, int n) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) <= ts) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Reads one frame.
+     *
+     * @return frame bytes, or null if the segment was deleted meanwhile
+     */
+    byte[] read(long offset, int length) throws IOException {
+        if (deleted) return null;
+        ByteBuffer dst = ByteBuffer.allocate(length);
+        while (dst.hasRemaining()) {
+            int r = data.read(dst, offset + dst.position());
+            if (r < 0) throw new IOException("Unexpected end of " + dataFile);
+        }
+        return dst.array();
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    void close() {
+        try {
+            data.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Closes and deletes both files.
+     *
+     * @return false if a file could not be deleted (e.g. still mapped on Windows)
+     */
+    boolean delete() {
+        deleted = true;
+        close();
+        boolean ok = true;
+        try {
+            Files.deleteIfExists(dataFile);
+        } catch (IOException e) {
+            ok = false;
+        }
+        try {
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            ok = false;
+        }
+        return ok;
+    }
+
+    private static long entryOffset(ByteBuffer index, int i) {
+        return index.getLong(HEADER_BYTES + i * ENTRY_BYTES + 8);
+    }
+
+    private static int entryLength(ByteBuffer index, int i) {
+        return index.getInt(HEADER_BYTES + i * ENTRY_BYTES + 16);
+    }
+}
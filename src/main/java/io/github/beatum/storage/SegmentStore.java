@@ -0,0 +1,637 @@
+
+package io.github.beatum.storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only, time-indexed recording store: one log per device, each made of large segment
+ * files with a memory-mapped timestamp index.
+ *
+ * <pre>
+ * SegmentStore store = new SegmentStore(Paths.get("recordings"));
+ * store.setMaxTotalBytes(50L &lt;&lt; 30);             // 50 GB, oldest segments evicted first
+ * store.setRetentionMs(TimeUnit.DAYS.toMillis(7));
+ * store.open();
+ *
+ * store.append(0, System.currentTimeMillis(), jpegBytes);
+ *
+ * for (StoredFrame f : store.query(0, from, to)) {
+ *     byte[] jpeg = store.read(f);
+ * }
+ * </pre>
+ *
+ * <h2>Disk layout</h2>
+ * <pre>
+ * root/cam0/000000000001.dat   frame data, back to back
+ * root/cam0/000000000001.idx   fixed-width index (see Segment)
+ * root/cam0/000000000002.dat   next segment ...
+ * </pre>
+ *
+ * <h2>Writes</h2>
+ * <ul>
+ *   <li>{@link #append(int, long, byte[])} never touches the disk: frames are queued in memory
+ *       (bounded by {@link #setMaxPendingBytes(long)}; over the cap, frames are dropped).</li>
+ *   <li>One writer thread for all devices writes each device's queued frames with a single
+ *       gathering write once {@link #setBatchBytes(long) batchBytes} are queued or every
+ *       {@link #setFlushIntervalMs(int) flushIntervalMs}. Many cameras thus produce few large
+ *       sequential writes instead of many small random ones.</li>
+ *   <li>Timestamps must not decrease per device (an older frame is rejected), which keeps each
+ *       index sorted.</li>
+ * </ul>
+ *
+ * <h2>Reads</h2>
+ * Queries only see written frames ({@link #flush()} forces pending frames out). Seeking is a binary
+ * search over the mapped index of the few segments that overlap the requested time.
+ *
+ * <h2>Eviction</h2>
+ * After each write pass, whole segments are deleted oldest first when they are older than the
+ * retention time or while the store exceeds its size cap. The segment being written is never
+ * evicted.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class SegmentStore implements AutoCloseable {
+
+    private static final String DEVICE_PREFIX = "cam";
+
+    private final Path root;
+
+    // -------------------- Configuration --------------------
+
+    private volatile long segmentMaxBytes = 256L << 20;
+    private volatile int segmentMaxFrames = 65536;
+    private volatile long batchBytes = 4L << 20;
+    private volatile int flushIntervalMs = 500;
+    private volatile long maxPendingBytes = 64L << 20;
+    private volatile long retentionMs = 0;
+    private volatile long maxTotalBytes = 0;
+
+    // -------------------- State --------------------
+
+    private final Map<Integer, DeviceLog> logs = new ConcurrentHashMap<>();
+
+    /** Guards pending queues and {@link #pendingBytes}. */
+    private final Object pendingLock = new Object();
+
+    /** Serializes write passes (writer thread or {@link #flush()}). */
+    private final Object writeLock = new Object();
+
+    private long pendingBytes;
+
+    private Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean closed;
+
+    // -------------------- Statistics --------------------
+
+    private volatile long appendedCount;
+    private volatile long droppedCount;
+    private volatile long writtenBytes;
+    private volatile long failedWrites;
+    private volatile long evictedSegments;
+
+    /**
+     * @param root directory holding one sub-directory per device (created on {@link #open()})
+     */
+    public SegmentStore(Path root) {
+        this.root = root;
+    }
+
+    // -------------------- Configuration API --------------------
+
+    public long getSegmentMaxBytes() {
+        return segmentMaxBytes;
+    }
+
+    /** Data bytes after which a new segment is started (default 256 MB). */
+    public void setSegmentMaxBytes(long segmentMaxBytes) {
+        this.segmentMaxBytes = Math.max(1, segmentMaxBytes);
+    }
+
+    public int getSegmentMaxFrames() {
+        return segmentMaxFrames;
+    }
+
+    /** Index capacity of new segments (default 65536 frames, 1.3 MB of index). */
+    public void setSegmentMaxFrames(int segmentMaxFrames) {
+        this.segmentMaxFrames = Math.max(1, segmentMaxFrames);
+    }
+
+    public long getBatchBytes() {
+        return batchBytes;
+    }
+
+    /** Queued bytes that wake the writer before the flush interval (default 4 MB). */
+    public void setBatchBytes(long batchBytes) {
+        this.batchBytes = Math.max(1, batchBytes);
+    }
+
+    public int getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    /** Max time a frame waits in memory before being written (default 500 ms). */
+    public void setFlushIntervalMs(int flushIntervalMs) {
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+    }
+
+    public long getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /** Memory cap for queued frames; appends beyond it are dropped (default 64 MB). */
+    public void setMaxPendingBytes(long maxPendingBytes) {
+        this.maxPendingBytes = Math.max(1, maxPendingBytes);
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    /**
+     * Deletes segments whose newest frame is older than this (0 = keep forever).
+     * Assumes epoch-millisecond timestamps.
+     */
+    public void setRetentionMs(long retentionMs) {
+        this.retentionMs = Math.max(0, retentionMs);
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    /** Size cap over all devices; oldest segments are deleted first (0 = unlimited). */
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = Math.max(0, maxTotalBytes);
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    /**
+     * Loads existing segments and starts the writer thread.
+     * Segments found on disk are read-only; recording continues in new segments.
+     *
+     * @throws IOException if the root directory cannot be created or listed
+     */
+    public synchronized void open() throws IOException {
+        if (closed) throw new IllegalStateException("SegmentStore is closed");
+        if (running) return;
+        Files.createDirectories(root);
+
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, DEVICE_PREFIX + "*")) {
+            for (Path dir : dirs) {
+                int device;
+                try {
+                    device = Integer.parseInt(dir.getFileName().toString().substring(DEVICE_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (Files.isDirectory(dir)) {
+                    logs.put(device, DeviceLog.load(device, dir));
+                }
+            }
+        }
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "SegmentStore-Writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Writes all pending frames, stops the writer and closes all segments.
+     */
+    @Override
+    public void close() {
+        Thread writer;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            running = false;
+            writer = writerThread;
+            writerThread = null;
+        }
+        if (writer != null) {
+            synchronized (pendingLock) {
+                pendingLock.notifyAll();
+            }
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            writePending();
+            for (DeviceLog log : logs.values()) {
+                for (Segment segment : log.segments) {
+                    segment.seal();
+                    segment.close();
+                }
+            }
+        }
+    }
+
+    // -------------------- Writing --------------------
+
+    /**
+     * Queues one encoded frame. Never blocks on the disk.
+     *
+     * @param device device index
+     * @param timestampMs capture time (epoch ms), not older than the device's previous frame
+     * @param data encoded frame (not copied: do not modify after the call)
+     * @return false if the store is not open, the timestamp goes backwards or the queue is full
+     */
+    public boolean append(int device, long timestampMs, byte[] data) {
+        if (!running) return false;
+        DeviceLog log = logs.computeIfAbsent(device, d -> new DeviceLog(d, root.resolve(DEVICE_PREFIX + d)));
+        synchronized (pendingLock) {
+            if (timestampMs < log.lastTimestamp) return false;
+            if (pendingBytes + data.length > maxPendingBytes) {
+                droppedCount++;
+                return false;
+            }
+            log.pending.add(new Pending(timestampMs, data));
+            log.lastTimestamp = timestampMs;
+            pendingBytes += data.length;
+            appendedCount++;
+            if (pendingBytes >= batchBytes) {
+                pendingLock.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all pending frames on the calling thread, so that they become visible to queries,
+     * and applies retention and the size cap.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            writePending();
+            enforceLimits();
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            synchronized (pendingLock) {
+                if (pendingBytes < batchBytes) {
+                    try {
+                        pendingLock.wait(flushIntervalMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            synchronized (writeLock) {
+                writePending();
+                enforceLimits();
+            }
+        }
+    }
+
+    /** Writes every device's queued frames (caller holds {@link #writeLock}). */
+    private void writePending() {
+        for (DeviceLog log : logs.values()) {
+            List<Pending> batch;
+            synchronized (pendingLock) {
+                if (log.pending.isEmpty()) continue;
+                batch = log.pending;
+                log.pending = new ArrayList<>();
+                for (Pending p : batch) {
+                    pendingBytes -= p.data.length;
+                }
+            }
+            try {
+                writeBatch(log, batch);
+            } catch (IOException | RuntimeException e) {
+                // Frames of this batch are lost; the device keeps recording into a fresh segment
+                failedWrites++;
+                if (log.active != null) {
+                    log.active.seal();
+                }
+                log.active = null;
+            }
+        }
+    }
+
+    private void writeBatch(DeviceLog log, List<Pending> batch) throws IOException {
+        long maxBytes = segmentMaxBytes;
+        int i = 0;
+        while (i < batch.size()) {
+            Segment segment = log.active;
+            if (segment == null || !segment.hasRoom(1, batch.get(i).data.length, maxBytes)) {
+                segment = log.roll(segmentMaxFrames);
+            }
+            // Largest run of frames that still fits into this segment
+            int j = i;
+            long bytes = 0;
+            while (j < batch.size() && segment.hasRoom(j - i + 1, bytes + batch.get(j).data.length, maxBytes)) {
+                bytes += batch.get(j).data.length;
+                j++;
+            }
+            segment.append(batch, i, j);
+            writtenBytes += bytes;
+            i = j;
+        }
+    }
+
+    /** Deletes expired segments and enforces the size cap (caller holds {@link #writeLock}). */
+    private void enforceLimits() {
+        long retention = retentionMs;
+        if (retention > 0) {
+            long cutoff = System.currentTimeMillis() - retention;
+            for (DeviceLog log : logs.values()) {
+                while (true) {
+                    Segment oldest = log.evictable();
+                    if (oldest == null || oldest.getLastTimestamp() >= cutoff) break;
+                    evict(log, oldest);
+                }
+            }
+        }
+
+        long cap = maxTotalBytes;
+        if (cap > 0) {
+            long total = getTotalBytes();
+            while (total > cap) {
+                // Oldest evictable segment over all devices
+                DeviceLog victimLog = null;
+                Segment victim = null;
+                for (DeviceLog log : logs.values()) {
+                    Segment candidate = log.evictable();
+                    if (candidate != null && (victim == null
+                            || candidate.getLastTimestamp() < victim.getLastTimestamp())) {
+                        victim = candidate;
+                        victimLog = log;
+                    }
+                }
+                if (victim == null) break;
+                total -= victim.getDiskBytes();
+                evict(victimLog, victim);
+            }
+        }
+    }
+
+    private void evict(DeviceLog log, Segment segment) {
+        log.segments.remove(segment);
+        segment.delete();
+        evictedSegments++;
+    }
+
+    // -------------------- Reading --------------------
+
+    /** Devices with a log (recorded now or found on disk). */
+    public Set<Integer> getDevices() {
+        return Collections.unmodifiableSet(new TreeSet<>(logs.keySet()));
+    }
+
+    /**
+     * Frames with {@code fromMs <= timestamp < toMs}, oldest first.
+     *
+     * @param device device index
+     * @param fromMs start (inclusive)
+     * @param toMs end (exclusive)
+     * @return handles (empty if none)
+     */
+    public List<StoredFrame> query(int device, long fromMs, long toMs) {
+        List<StoredFrame> result = new ArrayList<>();
+        DeviceLog log = logs.get(device);
+        if (log == null || fromMs >= toMs) return result;
+        for (Segment segment : log.segments) {
+            int n = segment.getCount();
+            if (n == 0 || segment.getLastTimestamp() < fromMs) continue;
+            if (segment.getFirstTimestamp() >= toMs) break;
+            for (int i = segment.lowerBound(fromMs, n); i < n && segment.timestampAt(i) < toMs; i++) {
+                result.add(new StoredFrame(segment, i));
+            }
+        }
+        return result;
+    }
+
+    /** Newest frame with {@code timestamp <= timestampMs}, or null. */
+    public StoredFrame floor(int device, long timestampMs) {
+        DeviceLog log = logs.get(device);
+        if (log == null) return null;
+        List<Segment> segments = log.segments;
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment segment = segments.get(s);
+            int n = segment.getCount();
+            if (n == 0 || segment.getFirstTimestamp() > timestampMs) continue;
+            return new StoredFrame(segment, segment.upperBound(timestampMs, n) - 1);
+        }
+        return null;
+    }
+
+    /** Oldest frame with {@code timestamp >= timestampMs}, or null. */
+    public StoredFrame ceiling(int device, long timestampMs) {
+        DeviceLog log = logs.get(device);
+        if (log == null) return null;
+        for (Segment segment : log.segments) {
+            int n = segment.getCount();
+            if (n == 0 || segment.getLastTimestamp() < timestampMs) continue;
+            return new StoredFrame(segment, segment.lowerBound(timestampMs, n));
+        }
+        return null;
+    }
+
+    /** Oldest stored frame of a device, or null. */
+    public StoredFrame first(int device) {
+        return ceiling(device, Long.MIN_VALUE);
+    }
+
+    /** Newest stored frame of a device, or null. */
+    public StoredFrame last(int device) {
+        return floor(device, Long.MAX_VALUE);
+    }
+
+    /** Frame after {@code frame} (also across segments), or null at the end. */
+    public StoredFrame next(StoredFrame frame) {
+        Segment segment = frame.getSegment();
+        if (frame.getPosition() + 1 < segment.getCount()) {
+            return new StoredFrame(segment, frame.getPosition() + 1);
+        }
+        DeviceLog log = logs.get(segment.getDevice());
+        if (log == null) return null;
+        for (Segment s : log.segments) {
+            if (s.getSequence() > segment.getSequence() && s.getCount() > 0) {
+                return new StoredFrame(s, 0);
+            }
+        }
+        return null;
+    }
+
+    /** Frame before {@code frame} (also across segments), or null at the start. */
+    public StoredFrame previous(StoredFrame frame) {
+        Segment segment = frame.getSegment();
+        if (frame.getPosition() > 0) {
+            return new StoredFrame(segment, frame.getPosition() - 1);
+        }
+        DeviceLog log = logs.get(segment.getDevice());
+        if (log == null) return null;
+        List<Segment> segments = log.segments;
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            Segment candidate = segments.get(s);
+            if (candidate.getSequence() < segment.getSequence() && candidate.getCount() > 0) {
+                return new StoredFrame(candidate, candidate.getCount() - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the encoded bytes of a frame.
+     *
+     * @return bytes, or null if the frame was evicted or cannot be read
+     */
+    public byte[] read(StoredFrame frame) {
+        try {
+            return frame.getSegment().read(frame.getOffset(), frame.getLength());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // -------------------- Statistics --------------------
+
+    /** Bytes on disk over all devices (written frames plus index). */
+    public long getTotalBytes() {
+        long total = 0;
+        for (DeviceLog log : logs.values()) {
+            for (Segment segment : log.segments) {
+                total += segment.getDiskBytes();
+            }
+        }
+        return total;
+    }
+
+    /** Bytes queued in memory, not yet written. */
+    public long getPendingBytes() {
+        synchronized (pendingLock) {
+            return pendingBytes;
+        }
+    }
+
+    public long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /** Frames rejected because the pending queue was full (disk too slow). */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /** Batches lost to I/O errors. */
+    public long getFailedWrites() {
+        return failedWrites;
+    }
+
+    public long getEvictedSegments() {
+        return evictedSegments;
+    }
+
+    // -------------------- Internal types --------------------
+
+    /** A queued frame. */
+    static final class Pending {
+
+        final long timestamp;
+        final byte[] data;
+
+        Pending(long timestamp, byte[] data) {
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Segments of one device, oldest first.
+     */
+    private static final class DeviceLog {
+
+        final int device;
+        final Path dir;
+
+        /** Oldest first; copy-on-write so queries never lock against the writer. */
+        final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+        /** Segment being written (writer only); null until the first write after open. */
+        Segment active;
+
+        long nextSequence = 1;
+
+        /** Timestamp of the newest appended frame (guarded by pendingLock). */
+        long lastTimestamp = Long.MIN_VALUE;
+
+        /** Queued frames (guarded by pendingLock). */
+        List<Pending> pending = new ArrayList<>();
+
+        DeviceLog(int device, Path dir) {
+            this.device = device;
+            this.dir = dir;
+        }
+
+        /** Loads the segments found in {@code dir}; unreadable ones are skipped. */
+        static DeviceLog load(int device, Path dir) throws IOException {
+            DeviceLog log = new DeviceLog(device, dir);
+            TreeSet<Long> sequences = new TreeSet<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + Segment.INDEX_SUFFIX)) {
+                for (Path file : files) {
+                    long sequence = Segment.parseSequence(file.getFileName().toString());
+                    if (sequence >= 0) sequences.add(sequence);
+                }
+            }
+            for (long sequence : sequences) {
+                log.nextSequence = sequence + 1;
+                Segment segment;
+                try {
+                    segment = Segment.open(dir, device, sequence);
+                } catch (IOException e) {
+                    continue;
+                }
+                if (segment != null) {
+                    log.segments.add(segment);
+                    log.lastTimestamp = segment.getLastTimestamp();
+                }
+            }
+            return log;
+        }
+
+        /** Starts a new segment (writer only). */
+        Segment roll(int capacity) throws IOException {
+            Files.createDirectories(dir);
+            if (active != null) {
+                active.seal();
+            }
+            Segment segment = Segment.create(dir, device, nextSequence++, capacity);
+            segments.add(segment);
+            active = segment;
+            return segment;
+        }
+
+        /** Oldest segment that may be deleted (never the one being written), or null. */
+        Segment evictable() {
+            if (segments.isEmpty()) return null;
+            Segment oldest = segments.get(0);
+            return oldest == active ? null : oldest;
+        }
+    }
+}
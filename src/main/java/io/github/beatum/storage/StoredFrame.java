@@ -0,0 +1,75 @@
+
+package io.github.beatum.storage;
+
+/**
+ * Handle of one recorded frame in a {@link SegmentStore}.
+ *
+ * <p>A handle is cheap (no frame data) and stays usable for {@link SegmentStore#read(StoredFrame)},
+ * {@link SegmentStore#next(StoredFrame)} and {@link SegmentStore#previous(StoredFrame)} until its
+ * segment is evicted.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class StoredFrame {
+
+    private final Segment segment;
+    private final int position;
+    private final long timestamp;
+    private final long offset;
+    private final int length;
+
+    StoredFrame(Segment segment, int position) {
+        this.segment = segment;
+        this.position = position;
+        this.timestamp = segment.timestampAt(position);
+        this.offset = segment.offsetAt(position);
+        this.length = segment.lengthAt(position);
+    }
+
+    public int getDevice() {
+        return segment.getDevice();
+    }
+
+    /** Timestamp given to {@link SegmentStore#append(int, long, byte[])} (epoch ms). */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Encoded size in bytes. */
+    public int getLength() {
+        return length;
+    }
+
+    Segment getSegment() {
+        return segment;
+    }
+
+    /** Index entry position within the segment. */
+    int getPosition() {
+        return position;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StoredFrame)) return false;
+        StoredFrame that = (StoredFrame) o;
+        return segment == that.segment && position == that.position;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(segment) + position;
+    }
+
+    @Override
+    public String toString() {
+        return "StoredFrame[device=" + getDevice() + ", timestamp=" + timestamp + ", length=" + length + "]";
+    }
+}
@@ -17,20 +17,27 @@ public class Commons {
      * */
     public static BufferedImage mat2BufferImage(Mat mat) {
         byte[] tempByteArray = null;
-        Mat tempMap = new Mat();
-        int type = BufferedImage.TYPE_BYTE_GRAY;
-        if (mat.channels() > 1) {
-            Imgproc.cvtColor(mat, tempMap, Imgproc.COLOR_BGR2RGB);
-            type = BufferedImage.TYPE_3BYTE_BGR;
+        Mat tempMap = MatTracker.track(new Mat(), "Commons.mat2BufferImage", MatTracker.NO_DEVICE);
+        try {
+            Mat source = mat;
+            int type = BufferedImage.TYPE_BYTE_GRAY;
+            if (mat.channels() > 1) {
+                Imgproc.cvtColor(mat, tempMap, Imgproc.COLOR_BGR2RGB);
+                source = tempMap;
+                type = BufferedImage.TYPE_3BYTE_BGR;
+            }
+            int lengthOfPointer = mat.channels() * mat.cols() * mat.rows();
+            if (tempByteArray == null || tempByteArray.length != lengthOfPointer) {
+                tempByteArray = new byte[lengthOfPointer];
+            }
+            source.get(0, 0, tempByteArray);
+            BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
+            image.getRaster().setDataElements(0, 0, mat.cols(), mat.rows(), tempByteArray);
+            return image;
+        } finally {
+            // Native memory: not reclaimed until finalization otherwise
+            tempMap.release();
         }
-        int lengthOfPointer = mat.channels() * mat.cols() * mat.rows();
-        if (tempByteArray == null || tempByteArray.length != lengthOfPointer) {
-            tempByteArray = new byte[lengthOfPointer];
-        }
-        tempMap.get(0, 0, tempByteArray);
-        BufferedImage image = new BufferedImage(mat.cols(), mat.rows(), type);
-        image.getRaster().setDataElements(0, 0, mat.cols(), mat.rows(), tempByteArray);
-        return image;
     }
 
     /*
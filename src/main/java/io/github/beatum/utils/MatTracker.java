@@ -0,0 +1,324 @@
+package io.github.beatum.utils;
+
+import org.opencv.core.Mat;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in accounting of OpenCV native memory and detector for leaked {@link Mat}s.
+ *
+ * <p>Mat pixel data lives off-heap, so the JVM neither counts it nor feels pressure to collect
+ * the small Java objects that hold it: a filter returning a fresh Mat per frame, or a
+ * {@code snapshotFrame()} caller forgetting {@code release()}, only shows up when the process is
+ * killed for running out of memory.</p>
+ *
+ * <h2>Enabling</h2>
+ * <pre>
+ * java -Dactivityshow.matTracker=true [-Dactivityshow.matTracker.leakAgeMs=10000] ...
+ * </pre>
+ * When disabled (default) every call returns immediately on a {@code static final} flag, which
+ * the JIT removes entirely.
+ *
+ * <h2>How it works</h2>
+ * <ul>
+ *   <li>Allocation points register Mats with an <b>owner</b> (e.g. {@code "VideoPanel.snapshotFrame"})
+ *       and a device index. Entries are weak references keyed by the Mat's native address, so
+ *       tracking never keeps a Mat alive.</li>
+ *   <li>Gauges are computed on demand from the Mats' current size: released Mats count as 0
+ *       bytes, and reused buffers that grow or shrink are accounted as they are now.</li>
+ *   <li>{@link #track} is for <b>transient</b> Mats that should be released soon. Transient Mats
+ *       still holding data after the leak age are reported by {@link #findSuspects()} together with
+ *       the stack of their allocation site. {@link #trackBuffer} is for long-lived, reused buffers
+ *       that count towards the gauges but are never suspects.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class MatTracker {
+
+    /** Whether tracking is on ({@code -Dactivityshow.matTracker=true}); fixed at startup. */
+    public static final boolean ENABLED = Boolean.getBoolean("activityshow.matTracker");
+
+    /** Device index used for Mats not tied to a device. */
+    public static final int NO_DEVICE = -1;
+
+    /** Age after which a transient Mat still holding data is a leak suspect. */
+    private static volatile long leakAgeMs = Long.getLong("activityshow.matTracker.leakAgeMs", 10_000L);
+
+    /** Tracked Mats by native address. */
+    private static final Map<Long, Entry> LIVE = new ConcurrentHashMap<>();
+
+    /** Entries whose Mat was garbage collected. */
+    private static final ReferenceQueue<Mat> COLLECTED = new ReferenceQueue<>();
+
+    private static final AtomicLong TRACKED_COUNT = new AtomicLong();
+    private static final AtomicLong COLLECTED_COUNT = new AtomicLong();
+
+    private MatTracker() {
+    }
+
+    // -------------------- Registration --------------------
+
+    /**
+     * Registers a transient Mat (expected to be released soon, e.g. a snapshot clone).
+     * Registering an already tracked Mat again keeps its first owner and site; a transient Mat
+     * registered again is being reused (e.g. a filter returning its own output buffer every frame)
+     * and is no longer reported as a suspect.
+     *
+     * @param mat Mat to track (returned as is)
+     * @param owner allocation point, e.g. {@code "VideoPanel.snapshotFrame"}
+     * @param device device index, or {@link #NO_DEVICE}
+     * @return {@code mat}
+     */
+    public static <T extends Mat> T track(T mat, String owner, int device) {
+        if (!ENABLED || mat == null) return mat;
+        register(mat, owner, device, false);
+        return mat;
+    }
+
+    /**
+     * Registers a long-lived, reused buffer (counted in the gauges, never a leak suspect).
+     *
+     * @param mat Mat to track (returned as is)
+     * @param owner owning component, e.g. {@code "VideoPanel.lastFrame"}
+     * @param device device index, or {@link #NO_DEVICE}
+     * @return {@code mat}
+     */
+    public static <T extends Mat> T trackBuffer(T mat, String owner, int device) {
+        if (!ENABLED || mat == null) return mat;
+        register(mat, owner, device, true);
+        return mat;
+    }
+
+    /** Registers regardless of {@link #ENABLED} (package-private for tests). */
+    static void register(Mat mat, String owner, int device, boolean buffer) {
+        purgeCollected();
+        long address = mat.getNativeObjAddr();
+        Entry existing = LIVE.get(address);
+        if (existing != null && existing.get() == mat) {
+            existing.buffer = true;
+            return;
+        }
+        // A reused address of a collected Mat is simply replaced
+        LIVE.put(address, new Entry(mat, address, owner, device, buffer,
+                buffer ? null : new Throwable("Mat allocated by " + owner)));
+        TRACKED_COUNT.incrementAndGet();
+    }
+
+    // -------------------- Gauges --------------------
+
+    /** Bytes of pixel data held by all tracked Mats right now. */
+    public static long getLiveBytes() {
+        long total = 0;
+        for (Entry e : snapshot()) {
+            total += e.bytes;
+        }
+        return total;
+    }
+
+    /** Tracked Mats currently holding data. */
+    public static int getLiveCount() {
+        int count = 0;
+        for (Entry e : snapshot()) {
+            if (e.bytes > 0) count++;
+        }
+        return count;
+    }
+
+    /** Live bytes per owner (sorted by owner). */
+    public static Map<String, Long> getLiveBytesByOwner() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Entry e : snapshot()) {
+            if (e.bytes > 0) result.merge(e.owner, e.bytes, Long::sum);
+        }
+        return result;
+    }
+
+    /** Live bytes per device index ({@link #NO_DEVICE} for shared Mats). */
+    public static Map<Integer, Long> getLiveBytesByDevice() {
+        Map<Integer, Long> result = new TreeMap<>();
+        for (Entry e : snapshot()) {
+            if (e.bytes > 0) result.merge(e.device, e.bytes, Long::sum);
+        }
+        return result;
+    }
+
+    /** Mats registered since startup. */
+    public static long getTrackedCount() {
+        return TRACKED_COUNT.get();
+    }
+
+    /** Tracked Mats reclaimed by the garbage collector (instead of being kept). */
+    public static long getCollectedCount() {
+        purgeCollected();
+        return COLLECTED_COUNT.get();
+    }
+
+    // -------------------- Leak detection --------------------
+
+    public static long getLeakAgeMs() {
+        return leakAgeMs;
+    }
+
+    public static void setLeakAgeMs(long ms) {
+        leakAgeMs = Math.max(0, ms);
+    }
+
+    /** Transient Mats still holding data after the leak age, largest first. */
+    public static List<Suspect> findSuspects() {
+        return findSuspects(leakAgeMs);
+    }
+
+    /**
+     * @param minAgeMs minimum age of a transient Mat to be reported
+     * @return suspects, largest first
+     */
+    public static List<Suspect> findSuspects(long minAgeMs) {
+        long now = System.nanoTime();
+        List<Suspect> result = new ArrayList<>();
+        for (Entry e : snapshot()) {
+            if (e.buffer || e.bytes == 0) continue;
+            long ageMs = (now - e.createdNanos) / 1_000_000;
+            if (ageMs >= minAgeMs) {
+                result.add(new Suspect(e.owner, e.device, e.bytes, ageMs, e.site.getStackTrace()));
+            }
+        }
+        result.sort(Comparator.comparingLong(Suspect::getBytes).reversed());
+        return result;
+    }
+
+    /**
+     * Human-readable summary: gauges per owner and device, then suspects with their sites.
+     */
+    public static String report() {
+        if (!ENABLED) return "MatTracker disabled (-Dactivityshow.matTracker=true to enable)";
+        StringBuilder sb = new StringBuilder();
+        sb.append("Native Mat memory: ").append(getLiveBytes() / 1024).append(" KB in ")
+                .append(getLiveCount()).append(" Mats\n");
+        for (Map.Entry<String, Long> e : getLiveBytesByOwner().entrySet()) {
+            sb.append("  owner ").append(e.getKey()).append(": ").append(e.getValue() / 1024).append(" KB\n");
+        }
+        for (Map.Entry<Integer, Long> e : getLiveBytesByDevice().entrySet()) {
+            sb.append("  device ").append(e.getKey()).append(": ").append(e.getValue() / 1024).append(" KB\n");
+        }
+        for (Suspect s : findSuspects()) {
+            sb.append("Suspected leak: ").append(s).append('\n');
+            for (StackTraceElement frame : s.getSite()) {
+                sb.append("    at ").append(frame).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    // -------------------- Internal helpers --------------------
+
+    /**
+     * Reads the current size of every live tracked Mat.
+     * Holding the strong reference while reading keeps the Mat from being finalized meanwhile.
+     */
+    private static List<Entry> snapshot() {
+        purgeCollected();
+        List<Entry> result = new ArrayList<>(LIVE.size());
+        for (Entry e : LIVE.values()) {
+            Mat mat = e.get();
+            if (mat == null) continue;
+            try {
+                e.bytes = mat.empty() ? 0 : mat.total() * mat.elemSize();
+            } catch (RuntimeException ignored) {
+                e.bytes = 0;
+            }
+            result.add(e);
+        }
+        return result;
+    }
+
+    private static void purgeCollected() {
+        Object ref;
+        while ((ref = COLLECTED.poll()) != null) {
+            Entry e = (Entry) ref;
+            if (LIVE.remove(e.address, e)) {
+                COLLECTED_COUNT.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry extends WeakReference<Mat> {
+
+        final long address;
+        final String owner;
+        final int device;
+        final Throwable site;
+        final long createdNanos = System.nanoTime();
+
+        /** Reused buffer: never a leak suspect. */
+        volatile boolean buffer;
+
+        /** Size at the last gauge read. */
+        volatile long bytes;
+
+        Entry(Mat mat, long address, String owner, int device, boolean buffer, Throwable site) {
+            super(mat, COLLECTED);
+            this.address = address;
+            this.owner = owner;
+            this.device = device;
+            this.buffer = buffer;
+            this.site = site;
+        }
+    }
+
+    /**
+     * A transient Mat that outlived the leak age.
+     */
+    public static final class Suspect {
+
+        private final String owner;
+        private final int device;
+        private final long bytes;
+        private final long ageMs;
+        private final StackTraceElement[] site;
+
+        Suspect(String owner, int device, long bytes, long ageMs, StackTraceElement[] site) {
+            this.owner = owner;
+            this.device = device;
+            this.bytes = bytes;
+            this.ageMs = ageMs;
+            this.site = site;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public int getDevice() {
+            return device;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getAgeMs() {
+            return ageMs;
+        }
+
+        /** Stack of the allocation site. */
+        public StackTraceElement[] getSite() {
+            return site.clone();
+        }
+
+        @Override
+        public String toString() {
+            return owner + " device=" + device + " bytes=" + bytes + " age=" + ageMs + "ms";
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Encodes and writes snapshots on background threads.
+ *
+ * <p>Callers hand over a frame (or a {@link VideoPanel} to snapshot) and get a
+ * {@link CompletableFuture} that completes with {@code true} once the file is written.
+ * Queued frames are raw Mats, so the queue is bounded by <b>bytes</b>, not by count: a
+ * submission that would exceed the memory cap is rejected immediately (future completes
+ * with {@code false}) instead of blocking the caller.</p>
+ *
+ * <p>Encode and write times are accumulated separately so throughput of the codec and of the
+ * disk can be told apart.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class AsyncSnapshotWriter implements AutoCloseable {
+
+    private final ExecutorService executor;
+
+    /** Max raw bytes of frames waiting for or being encoded. */
+    private final long maxQueuedBytes;
+
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    private static final CompletableFuture<Boolean> DONE = CompletableFuture.completedFuture(true);
+
+    /** Last pending {@link #record} per store and device; guarded by itself. */
+    private final Map<Object, CompletableFuture<Boolean>> appendTails = new HashMap<>();
+
+    // -------------------- Statistics --------------------
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    /**
+     * Creates a writer.
+     *
+     * @param threads number of encode threads (>= 1)
+     * @param maxQueuedBytes memory cap for queued raw frames (e.g. 256 MB = ~10 4K BGR frames)
+     */
+    public AsyncSnapshotWriter(int threads, long maxQueuedBytes) {
+        this.maxQueuedBytes = Math.max(1, maxQueuedBytes);
+        AtomicInteger n = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "AsyncSnapshotWriter-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Snapshots a viewer and writes the frame asynchronously.
+     * Only the in-memory copy of the last frame happens on the calling thread.
+     *
+     * @param viewer viewer to snapshot
+     * @param file destination (extension selects the codec)
+     * @param options encoding options
+     * @return future completing with true when written, false if rejected, empty or failed
+     */
+    public CompletableFuture<Boolean> submit(VideoPanel viewer, Path file, SnapshotOptions options) {
+        long[] sequence = new long[1];
+        Consumer<Mat> burnIn = options.isBurnInOverlays() ? viewer.overlayBurnIn() : null;
+        Mat frame = viewer.snapshotFrame(sequence);
+        String extension = SnapshotOptions.extensionOf(file.getFileName().toString());
+        return submit(frame, viewer.getDeviceIndex(), sequence[0], extension, options, burnIn, file, DONE,
+                encoded -> Files.write(file, encoded));
+    }
+
+    /**
+     * Writes a frame asynchronously. The writer takes ownership of {@code frame}
+     * and releases it when done (also on rejection).
+     *
+     * @param frame frame to write (ownership transferred)
+     * @param file destination (extension selects the codec)
+     * @param options encoding options
+     * @return future completing with true when written, false if rejected, empty or failed
+     */
+    public CompletableFuture<Boolean> submit(Mat frame, Path file, SnapshotOptions options) {
+        String extension = SnapshotOptions.extensionOf(file.getFileName().toString());
+        return submit(frame, -1, -1, extension, options, null, file, DONE, encoded -> Files.write(file, encoded));
+    }
+
+    /**
+     * Snapshots a viewer and records the encoded frame in a {@link SegmentStore} (instead of a
+     * loose file), stamped with the current time.
+     *
+     * <p>Frames are encoded in parallel, but appended in submission order per store and device:
+     * the store rejects a timestamp older than the device's last one, so a frame encoded faster
+     * than its predecessor waits for it instead of being dropped.</p>
+     *
+     * @param viewer viewer to snapshot
+     * @param store open store
+     * @param extension codec, e.g. ".jpg" (the dot is optional)
+     * @param options encoding options
+     * @return future completing with true when queued in the store, false if rejected, empty or failed
+     */
+    public CompletableFuture<Boolean> record(VideoPanel viewer, SegmentStore store,
+                                             String extension, SnapshotOptions options) {
+        // SnapshotOptions selects the codec options by the bare extension
+        String codec = extension.startsWith(".") ? extension.substring(1) : extension;
+        int device = viewer.getDeviceIndex();
+        long[] sequence = new long[1];
+        Consumer<Mat> burnIn = options.isBurnInOverlays() ? viewer.overlayBurnIn() : null;
+        Mat frame = viewer.snapshotFrame(sequence);
+        Object key = Arrays.asList(store, device);
+        synchronized (appendTails) {
+            // Stamped under the lock, so that timestamps follow the append order
+            long timestamp = System.currentTimeMillis();
+            CompletableFuture<Boolean> previous = appendTails.getOrDefault(key, DONE);
+            CompletableFuture<Boolean> future = submit(frame, device, sequence[0], codec, options, burnIn,
+                    "SegmentStore", previous, encoded -> {
+                        if (!store.append(device, timestamp, encoded)) {
+                            throw new IOException("SegmentStore rejected frame of device " + device);
+                        }
+                    });
+            appendTails.put(key, future);
+            future.whenComplete((written, error) -> {
+                synchronized (appendTails) {
+                    appendTails.remove(key, future);
+                }
+            });
+            return future;
+        }
+    }
+
+    /**
+     * @param device device index (tags the trace events), -1 if unknown
+     * @param sequence frame sequence (tags the trace events), -1 if unknown
+     * @param burnIn draws overlays into the frame before encoding, or null
+     * @param destination where the frame goes (tags the trace events)
+     * @param after the write waits for this future (never completes exceptionally)
+     */
+    private CompletableFuture<Boolean> submit(Mat frame, int device, long sequence, String extension,
+                                              SnapshotOptions options, Consumer<Mat> burnIn,
+                                              Object destination, CompletableFuture<Boolean> after, Sink sink) {
+        if (frame.empty()) {
+            frame.release();
+            failedCount.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+
+        long bytes = frame.total() * frame.elemSize();
+        if (queuedBytes.addAndGet(bytes) > maxQueuedBytes) {
+            queuedBytes.addAndGet(-bytes);
+            frame.release();
+            rejectedCount.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // Chained before the encode starts, so the write runs on a writer thread, never the caller's
+        CompletableFuture<byte[]> encoded = new CompletableFuture<>();
+        CompletableFuture<Boolean> future = encoded.thenCombine(after,
+                (data, ignored) -> write(data, device, sequence, destination, sink));
+        try {
+            executor.execute(() -> encoded.complete(
+                    encode(frame, bytes, device, sequence, extension, options, burnIn, destination)));
+        } catch (RejectedExecutionException e) {
+            // Writer already closed
+            queuedBytes.addAndGet(-bytes);
+            frame.release();
+            rejectedCount.incrementAndGet();
+            encoded.complete(null);
+        }
+        return future;
+    }
+
+    /**
+     * @return the encoded frame, or null if encoding failed (counted as failed)
+     */
+    private byte[] encode(Mat frame, long bytes, int device, long sequence, String extension,
+                          SnapshotOptions options, Consumer<Mat> burnIn, Object destination) {
+        try {
+            SnapshotEvent encodeEvent = new SnapshotEvent();
+            encodeEvent.begin();
+            long t0 = System.nanoTime();
+            if (burnIn != null) {
+                burnIn.accept(frame);
+            }
+            byte[] encoded = options.encode(frame, extension);
+            encodeNanos.addAndGet(System.nanoTime() - t0);
+            encodeEvent.finish(device, sequence, SnapshotEvent.ENCODE,
+                    encoded != null ? encoded.length : 0, destination);
+            if (encoded == null) {
+                failedCount.incrementAndGet();
+            }
+            return encoded;
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            return null;
+        } finally {
+            // Raw frame is no longer needed: free its share of the memory cap before the disk write
+            frame.release();
+            queuedBytes.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * @param encoded encoded frame, or null if it was rejected or failed to encode (already counted)
+     */
+    private boolean write(byte[] encoded, int device, long sequence, Object destination, Sink sink) {
+        if (encoded == null) {
+            return false;
+        }
+        try {
+            SnapshotEvent writeEvent = new SnapshotEvent();
+            writeEvent.begin();
+            long t0 = System.nanoTime();
+            sink.write(encoded);
+            writeNanos.addAndGet(System.nanoTime() - t0);
+            writeEvent.finish(device, sequence, SnapshotEvent.WRITE, encoded.length, destination);
+            bytesWritten.addAndGet(encoded.length);
+            completedCount.incrementAndGet();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /** Destination of an encoded snapshot. */
+    private interface Sink {
+        void write(byte[] encoded) throws IOException;
+    }
+
+    // -------------------- Statistics --------------------
+
+    /** Raw bytes currently queued or being encoded. */
+    public long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    public long getMaxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /** Submissions refused because the memory cap was reached (or the writer was closed). */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** Total CPU time spent encoding, summed over threads. */
+    public long getEncodeNanos() {
+        return encodeNanos.get();
+    }
+
+    /** Total time spent writing files, summed over threads. */
+    public long getWriteNanos() {
+        return writeNanos.get();
+    }
+
+    /** Frames encoded per second of encode time (per thread). */
+    public double getEncodeFramesPerSecond() {
+        long nanos = encodeNanos.get();
+        return nanos == 0 ? 0 : completedCount.get() * 1e9 / nanos;
+    }
+
+    /** Megabytes written per second of write time (per thread). */
+    public double getWriteMegabytesPerSecond() {
+        long nanos = writeNanos.get();
+        return nanos == 0 ? 0 : bytesWritten.get() / 1e6 * 1e9 / nanos;
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    /**
+     * Stops accepting snapshots and waits for queued ones to finish.
+     *
+     * @param timeoutMs max wait
+     * @return true if all queued snapshots finished in time
+     */
+    public boolean shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #shutdown(long)} with a 10 s timeout.
+     */
+    @Override
+    public void close() {
+        shutdown(10_000);
+    }
+}
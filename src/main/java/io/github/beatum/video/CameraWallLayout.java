@@ -0,0 +1,394 @@
+
+package io.github.beatum.video;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid {@link LayoutManager} for camera walls (tens of cameras).
+ *
+ * <p>Unlike a fixed {@link GridLayout}:</p>
+ * <ul>
+ *   <li>The grid is computed from the number of <b>visible</b> components and the container's
+ *       aspect ratio, choosing the column count that gives the largest cells of
+ *       {@link #getCellAspect() camera aspect}. Hidden components (e.g. collapsed "Empty"
+ *       placeholders) take no cell.</li>
+ *   <li>At most {@link #getMaxPerPage()} cells are shown; components on other pages get empty
+ *       bounds, which makes their {@link VideoPanel}s skip all display work.</li>
+ *   <li>Each {@link VideoPanel} (the component itself or a direct child of a wrapper panel) is told
+ *       its exact cell size via {@link VideoPanel#setDisplaySize(int, int)}, so capture-side
+ *       resizing targets the real display size. During a live window resize the new sizes are
+ *       only pushed once the size has been stable for {@link #getResizeDebounceMs()} ms; in between,
+ *       panels rescale their last image while painting.</li>
+ *   <li>Focus mode ({@link #setFocused(Component)}) shows one camera large and the rest as
+ *       thumbnails in a side strip.</li>
+ * </ul>
+ *
+ * <p>All methods are called on the EDT, like any Swing layout.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class CameraWallLayout implements LayoutManager {
+
+    /** Horizontal gap between cells. */
+    private final int hgap;
+
+    /** Vertical gap between cells. */
+    private final int vgap;
+
+    /** Width / height of one camera image (cells are chosen to fit it best). */
+    private double cellAspect = 16.0 / 9.0;
+
+    /** Max cells per page (0 = unlimited). */
+    private int maxPerPage = 0;
+
+    /** Current page (0-based). */
+    private int page = 0;
+
+    /** Quiet time before new cell sizes are pushed to the viewers. */
+    private int resizeDebounceMs = 200;
+
+    /** Component shown large in focus mode (null = plain grid). */
+    private Component focused;
+
+    /** Width fraction of the thumbnail strip in focus mode. */
+    private double focusStripFraction = 0.25;
+
+    /** Set by focus changes: the next layout pushes sizes without debounce. */
+    private boolean immediateResize;
+
+    /** Sizes waiting for the debounce timer. */
+    private final Map<VideoPanel, Dimension> pendingSizes = new IdentityHashMap<>();
+
+    /** Debounce timer (lazily created, single-shot). */
+    private Timer debounceTimer;
+
+    public CameraWallLayout() {
+        this(6, 6);
+    }
+
+    /**
+     * @param hgap horizontal gap between cells
+     * @param vgap vertical gap between cells
+     */
+    public CameraWallLayout(int hgap, int vgap) {
+        this.hgap = Math.max(0, hgap);
+        this.vgap = Math.max(0, vgap);
+    }
+
+    // -------------------- Getters / Setters --------------------
+
+    public double getCellAspect() {
+        return cellAspect;
+    }
+
+    /**
+     * @param cellAspect width / height of the camera images (e.g. 16/9, 4/3)
+     */
+    public void setCellAspect(double cellAspect) {
+        if (cellAspect > 0) {
+            this.cellAspect = cellAspect;
+        }
+    }
+
+    public int getMaxPerPage() {
+        return maxPerPage;
+    }
+
+    /**
+     * Limits how many cameras are shown at once. Call {@code container.revalidate()} afterwards.
+     *
+     * @param maxPerPage max cells per page (0 = all on one page)
+     */
+    public void setMaxPerPage(int maxPerPage) {
+        this.maxPerPage = Math.max(0, maxPerPage);
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Selects the page to show (clamped during layout). Call {@code container.revalidate()} afterwards.
+     *
+     * @param page 0-based page index
+     */
+    public void setPage(int page) {
+        this.page = Math.max(0, page);
+    }
+
+    /**
+     * @return number of pages needed for the visible components of {@code parent}
+     */
+    public int getPageCount(Container parent) {
+        int n = gridComponents(parent).size();
+        if (n == 0) return 1;
+        return maxPerPage <= 0 ? 1 : (n + maxPerPage - 1) / maxPerPage;
+    }
+
+    public Component getFocused() {
+        return focused;
+    }
+
+    /**
+     * Shows one component large, with all others as thumbnails in a strip on the right
+     * (paged like the normal grid). Sizes are pushed to the viewers without debounce so the
+     * focused viewer renders sharp immediately. Call {@code container.revalidate()} afterwards.
+     *
+     * @param component child to focus, or null to return to the plain grid
+     */
+    public void setFocused(Component component) {
+        if (component != focused) {
+            this.focused = component;
+            this.immediateResize = true;
+        }
+    }
+
+    public double getFocusStripFraction() {
+        return focusStripFraction;
+    }
+
+    /**
+     * @param fraction width of the thumbnail strip relative to the container (0.1 .. 0.5)
+     */
+    public void setFocusStripFraction(double fraction) {
+        this.focusStripFraction = Math.max(0.1, Math.min(0.5, fraction));
+    }
+
+    public int getResizeDebounceMs() {
+        return resizeDebounceMs;
+    }
+
+    /**
+     * @param resizeDebounceMs quiet time before new cell sizes are pushed (0 = immediately)
+     */
+    public void setResizeDebounceMs(int resizeDebounceMs) {
+        this.resizeDebounceMs = Math.max(0, resizeDebounceMs);
+    }
+
+    // -------------------- LayoutManager --------------------
+
+    @Override
+    public void addLayoutComponent(String name, Component comp) {
+        // No constraints
+    }
+
+    @Override
+    public void removeLayoutComponent(Component comp) {
+        if (comp == focused) {
+            focused = null;
+        }
+        VideoPanel viewer = findViewer(comp);
+        if (viewer != null) {
+            pendingSizes.remove(viewer);
+        }
+    }
+
+    @Override
+    public Dimension preferredLayoutSize(Container parent) {
+        return layoutSize(parent, 320);
+    }
+
+    @Override
+    public Dimension minimumLayoutSize(Container parent) {
+        return layoutSize(parent, 80);
+    }
+
+    @Override
+    public void layoutContainer(Container parent) {
+        Insets in = parent.getInsets();
+        int width = parent.getWidth() - in.left - in.right;
+        int height = parent.getHeight() - in.top - in.bottom;
+
+        List<Component> cells = gridComponents(parent);
+        int pages = getPageCount(parent);
+        page = Math.min(page, pages - 1);
+
+        // Focus mode: focused component gets the main area, the grid shrinks into a side strip
+        Rectangle gridArea = new Rectangle(in.left, in.top, width, height);
+        Component focus = focusedComponent(parent);
+        if (focus != null) {
+            int stripW = cells.isEmpty() ? 0 : (int) Math.round(width * focusStripFraction);
+            int mainW = cells.isEmpty() ? width : Math.max(0, width - stripW - hgap);
+            focus.setBounds(in.left, in.top, mainW, height);
+            assignCellSize(focus, mainW, height);
+            gridArea = new Rectangle(in.left + mainW + hgap, in.top, stripW, height);
+        }
+
+        int first = maxPerPage <= 0 ? 0 : page * maxPerPage;
+        int last = maxPerPage <= 0 ? cells.size() : Math.min(cells.size(), first + maxPerPage);
+
+        Dimension grid = computeGrid(last - first, gridArea.width, gridArea.height, hgap, vgap, cellAspect);
+        int cellW = grid.width == 0 ? 0 : Math.max(0, (gridArea.width - (grid.width - 1) * hgap) / grid.width);
+        int cellH = grid.height == 0 ? 0 : Math.max(0, (gridArea.height - (grid.height - 1) * vgap) / grid.height);
+
+        for (int i = 0; i < cells.size(); i++) {
+            Component c = cells.get(i);
+            if (i < first || i >= last) {
+                // Other page: no space, viewers stop rendering
+                c.setBounds(0, 0, 0, 0);
+                assignDisplaySize(c, 0, 0);
+                continue;
+            }
+            int cell = i - first;
+            int col = cell % grid.width;
+            int row = cell / grid.width;
+            c.setBounds(gridArea.x + col * (cellW + hgap), gridArea.y + row * (cellH + vgap), cellW, cellH);
+            assignCellSize(c, cellW, cellH);
+        }
+        immediateResize = false;
+    }
+
+    /**
+     * Chooses columns x rows for {@code n} cells in a {@code width} x {@code height} area,
+     * maximising the area of an {@code aspect}-shaped image fitted into each cell.
+     *
+     * @return grid as (columns, rows); (0, 0) if n == 0
+     */
+    static Dimension computeGrid(int n, int width, int height, int hgap, int vgap, double aspect) {
+        if (n <= 0) return new Dimension(0, 0);
+
+        boolean landscape = width >= height;
+        int bestCols = 1;
+        double bestArea = -1;
+        int bestEmpty = Integer.MAX_VALUE;
+        for (int cols = 1; cols <= n; cols++) {
+            int rows = (n + cols - 1) / cols;
+            double cellW = (width - (cols - 1) * (double) hgap) / cols;
+            double cellH = (height - (rows - 1) * (double) vgap) / rows;
+            if (cellW <= 0 || cellH <= 0) continue;
+
+            double imageW = Math.min(cellW, cellH * aspect);
+            double area = imageW * (imageW / aspect);
+            int empty = cols * rows - n;
+
+            // Ties (within 0.1%): fewer empty cells first, then wide grids for wide windows
+            boolean better;
+            if (area > bestArea * 1.001) {
+                better = true;
+            } else if (area < bestArea * 0.999) {
+                better = false;
+            } else {
+                better = empty < bestEmpty || (empty == bestEmpty && landscape);
+            }
+            if (better) {
+                bestArea = area;
+                bestCols = cols;
+                bestEmpty = empty;
+            }
+        }
+        return new Dimension(bestCols, (n + bestCols - 1) / bestCols);
+    }
+
+    // -------------------- Internal helpers --------------------
+
+    private Dimension layoutSize(Container parent, int cellWidth) {
+        int n = visibleComponents(parent).size();
+        if (maxPerPage > 0) n = Math.min(n, maxPerPage);
+        int cols = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        int rows = Math.max(1, (n + cols - 1) / cols);
+        int cellHeight = (int) Math.round(cellWidth / cellAspect);
+        Insets in = parent.getInsets();
+        return new Dimension(
+                in.left + in.right + cols * cellWidth + (cols - 1) * hgap,
+                in.top + in.bottom + rows * cellHeight + (rows - 1) * vgap);
+    }
+
+    private static List<Component> visibleComponents(Container parent) {
+        List<Component> visible = new ArrayList<>();
+        for (Component c : parent.getComponents()) {
+            if (c.isVisible()) {
+                visible.add(c);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Visible components that take part in the grid (all but the focused one).
+     */
+    private List<Component> gridComponents(Container parent) {
+        List<Component> cells = visibleComponents(parent);
+        Component focus = focusedComponent(parent);
+        if (focus != null) {
+            cells.remove(focus);
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the focused component if it is a visible child of {@code parent}, else null.
+     */
+    private Component focusedComponent(Container parent) {
+        Component focus = focused;
+        return focus != null && focus.isVisible() && focus.getParent() == parent ? focus : null;
+    }
+
+    private void assignCellSize(Component c, int cellW, int cellH) {
+        Insets ci = c instanceof Container ? ((Container) c).getInsets() : new Insets(0, 0, 0, 0);
+        assignDisplaySize(c, cellW - ci.left - ci.right, cellH - ci.top - ci.bottom);
+    }
+
+    /**
+     * Returns the viewer shown by a cell: the component itself or the first direct child viewer.
+     */
+    private static VideoPanel findViewer(Component c) {
+        if (c instanceof VideoPanel) return (VideoPanel) c;
+        if (c instanceof Container) {
+            for (Component child : ((Container) c).getComponents()) {
+                if (child instanceof VideoPanel) return (VideoPanel) child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pushes a cell size to the cell's viewer: immediately for the first assignment or when
+     * leaving/entering the page, otherwise after the debounce period.
+     */
+    private void assignDisplaySize(Component c, int width, int height) {
+        VideoPanel viewer = findViewer(c);
+        if (viewer == null) return;
+
+        width = Math.max(0, width);
+        height = Math.max(0, height);
+        if (!viewer.hasDisplaySize()) {
+            viewer.setDisplaySize(width, height);
+            return;
+        }
+        int currentW = viewer.getDisplayWidth();
+        int currentH = viewer.getDisplayHeight();
+        if (currentW == width && currentH == height) {
+            pendingSizes.remove(viewer);
+            return;
+        }
+
+        boolean visibilityChange = width == 0 || height == 0 || currentW == 0 || currentH == 0;
+        if (resizeDebounceMs == 0 || visibilityChange || immediateResize) {
+            pendingSizes.remove(viewer);
+            viewer.setDisplaySize(width, height);
+            return;
+        }
+
+        pendingSizes.put(viewer, new Dimension(width, height));
+        if (debounceTimer == null) {
+            debounceTimer = new Timer(resizeDebounceMs, e -> flushPendingSizes());
+            debounceTimer.setRepeats(false);
+        }
+        debounceTimer.setInitialDelay(resizeDebounceMs);
+        debounceTimer.restart();
+    }
+
+    private void flushPendingSizes() {
+        for (Map.Entry<VideoPanel, Dimension> e : pendingSizes.entrySet()) {
+            e.getKey().setDisplaySize(e.getValue().width, e.getValue().height);
+        }
+        pendingSizes.clear();
+    }
+}
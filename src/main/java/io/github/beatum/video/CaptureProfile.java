@@ -0,0 +1,282 @@
+
+package io.github.beatum.video;
+
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A capture format request for a {@link VideoCapture} device.
+ *
+ * <p>Every property is optional: a value of {@code 0} (or {@code null}) means
+ * "leave it to the driver". A profile is applied to an opened capture with
+ * {@link #applyTo(VideoCapture)} and the result the driver actually granted can
+ * be read back with {@link #readFrom(VideoCapture)}.</p>
+ *
+ * <h2>Text form</h2>
+ * Profiles can be written as a compact spec, e.g. {@code "MJPG 1920x1080@30 buf=1 rgb=1"}:
+ * <ul>
+ *   <li>a 4-letter FOURCC (e.g. MJPG, YUYV)</li>
+ *   <li>{@code WxH} resolution, optionally followed by {@code @fps}</li>
+ *   <li>{@code buf=N} for {@code CAP_PROP_BUFFERSIZE}</li>
+ *   <li>{@code rgb=0|1} for {@code CAP_PROP_CONVERT_RGB}</li>
+ * </ul>
+ * The tokens may appear in any order; {@link #toSpec()} produces the canonical form.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class CaptureProfile {
+
+    /** FOURCC code such as "MJPG" (null = driver default). */
+    private final String fourcc;
+
+    /** Frame width (0 = driver default). */
+    private final int width;
+
+    /** Frame height (0 = driver default). */
+    private final int height;
+
+    /** Frames per second (0 = driver default). */
+    private final double fps;
+
+    /** Driver-side queue length in frames (0 = driver default). */
+    private final int bufferSize;
+
+    /** Whether the backend converts frames to BGR (null = driver default). */
+    private final Boolean convertRgb;
+
+    /**
+     * Creates a profile.
+     *
+     * @param fourcc 4-letter FOURCC or null
+     * @param width frame width or 0
+     * @param height frame height or 0
+     * @param fps frame rate or 0
+     * @param bufferSize driver buffer size or 0
+     * @param convertRgb backend RGB conversion or null
+     */
+    public CaptureProfile(String fourcc, int width, int height, double fps, int bufferSize, Boolean convertRgb) {
+        if (fourcc != null && fourcc.length() != 4) {
+            throw new IllegalArgumentException("FOURCC must have 4 characters: " + fourcc);
+        }
+        this.fourcc = fourcc == null ? null : fourcc.toUpperCase(Locale.ROOT);
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.fps = Math.max(0, fps);
+        this.bufferSize = Math.max(0, bufferSize);
+        this.convertRgb = convertRgb;
+    }
+
+    /**
+     * Creates a resolution-only profile (everything else left to the driver).
+     */
+    public static CaptureProfile ofSize(int width, int height) {
+        return new CaptureProfile(null, width, height, 0, 0, null);
+    }
+
+    // -------------------- Getters --------------------
+
+    public String getFourcc() {
+        return fourcc;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getFps() {
+        return fps;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public Boolean getConvertRgb() {
+        return convertRgb;
+    }
+
+    // -------------------- Capture negotiation --------------------
+
+    /**
+     * Requests this profile on an opened capture.
+     * FOURCC is set first because several backends (e.g. DirectShow) reset
+     * the resolution when the pixel format changes.
+     *
+     * @param cap opened capture
+     */
+    public void applyTo(VideoCapture cap) {
+        if (fourcc != null) {
+            cap.set(Videoio.CAP_PROP_FOURCC, VideoWriter.fourcc(
+                    fourcc.charAt(0), fourcc.charAt(1), fourcc.charAt(2), fourcc.charAt(3)));
+        }
+        if (width > 0) {
+            cap.set(Videoio.CAP_PROP_FRAME_WIDTH, width);
+        }
+        if (height > 0) {
+            cap.set(Videoio.CAP_PROP_FRAME_HEIGHT, height);
+        }
+        if (fps > 0) {
+            cap.set(Videoio.CAP_PROP_FPS, fps);
+        }
+        if (bufferSize > 0) {
+            cap.set(Videoio.CAP_PROP_BUFFERSIZE, bufferSize);
+        }
+        if (convertRgb != null) {
+            cap.set(Videoio.CAP_PROP_CONVERT_RGB, convertRgb ? 1 : 0);
+        }
+    }
+
+    /**
+     * Reads back the format the driver actually granted.
+     *
+     * @param cap opened capture
+     * @return the granted profile (unsupported properties read as 0 / null)
+     */
+    public static CaptureProfile readFrom(VideoCapture cap) {
+        int code = (int) cap.get(Videoio.CAP_PROP_FOURCC);
+        double rgb = cap.get(Videoio.CAP_PROP_CONVERT_RGB);
+        return new CaptureProfile(
+                decodeFourcc(code),
+                (int) cap.get(Videoio.CAP_PROP_FRAME_WIDTH),
+                (int) cap.get(Videoio.CAP_PROP_FRAME_HEIGHT),
+                cap.get(Videoio.CAP_PROP_FPS),
+                (int) cap.get(Videoio.CAP_PROP_BUFFERSIZE),
+                rgb < 0 ? null : rgb != 0);
+    }
+
+    /**
+     * Checks whether a granted profile honours this request.
+     * Only the properties that affect bandwidth and decode cost are compared
+     * (FOURCC, resolution, fps); buffer size and RGB conversion are best-effort
+     * because many backends silently ignore them.
+     *
+     * @param granted profile read back from the driver
+     * @return true if every requested property was granted
+     */
+    public boolean isSatisfiedBy(CaptureProfile granted) {
+        if (granted == null) return false;
+        if (fourcc != null && !fourcc.equals(granted.fourcc)) return false;
+        if (width > 0 && width != granted.width) return false;
+        if (height > 0 && height != granted.height) return false;
+        // Drivers report fractional rates (29.97 for 30), so allow a small tolerance
+        return !(fps > 0 && granted.fps > 0 && Math.abs(fps - granted.fps) > 1.0);
+    }
+
+    // -------------------- Text form --------------------
+
+    /**
+     * Parses a profile spec such as {@code "MJPG 1280x720@30 buf=1"}.
+     *
+     * @param spec profile spec
+     * @return parsed profile
+     * @throws IllegalArgumentException if a token cannot be parsed
+     */
+    public static CaptureProfile parse(String spec) {
+        String fourcc = null;
+        int width = 0;
+        int height = 0;
+        double fps = 0;
+        int bufferSize = 0;
+        Boolean convertRgb = null;
+
+        for (String token : spec.trim().split("\\s+")) {
+            if (token.isEmpty()) continue;
+            try {
+                if (token.startsWith("buf=")) {
+                    bufferSize = Integer.parseInt(token.substring(4));
+                } else if (token.startsWith("rgb=")) {
+                    convertRgb = !"0".equals(token.substring(4));
+                } else if (token.indexOf('x') > 0 && Character.isDigit(token.charAt(0))) {
+                    String size = token;
+                    int at = token.indexOf('@');
+                    if (at > 0) {
+                        fps = Double.parseDouble(token.substring(at + 1));
+                        size = token.substring(0, at);
+                    }
+                    int x = size.indexOf('x');
+                    width = Integer.parseInt(size.substring(0, x));
+                    height = Integer.parseInt(size.substring(x + 1));
+                } else if (token.length() == 4) {
+                    fourcc = token;
+                } else {
+                    throw new IllegalArgumentException("Unknown capture profile token: " + token);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid capture profile token: " + token, e);
+            }
+        }
+        return new CaptureProfile(fourcc, width, height, fps, bufferSize, convertRgb);
+    }
+
+    /**
+     * Returns the canonical spec (inverse of {@link #parse(String)}).
+     */
+    public String toSpec() {
+        StringBuilder sb = new StringBuilder();
+        if (fourcc != null) {
+            sb.append(fourcc);
+        }
+        if (width > 0 || height > 0) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(width).append('x').append(height);
+            if (fps > 0) {
+                sb.append('@').append(fps == Math.rint(fps) ? String.valueOf((long) fps) : String.valueOf(fps));
+            }
+        }
+        if (bufferSize > 0) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append("buf=").append(bufferSize);
+        }
+        if (convertRgb != null) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append("rgb=").append(convertRgb ? 1 : 0);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converts an OpenCV FOURCC integer into its 4-letter form (null if 0).
+     */
+    static String decodeFourcc(int code) {
+        if (code <= 0) return null;
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            char c = (char) ((code >> (8 * i)) & 0xFF);
+            chars[i] = c < 0x20 || c > 0x7E ? '?' : c;
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CaptureProfile)) return false;
+        CaptureProfile that = (CaptureProfile) o;
+        return width == that.width
+                && height == that.height
+                && Double.compare(fps, that.fps) == 0
+                && bufferSize == that.bufferSize
+                && Objects.equals(fourcc, that.fourcc)
+                && Objects.equals(convertRgb, that.convertRgb);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fourcc, width, height, fps, bufferSize, convertRgb);
+    }
+
+    @Override
+    public String toString() {
+        return "CaptureProfile[" + toSpec() + "]";
+    }
+}
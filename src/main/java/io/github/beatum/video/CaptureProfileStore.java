@@ -0,0 +1,100 @@
+
+package io.github.beatum.video;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Persists per-device {@link CaptureProfile} candidate lists as a properties file.
+ *
+ * <p>File layout (one candidate per key, tried in ascending order):</p>
+ * <pre>
+ * device.0.profile.0=MJPG 1920x1080@30 buf=1
+ * device.0.profile.1=YUYV 1280x720@30
+ * device.1.profile.0=640x480
+ * </pre>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class CaptureProfileStore {
+
+    private static final String PREFIX = "device.";
+    private static final String PROFILE = ".profile.";
+
+    private CaptureProfileStore() {
+    }
+
+    /**
+     * Loads candidate lists keyed by device index.
+     * Entries that cannot be parsed are skipped.
+     *
+     * @param file properties file
+     * @return device index -> candidates (sorted by index); empty if the file does not exist
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static Map<Integer, List<CaptureProfile>> load(Path file) throws IOException {
+        Map<Integer, List<CaptureProfile>> result = new TreeMap<>();
+        if (!Files.exists(file)) return result;
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+
+        // device -> (order -> profile), so candidate order survives the unordered Properties
+        Map<Integer, Map<Integer, CaptureProfile>> ordered = new TreeMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX)) continue;
+            int p = key.indexOf(PROFILE);
+            if (p < 0) continue;
+            try {
+                int device = Integer.parseInt(key.substring(PREFIX.length(), p));
+                int order = Integer.parseInt(key.substring(p + PROFILE.length()));
+                CaptureProfile profile = CaptureProfile.parse(props.getProperty(key));
+                ordered.computeIfAbsent(device, k -> new TreeMap<>()).put(order, profile);
+            } catch (IllegalArgumentException ignored) {
+                // Malformed entry: keep the rest of the file usable
+            }
+        }
+
+        for (Map.Entry<Integer, Map<Integer, CaptureProfile>> e : ordered.entrySet()) {
+            result.put(e.getKey(), new ArrayList<>(e.getValue().values()));
+        }
+        return result;
+    }
+
+    /**
+     * Saves candidate lists keyed by device index (overwrites the file).
+     *
+     * @param file properties file
+     * @param profiles device index -> candidates
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Path file, Map<Integer, List<CaptureProfile>> profiles) throws IOException {
+        Properties props = new Properties();
+        for (Map.Entry<Integer, List<CaptureProfile>> e : profiles.entrySet()) {
+            List<CaptureProfile> candidates = e.getValue();
+            for (int i = 0; i < candidates.size(); i++) {
+                props.setProperty(PREFIX + e.getKey() + PROFILE + i, candidates.get(i).toSpec());
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            props.store(out, "ActivityShow capture profiles");
+        }
+    }
+}
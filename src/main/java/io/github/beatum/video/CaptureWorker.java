@@ -0,0 +1,215 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of a capture worker process: reads one device and publishes its frames into a
+ * {@link FrameRing}. Started and restarted by {@link CaptureWorkerSupervisor}; a native crash or a
+ * driver hang only takes this process down, not the UI.
+ *
+ * <pre>
+ * java -cp ... io.github.beatum.video.CaptureWorker --ring /dev/shm/activityshow-0.ring --device 0 \
+ *      [--api 700] [--profile "MJPG 1280x720@30"]... [--synthetic 640x360@15] \
+ *      [--library /path/to/opencv_java460.so] [--parent-pipe]
+ * </pre>
+ *
+ * <ul>
+ *   <li>Frames are read straight into the ring slot (no copy while the frame layout stays the same).</li>
+ *   <li>The heartbeat is stamped every loop, also while the device is unavailable, so only a hung
+ *       read or open stops it.</li>
+ *   <li>With {@code --parent-pipe} the worker exits when its standard input ends: the supervisor
+ *       never writes to it, and the OS closes it when the parent (the UI process) is gone.</li>
+ *   <li>A frame larger than a ring slot is logged and the worker exits with
+ *       {@link #EXIT_FRAME_TOO_LARGE}: the ring cannot grow, so a restart would not help.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class CaptureWorker {
+
+    /** Exit status of a worker whose frames do not fit into the ring slots. */
+    static final int EXIT_FRAME_TOO_LARGE = 3;
+
+    private static final long REOPEN_DELAY_MS = 1000;
+
+    /** Set when the parent closed the standard input (see {@link #watchParent()}). */
+    private static volatile boolean parentGone;
+
+    private CaptureWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path ringFile = null;
+        int device = 0;
+        int api = Videoio.CAP_ANY;
+        String synthetic = null;
+        String library = null;
+        boolean parentPipe = false;
+        List<CaptureProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--parent-pipe")) {
+                parentPipe = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value of " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--ring": ringFile = Paths.get(value); break;
+                case "--device": device = Integer.parseInt(value); break;
+                case "--api": api = Integer.parseInt(value); break;
+                case "--synthetic": synthetic = value; break;
+                case "--library": library = value; break;
+                case "--profile": profiles.add(CaptureProfile.parse(value)); break;
+                default: throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (ringFile == null) {
+            throw new IllegalArgumentException("--ring is required");
+        }
+
+        if (library != null) {
+            System.load(library);
+        } else {
+            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        }
+
+        FrameRing ring = FrameRing.open(ringFile);
+        ring.heartbeat();
+
+        IFrameSource source;
+        if (synthetic != null) {
+            CaptureProfile size = CaptureProfile.parse(synthetic);
+            source = new SyntheticFrameSource(size.getWidth(), size.getHeight(), size.getFps());
+        } else {
+            source = new VideoCaptureSource(new VideoCapture(), device, api);
+        }
+
+        if (parentPipe) {
+            watchParent();
+        }
+        int status = run(ring, source, profiles);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Publishes frames until the parent process is gone, or a frame does not fit into the ring.
+     *
+     * @return exit status (0, or {@link #EXIT_FRAME_TOO_LARGE})
+     */
+    private static int run(FrameRing ring, IFrameSource source, List<CaptureProfile> profiles) {
+        // Headers over the ring slots (frames are read straight into them)
+        Mat[] slotMats = new Mat[ring.getSlotCount()];
+        long[] slotAddrs = new long[ring.getSlotCount()];
+        Mat scratch = new Mat();
+        int status = 0;
+
+        while (!parentGone) {
+            ring.heartbeat();
+
+            if (!source.isOpened()) {
+                if (!source.open()) {
+                    sleepQuietly(REOPEN_DELAY_MS);
+                    continue;
+                }
+                if (source instanceof VideoCaptureSource) {
+                    negotiate(((VideoCaptureSource) source).getVideoCapture(), profiles);
+                }
+            }
+
+            int slot = ring.beginWrite();
+            Mat target = slotMats[slot] != null ? slotMats[slot] : scratch;
+            boolean ok;
+            try {
+                ok = source.read(target) && !target.empty();
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (!ok) {
+                ring.abortWrite(slot);
+                sleepQuietly(30);
+                continue;
+            }
+
+            int rows = target.rows();
+            int cols = target.cols();
+            int type = target.type();
+            if (target != slotMats[slot] || target.dataAddr() != slotAddrs[slot]) {
+                // First frame in this slot or the layout changed (the read reallocated): copy once,
+                // later frames of this layout are read in place
+                long bytes = target.total() * target.elemSize();
+                if (bytes > ring.getSlotBytes()) {
+                    ring.abortWrite(slot);
+                    System.err.println("CaptureWorker: " + cols + "x" + rows + " frame of " + bytes
+                            + " bytes does not fit into a ring slot of " + ring.getSlotBytes() + " bytes");
+                    status = EXIT_FRAME_TOO_LARGE;
+                    break;
+                }
+                Mat header = new Mat(rows, cols, type, ring.slotData(slot));
+                target.copyTo(header);
+                if (slotMats[slot] != null) slotMats[slot].release();
+                slotMats[slot] = header;
+                slotAddrs[slot] = header.dataAddr();
+            }
+            ring.publish(slot, rows, cols, type);
+        }
+
+        source.release();
+        scratch.release();
+        return status;
+    }
+
+    /**
+     * Reads the standard input on a daemon thread until it ends, then sets {@link #parentGone}.
+     * Works on every platform and Java version, unlike polling the parent's pid.
+     */
+    private static void watchParent() {
+        Thread watcher = new Thread(() -> {
+            try {
+                while (System.in.read() >= 0) {
+                    // Nothing is ever sent; only the end of the input matters
+                }
+            } catch (IOException ignored) {
+                // A broken pipe means the same
+            }
+            parentGone = true;
+        }, "CaptureWorker-ParentWatch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /** Applies the first capture profile the driver fully grants (same rule as {@link VideoPanel}). */
+    private static void negotiate(VideoCapture cap, List<CaptureProfile> profiles) {
+        for (CaptureProfile candidate : profiles) {
+            try {
+                candidate.applyTo(cap);
+                if (candidate.isSatisfiedBy(CaptureProfile.readFrom(cap))) return;
+            } catch (Exception ignored) {
+                // Try the next candidate
+            }
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package io.github.beatum.video;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each device in its own {@link CaptureWorker} JVM and hands the UI {@link FrameRingSource}s
+ * over their shared-memory rings. Use it as the {@link IFrameSourceFactory} of a {@link DeviceGroup}:
+ *
+ * <pre>
+ * CaptureWorkerSupervisor workers = new CaptureWorkerSupervisor();
+ * workers.setApiPreference(Videoio.CAP_V4L2);
+ * DeviceGroup group = new DeviceGroup(container, 8, workers);
+ * group.openAll();
+ * ...
+ * group.releaseAll();
+ * workers.close();
+ * </pre>
+ *
+ * <h2>Supervision</h2>
+ * <ul>
+ *   <li>A worker is started when its source is opened (the group's probe or
+ *       {@link VideoPanel#start()}) and stopped when the source is released.</li>
+ *   <li>A monitor thread restarts workers that exited (e.g. a native crash) or whose heartbeat is
+ *       older than {@link #getHangTimeoutMs()} (e.g. a driver hang, the worker is killed first).
+ *       Restarts back off from 0.5 s to 10 s while a worker keeps failing before its first frame.</li>
+ *   <li>A worker whose frames do not fit into its ring is not restarted; {@link #getFailure(int)}
+ *       says why. Rings are sized for the largest configured capture profile.</li>
+ *   <li>The ring survives restarts, so the panel just sees a gap in the frames.</li>
+ * </ul>
+ *
+ * <p>{@link #setSyntheticSource(int, int, double)} makes workers produce
+ * {@link SyntheticFrameSource} frames, so the whole mode runs on a host without cameras.</p>
+ *
+ * <p>Rings live in {@code /dev/shm} when it exists (memory only, no disk write-back), otherwise
+ * in the temp directory.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class CaptureWorkerSupervisor implements IFrameSourceFactory, AutoCloseable {
+
+    private static final long MONITOR_INTERVAL_MS = 250;
+    private static final long MIN_RESTART_DELAY_MS = 500;
+    private static final long MAX_RESTART_DELAY_MS = 10_000;
+
+    /** Directory of the ring files. */
+    private final Path ringDirectory;
+
+    /** Workers by device index. */
+    private final Map<Integer, Worker> workers = new TreeMap<>();
+
+    private int apiPreference = 0;
+    private String syntheticSpec;
+    private String nativeLibrary;
+    private List<String> jvmOptions = Collections.emptyList();
+    private final Map<Integer, List<CaptureProfile>> captureProfiles = new TreeMap<>();
+    private int slotCount = 4;
+    private long maxFrameBytes = 1920L * 1080 * 3;
+    private volatile long hangTimeoutMs = 5000;
+    private volatile long startupTimeoutMs = 15_000;
+    private volatile long openTimeoutMs = 10_000;
+
+    private Thread monitorThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a supervisor keeping its rings in {@code /dev/shm} (or the temp directory).
+     *
+     * @throws IOException if the ring directory cannot be created
+     */
+    public CaptureWorkerSupervisor() throws IOException {
+        this(defaultRingDirectory());
+    }
+
+    /**
+     * @param ringDirectory directory for the ring files (created if missing)
+     * @throws IOException if the directory cannot be created
+     */
+    public CaptureWorkerSupervisor(Path ringDirectory) throws IOException {
+        this.ringDirectory = Files.createDirectories(ringDirectory);
+    }
+
+    private static Path defaultRingDirectory() throws IOException {
+        Path shm = Paths.get("/dev/shm");
+        return Files.isDirectory(shm) && Files.isWritable(shm)
+                ? Files.createTempDirectory(shm, "activityshow-")
+                : Files.createTempDirectory("activityshow-");
+    }
+
+    // -------------------- Settings (before sources are created) --------------------
+
+    public Path getRingDirectory() {
+        return ringDirectory;
+    }
+
+    /** OpenCV backend the workers open cameras with (0 = CAP_ANY). */
+    public void setApiPreference(int apiPreference) {
+        this.apiPreference = apiPreference;
+    }
+
+    /**
+     * Makes workers produce synthetic frames instead of opening cameras.
+     *
+     * @param width frame width
+     * @param height frame height
+     * @param fps frame rate
+     */
+    public void setSyntheticSource(int width, int height, double fps) {
+        this.syntheticSpec = new CaptureProfile(null, width, height, fps, 0, null).toSpec();
+        this.maxFrameBytes = Math.max(maxFrameBytes, (long) width * height * 3);
+    }
+
+    /** Native OpenCV library file the workers load with {@code System.load} (null = java.library.path). */
+    public void setNativeLibrary(String nativeLibrary) {
+        this.nativeLibrary = nativeLibrary;
+    }
+
+    /** Extra JVM options of the workers, e.g. {@code -Xmx64m}. */
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions == null ? Collections.emptyList() : new ArrayList<>(jvmOptions);
+    }
+
+    /**
+     * Capture profile candidates a worker negotiates for a device index. Set before the device's
+     * source is created: its ring is sized for the largest candidate.
+     */
+    public void setCaptureProfiles(int index, List<CaptureProfile> profiles) {
+        if (profiles == null || profiles.isEmpty()) {
+            captureProfiles.remove(index);
+        } else {
+            captureProfiles.put(index, new ArrayList<>(profiles));
+        }
+    }
+
+    /** Number of ring slots per device (>= 3; default 4). */
+    public void setSlotCount(int slotCount) {
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Largest frame in bytes a ring can carry (default 1920 x 1080 x 3). A device with larger
+     * capture profiles gets a ring sized for them.
+     */
+    public void setMaxFrameBytes(long maxFrameBytes) {
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    public long getHangTimeoutMs() {
+        return hangTimeoutMs;
+    }
+
+    /** Heartbeat age after which a running worker is considered hung and restarted. */
+    public void setHangTimeoutMs(long hangTimeoutMs) {
+        this.hangTimeoutMs = Math.max(MONITOR_INTERVAL_MS, hangTimeoutMs);
+    }
+
+    /** How long a new worker may take to stamp its first heartbeat (JVM start, native load). */
+    public void setStartupTimeoutMs(long startupTimeoutMs) {
+        this.startupTimeoutMs = Math.max(0, startupTimeoutMs);
+    }
+
+    /** How long opening a source waits for the worker's first frame. */
+    public void setOpenTimeoutMs(long openTimeoutMs) {
+        this.openTimeoutMs = Math.max(0, openTimeoutMs);
+    }
+
+    // -------------------- Sources --------------------
+
+    /**
+     * Creates the ring of a device index and returns its (unopened) source. Opening the source
+     * starts the worker.
+     *
+     * @return source, or null if the ring cannot be created (a placeholder is shown)
+     */
+    @Override
+    public synchronized IFrameSource create(int deviceIndex) {
+        if (closed) throw new IllegalStateException("CaptureWorkerSupervisor is closed");
+        try {
+            Worker worker = workers.get(deviceIndex);
+            if (worker == null) {
+                worker = new Worker(deviceIndex, FrameRing.create(
+                        ringDirectory.resolve("device-" + deviceIndex + ".ring"), slotCount, ringFrameBytes(deviceIndex)));
+                workers.put(deviceIndex, worker);
+            }
+            return new SupervisedSource(worker);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Slot size of a device's ring: {@link #maxFrameBytes}, or a BGR frame of its largest profile. */
+    private long ringFrameBytes(int deviceIndex) {
+        long bytes = maxFrameBytes;
+        for (CaptureProfile profile : captureProfiles.getOrDefault(deviceIndex, Collections.emptyList())) {
+            bytes = Math.max(bytes, (long) profile.getWidth() * profile.getHeight() * 3);
+        }
+        return bytes;
+    }
+
+    /**
+     * Starts the workers of indices {@code 0..count-1} ahead, so their JVMs boot in parallel while a
+     * {@link DeviceGroup} probes the indices one by one.
+     */
+    public synchronized void prestart(int count) {
+        for (int i = 0; i < count; i++) {
+            IFrameSource source = create(i);
+            if (source != null) {
+                ((SupervisedSource) source).worker.start();
+            }
+        }
+    }
+
+    /** Number of restarts of a device's worker (crashes and hangs). */
+    public synchronized int getRestartCount(int deviceIndex) {
+        Worker worker = workers.get(deviceIndex);
+        return worker == null ? 0 : worker.restarts;
+    }
+
+    /**
+     * Why a device's worker gave up instead of being restarted (e.g. its frames do not fit into
+     * the ring), or null. Cleared when the source is opened again.
+     */
+    public synchronized String getFailure(int deviceIndex) {
+        Worker worker = workers.get(deviceIndex);
+        return worker == null ? null : worker.failure;
+    }
+
+    /**
+     * Process of a device's worker, or null if it is not running. Do not close its streams: the
+     * worker exits when its standard input ends.
+     */
+    public synchronized Process getWorkerProcess(int deviceIndex) {
+        Worker worker = workers.get(deviceIndex);
+        Process process = worker == null ? null : worker.process;
+        return process != null && process.isAlive() ? process : null;
+    }
+
+    /**
+     * Stops all workers and deletes the ring files.
+     */
+    @Override
+    public void close() {
+        List<Worker> all;
+        synchronized (this) {
+            closed = true;
+            all = new ArrayList<>(workers.values());
+            workers.clear();
+            if (monitorThread != null) {
+                monitorThread.interrupt();
+                monitorThread = null;
+            }
+        }
+        for (Worker worker : all) {
+            worker.stop();
+        }
+        for (Worker worker : all) {
+            try {
+                Files.deleteIfExists(worker.ring.getFile());
+                Files.deleteIfExists(worker.logFile());
+            } catch (IOException ignored) {
+            }
+        }
+        try {
+            Files.deleteIfExists(ringDirectory);
+        } catch (IOException ignored) {
+            // Not empty (foreign files): leave it
+        }
+    }
+
+    // -------------------- Monitor --------------------
+
+    private synchronized void ensureMonitor() {
+        if (monitorThread != null || closed) return;
+        monitorThread = new Thread(this::monitorLoop, "CaptureWorkerSupervisor-Monitor");
+        monitorThread.setDaemon(true);
+        monitorThread.start();
+    }
+
+    private void monitorLoop() {
+        while (!closed && !Thread.currentThread().isInterrupted()) {
+            List<Worker> all;
+            synchronized (this) {
+                all = new ArrayList<>(workers.values());
+            }
+            for (Worker worker : all) {
+                worker.check();
+            }
+            try {
+                Thread.sleep(MONITOR_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /** Command line of a worker. */
+    private List<String> command(int deviceIndex, Path ringFile) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(jvmOptions);
+        String libraryPath = System.getProperty("java.library.path");
+        if (libraryPath != null && !libraryPath.isEmpty()) {
+            cmd.add("-Djava.library.path=" + libraryPath);
+        }
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(CaptureWorker.class.getName());
+        cmd.add("--ring");
+        cmd.add(ringFile.toString());
+        cmd.add("--device");
+        cmd.add(String.valueOf(deviceIndex));
+        cmd.add("--api");
+        cmd.add(String.valueOf(apiPreference));
+        cmd.add("--parent-pipe");
+        if (syntheticSpec != null) {
+            cmd.add("--synthetic");
+            cmd.add(syntheticSpec);
+        }
+        if (nativeLibrary != null) {
+            cmd.add("--library");
+            cmd.add(nativeLibrary);
+        }
+        for (CaptureProfile profile : captureProfiles.getOrDefault(deviceIndex, Collections.emptyList())) {
+            cmd.add("--profile");
+            cmd.add(profile.toSpec());
+        }
+        return cmd;
+    }
+
+    /**
+     * One device's worker process and ring.
+     */
+    private final class Worker {
+
+        private final int deviceIndex;
+        private final FrameRing ring;
+
+        /** Whether the worker should be running (its source is open). */
+        private boolean wanted;
+        private Process process;
+        private long launchedAt;
+        private long heartbeatAtLaunch;
+        private long sequenceAtLaunch;
+        private long restartAt;
+        private long restartDelayMs = MIN_RESTART_DELAY_MS;
+        private int restarts;
+
+        /** Set when the worker exited in a way a restart cannot fix. */
+        private volatile String failure;
+
+        Worker(int deviceIndex, FrameRing ring) {
+            this.deviceIndex = deviceIndex;
+            this.ring = ring;
+        }
+
+        synchronized void start() {
+            wanted = true;
+            failure = null;
+            if (process == null || !process.isAlive()) {
+                launch();
+            }
+            ensureMonitor();
+        }
+
+        synchronized void stop() {
+            wanted = false;
+            kill();
+        }
+
+        /** Restarts the worker if it died or hung (called by the monitor). */
+        synchronized void check() {
+            if (!wanted) return;
+            long now = System.currentTimeMillis();
+
+            if (process != null && process.isAlive()) {
+                long heartbeat = ring.getHeartbeatMillis();
+                boolean started = heartbeat != heartbeatAtLaunch;
+                boolean hung = started
+                        ? now - heartbeat > hangTimeoutMs
+                        : now - launchedAt > startupTimeoutMs;
+                if (!hung) {
+                    if (ring.getLatestSequence() != sequenceAtLaunch) {
+                        restartDelayMs = MIN_RESTART_DELAY_MS; // Healthy again
+                    }
+                    return;
+                }
+                kill();
+            }
+
+            if (process != null && !process.isAlive()
+                    && process.exitValue() == CaptureWorker.EXIT_FRAME_TOO_LARGE) {
+                // The same frames would not fit after a restart either
+                failure = "Frames of device " + deviceIndex + " exceed the ring slot of " + ring.getSlotBytes()
+                        + " bytes (see " + logFile() + ")";
+                wanted = false;
+                process = null;
+                return;
+            }
+            if (process != null) {
+                // Exited or killed: restart after the back-off
+                process = null;
+                restartAt = now + restartDelayMs;
+                restartDelayMs = Math.min(MAX_RESTART_DELAY_MS, restartDelayMs * 2);
+                restarts++;
+            }
+            if (now >= restartAt) {
+                launch();
+            }
+        }
+
+        private void launch() {
+            try {
+                heartbeatAtLaunch = ring.getHeartbeatMillis();
+                sequenceAtLaunch = ring.getLatestSequence();
+                launchedAt = System.currentTimeMillis();
+                process = new ProcessBuilder(command(deviceIndex, ring.getFile()))
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile().toFile()))
+                        .start();
+            } catch (IOException e) {
+                process = null;
+                restartAt = System.currentTimeMillis() + restartDelayMs;
+            }
+        }
+
+        /** Output of the worker (kept across restarts, deleted by {@link #close()}). */
+        Path logFile() {
+            return ring.getFile().resolveSibling(ring.getFile().getFileName() + ".log");
+        }
+
+        private void kill() {
+            Process p = process;
+            if (p == null) return;
+            p.destroy();
+            try {
+                if (!p.waitFor(1, TimeUnit.SECONDS)) {
+                    p.destroyForcibly().waitFor(1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                p.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+            if (!wanted) process = null;
+        }
+    }
+
+    /**
+     * Ring source whose open/release start and stop the worker.
+     */
+    private final class SupervisedSource extends FrameRingSource {
+
+        private final Worker worker;
+
+        SupervisedSource(Worker worker) {
+            super(worker.ring);
+            this.worker = worker;
+        }
+
+        /** Starts the worker and waits for its first frame. */
+        @Override
+        public boolean open() {
+            if (isOpened()) return true;
+            worker.start();
+            long deadline = System.currentTimeMillis() + openTimeoutMs;
+            long sequence = worker.ring.getLatestSequence();
+            while (worker.ring.getLatestSequence() == sequence) {
+                if (System.currentTimeMillis() >= deadline || closed || worker.failure != null) {
+                    worker.stop();
+                    return false;
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    worker.stop();
+                    return false;
+                }
+            }
+            return super.open();
+        }
+
+        @Override
+        public void release() {
+            super.release();
+            worker.stop();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+
+package io.github.beatum.video;
+
+import java.util.Locale;
+
+/**
+ * One detected object, with a box in normalized frame coordinates (0..1).
+ *
+ * <p>Normalized coordinates survive every resize between the inference input, the captured
+ * frame and the on-screen image, so the same detection can be drawn at any display size.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class Detection {
+
+    private final int classId;
+    private final String label;
+    private final float confidence;
+    private final float left;
+    private final float top;
+    private final float right;
+    private final float bottom;
+
+    /**
+     * @param classId model class id
+     * @param label class name, or null to show the class id
+     * @param confidence score 0..1
+     * @param left left edge 0..1 (clamped)
+     * @param top top edge 0..1 (clamped)
+     * @param right right edge 0..1 (clamped)
+     * @param bottom bottom edge 0..1 (clamped)
+     */
+    public Detection(int classId, String label, float confidence,
+                     float left, float top, float right, float bottom) {
+        this.classId = classId;
+        this.label = label;
+        this.confidence = confidence;
+        this.left = clamp(left);
+        this.top = clamp(top);
+        this.right = clamp(right);
+        this.bottom = clamp(bottom);
+    }
+
+    public int getClassId() {
+        return classId;
+    }
+
+    /** Class name, or the class id as text if the decoder had no labels. */
+    public String getLabel() {
+        return label != null ? label : String.valueOf(classId);
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public float getLeft() {
+        return left;
+    }
+
+    public float getTop() {
+        return top;
+    }
+
+    public float getRight() {
+        return right;
+    }
+
+    public float getBottom() {
+        return bottom;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %.2f [%.3f,%.3f,%.3f,%.3f]",
+                getLabel(), confidence, left, top, right, bottom);
+    }
+
+    private static float clamp(float v) {
+        return v < 0f ? 0f : (v > 1f ? 1f : v);
+    }
+}
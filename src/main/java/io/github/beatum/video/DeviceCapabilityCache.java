@@ -0,0 +1,265 @@
+package io.github.beatum.video;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * On-disk cache of what {@link DeviceGroup} learned about each device index, so a restart can skip
+ * probing and format negotiation.
+ *
+ * <pre>
+ * DeviceCapabilityCache cache = DeviceCapabilityCache.open(Paths.get("devices.properties"));
+ * DeviceGroup group = new DeviceGroup(container, 6, cache);   // known devices: no probe
+ * group.openAll();                                            // cached format tried first
+ * </pre>
+ *
+ * <h2>What is cached per index</h2>
+ * <ul>
+ *   <li>backend API the device worked with and the backend name (OpenCV exposes no serial number,
+ *       so index + backend + granted format is the best identity available)</li>
+ *   <li>whether the probe found a working device</li>
+ *   <li>the capture profile the driver granted, and the candidate that won the negotiation (tried
+ *       first next time, skipping the format switches of candidates the driver refused)</li>
+ *   <li>when this was last verified</li>
+ * </ul>
+ *
+ * <h2>Freshness</h2>
+ * Entries younger than {@link #getMaxAgeMs()} (7 days) are trusted; indices found empty are
+ * trusted for {@link #getMaxFailureAgeMs()} (1 hour) only, so a newly plugged camera shows up on
+ * the next restart after that. Stale or missing entries fall back to a full probe. Known devices
+ * are validated in the background once they stream; a device that fails validation loses its
+ * entry.
+ *
+ * <p>File layout:</p>
+ * <pre>
+ * device.0.api=700
+ * device.0.backend=DSHOW
+ * device.0.available=true
+ * device.0.profile=MJPG 1920x1080@30 buf=1 rgb=1
+ * device.0.candidate=MJPG 1920x1080@30
+ * device.0.verified=1792310400000
+ * </pre>
+ *
+ * <p>All methods are thread-safe.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class DeviceCapabilityCache {
+
+    private static final String PREFIX = "device.";
+
+    private final Path file;
+    private final Map<Integer, Entry> entries = new TreeMap<>();
+
+    private volatile long maxAgeMs = 7L * 24 * 3600 * 1000;
+    private volatile long maxFailureAgeMs = 3600 * 1000;
+    private volatile long validationTimeoutMs = 5000;
+
+    private DeviceCapabilityCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads a cache file. A missing or unreadable file gives an empty cache (everything is probed),
+     * malformed entries are skipped.
+     *
+     * @param file properties file (created by {@link #save()})
+     * @return cache bound to the file
+     */
+    public static DeviceCapabilityCache open(Path file) {
+        DeviceCapabilityCache cache = new DeviceCapabilityCache(file);
+        if (!Files.exists(file)) return cache;
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            return cache; // Corrupt cache: start over
+        }
+
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX) || !key.endsWith(".verified")) continue;
+            String base = key.substring(0, key.length() - "verified".length());
+            try {
+                int index = Integer.parseInt(base.substring(PREFIX.length(), base.length() - 1));
+                String profile = props.getProperty(base + "profile");
+                String candidate = props.getProperty(base + "candidate");
+                cache.entries.put(index, new Entry(
+                        Integer.parseInt(props.getProperty(base + "api")),
+                        props.getProperty(base + "backend"),
+                        Boolean.parseBoolean(props.getProperty(base + "available")),
+                        profile == null || profile.isEmpty() ? null : CaptureProfile.parse(profile),
+                        candidate == null || candidate.isEmpty() ? null : CaptureProfile.parse(candidate),
+                        Long.parseLong(props.getProperty(key))));
+            } catch (RuntimeException ignored) {
+                // Malformed entry: that index is probed again
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the cache file (atomically replaced, so a crash never leaves a half-written cache).
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        Properties props = new Properties();
+        for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+            String base = PREFIX + e.getKey() + ".";
+            Entry entry = e.getValue();
+            props.setProperty(base + "api", String.valueOf(entry.apiPreference));
+            if (entry.backend != null) props.setProperty(base + "backend", entry.backend);
+            props.setProperty(base + "available", String.valueOf(entry.available));
+            if (entry.profile != null) props.setProperty(base + "profile", entry.profile.toSpec());
+            if (entry.candidate != null) props.setProperty(base + "candidate", entry.candidate.toSpec());
+            props.setProperty(base + "verified", String.valueOf(entry.verifiedAt));
+        }
+
+        Path target = file.toAbsolutePath();
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "ActivityShow device capabilities");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // -------------------- Entries --------------------
+
+    /** Entry of a device index, or null. */
+    public synchronized Entry get(int index) {
+        return entries.get(index);
+    }
+
+    public synchronized void put(int index, Entry entry) {
+        entries.put(index, entry);
+    }
+
+    public synchronized void remove(int index) {
+        entries.remove(index);
+    }
+
+    /** Forgets everything (the next start probes all devices). */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Whether an entry can be trusted instead of probing.
+     *
+     * @param entry entry (null = not fresh)
+     * @param apiPreference backend the group uses now (entries of another backend are stale)
+     */
+    public boolean isFresh(Entry entry, int apiPreference) {
+        if (entry == null || entry.apiPreference != apiPreference) return false;
+        long age = System.currentTimeMillis() - entry.verifiedAt;
+        return age >= 0 && age <= (entry.available ? maxAgeMs : maxFailureAgeMs);
+    }
+
+    // -------------------- Settings --------------------
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    /** How long a working device is trusted without a full probe. */
+    public void setMaxAgeMs(long maxAgeMs) {
+        this.maxAgeMs = Math.max(0, maxAgeMs);
+    }
+
+    public long getMaxFailureAgeMs() {
+        return maxFailureAgeMs;
+    }
+
+    /** How long an empty index is skipped without probing (0 = always probe empty indices). */
+    public void setMaxFailureAgeMs(long maxFailureAgeMs) {
+        this.maxFailureAgeMs = Math.max(0, maxFailureAgeMs);
+    }
+
+    public long getValidationTimeoutMs() {
+        return validationTimeoutMs;
+    }
+
+    /** How long a started device may take to deliver its first frame before its entry is dropped. */
+    public void setValidationTimeoutMs(long validationTimeoutMs) {
+        this.validationTimeoutMs = Math.max(0, validationTimeoutMs);
+    }
+
+    /**
+     * What is known about one device index. Immutable.
+     */
+    public static final class Entry {
+
+        private final int apiPreference;
+        private final String backend;
+        private final boolean available;
+        private final CaptureProfile profile;
+        private final CaptureProfile candidate;
+        private final long verifiedAt;
+
+        /**
+         * @param apiPreference backend API the device was probed with
+         * @param backend backend name reported by OpenCV (may be null)
+         * @param available whether a working device was found
+         * @param profile format the driver granted (null if not negotiated yet)
+         * @param candidate candidate that won the negotiation (null if none was satisfied)
+         * @param verifiedAt when this was verified (epoch ms)
+         */
+        public Entry(int apiPreference, String backend, boolean available, CaptureProfile profile,
+                     CaptureProfile candidate, long verifiedAt) {
+            this.apiPreference = apiPreference;
+            this.backend = backend;
+            this.available = available;
+            this.profile = profile;
+            this.candidate = candidate;
+            this.verifiedAt = verifiedAt;
+        }
+
+        public int getApiPreference() {
+            return apiPreference;
+        }
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public CaptureProfile getProfile() {
+            return profile;
+        }
+
+        public CaptureProfile getCandidate() {
+            return candidate;
+        }
+
+        public long getVerifiedAt() {
+            return verifiedAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry[api=" + apiPreference + ", backend=" + backend + ", available=" + available
+                    + ", profile=" + (profile != null ? profile.toSpec() : null) + "]";
+        }
+    }
+}
@@ -1,15 +1,37 @@
 
 package io.github.beatum.video;
 
+import io.github.beatum.utils.MatTracker;
 import org.opencv.core.Mat;
+import org.opencv.core.Rect;
 import org.opencv.videoio.VideoCapture;
 import org.opencv.videoio.Videoio;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * Manages a group of video capture viewers and their corresponding UI panels.
@@ -19,7 +41,11 @@ import java.util.List;
  *   <li>Create N capture viewers (device index 0..N-1)</li>
  *   <li>Probe whether each device is available</li>
  *   <li>Add either a viewer panel or an "Empty" placeholder into the provided container</li>
- *   <li>Start/stop/release all devices safely</li>
+ *   <li>Start/stop/release all devices safely, concurrently and under one deadline</li>
+ *   <li>Hold per-index capture profiles ({@link CaptureProfile}) and persist them</li>
+ *   <li>Focus mode: one device large at its full profile, all others at thumbnail resolution</li>
+ *   <li>Optionally take its devices from an {@link IFrameSourceFactory} instead of local cameras</li>
+ *   <li>Optionally skip probing known devices through a {@link DeviceCapabilityCache}</li>
  * </ul>
  *
  * <p>Threading:
@@ -40,7 +66,7 @@ public class DeviceGroup implements AutoCloseable {
     /** Number of devices to probe (device indices 0..deviceCount-1). */
     private int deviceCount = 1;
 
-    /** Container that holds all device panels (usually GridLayout). */
+    /** Container that holds all device panels (GridLayout or {@link CameraWallLayout}). */
     private final JComponent container;
 
     /** Viewer components for available devices only. */
@@ -49,6 +75,90 @@ public class DeviceGroup implements AutoCloseable {
     /** UI panels for each index (available or placeholder). Size = deviceCount. */
     private final List<JPanel> devicePanels = new ArrayList<>();
 
+    /** Placeholder panels of unavailable indices (subset of devicePanels). */
+    private final List<JPanel> placeholderPanels = new ArrayList<>();
+
+    /** Whether placeholders are hidden (so wall layouts give their cells to live devices). */
+    private boolean collapsePlaceholders = false;
+
+    /** Capture candidates for unfocused devices while another device is focused. */
+    private List<CaptureProfile> thumbnailProfiles = new ArrayList<>(Arrays.asList(
+            CaptureProfile.ofSize(640, 360),
+            CaptureProfile.ofSize(640, 480),
+            CaptureProfile.ofSize(320, 240)));
+
+    /** Focused device index (-1 = none). */
+    private int focusedIndex = -1;
+
+    /** Whether clicking a viewer toggles focus on it. */
+    private boolean focusOnClick = false;
+
+    /** Click handler installed on every viewer (checks {@link #focusOnClick}). */
+    private final MouseAdapter focusClickHandler = new MouseAdapter() {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (!focusOnClick || !SwingUtilities.isLeftMouseButton(e) || e.getClickCount() != 1) return;
+            int index = ((VideoPanel) e.getComponent()).getDeviceIndex();
+            if (index == focusedIndex) {
+                clearFocus();
+            } else {
+                focus(index);
+            }
+        }
+    };
+
+    /** Capture profile candidates per device index (indices without entry use viewer defaults). */
+    private final Map<Integer, List<CaptureProfile>> captureProfiles = new TreeMap<>();
+
+    /** Regions of interest per device index (indices without entry use the whole frame). */
+    private final Map<Integer, Rect> rois = new TreeMap<>();
+
+    /** Creates the sources of non-camera groups (null = local cameras via VideoCapture). */
+    private final IFrameSourceFactory frameSourceFactory;
+
+    /** Probe results of earlier runs (null = probe every camera). */
+    private final DeviceCapabilityCache capabilityCache;
+
+    /** Overall deadline of the blocking lifecycle methods. */
+    private volatile long lifecycleTimeoutMs = 2000;
+
+    /**
+     * Runs per-device lifecycle operations concurrently; idle threads exit after 30 s. Shut down by
+     * {@link #releaseAll()}: running operations (even abandoned ones) still finish.
+     */
+    private final ExecutorService lifecycleExecutor = new ThreadPoolExecutor(
+            0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new ThreadFactory() {
+                private final AtomicInteger n = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "DeviceGroup-Lifecycle-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    /** Completes lifecycle results at their deadline (shared by all groups; never blocks on a device). */
+    private static final ScheduledThreadPoolExecutor DEADLINES = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "DeviceGroup-Deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        DEADLINES.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Last lifecycle operation per device index until it finishes; the next one waits for it.
+     * Guarded by itself, like {@link #abandonedOperations}.
+     */
+    private final Map<Integer, CompletableFuture<LifecycleOutcome>> pendingOperations = new HashMap<>();
+
+    /** Number of operations per device index that missed their deadline and are still running. */
+    private final Map<Integer, Integer> abandonedOperations = new HashMap<>();
+
     /**
      * Create a new DeviceGroup and initialize UI components.
      *
@@ -56,7 +166,42 @@ public class DeviceGroup implements AutoCloseable {
      * @param deviceCount number of device indices to probe (>= 0)
      */
     public DeviceGroup(JComponent container, int deviceCount) {
+        this(container, deviceCount, null, null);
+    }
+
+    /**
+     * Create a DeviceGroup whose devices are provided by a factory instead of local cameras
+     * (e.g. {@link SyntheticFrameSource}s for headless soak tests). Each source is probed like a
+     * camera: indices whose source cannot be opened or read get a placeholder.
+     *
+     * @param container the UI container where panels will be added
+     * @param deviceCount number of device indices (>= 0)
+     * @param frameSourceFactory creates the source of each index (null = local cameras)
+     */
+    public DeviceGroup(JComponent container, int deviceCount, IFrameSourceFactory frameSourceFactory) {
+        this(container, deviceCount, frameSourceFactory, null);
+    }
+
+    /**
+     * Create a DeviceGroup of local cameras that trusts fresh entries of a capability cache
+     * instead of probing: known devices get a viewer straight away (opened by {@link #openAll()}
+     * with the candidate that won last time tried first), known empty indices get a placeholder.
+     * Only unknown or stale indices are probed. Known devices are validated in the background once
+     * started; one that delivers no frame loses its entry and is probed on the next start.
+     *
+     * @param container the UI container where panels will be added
+     * @param deviceCount number of device indices (>= 0)
+     * @param capabilityCache cache to read and update (saved after probing and validation)
+     */
+    public DeviceGroup(JComponent container, int deviceCount, DeviceCapabilityCache capabilityCache) {
+        this(container, deviceCount, null, capabilityCache);
+    }
+
+    private DeviceGroup(JComponent container, int deviceCount, IFrameSourceFactory frameSourceFactory,
+                        DeviceCapabilityCache capabilityCache) {
         this.container = container;
+        this.frameSourceFactory = frameSourceFactory;
+        this.capabilityCache = capabilityCache;
         setDeviceCount(deviceCount);
         init();
     }
@@ -75,6 +220,11 @@ public class DeviceGroup implements AutoCloseable {
         this.apiPreference = apiPreference;
     }
 
+    /** Capability cache of this group, or null. */
+    public DeviceCapabilityCache getCapabilityCache() {
+        return capabilityCache;
+    }
+
     public int getDeviceCount() {
         return deviceCount;
     }
@@ -97,6 +247,210 @@ public class DeviceGroup implements AutoCloseable {
         return Collections.unmodifiableList(devicePanels);
     }
 
+    public boolean isCollapsePlaceholders() {
+        return collapsePlaceholders;
+    }
+
+    /**
+     * Hides (or shows again) the "Empty" placeholders of unavailable devices.
+     * With {@link CameraWallLayout} hidden placeholders take no cell, so live devices get
+     * bigger cells; a fixed {@link GridLayout} still reserves their cells.
+     */
+    public void setCollapsePlaceholders(boolean collapse) {
+        this.collapsePlaceholders = collapse;
+        for (JPanel placeholder : placeholderPanels) {
+            placeholder.setVisible(!collapse);
+        }
+        container.revalidate();
+        container.repaint();
+    }
+
+    // -------------------- Focus mode --------------------
+
+    public int getFocusedIndex() {
+        return focusedIndex;
+    }
+
+    public boolean isFocusOnClick() {
+        return focusOnClick;
+    }
+
+    /**
+     * Enables toggling focus by clicking a viewer.
+     */
+    public void setFocusOnClick(boolean focusOnClick) {
+        this.focusOnClick = focusOnClick;
+    }
+
+    public List<CaptureProfile> getThumbnailProfiles() {
+        return Collections.unmodifiableList(thumbnailProfiles);
+    }
+
+    /**
+     * Sets the capture candidates used by unfocused devices in focus mode.
+     *
+     * @param profiles candidates in preference order (must not be empty)
+     */
+    public void setThumbnailProfiles(List<CaptureProfile> profiles) {
+        if (profiles == null || profiles.isEmpty()) {
+            throw new IllegalArgumentException("Thumbnail profiles must not be empty");
+        }
+        this.thumbnailProfiles = new ArrayList<>(profiles);
+        if (focusedIndex >= 0) {
+            focus(focusedIndex);
+        }
+    }
+
+    /**
+     * Focuses one device: it is shown large (with {@link CameraWallLayout}) and captured at its
+     * configured profiles, while all other devices switch to {@link #getThumbnailProfiles()}.
+     *
+     * <p>Call on the EDT. Nothing here blocks: capture threads renegotiate between frames and keep
+     * showing their last image meanwhile.</p>
+     *
+     * @param index device index; ignored if no viewer exists for it
+     */
+    public void focus(int index) {
+        VideoPanel target = findViewer(index);
+        if (target == null) return;
+
+        focusedIndex = index;
+        for (VideoPanel viewer : viewers) {
+            viewer.setCaptureProfileOverride(viewer == target ? null : thumbnailProfiles);
+        }
+        applyFocusLayout(devicePanels.get(index));
+    }
+
+    /**
+     * Leaves focus mode: every device returns to its configured profiles and the plain grid.
+     */
+    public void clearFocus() {
+        focusedIndex = -1;
+        for (VideoPanel viewer : viewers) {
+            viewer.setCaptureProfileOverride(null);
+        }
+        applyFocusLayout(null);
+    }
+
+    private void applyFocusLayout(JPanel panel) {
+        LayoutManager layout = container.getLayout();
+        if (layout instanceof CameraWallLayout) {
+            ((CameraWallLayout) layout).setFocused(panel);
+            container.revalidate();
+            container.repaint();
+        }
+    }
+
+    // -------------------- Capture profiles --------------------
+
+    /**
+     * Returns the capture profile candidates configured for a device index.
+     *
+     * @param index device index
+     * @return candidates (empty if none configured)
+     */
+    public List<CaptureProfile> getCaptureProfiles(int index) {
+        List<CaptureProfile> profiles = captureProfiles.get(index);
+        return profiles == null ? Collections.emptyList() : Collections.unmodifiableList(profiles);
+    }
+
+    /**
+     * Configures capture profile candidates for a device index.
+     * A running viewer renegotiates between two frames; a stopped one on its next start. The
+     * candidates are kept per index, so a viewer recreated by a later probe gets them again.
+     *
+     * @param index device index
+     * @param profiles candidates in preference order (null or empty = viewer defaults)
+     */
+    public void setCaptureProfiles(int index, List<CaptureProfile> profiles) {
+        if (profiles == null || profiles.isEmpty()) {
+            captureProfiles.remove(index);
+        } else {
+            captureProfiles.put(index, new ArrayList<>(profiles));
+        }
+
+        VideoPanel viewer = findViewer(index);
+        if (viewer != null) {
+            viewer.setCaptureProfiles(profiles);
+        }
+    }
+
+    /**
+     * Loads capture profiles from a file written by {@link #saveCaptureProfiles(Path)}
+     * and applies them to the matching viewers. Indices not present in the file keep
+     * their current configuration.
+     *
+     * @param file profiles file
+     * @throws IOException if the file exists but cannot be read
+     */
+    public void loadCaptureProfiles(Path file) throws IOException {
+        for (Map.Entry<Integer, List<CaptureProfile>> e : CaptureProfileStore.load(file).entrySet()) {
+            setCaptureProfiles(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Saves the configured capture profiles of all indices.
+     *
+     * @param file profiles file
+     * @throws IOException if the file cannot be written
+     */
+    public void saveCaptureProfiles(Path file) throws IOException {
+        CaptureProfileStore.save(file, captureProfiles);
+    }
+
+    // -------------------- Regions of interest --------------------
+
+    /**
+     * Returns the region of interest of a device index (as last set here or dragged on its viewer).
+     *
+     * @param index device index
+     * @return region in source pixels, or null for the whole frame
+     */
+    public Rect getRoi(int index) {
+        VideoPanel viewer = findViewer(index);
+        if (viewer != null) {
+            return viewer.getRoi();
+        }
+        Rect roi = rois.get(index);
+        return roi == null ? null : roi.clone();
+    }
+
+    /**
+     * Restricts filtering, snapshots and (when zoomed) display of one device to a region of its
+     * frames; see {@link VideoPanel#setRoi(Rect)}. Takes effect on the next frame, and is applied
+     * again if the viewers are rebuilt.
+     *
+     * @param index device index
+     * @param roi region in source pixels, or null for the whole frame
+     */
+    public void setRoi(int index, Rect roi) {
+        if (roi == null) {
+            rois.remove(index);
+        } else {
+            rois.put(index, roi.clone());
+        }
+
+        VideoPanel viewer = findViewer(index);
+        if (viewer != null) {
+            viewer.setRoi(roi);
+        }
+    }
+
+    /**
+     * Finds the viewer for a device index.
+     *
+     * @return viewer, or null if that index has no available device
+     */
+    public VideoPanel findViewer(int index) {
+        for (VideoPanel viewer : viewers) {
+            if (viewer.getDeviceIndex() == index) {
+                return viewer;
+            }
+        }
+        return null;
+    }
+
     // -------------------- Initialization --------------------
 
     /**
@@ -111,8 +465,10 @@ public class DeviceGroup implements AutoCloseable {
      */
     private void init() {
         // Clear old state (if re-initialization ever happens)
+        focusedIndex = -1;
         viewers.clear();
         devicePanels.clear();
+        placeholderPanels.clear();
         container.removeAll();
 
         // Ensure container layout has enough cells; common usage is GridLayout(rows, cols)
@@ -121,22 +477,21 @@ public class DeviceGroup implements AutoCloseable {
             JPanel panelForIndex;
 
             // Probe device availability with a short open/read cycle
-            VideoCapture cap = new VideoCapture();
-            boolean available = tryOpenAndProbe(cap, i, apiPreference);
+            VideoPanel viewer = frameSourceFactory != null ? createSourceViewer(i) : createCameraViewer(i);
 
-            if (available) {
-                // Create viewer that will own this capture instance
-                VideoPanel viewer = new VideoPanel(cap, apiPreference, i);
+            if (viewer != null) {
+                viewer.setCaptureProfiles(captureProfiles.get(i));
+                viewer.setRoi(rois.get(i));
+                viewer.addMouseListener(focusClickHandler);
 
                 panelForIndex = new JPanel(new GridLayout(1, 1));
                 panelForIndex.add(viewer);
 
                 viewers.add(viewer);
             } else {
-                // Clean up capture if probe failed
-                cap.release();
-
                 panelForIndex = buildPlaceholderPanel(i);
+                panelForIndex.setVisible(!collapsePlaceholders);
+                placeholderPanels.add(panelForIndex);
             }
 
             devicePanels.add(panelForIndex);
@@ -145,11 +500,81 @@ public class DeviceGroup implements AutoCloseable {
             container.add(panelForIndex, i);
         }
 
+        saveCapabilityCache();
+
         // Refresh UI
         container.revalidate();
         container.repaint();
     }
 
+    /**
+     * Probes a local camera, unless the capability cache already knows the index.
+     *
+     * @return viewer owning the (opened or still unopened) capture, or null if the device is unavailable
+     */
+    private VideoPanel createCameraViewer(int index) {
+        DeviceCapabilityCache.Entry cached = capabilityCache != null ? capabilityCache.get(index) : null;
+        if (cached != null && capabilityCache.isFresh(cached, apiPreference)) {
+            if (!cached.isAvailable()) {
+                return null;
+            }
+            // Known device: opened by start(), validated once it streams
+            VideoPanel viewer = new VideoPanel(new VideoCapture(), apiPreference, index);
+            viewer.setPreferredCandidate(cached.getCandidate());
+            return viewer;
+        }
+
+        VideoCapture cap = new VideoCapture();
+        boolean ok = tryOpenAndProbe(cap, index, apiPreference);
+        if (capabilityCache != null) {
+            // The format is recorded once the device has been negotiated and validated
+            capabilityCache.put(index, new DeviceCapabilityCache.Entry(
+                    apiPreference, ok ? backendName(cap) : null, ok, null, null, System.currentTimeMillis()));
+        }
+        if (ok) {
+            // Create viewer that will own this capture instance
+            return new VideoPanel(cap, apiPreference, index);
+        }
+        // Clean up capture if probe failed
+        cap.release();
+        return null;
+    }
+
+    /** Backend name of an opened capture, or null if the backend does not report one. */
+    private static String backendName(VideoCapture cap) {
+        try {
+            return cap.getBackendName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates and probes the source of an index through {@link #frameSourceFactory}.
+     *
+     * @return viewer owning the opened source, or null if there is no source or it cannot be read
+     */
+    private VideoPanel createSourceViewer(int index) {
+        IFrameSource source = null;
+        try {
+            source = frameSourceFactory.create(index);
+            if (source != null && source.open()) {
+                Mat test = MatTracker.track(new Mat(), "DeviceGroup.probe", index);
+                boolean ok = source.read(test) && !test.empty();
+                test.release();
+                if (ok) {
+                    return new VideoPanel(source, index);
+                }
+            }
+        } catch (Exception ignored) {
+            // Treated like an unavailable camera
+        }
+        if (source != null) {
+            source.release();
+        }
+        return null;
+    }
+
     /**
      * Attempts to open the device and read a single test frame to confirm it works.
      *
@@ -164,7 +589,7 @@ public class DeviceGroup implements AutoCloseable {
                 return false;
             }
             // Read a test frame (more reliable than grab() alone on some backends)
-            Mat test = new Mat();
+            Mat test = MatTracker.track(new Mat(), "DeviceGroup.probe", index);
             boolean ok = cap.read(test) && !test.empty();
             test.release();
             return ok;
@@ -186,32 +611,171 @@ public class DeviceGroup implements AutoCloseable {
 
     // -------------------- Lifecycle --------------------
 
+    public long getLifecycleTimeoutMs() {
+        return lifecycleTimeoutMs;
+    }
+
     /**
-     * Starts capture for all available viewers.
+     * Sets the overall deadline of {@link #openAll()}, {@link #stopAll()} and {@link #releaseAll()}.
+     * Devices run concurrently, so this is roughly the time one slow device may take.
+     *
+     * @param timeoutMs deadline in ms (default 2000)
+     */
+    public void setLifecycleTimeoutMs(long timeoutMs) {
+        this.lifecycleTimeoutMs = Math.max(0, timeoutMs);
+    }
+
+    /**
+     * Starts capture for all available viewers, concurrently; waits at most
+     * {@link #getLifecycleTimeoutMs()}.
      */
     public void openAll() {
-        // Start viewers; each viewer manages its own capture thread.
-        for (VideoPanel viewer : viewers) {
+        openAllAsync(lifecycleTimeoutMs).join();
+    }
+
+    /**
+     * Starts capture for all available viewers concurrently without blocking the caller
+     * (e.g. the EDT).
+     *
+     * @param timeoutMs overall deadline; devices still opening then are reported as abandoned
+     *                  (as are devices whose earlier abandoned operation has not finished yet:
+     *                  they are not reopened until it does)
+     * @return future completing by the deadline with the outcome per device index
+     */
+    public CompletableFuture<Map<Integer, LifecycleOutcome>> openAllAsync(long timeoutMs) {
+        // Each viewer opens its device and manages its own capture thread
+        return runAll(viewer -> {
             viewer.start();
+            if (capabilityCache != null && viewer.getVideoCapture() != null) {
+                validateCapabilities(viewer);
+            }
+            return viewer.isSourceOpen();
+        }, timeoutMs);
+    }
+
+    /**
+     * Waits in the background (not counted against the lifecycle deadline) for a started camera to
+     * deliver its first frame, then records its negotiated format; a camera that does not stream
+     * within {@link DeviceCapabilityCache#getValidationTimeoutMs()} loses its entry.
+     */
+    private void validateCapabilities(VideoPanel viewer) {
+        int index = viewer.getDeviceIndex();
+        long baseline = viewer.getProcessedFrameCount() + viewer.getSkippedFrameCount();
+        try {
+            lifecycleExecutor.execute(() -> {
+                long deadline = System.currentTimeMillis() + capabilityCache.getValidationTimeoutMs();
+                boolean opened = viewer.isSourceOpen();
+                boolean streaming = false;
+                while (viewer.isSourceOpen() && System.currentTimeMillis() < deadline) {
+                    if (viewer.getProcessedFrameCount() + viewer.getSkippedFrameCount() > baseline) {
+                        streaming = true;
+                        break;
+                    }
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (streaming) {
+                    capabilityCache.put(index, new DeviceCapabilityCache.Entry(
+                            apiPreference, backendName(viewer.getVideoCapture()), true,
+                            viewer.getNegotiatedProfile(), viewer.getNegotiatedCandidate(),
+                            System.currentTimeMillis()));
+                } else if (!opened || viewer.isSourceOpen()) {
+                    // Never opened, or open but silent
+                    capabilityCache.remove(index);
+                } else {
+                    return; // Stopped meanwhile: proves nothing
+                }
+                saveCapabilityCache();
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Group is shutting down; the entry stays as it was
+        }
+    }
+
+    /** Saves the capability cache, if any (a cache that cannot be written only costs a probe). */
+    private void saveCapabilityCache() {
+        if (capabilityCache == null) return;
+        try {
+            capabilityCache.save();
+        } catch (IOException ignored) {
         }
     }
 
     /**
-     * Stops all viewers but does not remove UI panels.
+     * Stops all viewers concurrently but does not remove UI panels; waits at most
+     * {@link #getLifecycleTimeoutMs()}.
      */
     public void stopAll() {
-        for (VideoPanel viewer : viewers) {
+        stopAllAsync(lifecycleTimeoutMs).join();
+    }
+
+    /**
+     * Stops all viewers concurrently without blocking the caller.
+     *
+     * @param timeoutMs overall deadline; devices still stopping then are reported as abandoned
+     * @return future completing by the deadline with the outcome per device index
+     */
+    public CompletableFuture<Map<Integer, LifecycleOutcome>> stopAllAsync(long timeoutMs) {
+        return runAll(viewer -> {
             viewer.stop();
-        }
+            // Done once the device is released, which a capture thread blocked in a read delays
+            awaitCaptureExit(viewer);
+            return true;
+        }, timeoutMs);
     }
 
     /**
-     * Stops and releases all resources (recommended).
+     * Stops and releases all resources concurrently (recommended); waits at most
+     * {@link #getLifecycleTimeoutMs()}, so closing a window never hangs on one device.
+     * The group cannot be opened again afterwards.
      */
     public void releaseAll() {
-        for (VideoPanel viewer : viewers) {
+        releaseAllAsync(lifecycleTimeoutMs).join();
+    }
+
+    /**
+     * Stops and releases all resources concurrently without blocking the caller.
+     *
+     * Shuts the lifecycle threads down: later lifecycle operations report {@link LifecycleOutcome#FAILED},
+     * while abandoned ones still run to completion.
+     *
+     * @param timeoutMs overall deadline; devices still releasing then are reported as abandoned
+     * @return future completing by the deadline with the outcome per device index
+     */
+    public CompletableFuture<Map<Integer, LifecycleOutcome>> releaseAllAsync(long timeoutMs) {
+        CompletableFuture<Map<Integer, LifecycleOutcome>> outcomes = runAll(viewer -> {
             // VideoPanel.close() calls stop() and releases capture
             viewer.close();
+            awaitCaptureExit(viewer);
+            return true;
+        }, timeoutMs);
+        // Already submitted operations (including ones waiting for an abandoned predecessor) still run
+        lifecycleExecutor.shutdown();
+        return outcomes;
+    }
+
+    /**
+     * Whether a lifecycle operation on a device missed its deadline and is still running, e.g.
+     * blocked in a driver call. Until it finishes, the device is not opened, stopped or released
+     * again: later operations wait for it.
+     *
+     * @param index device index
+     */
+    public boolean isAbandoned(int index) {
+        synchronized (pendingOperations) {
+            return abandonedOperations.containsKey(index);
+        }
+    }
+
+    private static void awaitCaptureExit(VideoPanel viewer) {
+        try {
+            viewer.awaitCaptureExit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -222,4 +786,77 @@ public class DeviceGroup implements AutoCloseable {
     public void close() {
         releaseAll();
     }
+
+    /**
+     * Runs an operation on every viewer on its own thread, all under one deadline.
+     *
+     * <p>An operation missing the deadline is abandoned: the result reports it as
+     * {@link LifecycleOutcome#ABANDONED} without waiting, so a device blocked in a driver call
+     * cannot delay the others. It is not cancelled, though; it keeps running on its thread, and the
+     * next operation on the same device waits until it has finished (see {@link #isAbandoned}).</p>
+     *
+     * @param action operation, returning false on failure
+     * @param timeoutMs overall deadline
+     * @return outcomes by device index (sorted)
+     */
+    private CompletableFuture<Map<Integer, LifecycleOutcome>> runAll(Predicate<VideoPanel> action, long timeoutMs) {
+        Map<Integer, CompletableFuture<LifecycleOutcome>> futures = new TreeMap<>();
+        for (VideoPanel viewer : new ArrayList<>(viewers)) {
+            int index = viewer.getDeviceIndex();
+            CompletableFuture<LifecycleOutcome> task;
+            synchronized (pendingOperations) {
+                CompletableFuture<LifecycleOutcome> previous = pendingOperations.get(index);
+                try {
+                    task = CompletableFuture
+                            .supplyAsync(() -> {
+                                // An abandoned operation still owns the device
+                                if (previous != null) previous.join();
+                                return action.test(viewer) ? LifecycleOutcome.COMPLETED : LifecycleOutcome.FAILED;
+                            }, lifecycleExecutor)
+                            .exceptionally(e -> LifecycleOutcome.FAILED);
+                } catch (RejectedExecutionException e) {
+                    // Group released
+                    task = CompletableFuture.completedFuture(LifecycleOutcome.FAILED);
+                }
+                pendingOperations.put(index, task);
+            }
+
+            CompletableFuture<LifecycleOutcome> operation = task;
+            AtomicBoolean missed = new AtomicBoolean();
+            operation.whenComplete((outcome, error) -> {
+                synchronized (pendingOperations) {
+                    pendingOperations.remove(index, operation);
+                    if (missed.get()) {
+                        abandonedOperations.computeIfPresent(index, (i, n) -> n == 1 ? null : n - 1);
+                    }
+                }
+            });
+
+            // A copy gets the deadline, so that the operation itself still completes when it finishes;
+            // the device is marked before the outcome becomes visible
+            CompletableFuture<LifecycleOutcome> timed = operation.thenApply(outcome -> outcome);
+            ScheduledFuture<?> deadline = DEADLINES.schedule(
+                    () -> timed.complete(LifecycleOutcome.ABANDONED), timeoutMs, TimeUnit.MILLISECONDS);
+            timed.whenComplete((outcome, error) -> deadline.cancel(false));
+            CompletableFuture<LifecycleOutcome> result = timed.thenApply(outcome -> {
+                if (outcome == LifecycleOutcome.ABANDONED) {
+                    synchronized (pendingOperations) {
+                        if (!operation.isDone()) {
+                            missed.set(true);
+                            abandonedOperations.merge(index, 1, Integer::sum);
+                        }
+                    }
+                }
+                return outcome;
+            });
+            futures.put(index, result);
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<Integer, LifecycleOutcome> outcomes = new TreeMap<>();
+                    futures.forEach((index, future) -> outcomes.put(index, future.join()));
+                    return Collections.unmodifiableMap(outcomes);
+                });
+    }
 }
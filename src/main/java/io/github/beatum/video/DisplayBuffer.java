@@ -0,0 +1,329 @@
+
+package io.github.beatum.video;
+
+import io.github.beatum.utils.MatTracker;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * The display path shared by live view ({@link VideoPanel}) and playback ({@link PlaybackPanel}):
+ * resizes a frame to display size, maps it to a displayable layout and copies it into one
+ * reused {@link BufferedImage}.
+ *
+ * <h2>Resize first</h2>
+ * Frames are resized in their own layout and only then converted, so the conversion cost scales
+ * with the panel, not with the camera:
+ * <ul>
+ *   <li>8-bit gray and BGR are copied as they are ({@code TYPE_BYTE_GRAY} / {@code TYPE_3BYTE_BGR}).</li>
+ *   <li>BGRA drops alpha at display size.</li>
+ *   <li>16-bit, signed and float frames are scaled to 8 bit at display size.</li>
+ *   <li>Packed YUYV (8-bit, 2 channels, as delivered with {@code CAP_PROP_CONVERT_RGB} off) is
+ *       resized as 4-channel macro-pixels (Y0 U Y1 V) through a reshaped view, then converted to
+ *       BGR at display size.</li>
+ * </ul>
+ * The image itself is always gray or BGR: Java2D blits those natively, while images with a custom
+ * {@code ColorModel} (e.g. BGRA byte order) fall back to per-pixel loops that cost the EDT more
+ * than the conversion saves.
+ *
+ * <p>Memory is bounded by one display-sized image plus a few display-sized work Mats, however long
+ * a panel runs. {@link #render(Mat, int, int)} is called from one producer thread; the EDT
+ * only reads {@link #getImage()}.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class DisplayBuffer {
+
+    /** Latest image to paint (read by EDT). */
+    private volatile BufferedImage image;
+
+    /** Mat used for resizing to display size. */
+    private final Mat resizedMat = new Mat();
+
+    /** Display-sized frame converted to gray or BGR (e.g. from BGRA or YUYV). */
+    private final Mat convertedMat = new Mat();
+
+    /** Display-sized frame scaled to 8 bit (16-bit, signed and float sources). */
+    private final Mat depthMat = new Mat();
+
+    /** Resized YUYV frame (8UC2) and its 4-channel macro-pixel view (shares the data). */
+    private final Mat packedMat = new Mat();
+    private Mat packedView;
+
+    /** 4-channel macro-pixel view of the last YUYV source frame. */
+    private Mat sourceView;
+    private long sourceViewAddr;
+
+    /** Left {@code width} columns of {@link #convertedMat} when a YUYV frame was resized to width + 1. */
+    private Mat cropView;
+    private long cropViewAddr;
+
+    /** Sequence of the frame in {@link #image} (-1 if untraced). */
+    private volatile long imageSequence = -1;
+
+    /** Cached raster byte array of {@link #image} (points to its internal buffer). */
+    private byte[] pixels;
+
+    /**
+     * Registers the work Mats with {@link MatTracker} (no-op unless tracking is enabled).
+     *
+     * @param owner owning component, e.g. {@code "VideoPanel"}
+     * @param device device index
+     */
+    void track(String owner, int device) {
+        MatTracker.trackBuffer(resizedMat, owner + ".resized", device);
+        MatTracker.trackBuffer(convertedMat, owner + ".converted", device);
+        MatTracker.trackBuffer(depthMat, owner + ".depth", device);
+        MatTracker.trackBuffer(packedMat, owner + ".packed", device);
+    }
+
+    /** Latest rendered image, or null before the first frame. */
+    BufferedImage getImage() {
+        return image;
+    }
+
+    /** Sequence of the frame in the latest image, -1 if unknown. */
+    long getImageSequence() {
+        return imageSequence;
+    }
+
+    /**
+     * Renders a frame into the display image.
+     *
+     * @param frame frame of any size (gray, BGR, BGRA, YUYV; any depth)
+     * @param width display width
+     * @param height display height
+     * @return the display image
+     */
+    BufferedImage render(Mat frame, int width, int height) {
+        return render(frame, width, height, -1, -1);
+    }
+
+    /**
+     * Renders a frame into the display image, emitting a {@link FrameStageEvent} per stage.
+     *
+     * @param frame frame of any size (gray, BGR, BGRA, YUYV; any depth)
+     * @param width display width
+     * @param height display height
+     * @param device device index the events are tagged with
+     * @param sequence frame sequence the events are tagged with
+     * @return the display image
+     */
+    BufferedImage render(Mat frame, int width, int height, int device, long sequence) {
+        boolean yuyv = frame.type() == CvType.CV_8UC2;
+
+        // Resize to display size in the source layout (skipped if the frame already has it,
+        // e.g. a FrameGraph with display() or a playback frame from the decode cache)
+        Mat scaled = frame;
+        if (frame.cols() != width || frame.rows() != height) {
+            FrameStageEvent resizeEvent = new FrameStageEvent();
+            resizeEvent.begin();
+            if (yuyv) {
+                scaled = resizePacked(frame, width, height);
+            } else {
+                Imgproc.resize(frame, resizedMat, new Size(width, height));
+                scaled = resizedMat;
+            }
+            resizeEvent.finish(device, sequence, FrameStageEvent.RESIZE);
+        }
+
+        // Map to gray or BGR at display size
+        FrameStageEvent convertEvent = new FrameStageEvent();
+        convertEvent.begin();
+        Mat displayMat = toDisplayLayout(scaled, yuyv, width);
+        if (displayMat != scaled) {
+            convertEvent.finish(device, sequence, FrameStageEvent.CONVERT);
+        }
+
+        // Determine BufferedImage type
+        int imageType = (displayMat.channels() == 1)
+                ? BufferedImage.TYPE_BYTE_GRAY
+                : BufferedImage.TYPE_3BYTE_BGR;
+
+        // Ensure image buffer matches size/type (reuse if possible)
+        BufferedImage img = ensureImageBuffer(width, height, imageType);
+
+        // Copy bytes from Mat to BufferedImage raster
+        FrameStageEvent copyEvent = new FrameStageEvent();
+        copyEvent.begin();
+        displayMat.get(0, 0, pixels);
+        copyEvent.finish(device, sequence, FrameStageEvent.RASTER_COPY);
+
+        imageSequence = sequence;
+        image = img;
+        return img;
+    }
+
+    /**
+     * Resizes a YUYV frame without unpacking it: each Y0 U Y1 V pair is one 4-channel pixel,
+     * so interpolating pairs keeps luma and chroma apart.
+     *
+     * @return resized YUYV frame, {@code width} or {@code width + 1} pixels wide
+     */
+    private Mat resizePacked(Mat frame, int width, int height) {
+        if (frame.cols() % 2 != 0 || !frame.isContinuous()) {
+            // Not a packed pair layout: convert at source size (rare)
+            Imgproc.cvtColor(frame, convertedMat, Imgproc.COLOR_YUV2BGR_YUYV);
+            Imgproc.resize(convertedMat, resizedMat, new Size(width, height));
+            return resizedMat;
+        }
+
+        // Views are cached: the capture thread reuses its frame Mat, so they rarely change
+        if (sourceView == null || sourceViewAddr != frame.dataAddr()
+                || sourceView.rows() != frame.rows() || sourceView.cols() * 2 != frame.cols()) {
+            if (sourceView != null) sourceView.release();
+            sourceView = frame.reshape(4, frame.rows());
+            sourceViewAddr = frame.dataAddr();
+        }
+        int pairs = (width + 1) / 2;
+        if (packedView == null || packedMat.rows() != height || packedMat.cols() != pairs * 2) {
+            packedMat.create(height, pairs * 2, CvType.CV_8UC2);
+            if (packedView != null) packedView.release();
+            packedView = packedMat.reshape(4, height);
+        }
+        Imgproc.resize(sourceView, packedView, new Size(pairs, height));
+        return packedMat;
+    }
+
+    /**
+     * Converts a display-sized frame to 8-bit gray or BGR.
+     *
+     * @return {@code frame} itself if it is already displayable, else a work Mat
+     */
+    private Mat toDisplayLayout(Mat frame, boolean yuyv, int width) {
+        if (yuyv) {
+            if (frame.channels() != 2) return frame; // already converted by resizePacked
+            Imgproc.cvtColor(frame, convertedMat, Imgproc.COLOR_YUV2BGR_YUYV);
+            return convertedMat.cols() == width ? convertedMat : crop(convertedMat, width);
+        }
+
+        Mat m = frame;
+        int depth = m.depth();
+        if (depth != CvType.CV_8U) {
+            // 16-bit: keep the high byte; signed: shift to unsigned; float: assume 0..1
+            double alpha;
+            double beta = 0;
+            switch (depth) {
+                case CvType.CV_16U:
+                    alpha = 1 / 256.0;
+                    break;
+                case CvType.CV_16S:
+                    alpha = 1 / 256.0;
+                    beta = 128;
+                    break;
+                case CvType.CV_8S:
+                    alpha = 1;
+                    beta = 128;
+                    break;
+                case CvType.CV_32F:
+                case CvType.CV_64F:
+                    alpha = 255;
+                    break;
+                default:
+                    alpha = 1;
+                    break;
+            }
+            m.convertTo(depthMat, CvType.CV_8U, alpha, beta);
+            m = depthMat;
+        }
+
+        switch (m.channels()) {
+            case 1:
+            case 3:
+                return m;
+            case 4:
+                Imgproc.cvtColor(m, convertedMat, Imgproc.COLOR_BGRA2BGR);
+                return convertedMat;
+            default:
+                // Unknown layout: show the first channel as gray
+                Core.extractChannel(m, convertedMat, 0);
+                return convertedMat;
+        }
+    }
+
+    /** Left {@code width} columns of {@code mat} (view cached while the data stays put). */
+    private Mat crop(Mat mat, int width) {
+        if (cropView == null || cropViewAddr != mat.dataAddr()
+                || cropView.cols() != width || cropView.rows() != mat.rows()) {
+            if (cropView != null) cropView.release();
+            cropView = mat.submat(0, mat.rows(), 0, width);
+            cropViewAddr = mat.dataAddr();
+        }
+        return cropView;
+    }
+
+    /**
+     * Paints the latest image over the whole component, scaling it if the display size is
+     * not settled yet (e.g. during a window resize).
+     *
+     * @return false if there is no image yet
+     */
+    boolean paint(Graphics g, Component component) {
+        BufferedImage img = image;
+        if (img == null) return false;
+        int w = component.getWidth();
+        int h = component.getHeight();
+        if (img.getWidth() == w && img.getHeight() == h) {
+            g.drawImage(img, 0, 0, component);
+        } else {
+            g.drawImage(img, 0, 0, w, h, component);
+        }
+        return true;
+    }
+
+    /** Releases the work Mats (the image is left to the garbage collector). */
+    void release() {
+        try {
+            resizedMat.release();
+        } catch (Exception ignored) {}
+        try {
+            convertedMat.release();
+        } catch (Exception ignored) {}
+        try {
+            depthMat.release();
+            packedMat.release();
+            releaseViews();
+        } catch (Exception ignored) {}
+    }
+
+    private void releaseViews() {
+        for (Mat view : new Mat[]{sourceView, packedView, cropView}) {
+            if (view != null) view.release();
+        }
+        sourceView = null;
+        packedView = null;
+        cropView = null;
+    }
+
+    /**
+     * Ensures a BufferedImage exists with matching size/type; reuses when possible.
+     * Also refreshes the cached pixel array reference.
+     */
+    private BufferedImage ensureImageBuffer(int width, int height, int imageType) {
+        BufferedImage img = image;
+
+        boolean mustCreate = (img == null)
+                || img.getWidth() != width
+                || img.getHeight() != height
+                || img.getType() != imageType;
+
+        if (mustCreate) {
+            img = new BufferedImage(width, height, imageType);
+            pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+            image = img;
+        } else if (pixels == null) {
+            pixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+        }
+
+        return img;
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.beatum.video;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Cheap "did anything change?" test for raw frames.
+ *
+ * <p>The frame is point-sampled on a {@value #GRID_COLS}x{@value #GRID_ROWS} grid
+ * (nearest-neighbour resize, so only the sampled pixels are touched) and compared with
+ * the samples of the last frame that was reported as changed. The difference measure is
+ * the largest absolute difference of a single sampled byte (0..255), not a mean: a small
+ * object that changes a few samples strongly must not be averaged away by the rest of the
+ * frame.</p>
+ *
+ * <p>Comparing against the last <i>changed</i> frame (not the previous one) means a slow
+ * drift below the threshold still triggers once it has accumulated.</p>
+ *
+ * <p>Not thread-safe; owned by a single capture thread.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class FrameChangeDetector {
+
+    /** Sample grid size (16:9, ~2.3k samples per channel). */
+    static final int GRID_COLS = 64;
+    static final int GRID_ROWS = 36;
+
+    private static final Size GRID = new Size(GRID_COLS, GRID_ROWS);
+
+    /** Reused sample Mat. */
+    private final Mat samples = new Mat();
+
+    /** Samples of the reference (last changed) frame. */
+    private byte[] reference;
+
+    /** Samples of the current frame. */
+    private byte[] current;
+
+    /** Reference frame geometry; any change counts as a change. */
+    private int refRows = -1;
+    private int refCols = -1;
+    private int refType = -1;
+
+    /**
+     * Tests whether {@code frame} differs from the last changed frame.
+     *
+     * @param frame raw frame
+     * @param threshold largest absolute difference of a sample still considered "unchanged"
+     *                  (0 = samples must be identical; negative = detection disabled)
+     * @return true if the frame should be processed
+     */
+    public boolean hasChanged(Mat frame, double threshold) {
+        if (threshold < 0) return true;
+
+        // Only 8-bit frames are sampled as bytes; other depths always count as changed
+        if (frame.depth() != CvType.CV_8U) {
+            reset();
+            return true;
+        }
+
+        Imgproc.resize(frame, samples, GRID, 0, 0, Imgproc.INTER_NEAREST);
+        int length = (int) (samples.total() * samples.channels());
+        if (current == null || current.length != length) {
+            current = new byte[length];
+        }
+        samples.get(0, 0, current);
+
+        boolean sameGeometry = frame.rows() == refRows && frame.cols() == refCols && frame.type() == refType;
+        if (sameGeometry && reference != null && reference.length == length
+                && !exceeds(reference, current, threshold)) {
+            return false;
+        }
+
+        // Changed: current samples become the new reference
+        byte[] tmp = reference;
+        reference = current;
+        current = tmp;
+        refRows = frame.rows();
+        refCols = frame.cols();
+        refType = frame.type();
+        return true;
+    }
+
+    /** Forgets the reference so the next frame counts as changed. */
+    public void reset() {
+        reference = null;
+        refRows = refCols = refType = -1;
+    }
+
+    /** Releases the native sample buffer. */
+    public void release() {
+        samples.release();
+    }
+
+    /** Whether any sample differs by more than {@code threshold}. */
+    private static boolean exceeds(byte[] a, byte[] b, double threshold) {
+        for (int i = 0; i < a.length; i++) {
+            if (Math.abs((a[i] & 0xFF) - (b[i] & 0xFF)) > threshold) return true;
+        }
+        return false;
+    }
+}
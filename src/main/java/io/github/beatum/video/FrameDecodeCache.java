@@ -0,0 +1,438 @@
+
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes recorded frames on background threads into a bounded LRU cache of display-sized
+ * frames, for {@link PlaybackPanel}.
+ *
+ * <h2>Why display-sized</h2>
+ * Frames are resized to the panel size right after decoding, so a cached frame costs a fraction
+ * of a full-resolution one and re-showing it (scrubbing back and forth) needs no decode and no
+ * resize: {@link #renderTo} only copies it into the panel's display image.
+ *
+ * <h2>Scheduling</h2>
+ * <ul>
+ *   <li>Requests for the frame a panel wants to show now are <b>urgent</b> and are served before
+ *       any prefetch request; prefetches are served in request order.</li>
+ *   <li>The queue is bounded: when it is full, the oldest prefetch requests are dropped (never
+ *       urgent ones), so a fast scrub never leaves the workers busy with positions the user has
+ *       already left.</li>
+ *   <li>Duplicate requests (already cached or queued) are ignored; an urgent request for a queued
+ *       prefetch promotes it.</li>
+ * </ul>
+ *
+ * <p>Rendering a cached frame pins it instead of holding the cache lock, so panels sharing the
+ * cache and the decode threads never wait for each other's resize and raster copy.</p>
+ *
+ * <p>One cache can be shared by several panels (e.g. a {@link PlaybackGroup}), which bounds the
+ * memory of the whole playback wall.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class FrameDecodeCache implements AutoCloseable {
+
+    /** Default max queued decode requests. */
+    private static final int MAX_QUEUED = 256;
+
+    private final long maxBytes;
+
+    /** Max queued requests (urgent + prefetch). */
+    private final int maxQueued;
+
+    /** Access-ordered LRU of decoded, display-sized frames (guarded by this). */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long bytes;
+
+    /** Pending urgent requests (guarded by this), newest first. */
+    private final Deque<Request> urgent = new ArrayDeque<>();
+
+    /** Pending prefetch requests (guarded by this), oldest first. */
+    private final Deque<Request> prefetch = new ArrayDeque<>();
+
+    /** Keys queued or being decoded (guarded by this). */
+    private final Set<Key> inFlight = new HashSet<>();
+
+    private final Thread[] workers;
+    private volatile boolean closed;
+
+    // -------------------- Statistics --------------------
+
+    private volatile long hitCount;
+    private volatile long missCount;
+    private final AtomicLong decodeCount = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    /**
+     * @param decodeThreads number of decode threads (>= 1)
+     * @param maxBytes memory cap for cached frames (e.g. 128 MB ~ 340 frames of 480x270 BGR)
+     */
+    public FrameDecodeCache(int decodeThreads, long maxBytes) {
+        this(Math.max(1, decodeThreads), maxBytes, MAX_QUEUED);
+    }
+
+    /**
+     * @param decodeThreads number of decode threads (0 = none; tests call {@link #decodeNext()})
+     * @param maxBytes memory cap for cached frames
+     * @param maxQueued max queued requests
+     */
+    FrameDecodeCache(int decodeThreads, long maxBytes, int maxQueued) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.workers = new Thread[Math.max(0, decodeThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::decodeLoop, "FrameDecodeCache-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    // -------------------- Public API --------------------
+
+    /**
+     * Renders a cached frame into a display buffer.
+     *
+     * @return false on a cache miss (nothing rendered)
+     */
+    boolean renderTo(StoredFrame frame, int width, int height, DisplayBuffer buffer) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(frame, width, height));
+            if (entry == null) {
+                missCount++;
+                return false;
+            }
+            hitCount++;
+            // Pinned: an eviction meanwhile leaves the release to unpin()
+            entry.pins++;
+        }
+        try {
+            buffer.render(entry.mat, width, height);
+        } finally {
+            unpin(entry);
+        }
+        return true;
+    }
+
+    /** Whether a frame is cached at the given display size. */
+    public synchronized boolean contains(StoredFrame frame, int width, int height) {
+        return entries.containsKey(new Key(frame, width, height));
+    }
+
+    /**
+     * Requests a frame to be decoded at the given display size (no-op if cached or queued).
+     *
+     * @param store store the frame belongs to
+     * @param frame frame handle
+     * @param width display width
+     * @param height display height
+     * @param urgent true for the frame to show now (front of queue), false for prefetch
+     * @param onDecoded called on the decode thread once the frame is cached (may be null)
+     */
+    public void request(SegmentStore store, StoredFrame frame, int width, int height,
+                        boolean urgent, Runnable onDecoded) {
+        Key key = new Key(frame, width, height);
+        synchronized (this) {
+            if (closed || entries.containsKey(key)) return;
+            if (!inFlight.add(key)) {
+                if (urgent) promote(key);
+                return;
+            }
+            Request request = new Request(store, key, onDecoded);
+            if (urgent) {
+                this.urgent.addFirst(request);
+            } else {
+                prefetch.addLast(request);
+            }
+            // Over the limit: drop the oldest prefetches, never urgent requests
+            while (this.urgent.size() + prefetch.size() > maxQueued && !prefetch.isEmpty()) {
+                inFlight.remove(prefetch.pollFirst().key);
+            }
+            notifyAll();
+        }
+    }
+
+    /** Drops all cached frames and queued requests. */
+    public synchronized void clear() {
+        for (Request r : urgent) {
+            inFlight.remove(r.key);
+        }
+        for (Request r : prefetch) {
+            inFlight.remove(r.key);
+        }
+        urgent.clear();
+        prefetch.clear();
+        for (Entry entry : entries.values()) {
+            evict(entry);
+        }
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Stops the decode threads and releases all cached frames.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+            try {
+                worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        clear();
+    }
+
+    // -------------------- Statistics API --------------------
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Bytes of cached frames. */
+    public synchronized long getCachedBytes() {
+        return bytes;
+    }
+
+    public synchronized int getCachedFrames() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getDecodeCount() {
+        return decodeCount.get();
+    }
+
+    /** Average decode + resize time per frame. */
+    public double getAverageDecodeMillis() {
+        long n = decodeCount.get();
+        return n == 0 ? 0 : decodeNanos.get() / 1e6 / n;
+    }
+
+    // -------------------- Internal helpers --------------------
+
+    /** Moves a queued prefetch to the urgent requests (it became the frame to show now). */
+    private void promote(Key key) {
+        for (Iterator<Request> it = prefetch.iterator(); it.hasNext(); ) {
+            Request r = it.next();
+            if (r.key.equals(key)) {
+                it.remove();
+                urgent.addFirst(r);
+                return;
+            }
+        }
+    }
+
+    /** Next request to decode: urgent first (caller holds lock). */
+    private Request pollRequest() {
+        Request request = urgent.pollFirst();
+        return request != null ? request : prefetch.pollFirst();
+    }
+
+    private void decodeLoop() {
+        try {
+            while (!closed) {
+                Request request;
+                synchronized (this) {
+                    while (urgent.isEmpty() && prefetch.isEmpty() && !closed) {
+                        wait();
+                    }
+                    if (closed) return;
+                    request = pollRequest();
+                }
+                process(request);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Decodes the next queued request on the calling thread (for caches without decode threads).
+     *
+     * @return false if nothing was queued
+     */
+    boolean decodeNext() {
+        Request request;
+        synchronized (this) {
+            request = pollRequest();
+        }
+        if (request == null) return false;
+        process(request);
+        return true;
+    }
+
+    private void process(Request request) {
+        Mat display = null;
+        try {
+            long t0 = System.nanoTime();
+            display = decode(request);
+            decodeNanos.addAndGet(System.nanoTime() - t0);
+            decodeCount.incrementAndGet();
+        } catch (Exception ignored) {
+            // Unreadable or evicted frame: the panel keeps its last image
+        }
+
+        synchronized (this) {
+            inFlight.remove(request.key);
+            if (display != null && !closed) {
+                insert(request.key, display);
+                display = null;
+            }
+        }
+        if (display != null) display.release();
+        if (request.onDecoded != null) {
+            request.onDecoded.run();
+        }
+    }
+
+    /**
+     * Reads, decodes and resizes one frame.
+     *
+     * @return new display-sized Mat, or null if the frame cannot be read
+     */
+    private static Mat decode(Request request) {
+        byte[] data = request.store.read(request.key.frame);
+        if (data == null) return null;
+
+        MatOfByte encoded = new MatOfByte(data);
+        Mat full = Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_UNCHANGED);
+        encoded.release();
+        if (full.empty()) {
+            full.release();
+            return null;
+        }
+
+        int w = request.key.width;
+        int h = request.key.height;
+        if (full.cols() == w && full.rows() == h) {
+            return full;
+        }
+        // Downscale with area averaging: sharper thumbnails than bilinear
+        Mat display = new Mat();
+        Imgproc.resize(full, display, new Size(w, h), 0, 0, Imgproc.INTER_AREA);
+        full.release();
+        return display;
+    }
+
+    /** Adds a frame and evicts least recently used ones over the cap (caller holds lock). */
+    private void insert(Key key, Mat display) {
+        Entry entry = new Entry(display);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.bytes;
+            evict(previous);
+        }
+        bytes += entry.bytes;
+
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue; // keep the frame just decoded
+            bytes -= eldest.getValue().bytes;
+            evict(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    /** Releases an entry removed from the map, or leaves that to the last unpin (caller holds lock). */
+    private void evict(Entry entry) {
+        entry.evicted = true;
+        if (entry.pins == 0) {
+            entry.mat.release();
+        }
+    }
+
+    private synchronized void unpin(Entry entry) {
+        if (--entry.pins == 0 && entry.evicted) {
+            entry.mat.release();
+        }
+    }
+
+    /** A cached frame; pinned while a panel renders it (fields guarded by the cache). */
+    private static final class Entry {
+
+        final Mat mat;
+        final long bytes;
+        int pins;
+        boolean evicted;
+
+        Entry(Mat mat) {
+            this.mat = mat;
+            this.bytes = mat.total() * mat.elemSize();
+        }
+    }
+
+    /** Cache key: one frame at one display size. */
+    private static final class Key {
+
+        final StoredFrame frame;
+        final int width;
+        final int height;
+
+        Key(StoredFrame frame, int width, int height) {
+            this.frame = frame;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width && height == key.height && frame.equals(key.frame);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(frame, width, height);
+        }
+    }
+
+    private static final class Request {
+
+        final SegmentStore store;
+        final Key key;
+        final Runnable onDecoded;
+
+        Request(SegmentStore store, Key key, Runnable onDecoded) {
+            this.store = store;
+            this.key = key;
+            this.onDecoded = onDecoded;
+        }
+    }
+}
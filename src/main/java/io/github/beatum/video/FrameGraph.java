@@ -0,0 +1,426 @@
+
+package io.github.beatum.video;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A declarative chain of common image operations, compiled once and instantiated cheaply
+ * per device.
+ *
+ * <pre>
+ * FrameGraph graph = FrameGraph.builder()
+ *         .cvtColor(Imgproc.COLOR_BGR2GRAY)
+ *         .gaussianBlur(5, 0)
+ *         .threshold(128, 255, Imgproc.THRESH_BINARY)
+ *         .display()                       // fold VideoPanel's resize + conversion into the graph
+ *         .build();
+ *
+ * for (VideoPanel viewer : deviceGroup.getViewers()) {
+ *     viewer.setImageProcessingFilter(graph.instantiate(viewer));
+ * }
+ * </pre>
+ *
+ * <h2>Buffer plan</h2>
+ * <ul>
+ *   <li>An instance owns exactly two work buffers. Operations write alternately into them
+ *       (ping-pong), so a chain of any length reuses the same native memory every frame instead
+ *       of allocating one Mat per step as hand-written lambda chains usually do.</li>
+ *   <li>{@link Builder#crop(Rect) crop} is a view (submat) and uses no buffer; resizes to the
+ *       current size are skipped.</li>
+ *   <li>The input frame is never written to.</li>
+ * </ul>
+ *
+ * <h2>Display folding</h2>
+ * {@link Builder#display()} resizes to the bound viewer's display size first and then converts
+ * to a displayable 8-bit gray/BGR image at that (small) size. The display stage always runs last,
+ * on two buffers of its own, so the full-resolution result before it stays available as
+ * {@link Instance#getResult()}: {@link VideoPanel} keeps that one for snapshots and recording
+ * and only renders the display-ready output, skipping its own conversion and resize.
+ *
+ * <p>A compiled graph is immutable and thread-safe; each {@link Instance} belongs to one
+ * capture thread.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class FrameGraph {
+
+    /** Compiled operations in execution order. */
+    private final List<Op> ops;
+
+    /** Display stage run after {@link #ops} (empty without {@code display()}). */
+    private final List<Op> displayOps;
+
+    private FrameGraph(List<Op> ops, List<Op> displayOps) {
+        this.ops = Collections.unmodifiableList(new ArrayList<>(ops));
+        this.displayOps = Collections.unmodifiableList(new ArrayList<>(displayOps));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Number of operations in the graph. */
+    public int size() {
+        return ops.size() + displayOps.size();
+    }
+
+    /**
+     * Creates an instance that is not bound to a viewer ({@code display()} then only converts).
+     */
+    public Instance instantiate() {
+        return new Instance(null);
+    }
+
+    /**
+     * Creates an instance for one viewer; {@code display()} resizes to its display size.
+     *
+     * @param viewer viewer whose display size is the resize target
+     */
+    public Instance instantiate(VideoPanel viewer) {
+        return new Instance(viewer);
+    }
+
+    // -------------------- Builder --------------------
+
+    /**
+     * Collects operations; {@link #build()} compiles them into a {@link FrameGraph}.
+     */
+    public static final class Builder {
+
+        private final List<Op> ops = new ArrayList<>();
+        private final List<Op> displayOps = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /** Color conversion, e.g. {@code Imgproc.COLOR_BGR2GRAY}. */
+        public Builder cvtColor(int code) {
+            add((ctx, src, dst) -> {
+                Imgproc.cvtColor(src, dst, code);
+                return dst;
+            });
+            return this;
+        }
+
+        /** Gaussian blur with an odd square kernel. */
+        public Builder gaussianBlur(int ksize, double sigma) {
+            Size k = new Size(ksize, ksize);
+            add((ctx, src, dst) -> {
+                Imgproc.GaussianBlur(src, dst, k, sigma);
+                return dst;
+            });
+            return this;
+        }
+
+        /** Median blur with an odd aperture. */
+        public Builder medianBlur(int ksize) {
+            add((ctx, src, dst) -> {
+                Imgproc.medianBlur(src, dst, ksize);
+                return dst;
+            });
+            return this;
+        }
+
+        /** Fixed-level threshold, e.g. {@code Imgproc.THRESH_BINARY}. */
+        public Builder threshold(double thresh, double maxval, int type) {
+            add((ctx, src, dst) -> {
+                Imgproc.threshold(src, dst, thresh, maxval, type);
+                return dst;
+            });
+            return this;
+        }
+
+        /** Canny edge detection (8-bit input). */
+        public Builder canny(double threshold1, double threshold2) {
+            add((ctx, src, dst) -> {
+                Imgproc.Canny(src, dst, threshold1, threshold2);
+                return dst;
+            });
+            return this;
+        }
+
+        /**
+         * Morphological operation, e.g. {@code Imgproc.MORPH_OPEN} with {@code Imgproc.MORPH_RECT}.
+         * The kernel is built once and shared read-only by all instances.
+         */
+        public Builder morphology(int op, int shape, int ksize) {
+            Mat kernel = Imgproc.getStructuringElement(shape, new Size(ksize, ksize));
+            add((ctx, src, dst) -> {
+                Imgproc.morphologyEx(src, dst, op, kernel);
+                return dst;
+            });
+            return this;
+        }
+
+        /**
+         * Region-of-interest crop. A view into the current image: no copy, no buffer.
+         * The rectangle is clipped to the image.
+         */
+        public Builder crop(Rect roi) {
+            Rect r = roi.clone();
+            add(new CropOp(r));
+            return this;
+        }
+
+        /** Resize to a fixed size. */
+        public Builder resize(int width, int height, int interpolation) {
+            Size size = new Size(width, height);
+            add((ctx, src, dst) -> {
+                if (src.cols() == width && src.rows() == height) return src;
+                Imgproc.resize(src, dst, size, 0, 0, interpolation);
+                return dst;
+            });
+            return this;
+        }
+
+        /**
+         * Folds VideoPanel's display stage into the graph: resize to the bound viewer's display
+         * size (bilinear, like VideoPanel), then convert to 8-bit gray or BGR at display resolution.
+         * Must be the last node.
+         */
+        public Builder display() {
+            if (!displayOps.isEmpty()) return this;
+            displayOps.add((ctx, src, dst) -> {
+                VideoPanel viewer = ctx.viewer;
+                if (viewer == null) return src;
+                int w = viewer.getDisplayWidth();
+                int h = viewer.getDisplayHeight();
+                if (w <= 0 || h <= 0 || (src.cols() == w && src.rows() == h)) return src;
+                Imgproc.resize(src, dst, new Size(w, h), 0, 0, Imgproc.INTER_LINEAR);
+                return dst;
+            });
+            displayOps.add((ctx, src, dst) -> {
+                if (src.depth() != CvType.CV_8U) {
+                    src.convertTo(dst, CvType.CV_8U);
+                    return dst;
+                }
+                if (src.channels() == 4) {
+                    Imgproc.cvtColor(src, dst, Imgproc.COLOR_BGRA2BGR);
+                    return dst;
+                }
+                return src;
+            });
+            return this;
+        }
+
+        /**
+         * Escape hatch for operations without a node. The function must write into {@code dst}
+         * (or return {@code src} unchanged) and must not modify {@code src}.
+         */
+        public Builder custom(Op op) {
+            add(op);
+            return this;
+        }
+
+        public FrameGraph build() {
+            return new FrameGraph(ops, displayOps);
+        }
+
+        private void add(Op op) {
+            if (!displayOps.isEmpty()) {
+                throw new IllegalStateException("display() must be the last node");
+            }
+            ops.add(op);
+        }
+    }
+
+    // -------------------- Operations --------------------
+
+    /**
+     * One graph node.
+     */
+    @FunctionalInterface
+    public interface Op {
+
+        /**
+         * @param ctx per-instance context
+         * @param src input (must not be modified)
+         * @param dst work buffer the node may (re)allocate and write into
+         * @return the node's output: {@code dst}, {@code src} (no-op) or a view of {@code src}
+         */
+        Mat apply(Context ctx, Mat src, Mat dst);
+    }
+
+    /**
+     * Per-instance state visible to nodes.
+     */
+    public static final class Context {
+
+        /** Viewer the instance is bound to (may be null). */
+        private final VideoPanel viewer;
+
+        /** Cached crop views, one per crop node of this instance. */
+        private final Map<Op, ViewCache> viewCaches = new IdentityHashMap<>();
+
+        private Context(VideoPanel viewer) {
+            this.viewer = viewer;
+        }
+
+        public VideoPanel getViewer() {
+            return viewer;
+        }
+
+        private ViewCache viewCache(Op node) {
+            return viewCaches.computeIfAbsent(node, k -> new ViewCache());
+        }
+
+        private void release() {
+            for (ViewCache cache : viewCaches.values()) {
+                cache.release();
+            }
+            viewCaches.clear();
+        }
+    }
+
+    /**
+     * ROI crop returning a cached submat header.
+     */
+    private static final class CropOp implements Op {
+
+        private final Rect roi;
+
+        CropOp(Rect roi) {
+            this.roi = roi;
+        }
+
+        @Override
+        public Mat apply(Context ctx, Mat src, Mat dst) {
+            return ctx.viewCache(this).view(src, roi);
+        }
+    }
+
+    // -------------------- Instance --------------------
+
+    /**
+     * A per-device instance of the graph, usable directly as a {@link VideoPanel} filter.
+     */
+    public final class Instance implements IProcessCapture, AutoCloseable {
+
+        private final Context context;
+
+        /** Ping-pong work buffers. */
+        private final Mat[] buffers = {new Mat(), new Mat()};
+
+        /** Buffers of the display stage, so it never overwrites {@link #result}. */
+        private final Mat[] displayBuffers = {new Mat(), new Mat()};
+
+        /** Output of the last call before the display stage. */
+        private Mat result;
+
+        private Instance(VideoPanel viewer) {
+            this.context = new Context(viewer);
+        }
+
+        /**
+         * Runs all nodes on {@code input} (which is left untouched).
+         *
+         * @return output Mat owned by this instance (display-ready with {@code display()});
+         *         valid until the next call
+         */
+        @Override
+        public Mat process(Mat input) {
+            result = run(ops, input, buffers);
+            return displayOps.isEmpty() ? result : run(displayOps, result, displayBuffers);
+        }
+
+        /**
+         * Full-resolution output of the last {@link #process} call, before the display stage
+         * (the same Mat {@code process} returned if the graph has no {@code display()}).
+         *
+         * @return output of the last call, valid until the next one; null before the first call
+         */
+        public Mat getResult() {
+            return result;
+        }
+
+        /** Releases the work buffers and cached views. */
+        @Override
+        public void close() {
+            buffers[0].release();
+            buffers[1].release();
+            displayBuffers[0].release();
+            displayBuffers[1].release();
+            result = null;
+            context.release();
+        }
+
+        private Mat run(List<Op> nodes, Mat input, Mat[] work) {
+            Mat current = input;
+            int next = 0;
+            for (Op op : nodes) {
+                Mat dst = work[next];
+                // A view of a work buffer must not be overwritten by the next node: use the other one
+                if (sharesData(current, dst)) {
+                    next ^= 1;
+                    dst = work[next];
+                }
+                Mat out = op.apply(context, current, dst);
+                if (out == dst) {
+                    next ^= 1;
+                }
+                current = out;
+            }
+            return current;
+        }
+
+        /** Whether two Mats may overlap in memory (same allocation). */
+        private boolean sharesData(Mat a, Mat b) {
+            if (a == b) return true;
+            if (b.empty() || a.empty()) return false;
+            long aStart = a.dataAddr();
+            long bStart = b.dataAddr();
+            long bEnd = bStart + b.total() * b.elemSize();
+            return aStart >= bStart && aStart < bEnd;
+        }
+    }
+
+    /**
+     * Cached submat header for one crop node (rebuilt only when the parent buffer changes).
+     */
+    private static final class ViewCache {
+
+        private Mat view;
+        private long parentAddr;
+        private int parentRows;
+        private int parentCols;
+        private int parentType;
+
+        Mat view(Mat parent, Rect roi) {
+            boolean stale = view == null
+                    || parent.dataAddr() != parentAddr
+                    || parent.rows() != parentRows
+                    || parent.cols() != parentCols
+                    || parent.type() != parentType;
+            if (stale) {
+                if (view != null) view.release();
+                int x = Math.max(0, Math.min(roi.x, parent.cols() - 1));
+                int y = Math.max(0, Math.min(roi.y, parent.rows() - 1));
+                int w = Math.max(1, Math.min(roi.width, parent.cols() - x));
+                int h = Math.max(1, Math.min(roi.height, parent.rows() - y));
+                view = parent.submat(new Rect(x, y, w, h));
+                parentAddr = parent.dataAddr();
+                parentRows = parent.rows();
+                parentCols = parent.cols();
+                parentType = parent.type();
+            }
+            return view;
+        }
+
+        void release() {
+            if (view != null) view.release();
+            view = null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.beatum.video;
+
+/**
+ * Java 8 stand-in for the JDK Flight Recorder event of the same name: one {@link VideoPanel}
+ * paint on the EDT. Does nothing; the real event is in the jar's {@code META-INF/versions/11}
+ * (see {@link FrameStageEvent}).
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class FramePaintEvent {
+
+    void begin() {
+    }
+
+    void finish(int device, long sequence) {
+    }
+}
@@ -0,0 +1,336 @@
+package io.github.beatum.video;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped ring of frame slots shared by one writer process (a {@link CaptureWorker}) and one
+ * reader process (the UI, through {@link FrameRingSource}).
+ *
+ * <p>The ring knows nothing about OpenCV: a slot is a byte region plus rows, cols, type and a
+ * sequence number. Frame data is written and read in place through {@link #slotData(int)}, so a
+ * frame crosses the process boundary without being copied.</p>
+ *
+ * <h2>Protocol</h2>
+ * <ul>
+ *   <li>The writer never writes the latest published slot nor the slot the reader holds; with at
+ *       least 3 slots one is always free.</li>
+ *   <li>Before writing, the writer marks the slot as being written and then checks that the reader
+ *       has not claimed it meanwhile. The reader claims a slot and then checks that it was not
+ *       marked meanwhile. With volatile accesses one side always sees the other, so the reader never
+ *       sees a half-written frame.</li>
+ *   <li>The reader holds its slot until it claims the next one, so a frame read by
+ *       {@link FrameRingSource} stays valid (and may be modified in place) until the next read.</li>
+ *   <li>Sequence numbers keep increasing across writer restarts; the writer also stamps a heartbeat
+ *       so a supervisor can tell a hung worker from a camera without frames.</li>
+ * </ul>
+ *
+ * <p>File layout: a 4 KB header (ring fields, then 64 bytes of metadata per slot) followed by the
+ * slots, each rounded up to 4 KB. All fields are native-order longs.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class FrameRing {
+
+    private static final long MAGIC = 0x41534652494E4731L; // "ASFRING1"
+
+    /** Slot sequence while the writer fills it. */
+    private static final long WRITING = -1;
+
+    private static final int PAGE = 4096;
+    private static final int SLOT_META = 64;
+
+    // Header fields (byte offsets)
+    private static final int H_MAGIC = 0;
+    private static final int H_SLOTS = 8;
+    private static final int H_SLOT_BYTES = 16;
+    private static final int H_LATEST = 24;
+    private static final int H_READER = 32;
+    private static final int H_HEARTBEAT = 40;
+    private static final int H_WRITER_PID = 48;
+    private static final int H_SLOT_META = 128;
+
+    // Slot metadata fields (offsets within the slot's metadata)
+    private static final int S_SEQUENCE = 0;
+    private static final int S_ROWS = 8;
+    private static final int S_COLS = 16;
+    private static final int S_TYPE = 24;
+    private static final int S_TIME = 32;
+
+    /** Most slots a header page can describe. */
+    public static final int MAX_SLOTS = (PAGE - H_SLOT_META) / SLOT_META;
+
+    /** Process id of this JVM, stamped by the writer (0 if the runtime does not tell). */
+    private static final long PID = currentPid();
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final long slotBytes;
+    private final int slotStride;
+
+    /** Data region of each slot (direct slices of {@link #buffer}, position 0). */
+    private final ByteBuffer[] slotData;
+
+    /** Writer side: slot written last (round-robin start). */
+    private int lastWritten = -1;
+
+    private FrameRing(Path file, MappedByteBuffer buffer, int slotCount, long slotBytes) {
+        this.file = file;
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.nativeOrder());
+        this.slotCount = slotCount;
+        this.slotBytes = slotBytes;
+        this.slotStride = (int) roundUp(slotBytes);
+        this.slotData = new ByteBuffer[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(PAGE + i * slotStride).limit(PAGE + i * slotStride + (int) slotBytes);
+            slotData[i] = slice.slice().order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Creates (or resets) a ring file. Any previous content is discarded.
+     *
+     * @param file ring file (on Linux preferably under {@code /dev/shm})
+     * @param slotCount number of slots (3..{@link #MAX_SLOTS})
+     * @param slotBytes capacity of one slot in bytes (largest frame, e.g. 1920 * 1080 * 3)
+     * @return mapped ring
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static FrameRing create(Path file, int slotCount, long slotBytes) throws IOException {
+        if (slotCount < 3 || slotCount > MAX_SLOTS) {
+            throw new IllegalArgumentException("Slot count must be 3.." + MAX_SLOTS + ": " + slotCount);
+        }
+        if (slotBytes <= 0 || slotBytes > Integer.MAX_VALUE
+                || PAGE + (long) slotCount * roundUp(slotBytes) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid slot size: " + slotBytes);
+        }
+        long size = PAGE + (long) slotCount * roundUp(slotBytes);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        FrameRing ring = new FrameRing(file, buffer, slotCount, slotBytes);
+        for (int i = 0; i < slotCount; i++) {
+            ring.setLong(slotMeta(i) + S_SEQUENCE, WRITING);
+        }
+        ring.setLong(H_SLOTS, slotCount);
+        ring.setLong(H_SLOT_BYTES, slotBytes);
+        ring.setLong(H_LATEST, -1);
+        ring.setLong(H_READER, -1);
+        ring.setLong(H_MAGIC, MAGIC); // last: marks the header complete
+        return ring;
+    }
+
+    /**
+     * Maps an existing ring file created by {@link #create(Path, int, long)}.
+     *
+     * @param file ring file
+     * @return mapped ring
+     * @throws IOException if the file cannot be mapped or is not a frame ring
+     */
+    public static FrameRing open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < PAGE) throw new IOException("Not a frame ring: " + file);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, PAGE);
+            header.order(ByteOrder.nativeOrder());
+            long slots = header.getLong(H_SLOTS);
+            long slotBytes = header.getLong(H_SLOT_BYTES);
+            if (header.getLong(H_MAGIC) != MAGIC || slots < 3 || slots > MAX_SLOTS
+                    || slotBytes <= 0 || slotBytes > Integer.MAX_VALUE || PAGE + slots * roundUp(slotBytes) != size) {
+                throw new IOException("Not a frame ring: " + file);
+            }
+            return new FrameRing(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), (int) slots, slotBytes);
+        }
+    }
+
+    // -------------------- Writer side --------------------
+
+    /**
+     * Claims a slot for writing: neither the latest frame nor the reader's slot.
+     * Call {@link #publish} or {@link #abortWrite} afterwards.
+     *
+     * @return slot index
+     */
+    public int beginWrite() {
+        while (true) {
+            for (int n = 1; n <= slotCount; n++) {
+                int slot = (lastWritten + n) % slotCount;
+                if (slot == getLong(H_LATEST) || slot == getLong(H_READER)) continue;
+
+                long previous = getLong(slotMeta(slot) + S_SEQUENCE);
+                setLong(slotMeta(slot) + S_SEQUENCE, WRITING);
+                if (getLong(H_READER) == slot) {
+                    // Claimed by the reader in between: leave it alone
+                    setLong(slotMeta(slot) + S_SEQUENCE, previous);
+                    continue;
+                }
+                lastWritten = slot;
+                return slot;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Publishes a written slot as the latest frame.
+     *
+     * @param slot slot returned by {@link #beginWrite()}
+     * @param rows frame rows
+     * @param cols frame cols
+     * @param type OpenCV type of the frame
+     * @return sequence number of the frame
+     */
+    public long publish(int slot, int rows, int cols, int type) {
+        long sequence = nextSequence();
+        int meta = slotMeta(slot);
+        buffer.putLong(meta + S_ROWS, rows);
+        buffer.putLong(meta + S_COLS, cols);
+        buffer.putLong(meta + S_TYPE, type);
+        buffer.putLong(meta + S_TIME, System.currentTimeMillis());
+        setLong(meta + S_SEQUENCE, sequence);
+        setLong(H_LATEST, slot);
+        return sequence;
+    }
+
+    /** Gives a claimed slot back without publishing it (e.g. the read failed). */
+    public void abortWrite(int slot) {
+        setLong(slotMeta(slot) + S_SEQUENCE, WRITING);
+    }
+
+    /** Stamps the writer heartbeat (and pid), read by {@link CaptureWorkerSupervisor}. */
+    public void heartbeat() {
+        setLong(H_WRITER_PID, PID);
+        setLong(H_HEARTBEAT, System.currentTimeMillis());
+    }
+
+    /** Next sequence number; continues after the latest frame in the ring (writer restarts). */
+    private long nextSequence() {
+        return getLatestSequence() + 1;
+    }
+
+    // -------------------- Reader side --------------------
+
+    /**
+     * Claims the latest frame if it is newer than {@code lastSequence}. The previously held slot
+     * is given back to the writer.
+     *
+     * @param lastSequence sequence of the frame read last (0 = none yet)
+     * @return slot index, or -1 if there is no newer frame
+     */
+    public int acquire(long lastSequence) {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            long latest = getLong(H_LATEST);
+            if (latest < 0) return -1;
+            int slot = (int) latest;
+            long sequence = getLong(slotMeta(slot) + S_SEQUENCE);
+            if (sequence == WRITING) continue; // superseded and being rewritten
+            if (sequence <= lastSequence) return -1;
+
+            setLong(H_READER, slot);
+            if (getLong(slotMeta(slot) + S_SEQUENCE) == sequence) {
+                return slot; // The writer will not touch it until the next acquire
+            }
+        }
+        return -1;
+    }
+
+    /** Sequence number of the frame in a slot. */
+    public long slotSequence(int slot) {
+        return getLong(slotMeta(slot) + S_SEQUENCE);
+    }
+
+    public int slotRows(int slot) {
+        return (int) buffer.getLong(slotMeta(slot) + S_ROWS);
+    }
+
+    public int slotCols(int slot) {
+        return (int) buffer.getLong(slotMeta(slot) + S_COLS);
+    }
+
+    public int slotType(int slot) {
+        return (int) buffer.getLong(slotMeta(slot) + S_TYPE);
+    }
+
+    /** When the frame in a slot was published (epoch ms). */
+    public long slotTimeMillis(int slot) {
+        return buffer.getLong(slotMeta(slot) + S_TIME);
+    }
+
+    // -------------------- Shared --------------------
+
+    /**
+     * Data region of a slot: a direct buffer of {@link #getSlotBytes()} bytes starting at position 0.
+     * Suitable for {@code new Mat(rows, cols, type, buffer)}.
+     */
+    public ByteBuffer slotData(int slot) {
+        return slotData[slot];
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public long getSlotBytes() {
+        return slotBytes;
+    }
+
+    /** Sequence number of the latest published frame (0 = none yet). */
+    public long getLatestSequence() {
+        long latest = getLong(H_LATEST);
+        return latest < 0 ? 0 : Math.max(0, getLong(slotMeta((int) latest) + S_SEQUENCE));
+    }
+
+    /** Last writer heartbeat (epoch ms, 0 = never). */
+    public long getHeartbeatMillis() {
+        return getLong(H_HEARTBEAT);
+    }
+
+    /** Process id of the last writer (0 = never written). */
+    public long getWriterPid() {
+        return getLong(H_WRITER_PID);
+    }
+
+    private static int slotMeta(int slot) {
+        return H_SLOT_META + slot * SLOT_META;
+    }
+
+    private static long roundUp(long bytes) {
+        return (bytes + PAGE - 1) / PAGE * PAGE;
+    }
+
+    /** Pid from the runtime name ("pid@host" on HotSpot; Java 8 has no ProcessHandle). */
+    private static long currentPid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private long getLong(int offset) {
+        return MappedLongs.getVolatile(buffer, offset);
+    }
+
+    private void setLong(int offset, long value) {
+        MappedLongs.setVolatile(buffer, offset, value);
+    }
+}
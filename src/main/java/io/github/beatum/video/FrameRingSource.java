@@ -0,0 +1,131 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link IFrameSource} reading frames another process publishes into a {@link FrameRing}
+ * (usually a {@link CaptureWorker} started by {@link CaptureWorkerSupervisor}).
+ *
+ * <h2>Zero copy</h2>
+ * {@link #read(Mat)} does not copy pixels: the Mat passed in becomes a header over the mapped slot
+ * ({@code Mat.assignTo}). The slot stays reserved for this reader until the next read, so the
+ * frame may be filtered in place and copied by {@link VideoPanel} as usual. A Mat read from this
+ * source must not be used after the next read or after the ring is gone.
+ *
+ * <p>Reads wait up to {@link #getReadTimeoutMs()} for a new frame, polling the ring every
+ * millisecond, so a frame reaches the panel at most ~1 ms after it was published.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class FrameRingSource implements IFrameSource {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final FrameRing ring;
+
+    /** Headers over each slot, recreated when the slot's rows/cols/type change. */
+    private final Mat[] slotMats;
+
+    private volatile boolean opened;
+
+    /** Sequence of the frame read last (only the capture thread reads). */
+    private long lastSequence;
+
+    /** Publish time of the frame read last (epoch ms). */
+    private volatile long lastFrameMillis;
+
+    private volatile long readTimeoutMs = 100;
+
+    private volatile long framesRead;
+
+    /**
+     * @param ring ring to read (written by another process)
+     */
+    public FrameRingSource(FrameRing ring) {
+        this.ring = ring;
+        this.slotMats = new Mat[ring.getSlotCount()];
+    }
+
+    public FrameRing getRing() {
+        return ring;
+    }
+
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    /** How long {@link #read(Mat)} waits for a new frame before returning false. */
+    public void setReadTimeoutMs(long readTimeoutMs) {
+        this.readTimeoutMs = Math.max(0, readTimeoutMs);
+    }
+
+    /** When the frame read last was published by the writer (epoch ms, 0 = none yet). */
+    public long getLastFrameMillis() {
+        return lastFrameMillis;
+    }
+
+    /** Frames read so far. */
+    public long getFramesRead() {
+        return framesRead;
+    }
+
+    @Override
+    public boolean open() {
+        opened = true;
+        return true;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return opened;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (!opened) return false;
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMs);
+        while (true) {
+            int slot = ring.acquire(lastSequence);
+            if (slot >= 0) {
+                lastSequence = ring.slotSequence(slot);
+                lastFrameMillis = ring.slotTimeMillis(slot);
+                slotMat(slot).assignTo(frame);
+                framesRead++;
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+    }
+
+    /** Header over a slot matching its current frame layout. */
+    private Mat slotMat(int slot) {
+        int rows = ring.slotRows(slot);
+        int cols = ring.slotCols(slot);
+        int type = ring.slotType(slot);
+        Mat mat = slotMats[slot];
+        if (mat == null || mat.rows() != rows || mat.cols() != cols || mat.type() != type) {
+            if (mat != null) mat.release();
+            mat = new Mat(rows, cols, type, ring.slotData(slot));
+            slotMats[slot] = mat;
+        }
+        return mat;
+    }
+
+    /**
+     * Closes the source. The slot headers are kept: a panel may still hold a frame pointing into
+     * the ring, and the mapping lives as long as this source.
+     */
+    @Override
+    public void release() {
+        opened = false;
+    }
+}
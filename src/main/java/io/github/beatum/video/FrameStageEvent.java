@@ -0,0 +1,28 @@
+package io.github.beatum.video;
+
+/**
+ * Java 8 stand-in for the JDK Flight Recorder event of the same name: one stage of one frame in
+ * the {@link VideoPanel} capture loop. Same API as the real event, but does nothing.
+ *
+ * <p>The real event lives in {@code src/main/java11} and is packaged under
+ * {@code META-INF/versions/11}, so the multi-release jar loads it on Java 11 and newer.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class FrameStageEvent {
+
+    static final String READ = "read";
+    static final String FILTER = "filter";
+    static final String SNAPSHOT_COPY = "snapshot copy";
+    static final String CONVERT = "convert";
+    static final String RESIZE = "resize";
+    static final String RASTER_COPY = "raster copy";
+
+    void begin() {
+    }
+
+    void finish(int device, long sequence, String stage) {
+    }
+}
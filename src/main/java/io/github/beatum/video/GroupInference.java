@@ -0,0 +1,496 @@
+
+package io.github.beatum.video;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs one CPU DNN model over all cameras of a {@link DeviceGroup} with a single batched
+ * forward pass per round, and hands the detections back to each {@link VideoPanel}.
+ *
+ * <pre>
+ * Net net = Dnn.readNetFromCaffe("MobileNetSSD_deploy.prototxt", "MobileNetSSD_deploy.caffemodel");
+ * GroupInference inference = new GroupInference(deviceGroup, net, new Size(300, 300));
+ * inference.setScaleFactor(1 / 127.5);
+ * inference.setMean(new Scalar(127.5, 127.5, 127.5));
+ * inference.setDecoder(new SsdDetectionDecoder(0.5f, labels));
+ * inference.setThreadCount(4);
+ * inference.start();
+ * </pre>
+ *
+ * <h2>Why batched</h2>
+ * <ul>
+ *   <li>Running the model inside every panel's {@link IProcessCapture} means N forward passes
+ *       with batch size 1, each started from its own capture thread and each trying to use all
+ *       cores. The passes oversubscribe the CPU and stall the capture loops.</li>
+ *   <li>Here one inference thread collects the newest frame of every camera, packs them into
+ *       one blob ({@link Dnn#blobFromImages}) and runs one {@link Net#forward()}. Layer setup and
+ *       weight reads are paid once per round, and the capture threads only pay a frame copy.</li>
+ *   <li>Cameras without a new frame since the last round are left out of the batch.</li>
+ * </ul>
+ *
+ * <h2>Threading Model</h2>
+ * <ul>
+ *   <li>The {@link Net} is used by the inference thread only (OpenCV nets are not thread-safe).
+ *       Do not share it with other code while this instance runs.</li>
+ *   <li>Frames are copied with {@link VideoPanel#copyLastFrameTo(Mat)} into per-camera buffers
+ *       that are reused every round.</li>
+ *   <li>{@link #setThreadCount(int)} uses {@link Core#setNumThreads(int)}, which is
+ *       process-wide: it also limits OpenCV's parallel loops on the capture threads.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class GroupInference implements AutoCloseable {
+
+    /** Source of the viewers to run on (re-read every round, so group changes are picked up). */
+    private final Supplier<List<VideoPanel>> viewers;
+
+    private final Net net;
+
+    /** Network input size (frames are resized by blobFromImages). */
+    private final Size inputSize;
+
+    // -------------------- Configuration --------------------
+
+    private volatile double scaleFactor = 1.0;
+    private volatile Scalar mean = new Scalar(0, 0, 0);
+    private volatile boolean swapRB = false;
+    private volatile IDetectionDecoder decoder = new SsdDetectionDecoder(0.5f);
+
+    /** OpenCV worker threads for the forward pass; negative = leave OpenCV's setting alone. */
+    private volatile int threadCount = -1;
+
+    /** Minimum time between two rounds in ms (0 = as fast as possible). */
+    private volatile int intervalMs = 0;
+
+    /** Whether cameras without a new frame since the last round are left out. */
+    private volatile boolean skipUnchangedFrames = true;
+
+    /** Batched (one forward per round) or per-camera (one forward per frame) execution. */
+    private volatile boolean batched = true;
+
+    // -------------------- State (inference thread) --------------------
+
+    /** Serializes rounds: the Net and the buffers below are not thread-safe. */
+    private final Object roundLock = new Object();
+
+    /** Per-camera reusable buffers. */
+    private final Map<VideoPanel, Slot> slots = new IdentityHashMap<>();
+
+    /** Reused per-round lists. */
+    private final List<VideoPanel> roundViewers = new ArrayList<>();
+    private final List<Mat> roundImages = new ArrayList<>();
+
+    /** Thread count currently applied to OpenCV (avoids calling setNumThreads every round). */
+    private int appliedThreadCount = Integer.MIN_VALUE;
+
+    // -------------------- Statistics --------------------
+
+    private volatile long roundCount;
+    private volatile long forwardCount;
+    private volatile long frameCount;
+    private volatile long forwardNanos;
+    private volatile long firstRoundNanos;
+    private volatile long lastRoundNanos;
+
+    // -------------------- Lifecycle --------------------
+
+    private Thread inferenceThread;
+    private volatile boolean running;
+
+    /**
+     * @param group device group whose viewers are processed
+     * @param net loaded network (owned by this instance while it runs)
+     * @param inputSize network input size, e.g. 300x300
+     */
+    public GroupInference(DeviceGroup group, Net net, Size inputSize) {
+        this(group::getViewers, net, inputSize);
+    }
+
+    /**
+     * @param viewers fixed set of viewers to process
+     * @param net loaded network (owned by this instance while it runs)
+     * @param inputSize network input size, e.g. 300x300
+     */
+    public GroupInference(List<VideoPanel> viewers, Net net, Size inputSize) {
+        this(fixed(viewers), net, inputSize);
+    }
+
+    private GroupInference(Supplier<List<VideoPanel>> viewers, Net net, Size inputSize) {
+        this.viewers = viewers;
+        this.net = net;
+        this.inputSize = inputSize.clone();
+    }
+
+    private static Supplier<List<VideoPanel>> fixed(List<VideoPanel> viewers) {
+        List<VideoPanel> copy = Collections.unmodifiableList(new ArrayList<>(viewers));
+        return () -> copy;
+    }
+
+    // -------------------- Configuration API --------------------
+
+    public double getScaleFactor() {
+        return scaleFactor;
+    }
+
+    /** Pixel scale applied by blobFromImages, e.g. 1/255.0 or 1/127.5. */
+    public void setScaleFactor(double scaleFactor) {
+        this.scaleFactor = scaleFactor;
+    }
+
+    public Scalar getMean() {
+        return mean.clone();
+    }
+
+    /** Mean subtracted before scaling (in the frame's channel order). */
+    public void setMean(Scalar mean) {
+        this.mean = mean.clone();
+    }
+
+    public boolean isSwapRB() {
+        return swapRB;
+    }
+
+    /** Whether to feed RGB instead of the frames' BGR. */
+    public void setSwapRB(boolean swapRB) {
+        this.swapRB = swapRB;
+    }
+
+    public IDetectionDecoder getDecoder() {
+        return decoder;
+    }
+
+    public void setDecoder(IDetectionDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of OpenCV worker threads used by the forward pass.
+     * Process-wide (see class documentation).
+     *
+     * @param threadCount threads, 0 = OpenCV sequential, negative = leave OpenCV's default
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getIntervalMs() {
+        return intervalMs;
+    }
+
+    /** Minimum time between two rounds, e.g. 200 for 5 detections/s per camera. */
+    public void setIntervalMs(int intervalMs) {
+        this.intervalMs = Math.max(0, intervalMs);
+    }
+
+    public boolean isSkipUnchangedFrames() {
+        return skipUnchangedFrames;
+    }
+
+    /**
+     * Whether a camera without a new frame since the last round is left out of the batch
+     * (default). Disable only to measure raw model throughput.
+     */
+    public void setSkipUnchangedFrames(boolean skipUnchangedFrames) {
+        this.skipUnchangedFrames = skipUnchangedFrames;
+    }
+
+    public boolean isBatched() {
+        return batched;
+    }
+
+    /**
+     * Batched (default) or per-camera execution. Per-camera runs one forward pass per frame on
+     * the same thread and is meant for comparison only.
+     */
+    public void setBatched(boolean batched) {
+        this.batched = batched;
+    }
+
+    // -------------------- Lifecycle API --------------------
+
+    /**
+     * Starts the inference thread. Safe to call multiple times.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        inferenceThread = new Thread(this::loop, "GroupInference");
+        inferenceThread.setDaemon(true);
+        inferenceThread.start();
+    }
+
+    /**
+     * Stops the inference thread. Safe to call multiple times.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (inferenceThread != null) {
+            inferenceThread.interrupt();
+            try {
+                inferenceThread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inferenceThread = null;
+            }
+        }
+    }
+
+    /**
+     * Stops the thread, clears the drawn detections and releases the frame buffers.
+     * The {@link Net} is not released (Java nets are freed by the garbage collector).
+     */
+    @Override
+    public void close() {
+        stop();
+        synchronized (roundLock) {
+            for (Map.Entry<VideoPanel, Slot> e : slots.entrySet()) {
+                e.getKey().setDetections(null);
+                e.getValue().release();
+            }
+            slots.clear();
+        }
+    }
+
+    /**
+     * Runs one round on the calling thread: collect frames, forward, dispatch detections.
+     * Used by the inference thread; can also be called directly when the caller schedules
+     * inference itself (do not mix with {@link #start()}).
+     *
+     * @return number of frames inferred in this round (0 = no new frames)
+     */
+    public int runOnce() {
+        synchronized (roundLock) {
+            long now = System.nanoTime();
+            if (roundCount == 0) firstRoundNanos = now;
+
+            collectFrames();
+            int n = roundImages.size();
+            if (n > 0) {
+                applyThreadCount();
+                if (batched) {
+                    infer(roundImages, roundViewers);
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        infer(roundImages.subList(i, i + 1), roundViewers.subList(i, i + 1));
+                    }
+                }
+                frameCount += n;
+            }
+
+            roundCount++;
+            lastRoundNanos = System.nanoTime();
+            return n;
+        }
+    }
+
+    // -------------------- Statistics API --------------------
+
+    /** Rounds run so far. */
+    public long getRoundCount() {
+        return roundCount;
+    }
+
+    /** Frames inferred so far. */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /** Average number of frames per forward pass. */
+    public double getAverageBatchSize() {
+        long forwards = forwardCount;
+        return forwards == 0 ? 0 : (double) frameCount / forwards;
+    }
+
+    /** Average duration of one forward pass (blob creation and decoding excluded). */
+    public double getAverageForwardMillis() {
+        long forwards = forwardCount;
+        return forwards == 0 ? 0 : forwardNanos / 1e6 / forwards;
+    }
+
+    /** Inferred frames per second since the first round. */
+    public double getFramesPerSecond() {
+        long elapsed = lastRoundNanos - firstRoundNanos;
+        return elapsed <= 0 ? 0 : frameCount * 1e9 / elapsed;
+    }
+
+    /** Clears all counters. */
+    public void resetStatistics() {
+        synchronized (roundLock) {
+            roundCount = 0;
+            forwardCount = 0;
+            frameCount = 0;
+            forwardNanos = 0;
+            firstRoundNanos = 0;
+            lastRoundNanos = 0;
+        }
+    }
+
+    // -------------------- Internal helpers --------------------
+
+    private void loop() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            long started = System.nanoTime();
+            int n;
+            try {
+                n = runOnce();
+            } catch (Exception ignored) {
+                // A failing model/decoder must not kill the thread; retry on the next round
+                n = 0;
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            long wait = intervalMs - elapsedMs;
+            if (n == 0) {
+                wait = Math.max(wait, 10); // nothing new: don't spin
+            }
+            if (wait > 0) {
+                sleepQuietly(wait);
+            }
+        }
+    }
+
+    /** Fills {@link #roundImages}/{@link #roundViewers} with the cameras' newest frames. */
+    private void collectFrames() {
+        roundImages.clear();
+        roundViewers.clear();
+
+        List<VideoPanel> current = viewers.get();
+        pruneSlots(current);
+
+        boolean skipUnchanged = skipUnchangedFrames;
+        for (VideoPanel viewer : current) {
+            Slot slot = slots.computeIfAbsent(viewer, v -> new Slot());
+            // Read the counter before copying: a frame arriving in between is simply inferred again
+            long seen = viewer.getProcessedFrameCount();
+            if (skipUnchanged && seen == slot.lastSeen) continue;
+            if (!viewer.copyLastFrameTo(slot.frame)) continue;
+            slot.lastSeen = seen;
+
+            Mat image = slot.toBgr();
+            if (image == null) continue;
+            roundImages.add(image);
+            roundViewers.add(viewer);
+        }
+    }
+
+    /** Releases buffers of viewers that left the group. */
+    private void pruneSlots(List<VideoPanel> current) {
+        if (slots.size() <= current.size() && current.containsAll(slots.keySet())) return;
+        Iterator<Map.Entry<VideoPanel, Slot>> it = slots.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<VideoPanel, Slot> e = it.next();
+            if (!current.contains(e.getKey())) {
+                e.getValue().release();
+                it.remove();
+            }
+        }
+    }
+
+    private void applyThreadCount() {
+        int threads = threadCount;
+        if (threads >= 0 && threads != appliedThreadCount) {
+            Core.setNumThreads(threads);
+            appliedThreadCount = threads;
+        }
+    }
+
+    /** One forward pass over {@code images}; detection i goes to {@code targets.get(i)}. */
+    private void infer(List<Mat> images, List<VideoPanel> targets) {
+        int n = images.size();
+        Mat blob = Dnn.blobFromImages(images, scaleFactor, inputSize, mean, swapRB, false);
+        List<List<Detection>> results;
+        try {
+            net.setInput(blob);
+            long started = System.nanoTime();
+            Mat output = net.forward();
+            forwardNanos += System.nanoTime() - started;
+            forwardCount++;
+            try {
+                results = decoder.decode(output, n);
+            } finally {
+                output.release();
+            }
+        } finally {
+            blob.release();
+        }
+
+        for (int i = 0; i < n && i < results.size(); i++) {
+            targets.get(i).setDetections(results.get(i));
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reusable buffers of one camera.
+     */
+    private static final class Slot {
+
+        /** Copy of the camera's last frame. */
+        final Mat frame = new Mat();
+
+        /** 8-bit BGR version of {@link #frame} when the camera delivers something else. */
+        final Mat converted = new Mat();
+
+        /** Camera's processed-frame count at the last copy (-1 = never copied). */
+        long lastSeen = -1;
+
+        /**
+         * Returns the frame as 8-bit BGR (all images of one blob must match).
+         *
+         * @return BGR image, or null for unsupported channel counts
+         */
+        Mat toBgr() {
+            Mat src = frame;
+            if (src.depth() != CvType.CV_8U) {
+                src.convertTo(converted, CvType.CV_8U);
+                src = converted;
+            }
+            switch (src.channels()) {
+                case 3:
+                    return src;
+                case 1:
+                    Imgproc.cvtColor(src, converted, Imgproc.COLOR_GRAY2BGR);
+                    return converted;
+                case 4:
+                    Imgproc.cvtColor(src, converted, Imgproc.COLOR_BGRA2BGR);
+                    return converted;
+                default:
+                    return null;
+            }
+        }
+
+        void release() {
+            frame.release();
+            converted.release();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+import java.util.List;
+
+/**
+ * Turns the raw output of a batched forward pass into per-image detections.
+ *
+ * <p>Implementations are called from the inference thread only and may keep reusable buffers.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ * @see SsdDetectionDecoder
+ */
+public interface IDetectionDecoder {
+
+    /**
+     * @param output network output of one forward pass
+     * @param batchSize number of images in the batch
+     * @return one list per batch image, in batch order (never null; lists may be empty)
+     */
+    List<List<Detection>> decode(Mat output, int batchSize);
+}
@@ -0,0 +1,37 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+/**
+ * A source of frames for {@link VideoPanel}.
+ *
+ * <p>The contract mirrors {@link org.opencv.videoio.VideoCapture}: only the owning
+ * capture thread calls {@link #read(Mat)}, and the Mat passed in is reused across calls.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public interface IFrameSource {
+
+    /**
+     * Opens the source if it is not open yet.
+     *
+     * @return true if the source is open afterwards
+     */
+    boolean open();
+
+    /** Whether the source is currently open. */
+    boolean isOpened();
+
+    /**
+     * Reads the next frame into {@code frame} (reallocated only if size/type changed).
+     *
+     * @param frame destination Mat
+     * @return true if a frame was read
+     */
+    boolean read(Mat frame);
+
+    /** Releases the source. Safe to call multiple times. */
+    void release();
+}
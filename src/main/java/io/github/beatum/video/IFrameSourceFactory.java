@@ -0,0 +1,25 @@
+package io.github.beatum.video;
+
+/**
+ * Creates the {@link IFrameSource} of a device index, so a {@link DeviceGroup} can run on
+ * sources other than local cameras (synthetic sources for soak tests, network streams, ...).
+ *
+ * <pre>
+ * DeviceGroup group = new DeviceGroup(container, 32, index -&gt; new SyntheticFrameSource(640, 360, 15));
+ * </pre>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@FunctionalInterface
+public interface IFrameSourceFactory {
+
+    /**
+     * Creates the (unopened) source for a device index.
+     *
+     * @param deviceIndex device index (0..deviceCount-1)
+     * @return new source, or null if the index has no device (a placeholder is shown)
+     */
+    IFrameSource create(int deviceIndex);
+}
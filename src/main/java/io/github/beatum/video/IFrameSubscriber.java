@@ -0,0 +1,24 @@
+package io.github.beatum.video;
+
+/**
+ * Read-only consumer of a {@link SharedFrameSource} (recorder, streamer, analyser, ...).
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public interface IFrameSubscriber {
+
+    /**
+     * Called on the subscriber's own dispatch thread for the newest frame.
+     * Frames that arrive while this call is still running replace each other, so a slow
+     * subscriber only ever sees the latest frame and never delays other subscribers.
+     *
+     * <p>The frame's pixels are shared with every other subscriber: never modify them.
+     * The frame is valid until this method returns; call {@link SharedFrame#retain()} (and
+     * later {@link SharedFrame#release()}) to keep it longer.</p>
+     *
+     * @param frame shared frame
+     */
+    void onFrame(SharedFrame frame);
+}
@@ -10,4 +10,22 @@ import org.opencv.core.Mat;
 public interface IProcessCapture {
     //Process
     public Mat process(Mat mat);
+
+    /**
+     * Whether {@link TiledFilter} may run this filter on horizontal stripes in parallel.
+     * A tile-safe filter:
+     * <ul>
+     *   <li>returns an image of the input's size, and row r of it depends only on input rows
+     *       r - {@link #getTileHalo()} .. r + {@link #getTileHalo()}</li>
+     *   <li>can be called concurrently (no shared work buffers)</li>
+     * </ul>
+     */
+    default boolean isTileSafe() {
+        return false;
+    }
+
+    /** Rows above and below a stripe this filter reads (e.g. the kernel radius); see {@link #isTileSafe()}. */
+    default int getTileHalo() {
+        return 0;
+    }
 }
@@ -0,0 +1,27 @@
+package io.github.beatum.video;
+
+/**
+ * Outcome of a lifecycle operation ({@code openAll}, {@code stopAll}, {@code releaseAll}) on one
+ * device of a {@link DeviceGroup}.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public enum LifecycleOutcome {
+
+    /** The operation finished (for open: the source is open and the capture thread runs). */
+    COMPLETED,
+
+    /** The operation finished but failed (e.g. the device could not be opened, or threw). */
+    FAILED,
+
+    /**
+     * The operation missed the group deadline. The group stopped waiting for it, but it is not
+     * cancelled: it keeps running (or stays blocked, e.g. in a driver call) on its own background
+     * thread, and later operations on the same device wait until it has finished
+     * ({@link DeviceGroup#isAbandoned(int)}). Also reported for an operation that is still waiting
+     * for such a predecessor at the deadline.
+     */
+    ABANDONED
+}
@@ -0,0 +1,120 @@
+package io.github.beatum.video;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Volatile access to the native-order longs of a direct buffer that another process maps too
+ * (the {@link FrameRing} header).
+ *
+ * <p>On Java 9 and newer this is a byte buffer view {@code VarHandle}. Java 8 has none, so there
+ * the longs are accessed through {@code sun.misc.Unsafe} at the buffer's address. Both are looked
+ * up reflectively, so the class still compiles for Java 8.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class MappedLongs {
+
+    /** (ByteBuffer, int offset) -> long */
+    private static final MethodHandle GET;
+
+    /** (ByteBuffer, int offset, long value) -> void */
+    private static final MethodHandle SET;
+
+    // Java 8 only: Unsafe accessors bound to the Unsafe instance, and the buffer address getter
+    private static MethodHandle unsafeGet;
+    private static MethodHandle unsafePut;
+    private static MethodHandle address;
+
+    static {
+        MethodHandle[] accessors;
+        try {
+            accessors = varHandleAccessors();
+        } catch (ReflectiveOperationException noVarHandles) {
+            try {
+                accessors = unsafeAccessors();
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        GET = accessors[0];
+        SET = accessors[1];
+    }
+
+    private MappedLongs() {
+    }
+
+    static long getVolatile(ByteBuffer buffer, int offset) {
+        try {
+            return (long) GET.invokeExact(buffer, offset);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void setVolatile(ByteBuffer buffer, int offset, long value) {
+        try {
+            SET.invokeExact(buffer, offset, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** GET_VOLATILE and SET_VOLATILE of {@code MethodHandles.byteBufferViewVarHandle} (Java 9+). */
+    private static MethodHandle[] varHandleAccessors() throws ReflectiveOperationException {
+        Object longs = MethodHandles.class.getMethod("byteBufferViewVarHandle", Class.class, ByteOrder.class)
+                .invoke(null, long[].class, ByteOrder.nativeOrder());
+        Class<?> accessMode = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+        Method toMethodHandle = Class.forName("java.lang.invoke.VarHandle")
+                .getMethod("toMethodHandle", accessMode);
+        MethodHandle get = (MethodHandle) toMethodHandle.invoke(longs, accessMode.getField("GET_VOLATILE").get(null));
+        MethodHandle set = (MethodHandle) toMethodHandle.invoke(longs, accessMode.getField("SET_VOLATILE").get(null));
+        return new MethodHandle[] {
+                get.asType(MethodType.methodType(long.class, ByteBuffer.class, int.class)),
+                set.asType(MethodType.methodType(void.class, ByteBuffer.class, int.class, long.class))
+        };
+    }
+
+    /** Unsafe volatile accesses at the buffer's address (Java 8). */
+    private static MethodHandle[] unsafeAccessors() throws ReflectiveOperationException {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        Object unsafe = theUnsafe.get(null);
+        Field addressField = Buffer.class.getDeclaredField("address");
+        addressField.setAccessible(true);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        unsafeGet = lookup.findVirtual(unsafeClass, "getLongVolatile",
+                MethodType.methodType(long.class, Object.class, long.class)).bindTo(unsafe);
+        unsafePut = lookup.findVirtual(unsafeClass, "putLongVolatile",
+                MethodType.methodType(void.class, Object.class, long.class, long.class)).bindTo(unsafe);
+        address = lookup.unreflectGetter(addressField);
+        return new MethodHandle[] {
+                lookup.findStatic(MappedLongs.class, "unsafeGetVolatile",
+                        MethodType.methodType(long.class, ByteBuffer.class, int.class)),
+                lookup.findStatic(MappedLongs.class, "unsafeSetVolatile",
+                        MethodType.methodType(void.class, ByteBuffer.class, int.class, long.class))
+        };
+    }
+
+    private static long unsafeGetVolatile(ByteBuffer buffer, int offset) throws Throwable {
+        return (long) unsafeGet.invokeExact((Object) null, (long) address.invokeExact((Buffer) buffer) + offset);
+    }
+
+    private static void unsafeSetVolatile(ByteBuffer buffer, int offset, long value) throws Throwable {
+        unsafePut.invokeExact((Object) null, (long) address.invokeExact((Buffer) buffer) + offset, value);
+    }
+}
@@ -0,0 +1,305 @@
+package io.github.beatum.video;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable set of vector shapes (boxes, lines, ellipses, text) drawn over a {@link VideoPanel}
+ * at display resolution, instead of into the frame.
+ *
+ * <pre>
+ * viewer.setOverlay("zones", Overlay.builder()
+ *         .color(Color.RED).stroke(2)
+ *         .rect(1200, 600, 400, 300)
+ *         .text("Door", 1200, 590)
+ *         .build());
+ *
+ * viewer.setOverlay("osd", Overlay.builder().pinned()
+ *         .color(Color.WHITE).textBackground(new Color(0, 0, 0, 128))
+ *         .text("cam0  " + fps + " fps", 8, 20)
+ *         .build());
+ * </pre>
+ *
+ * <h2>Coordinates</h2>
+ * <ul>
+ *   <li>Positions are source pixels of the full frame, so shapes stay on their object at any
+ *       display size and follow the panel's ROI zoom. Text is placed by its baseline, like
+ *       {@link Graphics#drawString}.</li>
+ *   <li>{@link Builder#pinned() Pinned} overlays use panel pixels instead (top-left origin), for
+ *       labels that must stay put, e.g. device name, clock or fps.</li>
+ *   <li>Stroke widths and font sizes are panel pixels, so lines and text look the same at any
+ *       zoom; when burned into a snapshot they are scaled like the frame is on screen.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class Overlay {
+
+    private static final int RECT = 0;
+    private static final int FILL_RECT = 1;
+    private static final int LINE = 2;
+    private static final int ELLIPSE = 3;
+    private static final int TEXT = 4;
+
+    /** Overlay without shapes. */
+    public static final Overlay EMPTY = new Overlay(Collections.emptyList(), false);
+
+    private final List<Shape> shapes;
+    private final boolean pinned;
+
+    private Overlay(List<Shape> shapes, boolean pinned) {
+        this.shapes = shapes;
+        this.pinned = pinned;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Whether coordinates are panel pixels instead of source pixels. */
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    /** Number of shapes. */
+    public int size() {
+        return shapes.size();
+    }
+
+    public boolean isEmpty() {
+        return shapes.isEmpty();
+    }
+
+    // -------------------- Rendering --------------------
+
+    /**
+     * Draws the shapes.
+     *
+     * @param g target graphics
+     * @param view region of the source shown over the target (ignored for pinned overlays)
+     * @param width target width
+     * @param height target height
+     * @param scale factor for strokes, fonts and pinned coordinates (1 on screen)
+     */
+    void paint(Graphics2D g, Rect view, int width, int height, double scale) {
+        for (Shape shape : shapes) {
+            g.setColor(shape.color);
+            double x1 = mapX(shape.x1, view, width, scale);
+            double y1 = mapY(shape.y1, view, height, scale);
+            switch (shape.kind) {
+                case TEXT:
+                    paintText(g, shape, x1, y1, width, scale);
+                    continue;
+                case LINE:
+                    g.setStroke(shape.stroke(scale));
+                    g.draw(new Line2D.Double(x1, y1,
+                            mapX(shape.x2, view, width, scale), mapY(shape.y2, view, height, scale)));
+                    continue;
+                default:
+                    break;
+            }
+            double w = mapX(shape.x2, view, width, scale) - x1;
+            double h = mapY(shape.y2, view, height, scale) - y1;
+            if (shape.kind == FILL_RECT) {
+                g.fill(new Rectangle2D.Double(x1, y1, w, h));
+            } else {
+                g.setStroke(shape.stroke(scale));
+                g.draw(shape.kind == ELLIPSE ? new Ellipse2D.Double(x1, y1, w, h) : new Rectangle2D.Double(x1, y1, w, h));
+            }
+        }
+    }
+
+    /** Text is kept inside the target, so labels of boxes at the edge stay readable. */
+    private static void paintText(Graphics2D g, Shape shape, double x, double y, int width, double scale) {
+        g.setFont(shape.font(scale));
+        FontMetrics metrics = g.getFontMetrics();
+        int textWidth = metrics.stringWidth(shape.text);
+        float tx = (float) Math.max(0, Math.min(x, width - textWidth));
+        float ty = (float) Math.max(metrics.getAscent(), y);
+        if (shape.background != null) {
+            g.setColor(shape.background);
+            g.fill(new Rectangle2D.Float(tx - 2, ty - metrics.getAscent(), textWidth + 4, metrics.getHeight()));
+            g.setColor(shape.color);
+        }
+        g.drawString(shape.text, tx, ty);
+    }
+
+    private double mapX(double x, Rect view, int width, double scale) {
+        return pinned ? x * scale : (x - view.x) * width / view.width;
+    }
+
+    private double mapY(double y, Rect view, int height, double scale) {
+        return pinned ? y * scale : (y - view.y) * height / view.height;
+    }
+
+    /**
+     * Draws overlays into a frame (for snapshots). Only 8-bit gray and BGR frames are supported.
+     *
+     * @param frame continuous frame, modified in place
+     * @param overlays overlays in drawing order
+     * @param region region of the source the frame holds (null = whole frame)
+     * @param scale factor for strokes, fonts and pinned coordinates
+     * @return false if the frame type is not supported (frame unchanged)
+     */
+    static boolean burnIn(Mat frame, Collection<Overlay> overlays, Rect region, double scale) {
+        int imageType;
+        if (frame.type() == CvType.CV_8UC3) {
+            imageType = BufferedImage.TYPE_3BYTE_BGR;
+        } else if (frame.type() == CvType.CV_8UC1) {
+            imageType = BufferedImage.TYPE_BYTE_GRAY;
+        } else {
+            return false;
+        }
+        if (!frame.isContinuous()) return false;
+
+        int cols = frame.cols();
+        int rows = frame.rows();
+        BufferedImage image = new BufferedImage(cols, rows, imageType);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        frame.get(0, 0, pixels);
+        Graphics2D g = image.createGraphics();
+        try {
+            prepare(g);
+            Rect view = region != null ? region : new Rect(0, 0, cols, rows);
+            for (Overlay overlay : overlays) {
+                overlay.paint(g, view, cols, rows, scale);
+            }
+        } finally {
+            g.dispose();
+        }
+        frame.put(0, 0, pixels);
+        return true;
+    }
+
+    /** Antialiasing for shapes and text. */
+    static void prepare(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    // -------------------- Shapes --------------------
+
+    private static final class Shape {
+        final int kind;
+        final double x1;
+        final double y1;
+        final double x2;
+        final double y2;
+        final String text;
+        final Color color;
+        final Color background;
+        final BasicStroke stroke;
+        final Font font;
+
+        Shape(int kind, double x1, double y1, double x2, double y2, String text, Builder style) {
+            this.kind = kind;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.text = text;
+            this.color = style.color;
+            this.background = style.background;
+            this.stroke = style.stroke;
+            this.font = style.font;
+        }
+
+        BasicStroke stroke(double scale) {
+            return scale == 1 ? stroke : new BasicStroke((float) (stroke.getLineWidth() * scale));
+        }
+
+        Font font(double scale) {
+            return scale == 1 ? font : font.deriveFont((float) (font.getSize2D() * scale));
+        }
+    }
+
+    /**
+     * Collects shapes; style setters apply to the shapes added after them.
+     */
+    public static final class Builder {
+
+        private final List<Shape> shapes = new ArrayList<>();
+        private boolean pinned;
+        private Color color = Color.GREEN;
+        private Color background;
+        private BasicStroke stroke = new BasicStroke(1f);
+        private Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+
+        private Builder() {
+        }
+
+        /** Uses panel pixels instead of source pixels for all shapes. */
+        public Builder pinned() {
+            this.pinned = true;
+            return this;
+        }
+
+        public Builder color(Color color) {
+            this.color = color;
+            return this;
+        }
+
+        /** Line width in panel pixels (default 1). */
+        public Builder stroke(float width) {
+            this.stroke = new BasicStroke(Math.max(0f, width));
+            return this;
+        }
+
+        /** Font size in panel pixels (default 12). */
+        public Builder fontSize(float size) {
+            this.font = font.deriveFont(Math.max(1f, size));
+            return this;
+        }
+
+        /** Box drawn behind text for readability, or null for none (default). */
+        public Builder textBackground(Color background) {
+            this.background = background;
+            return this;
+        }
+
+        public Builder rect(double x, double y, double width, double height) {
+            return add(RECT, x, y, x + width, y + height, null);
+        }
+
+        public Builder fillRect(double x, double y, double width, double height) {
+            return add(FILL_RECT, x, y, x + width, y + height, null);
+        }
+
+        /** Ellipse inscribed in the given box. */
+        public Builder ellipse(double x, double y, double width, double height) {
+            return add(ELLIPSE, x, y, x + width, y + height, null);
+        }
+
+        public Builder line(double x1, double y1, double x2, double y2) {
+            return add(LINE, x1, y1, x2, y2, null);
+        }
+
+        /** Text with its baseline starting at (x, y). */
+        public Builder text(String text, double x, double y) {
+            return add(TEXT, x, y, x, y, text == null ? "" : text);
+        }
+
+        private Builder add(int kind, double x1, double y1, double x2, double y2, String text) {
+            shapes.add(new Shape(kind, x1, y1, x2, y2, text, this));
+            return this;
+        }
+
+        public Overlay build() {
+            return new Overlay(Collections.unmodifiableList(new ArrayList<>(shapes)), pinned);
+        }
+    }
+}
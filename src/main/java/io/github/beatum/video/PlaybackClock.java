@@ -0,0 +1,102 @@
+
+package io.github.beatum.video;
+
+/**
+ * Playback position shared by one or more {@link PlaybackPanel}s.
+ *
+ * <p>Panels sharing a clock show, at every moment, the frame of their camera recorded at (or
+ * just before) the same position, which is what keeps multi-camera playback synchronized
+ * without the panels talking to each other.</p>
+ *
+ * <p>The position is derived from {@link System#nanoTime()} while playing, so it does not drift
+ * with decode or repaint delays. All methods are thread-safe.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class PlaybackClock {
+
+    /** Slowest and fastest playback speed. */
+    public static final double MIN_SPEED = 1.0;
+    public static final double MAX_SPEED = 16.0;
+
+    /** Position (ms) at {@link #baseNanos}. */
+    private long basePosition;
+
+    /** nanoTime when playing started or the position was last set. */
+    private long baseNanos;
+
+    private double speed = 1.0;
+    private boolean playing;
+
+    /** Position at which playing stops (Long.MAX_VALUE = none). */
+    private long end = Long.MAX_VALUE;
+
+    /**
+     * @param position start position (recording timestamps, epoch ms)
+     */
+    public PlaybackClock(long position) {
+        this.basePosition = position;
+        this.baseNanos = System.nanoTime();
+    }
+
+    /** Current position in ms; playback stops at the end position. */
+    public synchronized long getPosition() {
+        if (!playing) return basePosition;
+        long position = basePosition + (long) ((System.nanoTime() - baseNanos) / 1e6 * speed);
+        if (position >= end) {
+            basePosition = end;
+            playing = false;
+            return end;
+        }
+        return position;
+    }
+
+    public synchronized boolean isPlaying() {
+        getPosition(); // stops at the end
+        return playing;
+    }
+
+    public synchronized void play() {
+        if (playing) return;
+        baseNanos = System.nanoTime();
+        playing = true;
+    }
+
+    public synchronized void pause() {
+        if (!playing) return;
+        basePosition = getPosition();
+        playing = false;
+    }
+
+    /** Jumps to a position (keeps playing if playing). */
+    public synchronized void seek(long position) {
+        basePosition = Math.min(position, end);
+        baseNanos = System.nanoTime();
+    }
+
+    public synchronized double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the playback speed without a jump in position.
+     *
+     * @param speed 1 (real time) .. 16, clamped
+     */
+    public synchronized void setSpeed(double speed) {
+        basePosition = getPosition();
+        baseNanos = System.nanoTime();
+        this.speed = Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    public synchronized long getEnd() {
+        return end;
+    }
+
+    /** Position at which playing stops automatically (e.g. the newest recorded frame). */
+    public synchronized void setEnd(long end) {
+        this.end = end;
+    }
+}
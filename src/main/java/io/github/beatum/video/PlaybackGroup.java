@@ -0,0 +1,189 @@
+
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Synchronized multi-camera playback: one {@link PlaybackPanel} per recorded device, all driven
+ * by one {@link PlaybackClock} and sharing one {@link FrameDecodeCache}.
+ *
+ * <pre>
+ * PlaybackGroup playback = new PlaybackGroup(container, store, deviceGroup);
+ * playback.startAll();
+ * playback.seek(incidentTimestampMs);
+ * playback.setSpeed(8);
+ * playback.play();
+ * </pre>
+ *
+ * <p>The container is laid out like a {@link DeviceGroup} container (e.g. with a
+ * {@link CameraWallLayout}). The shared cache bounds the decode memory of the whole group.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class PlaybackGroup implements AutoCloseable {
+
+    private final JComponent container;
+    private final SegmentStore store;
+    private final PlaybackClock clock;
+    private final FrameDecodeCache cache;
+    private final List<PlaybackPanel> panels = new ArrayList<>();
+
+    /**
+     * Plays every device found in the store.
+     *
+     * @param container UI container the panels are added to
+     * @param store recording store (open)
+     */
+    public PlaybackGroup(JComponent container, SegmentStore store) {
+        this(container, store, new ArrayList<>(store.getDevices()));
+    }
+
+    /**
+     * Plays the devices of a live {@link DeviceGroup} (same device indices).
+     *
+     * @param container UI container the panels are added to
+     * @param store recording store (open)
+     * @param group live group whose devices are played back
+     */
+    public PlaybackGroup(JComponent container, SegmentStore store, DeviceGroup group) {
+        this(container, store, deviceIndices(group));
+    }
+
+    /**
+     * Plays the given devices.
+     *
+     * @param container UI container the panels are added to
+     * @param store recording store (open)
+     * @param devices device indices, in display order
+     */
+    public PlaybackGroup(JComponent container, SegmentStore store, List<Integer> devices) {
+        this.container = container;
+        this.store = store;
+        this.cache = new FrameDecodeCache(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)),
+                256L << 20);
+
+        // Clock spans all devices: from the oldest to the newest recorded frame
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (int device : devices) {
+            StoredFrame first = store.first(device);
+            StoredFrame last = store.last(device);
+            if (first != null) start = Math.min(start, first.getTimestamp());
+            if (last != null) end = Math.max(end, last.getTimestamp());
+        }
+        this.clock = new PlaybackClock(start == Long.MAX_VALUE ? 0 : start);
+        if (end != Long.MIN_VALUE) clock.setEnd(end);
+
+        for (int device : devices) {
+            PlaybackPanel panel = new PlaybackPanel(store, device, clock, cache);
+            panels.add(panel);
+            container.add(panel);
+        }
+        container.revalidate();
+        container.repaint();
+    }
+
+    private static List<Integer> deviceIndices(DeviceGroup group) {
+        List<Integer> devices = new ArrayList<>();
+        for (VideoPanel viewer : group.getViewers()) {
+            devices.add(viewer.getDeviceIndex());
+        }
+        return devices;
+    }
+
+    // -------------------- Getters --------------------
+
+    /** Unmodifiable list of panels, in display order. */
+    public List<PlaybackPanel> getPanels() {
+        return Collections.unmodifiableList(panels);
+    }
+
+    public PlaybackClock getClock() {
+        return clock;
+    }
+
+    public FrameDecodeCache getCache() {
+        return cache;
+    }
+
+    // -------------------- Playback control --------------------
+
+    public void play() {
+        clock.play();
+    }
+
+    public void pause() {
+        clock.pause();
+    }
+
+    /** All panels jump to the frame recorded at or before the timestamp (epoch ms). */
+    public void seek(long timestampMs) {
+        clock.seek(timestampMs);
+    }
+
+    /** @param speed 1 .. 16 */
+    public void setSpeed(double speed) {
+        clock.setSpeed(speed);
+    }
+
+    /** Pauses and advances to the next frame of whichever device recorded one first. */
+    public void stepForward() {
+        clock.pause();
+        long position = clock.getPosition();
+        long next = Long.MAX_VALUE;
+        for (PlaybackPanel panel : panels) {
+            StoredFrame f = store.ceiling(panel.getDeviceIndex(), position + 1);
+            if (f != null) next = Math.min(next, f.getTimestamp());
+        }
+        if (next != Long.MAX_VALUE) clock.seek(next);
+    }
+
+    /** Pauses and goes back to the previous frame of whichever device recorded one last. */
+    public void stepBackward() {
+        clock.pause();
+        long position = clock.getPosition();
+        long previous = Long.MIN_VALUE;
+        for (PlaybackPanel panel : panels) {
+            StoredFrame f = store.floor(panel.getDeviceIndex(), position - 1);
+            if (f != null) previous = Math.max(previous, f.getTimestamp());
+        }
+        if (previous != Long.MIN_VALUE) clock.seek(previous);
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    /** Starts all playback threads. */
+    public void startAll() {
+        for (PlaybackPanel panel : panels) {
+            panel.start();
+        }
+    }
+
+    /** Stops all playback threads. */
+    public void stopAll() {
+        for (PlaybackPanel panel : panels) {
+            panel.stop();
+        }
+    }
+
+    /** Closes all panels, removes them from the container and releases the shared cache. */
+    @Override
+    public void close() {
+        for (PlaybackPanel panel : panels) {
+            panel.close();
+            container.remove(panel);
+        }
+        panels.clear();
+        cache.close();
+        container.revalidate();
+        container.repaint();
+    }
+}
@@ -0,0 +1,370 @@
+
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * A Swing {@link JPanel} that plays footage of one device recorded in a {@link SegmentStore},
+ * the playback counterpart of {@link VideoPanel}.
+ *
+ * <pre>
+ * PlaybackPanel player = new PlaybackPanel(store, 0);
+ * frame.add(player);
+ * player.start();
+ * player.setSpeed(4);
+ * player.play();
+ * player.seek(timestampMs);   // scrub
+ * player.stepForward();       // frame by frame
+ * </pre>
+ *
+ * <h2>Key Features</h2>
+ * <ul>
+ *   <li>Scrub, step and play at 1x to 16x, driven by a {@link PlaybackClock} that several panels
+ *       can share (see {@link PlaybackGroup} for synchronized multi-camera playback).</li>
+ *   <li>Frames are decoded ahead on background threads into a bounded {@link FrameDecodeCache} of
+ *       display-sized frames: frames already seen or prefetched are shown without decoding.</li>
+ *   <li>Uses the same display path as live view: one reused display image per panel, so memory
+ *       stays bounded however long the clip.</li>
+ * </ul>
+ *
+ * <h2>Threading Model</h2>
+ * <ul>
+ *   <li>A playback thread follows the clock, shows cached frames and issues decode requests.</li>
+ *   <li>Decoding runs on the cache's threads; the EDT only paints.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class PlaybackPanel extends JPanel implements Runnable, AutoCloseable {
+
+    /** Playback thread tick (about 60 updates/s). */
+    private static final int TICK_MS = 16;
+
+    /** How many frames before a not-yet-decoded target are searched for a cached stand-in. */
+    private static final int MAX_FALLBACK_FRAMES = 64;
+
+    private final SegmentStore store;
+    private final int deviceIndex;
+    private final PlaybackClock clock;
+    private final FrameDecodeCache cache;
+
+    /** Whether {@link #cache} was created by (and is closed with) this panel. */
+    private final boolean ownsCache;
+
+    /** How far ahead of the position frames are prefetched while playing (playback time). */
+    private volatile int prefetchMs = 1000;
+
+    /** Frames prefetched on each side of the position while paused (for stepping). */
+    private volatile int prefetchFrames = 8;
+
+    private final DisplayBuffer displayBuffer = new DisplayBuffer();
+
+    /** Frame currently shown (null before the first one). */
+    private volatile StoredFrame shownFrame;
+
+    /** Last frame prefetched while playing, or the frame prefetched around while paused. */
+    private StoredFrame prefetchCursor;
+    private int prefetchW;
+    private int prefetchH;
+
+    /** Wakes the playback thread early (decode finished, seek, step). */
+    private final Object wakeLock = new Object();
+
+    private Thread playbackThread;
+    private volatile boolean running = false;
+
+    // -------------------- Constructors --------------------
+
+    /**
+     * Creates a standalone player with its own clock (at the oldest frame) and decode cache.
+     *
+     * @param store recording store
+     * @param deviceIndex device to play
+     */
+    public PlaybackPanel(SegmentStore store, int deviceIndex) {
+        this(store, deviceIndex, new PlaybackClock(startOf(store, deviceIndex)),
+                new FrameDecodeCache(2, 64L << 20), true);
+        StoredFrame last = store.last(deviceIndex);
+        if (last != null) clock.setEnd(last.getTimestamp());
+    }
+
+    /**
+     * Creates a player that follows a shared clock and uses a shared cache.
+     *
+     * @param store recording store
+     * @param deviceIndex device to play
+     * @param clock playback position (shared by synchronized panels)
+     * @param cache decode cache (may be shared; not closed by this panel)
+     */
+    public PlaybackPanel(SegmentStore store, int deviceIndex, PlaybackClock clock, FrameDecodeCache cache) {
+        this(store, deviceIndex, clock, cache, false);
+    }
+
+    private PlaybackPanel(SegmentStore store, int deviceIndex, PlaybackClock clock,
+                          FrameDecodeCache cache, boolean ownsCache) {
+        this.store = store;
+        this.deviceIndex = deviceIndex;
+        this.clock = clock;
+        this.cache = cache;
+        this.ownsCache = ownsCache;
+        displayBuffer.track("PlaybackPanel", deviceIndex);
+
+        setLayout(new GridLayout(1, 1));
+        setDoubleBuffered(true);
+        setOpaque(true);
+        setBackground(Color.BLACK);
+    }
+
+    private static long startOf(SegmentStore store, int deviceIndex) {
+        StoredFrame first = store.first(deviceIndex);
+        return first != null ? first.getTimestamp() : 0;
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    /**
+     * Starts the playback thread (the clock decides whether it actually plays).
+     * Safe to call multiple times.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        playbackThread = new Thread(this, "PlaybackPanel-Thread-" + deviceIndex);
+        playbackThread.setDaemon(true);
+        playbackThread.start();
+    }
+
+    /**
+     * Stops the playback thread. Safe to call multiple times.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (playbackThread != null) {
+            playbackThread.interrupt();
+            try {
+                playbackThread.join(800);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                playbackThread = null;
+            }
+        }
+    }
+
+    /**
+     * Stops playback and releases display buffers (and the cache if this panel created it).
+     */
+    @Override
+    public void close() {
+        stop();
+        displayBuffer.release();
+        if (ownsCache) {
+            cache.close();
+        }
+    }
+
+    // -------------------- Playback control --------------------
+
+    public PlaybackClock getClock() {
+        return clock;
+    }
+
+    public int getDeviceIndex() {
+        return deviceIndex;
+    }
+
+    public void play() {
+        clock.play();
+        wake();
+    }
+
+    public void pause() {
+        clock.pause();
+    }
+
+    /** Jumps to a timestamp (epoch ms); the frame recorded at or before it is shown. */
+    public void seek(long timestampMs) {
+        clock.seek(timestampMs);
+        wake();
+    }
+
+    /** @param speed 1 .. 16 */
+    public void setSpeed(double speed) {
+        clock.setSpeed(speed);
+    }
+
+    /** Pauses and shows the next recorded frame. */
+    public void stepForward() {
+        clock.pause();
+        StoredFrame current = currentFrame();
+        StoredFrame next = current != null ? store.next(current) : store.first(deviceIndex);
+        if (next != null) seek(next.getTimestamp());
+    }
+
+    /** Pauses and shows the previous recorded frame. */
+    public void stepBackward() {
+        clock.pause();
+        StoredFrame current = currentFrame();
+        StoredFrame previous = current != null ? store.previous(current) : null;
+        if (previous != null) seek(previous.getTimestamp());
+    }
+
+    /** Frame currently shown, or null. */
+    public StoredFrame getShownFrame() {
+        return shownFrame;
+    }
+
+    public int getPrefetchMs() {
+        return prefetchMs;
+    }
+
+    /** How far ahead (in playback time) frames are decoded while playing. */
+    public void setPrefetchMs(int prefetchMs) {
+        this.prefetchMs = Math.max(0, prefetchMs);
+    }
+
+    public int getPrefetchFrames() {
+        return prefetchFrames;
+    }
+
+    /** Frames decoded on each side of the position while paused, so stepping is instant. */
+    public void setPrefetchFrames(int prefetchFrames) {
+        this.prefetchFrames = Math.max(0, prefetchFrames);
+    }
+
+    // -------------------- Playback Loop --------------------
+
+    @Override
+    public void run() {
+        // Size the shown frame was rendered at; a resized panel must re-render it
+        int renderedW = -1;
+        int renderedH = -1;
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            int w = getWidth();
+            int h = getHeight();
+            if (w > 0 && h > 0) {
+                StoredFrame target = store.floor(deviceIndex, clock.getPosition());
+                if (target != null) {
+                    boolean stale = !target.equals(shownFrame) || w != renderedW || h != renderedH;
+                    if (stale) {
+                        StoredFrame shown = target;
+                        if (!cache.renderTo(target, w, h, displayBuffer)) {
+                            cache.request(store, target, w, h, true, this::wake);
+                            // Decoding lags (e.g. at 16x): show the newest prefetched frame instead
+                            shown = renderNearestCached(target, w, h, w == renderedW && h == renderedH);
+                        }
+                        if (shown != null) {
+                            shownFrame = shown;
+                            renderedW = w;
+                            renderedH = h;
+                            SwingUtilities.invokeLater(this::repaint);
+                        }
+                    }
+                    prefetch(target, w, h);
+                }
+            }
+
+            synchronized (wakeLock) {
+                try {
+                    wakeLock.wait(TICK_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests the frames that will be shown next: ahead of the position while playing (only those
+     * the clock will not skip at the current speed), on both sides while paused.
+     * Called every tick, so it resumes where the previous call stopped.
+     */
+    private void prefetch(StoredFrame target, int w, int h) {
+        boolean sizeChanged = w != prefetchW || h != prefetchH;
+        prefetchW = w;
+        prefetchH = h;
+
+        if (clock.isPlaying()) {
+            long horizon = target.getTimestamp() + (long) (prefetchMs * clock.getSpeed());
+            // At high speed most frames fall between two ticks and are never shown
+            long minGap = (long) (TICK_MS * clock.getSpeed());
+
+            StoredFrame f = prefetchCursor;
+            if (sizeChanged || f == null || f.getTimestamp() <= target.getTimestamp()) {
+                f = target; // first call, seek or resize: start over at the position
+            }
+            long lastTs = f.getTimestamp();
+            for (StoredFrame next = store.next(f); next != null && next.getTimestamp() <= horizon;
+                 next = store.next(next)) {
+                if (next.getTimestamp() - lastTs >= minGap) {
+                    cache.request(store, next, w, h, false, null);
+                    lastTs = next.getTimestamp();
+                }
+                f = next;
+            }
+            prefetchCursor = f;
+        } else if (sizeChanged || !target.equals(prefetchCursor)) {
+            prefetchCursor = target;
+            StoredFrame ahead = target;
+            StoredFrame behind = target;
+            for (int i = 0; i < prefetchFrames; i++) {
+                if (ahead != null && (ahead = store.next(ahead)) != null) {
+                    cache.request(store, ahead, w, h, false, null);
+                }
+                if (behind != null && (behind = store.previous(behind)) != null) {
+                    cache.request(store, behind, w, h, false, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the newest cached frame shortly before {@code target} that is newer than the one
+     * on screen.
+     *
+     * @param sameSize whether the display size is unchanged (older frames than the shown one are useless then)
+     * @return frame rendered, or null
+     */
+    private StoredFrame renderNearestCached(StoredFrame target, int w, int h, boolean sameSize) {
+        StoredFrame shown = shownFrame;
+        StoredFrame f = target;
+        for (int i = 0; i < MAX_FALLBACK_FRAMES; i++) {
+            f = store.previous(f);
+            if (f == null) return null;
+            if (sameSize && shown != null && f.getTimestamp() <= shown.getTimestamp()) return null;
+            if (cache.contains(f, w, h) && cache.renderTo(f, w, h, displayBuffer)) return f;
+        }
+        return null;
+    }
+
+    // -------------------- Swing Painting --------------------
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (!displayBuffer.paint(g, this)) {
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("No Recording", 10, 20);
+        }
+    }
+
+    // -------------------- Internal helpers --------------------
+
+    /** Frame at the clock position (what is or is about to be shown). */
+    private StoredFrame currentFrame() {
+        return store.floor(deviceIndex, clock.getPosition());
+    }
+
+    private void wake() {
+        synchronized (wakeLock) {
+            wakeLock.notifyAll();
+        }
+    }
+}
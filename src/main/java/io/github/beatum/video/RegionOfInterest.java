@@ -0,0 +1,90 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Rect;
+
+/**
+ * Geometry of a panel's region of interest: clipping to the frame and mapping between source
+ * pixels and component coordinates.
+ *
+ * <p>A view region is the part of the source that fills the component (the whole frame, or the
+ * ROI when zoomed). The image is stretched over the component, so each axis maps linearly.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+final class RegionOfInterest {
+
+    /** ROIs smaller than this (source pixels per side) are ignored. */
+    static final int MIN_SIZE = 2;
+
+    private RegionOfInterest() {
+    }
+
+    /**
+     * Clips a region to a frame.
+     *
+     * @param roi region in source pixels (may exceed the frame)
+     * @param cols frame width
+     * @param rows frame height
+     * @param packed YUYV frame: x and width are rounded to even pixels, so the region starts on a
+     *               Y0 U Y1 V pair
+     * @param reuse returned if it already equals the result (avoids allocating per frame); may be null
+     * @return clipped region ({@code reuse} if unchanged), or null if it is smaller than
+     *         {@link #MIN_SIZE} or covers the whole frame
+     */
+    static Rect clip(Rect roi, int cols, int rows, boolean packed, Rect reuse) {
+        int x = Math.max(0, roi.x);
+        int y = Math.max(0, roi.y);
+        int x2 = (int) Math.min(cols, (long) roi.x + roi.width);
+        int y2 = (int) Math.min(rows, (long) roi.y + roi.height);
+        if (packed) {
+            x &= ~1;
+            x2 &= ~1;
+        }
+        if (x2 - x < MIN_SIZE || y2 - y < MIN_SIZE) return null;
+        if (x == 0 && y == 0 && x2 == cols && y2 == rows) return null;
+
+        if (reuse != null && reuse.x == x && reuse.y == y && reuse.width == x2 - x && reuse.height == y2 - y) {
+            return reuse;
+        }
+        return new Rect(x, y, x2 - x, y2 - y);
+    }
+
+    /**
+     * Maps a source x coordinate to a component x coordinate.
+     *
+     * @param view region of the source shown over the whole component
+     * @param width component width
+     */
+    static int toComponentX(double sourceX, Rect view, int width) {
+        return (int) Math.round((sourceX - view.x) * width / view.width);
+    }
+
+    /** Maps a source y coordinate to a component y coordinate (see {@link #toComponentX}). */
+    static int toComponentY(double sourceY, Rect view, int height) {
+        return (int) Math.round((sourceY - view.y) * height / view.height);
+    }
+
+    /**
+     * Converts a rectangle drawn on the component (any two corners) to source pixels.
+     *
+     * @param view region of the source shown over the whole component
+     * @param width component width
+     * @param height component height
+     * @return region in source pixels, clipped to the view
+     */
+    static Rect toSource(int x1, int y1, int x2, int y2, Rect view, int width, int height) {
+        double sx = view.width / (double) Math.max(1, width);
+        double sy = view.height / (double) Math.max(1, height);
+        int left = view.x + (int) Math.floor(clamp(Math.min(x1, x2), width) * sx);
+        int top = view.y + (int) Math.floor(clamp(Math.min(y1, y2), height) * sy);
+        int right = view.x + (int) Math.ceil(clamp(Math.max(x1, x2), width) * sx);
+        int bottom = view.y + (int) Math.ceil(clamp(Math.max(y1, y2), height) * sy);
+        return new Rect(left, top, right - left, bottom - top);
+    }
+
+    private static int clamp(int v, int max) {
+        return Math.max(0, Math.min(max, v));
+    }
+}
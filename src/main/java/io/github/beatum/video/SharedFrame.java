@@ -0,0 +1,90 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reference-counted frame buffer owned by a {@link SharedFrameSource}.
+ *
+ * <p>One buffer is handed to every subscriber without copying. When the last holder calls
+ * {@link #release()} the buffer goes back to the source's pool and is reused for a later frame,
+ * so the pixels must not be touched after releasing.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public final class SharedFrame {
+
+    private final SharedFrameSource owner;
+
+    /** Pixel buffer; reused across frames. */
+    private final Mat mat = new Mat();
+
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    private long sequence;
+    private long captureNanos;
+
+    SharedFrame(SharedFrameSource owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return the pixels (read-only by contract, valid while a reference is held)
+     */
+    public Mat getMat() {
+        return mat;
+    }
+
+    /** Frame number assigned by the source, starting at 0. */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** System.nanoTime when the frame was read from the device. */
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    /**
+     * Adds a reference.
+     *
+     * @return this
+     * @throws IllegalStateException if the frame was already recycled
+     */
+    public SharedFrame retain() {
+        int n;
+        do {
+            n = refCount.get();
+            if (n <= 0) throw new IllegalStateException("SharedFrame already released");
+        } while (!refCount.compareAndSet(n, n + 1));
+        return this;
+    }
+
+    /**
+     * Drops a reference; the last release returns the buffer to the pool.
+     */
+    public void release() {
+        int n = refCount.decrementAndGet();
+        if (n == 0) {
+            owner.recycle(this);
+        } else if (n < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException("SharedFrame released too often");
+        }
+    }
+
+    /** Prepares a pooled buffer for a new frame; the reader holds the first reference. */
+    void reset(long sequence, long captureNanos) {
+        this.sequence = sequence;
+        this.captureNanos = captureNanos;
+        refCount.set(1);
+    }
+
+    /** Frees the native buffer (pool shrink / source close). */
+    void dispose() {
+        mat.release();
+    }
+}
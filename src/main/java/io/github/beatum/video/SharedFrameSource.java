@@ -0,0 +1,416 @@
+
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads one device once and fans every frame out to any number of consumers.
+ *
+ * <p>Most drivers refuse to open a camera twice, so showing e.g. a raw and a filtered view of the
+ * same camera needs a single reader. Consumers come in two flavours:</p>
+ * <ul>
+ *   <li><b>Subscribers</b> ({@link #subscribe(IFrameSubscriber, String)}): read-only consumers such
+ *       as recorders or streamers. They receive the shared {@link SharedFrame} buffer itself,
+ *       without copying.</li>
+ *   <li><b>Views</b> ({@link #openView()}): an {@link IFrameSource} for a {@link VideoPanel}. A panel
+ *       filters in place and keeps its own snapshot copy, so a view copies the frame once into the
+ *       panel's buffer on the panel's capture thread.</li>
+ * </ul>
+ *
+ * <h2>Threading Model</h2>
+ * <ul>
+ *   <li>One reader thread calls {@link IFrameSource#read(Mat)} into pooled, reference-counted
+ *       buffers.</li>
+ *   <li>Every consumer has a single-slot mailbox holding only the newest frame. Publishing never
+ *       blocks: a frame a consumer has not picked up yet is replaced (and counted as dropped), so
+ *       a slow consumer never slows the reader or the other consumers.</li>
+ *   <li>Subscribers run on their own dispatch thread; views are drained by the panel's capture
+ *       thread.</li>
+ *   <li>The reader thread owns the device and releases it when it exits, so a {@link #close()}
+ *       that gives up waiting for a read stuck in the driver never frees the device under it.</li>
+ * </ul>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class SharedFrameSource implements AutoCloseable {
+
+    /** Underlying device (only the reader thread reads it). */
+    private final IFrameSource source;
+
+    /** Name used for thread names. */
+    private final String name;
+
+    /** Mailboxes of all consumers (subscribers and views). */
+    private final List<Mailbox> mailboxes = new CopyOnWriteArrayList<>();
+
+    /** Free buffers ready for the next read. */
+    private final ConcurrentLinkedQueue<SharedFrame> pool = new ConcurrentLinkedQueue<>();
+
+    /** Number of buffers currently in {@link #pool} (bounded to avoid hoarding native memory). */
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final AtomicLong framesRead = new AtomicLong();
+
+    private Thread readerThread;
+    private volatile boolean running;
+    private volatile boolean closed;
+
+    /**
+     * @param source device to share (opened by the reader thread)
+     * @param name name used for thread names, e.g. "cam0"
+     */
+    public SharedFrameSource(IFrameSource source, String name) {
+        this.source = source;
+        this.name = name;
+    }
+
+    // -------------------- Consumers --------------------
+
+    /**
+     * Adds a read-only, zero-copy subscriber with its own dispatch thread.
+     * Starts the reader if needed.
+     *
+     * @param subscriber consumer
+     * @param subscriberName name for the dispatch thread
+     * @return subscription; close it to unsubscribe
+     */
+    public Subscription subscribe(IFrameSubscriber subscriber, String subscriberName) {
+        Subscription subscription = new Subscription(subscriber, name + "-" + subscriberName);
+        mailboxes.add(subscription.mailbox);
+        subscription.thread.start();
+        ensureStarted();
+        return subscription;
+    }
+
+    /**
+     * Opens a copy-on-read view usable as the source of a {@link VideoPanel}.
+     * The view registers on {@link IFrameSource#open()} and unregisters on
+     * {@link IFrameSource#release()}, so it follows the panel's start/stop.
+     *
+     * @return new view
+     */
+    public IFrameSource openView() {
+        return new View();
+    }
+
+    /** Number of registered consumers (subscribers and open views). */
+    public int getConsumerCount() {
+        return mailboxes.size();
+    }
+
+    /** Frames read from the device so far. */
+    public long getFramesRead() {
+        return framesRead.get();
+    }
+
+    // -------------------- Lifecycle --------------------
+
+    /**
+     * Stops the reader, closes all consumers and releases the device. If the reader does not stop
+     * within 800 ms (a read blocked in the driver), it releases the device itself once that read
+     * returns.
+     */
+    @Override
+    public void close() {
+        Thread reader;
+        synchronized (this) {
+            closed = true;
+            running = false;
+            reader = readerThread;
+            readerThread = null;
+        }
+        if (reader != null) {
+            reader.interrupt();
+            try {
+                reader.join(800);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Mailbox mailbox : mailboxes) {
+            mailbox.close();
+        }
+        mailboxes.clear();
+        if (reader == null) {
+            source.release(); // never started: no reader can be using the device
+        }
+        drainPool();
+    }
+
+    private synchronized void ensureStarted() {
+        if (closed) throw new IllegalStateException("SharedFrameSource is closed");
+        if (running) return;
+        running = true;
+        readerThread = new Thread(this::readLoop, "SharedFrameSource-Reader-" + name);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    private void readLoop() {
+        try {
+            readFrames();
+        } finally {
+            // Only this thread reads the device, so only this thread may free it
+            source.release();
+            drainPool();
+        }
+    }
+
+    private void readFrames() {
+        long sequence = 0;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            if (!source.isOpened() && !source.open()) {
+                sleepQuietly(500);
+                continue;
+            }
+
+            SharedFrame frame = pool.poll();
+            if (frame != null) {
+                pooled.decrementAndGet();
+            } else {
+                frame = new SharedFrame(this);
+            }
+
+            boolean ok;
+            try {
+                ok = source.read(frame.getMat()) && !frame.getMat().empty();
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (!ok) {
+                returnToPool(frame);
+                sleepQuietly(30);
+                continue;
+            }
+
+            frame.reset(sequence++, System.nanoTime());
+            framesRead.incrementAndGet();
+            for (Mailbox mailbox : mailboxes) {
+                mailbox.offer(frame);
+            }
+            frame.release(); // reader's own reference
+        }
+    }
+
+    /** Called by {@link SharedFrame#release()} when the last reference is dropped. */
+    void recycle(SharedFrame frame) {
+        if (closed) {
+            frame.dispose();
+        } else {
+            returnToPool(frame);
+        }
+    }
+
+    private void returnToPool(SharedFrame frame) {
+        // Each consumer holds at most two frames (mailbox + in use); keep a small reserve only
+        int limit = 2 * mailboxes.size() + 2;
+        if (pooled.incrementAndGet() <= limit) {
+            pool.offer(frame);
+            if (closed) drainPool(); // raced with close()
+        } else {
+            pooled.decrementAndGet();
+            frame.dispose();
+        }
+    }
+
+    private void drainPool() {
+        SharedFrame frame;
+        while ((frame = pool.poll()) != null) {
+            pooled.decrementAndGet();
+            frame.dispose();
+        }
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------- Mailbox --------------------
+
+    /**
+     * Single-slot, newest-wins hand-over between the reader and one consumer.
+     */
+    private static final class Mailbox {
+
+        private SharedFrame pending;
+        private boolean closed;
+        private long delivered;
+        private long dropped;
+
+        /** Publishes a frame (never blocks); a frame not yet taken is replaced. */
+        void offer(SharedFrame frame) {
+            SharedFrame replaced;
+            synchronized (this) {
+                if (closed) return;
+                replaced = pending;
+                pending = frame.retain();
+                if (replaced != null) dropped++;
+                notifyAll();
+            }
+            if (replaced != null) {
+                replaced.release();
+            }
+        }
+
+        /**
+         * Waits for the next frame; the caller owns one reference to it.
+         *
+         * @return frame, or null on timeout or when closed
+         */
+        synchronized SharedFrame take(long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (pending == null && !closed) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return null;
+                wait(wait);
+            }
+            SharedFrame frame = pending;
+            pending = null;
+            if (frame != null) delivered++;
+            return frame;
+        }
+
+        void close() {
+            SharedFrame leftover;
+            synchronized (this) {
+                closed = true;
+                leftover = pending;
+                pending = null;
+                notifyAll();
+            }
+            if (leftover != null) {
+                leftover.release();
+            }
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized long getDelivered() {
+            return delivered;
+        }
+
+        synchronized long getDropped() {
+            return dropped;
+        }
+    }
+
+    // -------------------- Consumers --------------------
+
+    /**
+     * A zero-copy subscriber with its own dispatch thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Mailbox mailbox = new Mailbox();
+        private final Thread thread;
+
+        private Subscription(IFrameSubscriber subscriber, String threadName) {
+            thread = new Thread(() -> dispatchLoop(subscriber), "SharedFrameSource-" + threadName);
+            thread.setDaemon(true);
+        }
+
+        private void dispatchLoop(IFrameSubscriber subscriber) {
+            try {
+                while (!mailbox.isClosed()) {
+                    SharedFrame frame = mailbox.take(1000);
+                    if (frame == null) continue;
+                    try {
+                        subscriber.onFrame(frame);
+                    } catch (Exception ignored) {
+                        // A failing subscriber must not stop its own delivery loop
+                    } finally {
+                        frame.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Frames handed to the subscriber. */
+        public long getDeliveredCount() {
+            return mailbox.getDelivered();
+        }
+
+        /** Frames replaced before the subscriber could take them (subscriber too slow). */
+        public long getDroppedCount() {
+            return mailbox.getDropped();
+        }
+
+        /** Unsubscribes and stops the dispatch thread. */
+        @Override
+        public void close() {
+            mailboxes.remove(mailbox);
+            mailbox.close();
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Copy-on-read {@link IFrameSource} for a {@link VideoPanel}.
+     */
+    private final class View implements IFrameSource {
+
+        private volatile Mailbox mailbox;
+
+        @Override
+        public synchronized boolean open() {
+            if (mailbox == null) {
+                Mailbox m = new Mailbox();
+                mailboxes.add(m);
+                mailbox = m;
+                ensureStarted();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return mailbox != null;
+        }
+
+        @Override
+        public boolean read(Mat frame) {
+            Mailbox m = mailbox;
+            if (m == null) return false;
+            SharedFrame shared;
+            try {
+                shared = m.take(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (shared == null) return false;
+            try {
+                shared.getMat().copyTo(frame);
+                return true;
+            } finally {
+                shared.release();
+            }
+        }
+
+        @Override
+        public synchronized void release() {
+            Mailbox m = mailbox;
+            if (m != null) {
+                mailbox = null;
+                mailboxes.remove(m);
+                m.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+
+package io.github.beatum.video;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for SSD-style {@code DetectionOutput} layers (Caffe/TensorFlow MobileNet-SSD and
+ * similar), whose output is a {@code [1, 1, K, 7]} float blob with one row per detection:
+ *
+ * <pre>
+ * [image_id, class_id, confidence, left, top, right, bottom]   (box normalized 0..1)
+ * </pre>
+ *
+ * <p>{@code image_id} is the index of the image in the batch, which is what lets one batched
+ * forward pass be split back into per-camera results.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class SsdDetectionDecoder implements IDetectionDecoder {
+
+    /** Values per detection row. */
+    private static final int ROW = 7;
+
+    private final float confidenceThreshold;
+    private final String[] labels;
+
+    /** Reused copy of the output rows. */
+    private float[] rows = new float[0];
+
+    /**
+     * @param confidenceThreshold minimum confidence to keep a detection
+     */
+    public SsdDetectionDecoder(float confidenceThreshold) {
+        this(confidenceThreshold, null);
+    }
+
+    /**
+     * @param confidenceThreshold minimum confidence to keep a detection
+     * @param labels class names indexed by class id (may be null)
+     */
+    public SsdDetectionDecoder(float confidenceThreshold, String[] labels) {
+        this.confidenceThreshold = confidenceThreshold;
+        this.labels = labels == null ? null : labels.clone();
+    }
+
+    @Override
+    public List<List<Detection>> decode(Mat output, int batchSize) {
+        List<List<Detection>> result = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            result.add(new ArrayList<>());
+        }
+        if (output.empty() || output.depth() != CvType.CV_32F || output.total() % ROW != 0) {
+            return result;
+        }
+
+        int values = (int) output.total();
+        if (rows.length < values) {
+            rows = new float[values];
+        }
+        // Continuous 4-D blob: view it as a single row to read it with one call
+        Mat flat = output.reshape(1, 1);
+        try {
+            flat.get(0, 0, rows);
+        } finally {
+            flat.release();
+        }
+
+        for (int off = 0; off < values; off += ROW) {
+            int image = (int) rows[off];
+            float confidence = rows[off + 2];
+            // image_id -1 terminates the list on some backends; padding rows have confidence 0
+            if (image < 0) break;
+            if (image >= batchSize || confidence < confidenceThreshold) continue;
+
+            int classId = (int) rows[off + 1];
+            String label = (labels != null && classId >= 0 && classId < labels.length) ? labels[classId] : null;
+            result.get(image).add(new Detection(classId, label, confidence,
+                    rows[off + 3], rows[off + 4], rows[off + 5], rows[off + 6]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.beatum.video;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+
+/**
+ * Camera-less {@link IFrameSource} producing paced, stamped BGR frames.
+ *
+ * <p>Every frame carries its sequence number as a {@link FrameStamp}, and the source remembers
+ * when each frame was produced, so any later stage (paint, snapshot, ...) can measure how old the
+ * frame it sees is. Useful for headless latency and soak testing.</p>
+ *
+ * <p>Threading: {@link #read(Mat)} is called by one capture thread;
+ * {@link #captureTimeNanos(int)} may be called from any thread.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class SyntheticFrameSource implements IFrameSource {
+
+    /** Number of remembered capture timestamps (power of two). */
+    private static final int HISTORY = 4096;
+
+    private final int width;
+    private final int height;
+
+    /** Interval between frames in nanoseconds (0 = as fast as possible). */
+    private final long frameIntervalNanos;
+
+    /** Capture timestamps indexed by sequence number modulo {@link #HISTORY}. */
+    private final long[] captureTimes = new long[HISTORY];
+
+    /** Sequence numbers matching {@link #captureTimes} (detects overwritten slots). */
+    private final int[] captureSequences = new int[HISTORY];
+
+    private volatile boolean opened;
+
+    /** Next sequence number to emit (written by the capture thread only). */
+    private volatile int sequence;
+
+    /** When the next frame is due (System.nanoTime). */
+    private long nextFrameNanos;
+
+    /**
+     * Creates a synthetic source.
+     *
+     * @param width frame width (>= {@value FrameStamp#BARS})
+     * @param height frame height
+     * @param fps frame rate (<= 0 = unpaced)
+     */
+    public SyntheticFrameSource(int width, int height, double fps) {
+        this.width = Math.max(FrameStamp.BARS, width);
+        this.height = Math.max(16, height);
+        this.frameIntervalNanos = fps > 0 ? (long) (1_000_000_000L / fps) : 0;
+        Arrays.fill(captureSequences, -1);
+    }
+
+    @Override
+    public boolean open() {
+        if (!opened) {
+            nextFrameNanos = System.nanoTime();
+            opened = true;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return opened;
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        if (!opened) return false;
+
+        // Pace like a real camera: block until the next frame is due
+        if (frameIntervalNanos > 0) {
+            long wait = nextFrameNanos - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            nextFrameNanos = Math.max(nextFrameNanos + frameIntervalNanos, System.nanoTime() - frameIntervalNanos);
+        }
+
+        if (frame.rows() != height || frame.cols() != width || frame.type() != CvType.CV_8UC3) {
+            frame.create(height, width, CvType.CV_8UC3);
+        }
+
+        int seq = sequence;
+        sequence = (sequence + 1) & FrameStamp.MAX_SEQUENCE;
+
+        // Moving content so change detection and codecs see realistic frames
+        frame.setTo(new Scalar(seq * 3 % 256, seq * 5 % 256, seq * 7 % 256));
+        int x = (int) ((seq * 8L) % width);
+        Imgproc.rectangle(frame, new Point(x, height / 4.0), new Point(x + width / 8.0, height * 3 / 4.0),
+                new Scalar(255, 255, 255), -1);
+        FrameStamp.encode(frame, seq);
+
+        int slot = seq & (HISTORY - 1);
+        synchronized (captureTimes) {
+            captureTimes[slot] = System.nanoTime();
+            captureSequences[slot] = seq;
+        }
+        return true;
+    }
+
+    /**
+     * Returns when the frame with the given sequence number was produced.
+     *
+     * @param sequence sequence number decoded from a {@link FrameStamp}
+     * @return System.nanoTime at capture, or -1 if unknown or too old
+     */
+    public long captureTimeNanos(int sequence) {
+        if (sequence < 0) return -1;
+        int slot = sequence & (HISTORY - 1);
+        synchronized (captureTimes) {
+            return captureSequences[slot] == sequence ? captureTimes[slot] : -1;
+        }
+    }
+
+    /** Number of frames produced so far. */
+    public int getFrameCount() {
+        return sequence;
+    }
+
+    @Override
+    public void release() {
+        opened = false;
+    }
+}
@@ -0,0 +1,232 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Runs a tile-safe {@link IProcessCapture} on horizontal stripes of the frame in parallel, so one
+ * heavy filter on a large camera can use all cores instead of one.
+ *
+ * <pre>
+ * // Lambda: declare the halo (here the 15x15 kernel radius) explicitly
+ * viewer.setImageProcessingFilter(new TiledFilter(mat -&gt; {
+ *     Mat out = new Mat();
+ *     Imgproc.GaussianBlur(mat, out, new Size(15, 15), 0);
+ *     return out;
+ * }, 7));
+ * </pre>
+ *
+ * <h2>Execution</h2>
+ * <ul>
+ *   <li>The frame is cut into one stripe per pool thread (at least {@link #getMinStripeRows()}
+ *       rows each). Each stripe is copied, extended by the halo rows above and below, into its own
+ *       reused buffer, so the filter sees the same neighbours as on the whole frame and may work in
+ *       place. (A view would save the copy, but OpenCV runs some filters, e.g. GaussianBlur, through
+ *       different code paths on views, which differ from the full-frame result by rounding.)</li>
+ *   <li>Stripes run on a fork-join pool shared by all panels (one thread per core by default), so
+ *       many tiled cameras never use more threads than there are cores. The capture thread runs
+ *       one stripe itself.</li>
+ *   <li>The halo-free part of every stripe result is copied into one reused output Mat, which is
+ *       returned. The result equals the sequential run for filters that keep the
+ *       {@link IProcessCapture#isTileSafe()} contract.</li>
+ *   <li>Filters that are not tile-safe, small frames and a single-thread pool run sequentially.
+ *       A filter that returns a differently sized stripe is run sequentially from then on.</li>
+ * </ul>
+ *
+ * <p>An instance owns its output buffer and belongs to one capture thread (one per panel); the
+ * wrapped filter may be shared.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class TiledFilter implements IProcessCapture, AutoCloseable {
+
+    /** Pool shared by all tiled filters (daemon threads, one per core). */
+    private static final ForkJoinPool SHARED_POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("TiledFilter-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, false);
+
+    private final IProcessCapture filter;
+    private final int halo;
+    private final ForkJoinPool pool;
+
+    /** Reused output (stripes write their rows into it). */
+    private final Mat output = new Mat();
+
+    /** Reused input of each stripe (its rows plus halo). */
+    private Mat[] stripeInputs = new Mat[0];
+
+    private volatile int minStripeRows = 64;
+
+    /** Cleared when the filter breaks the tile-safe contract. */
+    private volatile boolean tiling;
+
+    /**
+     * Tiles a filter that declares itself tile-safe ({@link IProcessCapture#isTileSafe()});
+     * any other filter runs sequentially.
+     *
+     * @param filter filter to run
+     */
+    public TiledFilter(IProcessCapture filter) {
+        this(filter, filter.isTileSafe() ? filter.getTileHalo() : -1, SHARED_POOL);
+    }
+
+    /**
+     * Tiles a filter (e.g. a lambda) whose tile safety the caller vouches for.
+     *
+     * @param filter filter keeping the {@link IProcessCapture#isTileSafe()} contract
+     * @param halo rows above and below a stripe the filter reads (kernel radius; 0 for per-pixel filters)
+     */
+    public TiledFilter(IProcessCapture filter, int halo) {
+        this(filter, halo, SHARED_POOL);
+    }
+
+    /**
+     * @param filter filter keeping the {@link IProcessCapture#isTileSafe()} contract
+     * @param halo halo rows, or -1 to run sequentially
+     * @param pool pool the stripes run on
+     */
+    public TiledFilter(IProcessCapture filter, int halo, ForkJoinPool pool) {
+        this.filter = filter;
+        this.halo = halo;
+        this.pool = pool;
+        this.tiling = halo >= 0;
+    }
+
+    /** Pool used by tiled filters unless another one is given. */
+    public static ForkJoinPool getSharedPool() {
+        return SHARED_POOL;
+    }
+
+    public IProcessCapture getFilter() {
+        return filter;
+    }
+
+    public int getMinStripeRows() {
+        return minStripeRows;
+    }
+
+    /** Smallest stripe height worth a task (default 64 rows). */
+    public void setMinStripeRows(int minStripeRows) {
+        this.minStripeRows = Math.max(1, minStripeRows);
+    }
+
+    /** Whether frames are currently split (false for non-tile-safe filters). */
+    public boolean isTiling() {
+        return tiling;
+    }
+
+    @Override
+    public boolean isTileSafe() {
+        return tiling;
+    }
+
+    @Override
+    public int getTileHalo() {
+        return Math.max(0, halo);
+    }
+
+    @Override
+    public Mat process(Mat frame) {
+        int rows = frame.rows();
+        int stripes = tiling ? Math.min(pool.getParallelism(), rows / minStripeRows) : 1;
+        if (stripes <= 1) {
+            return filter.process(frame);
+        }
+
+        if (stripeInputs.length < stripes) {
+            Mat[] grown = Arrays.copyOf(stripeInputs, stripes);
+            for (int i = stripeInputs.length; i < stripes; i++) {
+                grown[i] = new Mat();
+            }
+            stripeInputs = grown;
+        }
+
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[stripes - 1];
+        boolean[] sizeMismatch = new boolean[1];
+        for (int i = 1; i < stripes; i++) {
+            int stripe = i;
+            tasks[i - 1] = pool.submit(() -> runStripe(frame, stripe, stripes, sizeMismatch));
+        }
+        RuntimeException failure = null;
+        try {
+            runStripe(frame, 0, stripes, sizeMismatch);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+
+        if (sizeMismatch[0]) {
+            // Not tile-safe after all: never split again
+            tiling = false;
+            return filter.process(frame);
+        }
+        return output;
+    }
+
+    /**
+     * Filters one stripe (plus halo) and copies its own rows into {@link #output}.
+     */
+    private void runStripe(Mat frame, int stripe, int stripes, boolean[] sizeMismatch) {
+        int rows = frame.rows();
+        int y0 = (int) ((long) rows * stripe / stripes);
+        int y1 = (int) ((long) rows * (stripe + 1) / stripes);
+        int top = Math.max(0, y0 - halo);
+        int bottom = Math.min(rows, y1 + halo);
+
+        Mat view = frame.submat(top, bottom, 0, frame.cols());
+        Mat input = stripeInputs[stripe];
+        view.copyTo(input);
+        view.release();
+        Mat result = null;
+        try {
+            result = filter.process(input);
+            if (result == null || result.rows() != bottom - top || result.cols() != frame.cols()) {
+                sizeMismatch[0] = true;
+                return;
+            }
+            synchronized (output) {
+                // Every stripe yields the same size and type, so only the first one reallocates
+                if (output.rows() != rows || output.cols() != frame.cols() || output.type() != result.type()) {
+                    output.create(rows, frame.cols(), result.type());
+                }
+            }
+            Mat own = result.submat(y0 - top, y1 - top, 0, result.cols());
+            Mat target = output.submat(y0, y1, 0, output.cols());
+            own.copyTo(target);
+            own.release();
+            target.release();
+        } finally {
+            if (result != null && result != input) {
+                result.release();
+            }
+        }
+    }
+
+    /** Releases the output and stripe buffers. */
+    @Override
+    public void close() {
+        output.release();
+        for (Mat input : stripeInputs) {
+            input.release();
+        }
+    }
+}
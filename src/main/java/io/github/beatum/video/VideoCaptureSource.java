@@ -0,0 +1,72 @@
+package io.github.beatum.video;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+
+/**
+ * {@link IFrameSource} backed by an OpenCV {@link VideoCapture} device.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class VideoCaptureSource implements IFrameSource {
+
+    /** Wrapped capture (may already be opened, e.g. by a probe). */
+    private final VideoCapture videoCapture;
+
+    /** Device index passed to {@link VideoCapture#open(int, int)}. */
+    private final int deviceIndex;
+
+    /** OpenCV API backend preference (e.g. CAP_DSHOW, CAP_MSMF, CAP_ANY). */
+    private final int apiPreference;
+
+    /**
+     * @param videoCapture capture instance (can be unopened initially)
+     * @param deviceIndex device index used to open it
+     * @param apiPreference backend preference (0 = CAP_ANY)
+     * @throws IllegalArgumentException if videoCapture is null
+     */
+    public VideoCaptureSource(VideoCapture videoCapture, int deviceIndex, int apiPreference) {
+        if (videoCapture == null) {
+            throw new IllegalArgumentException("VideoCaptureSource requires a VideoCapture");
+        }
+        this.videoCapture = videoCapture;
+        this.deviceIndex = deviceIndex;
+        this.apiPreference = apiPreference;
+    }
+
+    public VideoCapture getVideoCapture() {
+        return videoCapture;
+    }
+
+    public int getDeviceIndex() {
+        return deviceIndex;
+    }
+
+    public int getApiPreference() {
+        return apiPreference;
+    }
+
+    @Override
+    public boolean open() {
+        return videoCapture.isOpened() || videoCapture.open(deviceIndex, apiPreference);
+    }
+
+    @Override
+    public boolean isOpened() {
+        return videoCapture.isOpened();
+    }
+
+    @Override
+    public boolean read(Mat frame) {
+        return videoCapture.read(frame);
+    }
+
+    @Override
+    public void release() {
+        if (videoCapture.isOpened()) {
+            videoCapture.release();
+        }
+    }
+}
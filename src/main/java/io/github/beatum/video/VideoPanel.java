@@ -1,22 +1,34 @@
 
 package io.github.beatum.video;
 
+import io.github.beatum.utils.MatTracker;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.Size;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Rect;
 import org.opencv.imgcodecs.Imgcodecs;
-import org.opencv.imgproc.Imgproc;
 import org.opencv.videoio.VideoCapture;
 import org.opencv.videoio.Videoio;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * A Swing {@link JPanel} that continuously grabs frames from an OpenCV {@link VideoCapture}
- * and renders them on-screen.
+ * (or any other {@link IFrameSource}) and renders them on-screen.
  *
  * <h2>Key Features</h2>
  * <ul>
@@ -24,11 +36,14 @@ import java.nio.file.Path;
  *   <li>Paints on Swing EDT, uses double-buffering to reduce flicker</li>
  *   <li>Supports an optional frame processing filter ({@link IProcessCapture})</li>
  *   <li>Provides thread-safe snapshot APIs (for saving images without touching VideoCapture)</li>
+ *   <li>Optional region of interest: only that part of the frame is filtered and snapshotted,
+ *       and it can be shown digitally zoomed</li>
+ *   <li>Overlays ({@link Overlay}) drawn at display resolution, optionally burned into snapshots</li>
  * </ul>
  *
  * <h2>Threading Model</h2>
  * <ul>
- *   <li>Only the capture thread calls {@link VideoCapture#read(Mat)}.</li>
+ *   <li>Only the capture thread calls {@link IFrameSource#read(Mat)}.</li>
  *   <li>The EDT calls {@link #paintComponent(Graphics)}.</li>
  *   <li>Snapshots clone the last captured frame under a lock.</li>
  * </ul>
@@ -42,9 +57,15 @@ import java.nio.file.Path;
  */
 public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
 
+    /** Overlay name {@link #setDetections(List)} draws into. */
+    public static final String DETECTIONS_OVERLAY = "detections";
+
     // -------------------- Capture configuration --------------------
 
-    /** OpenCV capture object (camera/stream). */
+    /** Frame source read by the capture thread. */
+    private final IFrameSource frameSource;
+
+    /** OpenCV capture object (camera/stream); null for non-camera sources. */
     private final VideoCapture videoCapture;
 
     /** Device index for camera capture (0 = default). */
@@ -54,10 +75,10 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
     private final int apiPreference;
 
     /** Requested capture frame width (driver may adjust). */
-    private int frameWidth = 1366;
+    private volatile int frameWidth = 1366;
 
     /** Requested capture frame height (driver may adjust). */
-    private int frameHeight = 768;
+    private volatile int frameHeight = 768;
 
     /**
      * Optional capture loop throttle in milliseconds.
@@ -66,11 +87,61 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      */
     private int captureDelayMs = 0;
 
+    /**
+     * Capture format candidates, tried in order until the driver grants one.
+     * Empty means "request {@link #frameWidth} x {@link #frameHeight} only".
+     */
+    private volatile List<CaptureProfile> captureProfiles = Collections.emptyList();
+
+    /** Format the driver actually granted on the last negotiation (null until negotiated). */
+    private volatile CaptureProfile negotiatedProfile;
+
+    /** Candidate that won the last negotiation (null if none was fully granted). */
+    private volatile CaptureProfile negotiatedCandidate;
+
+    /**
+     * Candidate to try first if it is among the effective candidates (set by {@link DeviceGroup}
+     * from its {@link DeviceCapabilityCache}, so refused candidates are not tried again).
+     */
+    private volatile CaptureProfile preferredCandidate;
+
+    /**
+     * Temporary candidates that replace {@link #captureProfiles} (e.g. thumbnail resolution
+     * while another device is focused). Null = use the configured profiles.
+     */
+    private volatile List<CaptureProfile> captureProfileOverride;
+
+    /**
+     * Set when the effective profile list changes. Renegotiation happens on the capture thread
+     * between two reads while running, otherwise on the next {@link #start()}.
+     */
+    private volatile boolean profileDirty = true;
+
+    // -------------------- Duplicate-frame detection --------------------
+
+    /**
+     * Max difference of any sample (0..255) for a frame to count as a duplicate of the last
+     * processed one. Negative disables detection (default).
+     */
+    private volatile double changeThreshold = -1;
+
+    /** Sampled change detector (capture thread only). */
+    private final FrameChangeDetector changeDetector = new FrameChangeDetector();
+
+    /** Frames that went through filter/display (written by capture thread only). */
+    private volatile long processedFrameCount;
+
+    /** Frames skipped as duplicates (written by capture thread only). */
+    private volatile long skippedFrameCount;
+
     // -------------------- Lifecycle / thread --------------------
 
     /** Background capture thread. */
     private Thread captureThread;
 
+    /** Capture thread that missed stop()'s join (e.g. blocked in a read); releases the source on exit. */
+    private Thread exitingThread;
+
     /** Capture loop flag (safe stop). */
     private volatile boolean running = false;
 
@@ -82,17 +153,103 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
 
     // -------------------- Rendering buffers (reused) --------------------
 
-    /** Latest image to paint (read by EDT). */
-    private volatile BufferedImage imageForDisplay;
+    /** Conversion, resize and BufferedImage reuse for display (shared with playback). */
+    private final DisplayBuffer displayBuffer = new DisplayBuffer();
+
+    /**
+     * Size the capture thread renders at, as assigned by the layout (e.g. {@link CameraWallLayout}).
+     * Null = follow the component size.
+     */
+    private volatile Dimension displaySize;
+
+    /** Latest detections to draw over the image (normalized coordinates, set by any thread). */
+    private volatile List<Detection> detections = Collections.emptyList();
+
+    /** Detections set before the source size was known; the capture thread builds their overlay. */
+    private volatile boolean detectionsPending;
+
+    /** Overlays by name, in drawing order (copy-on-write, replaced under overlayLock). */
+    private volatile Map<String, Overlay> overlays = Collections.emptyMap();
+
+    /** Serializes overlay updates (not the panel monitor: start/stop hold it while joining). */
+    private final Object overlayLock = new Object();
+
+    // -------------------- Region of interest --------------------
+
+    /** Requested region of interest in source pixels (null = whole frame). */
+    private volatile Rect roi;
+
+    /** Whether the display shows only the ROI, scaled to the panel (digital zoom). */
+    private volatile boolean roiZoom = false;
+
+    /** Whether snapshots keep the whole frame instead of the ROI only. */
+    private volatile boolean fullFrameSnapshots = false;
+
+    /** Whether dragging on the panel selects the ROI (right click clears it). */
+    private volatile boolean roiEditable = false;
+
+    /** Set by ROI and filter setters so the next frame is processed even if it is a duplicate. */
+    private volatile boolean regionDirty = false;
+
+    /** ROI as applied to the last frame (clipped; null = whole frame). Written by the capture thread. */
+    private volatile Rect activeRoi;
 
-    /** Mat used for resizing to panel size. */
-    private final Mat resizedMat = new Mat();
+    /** Region of the source the display image shows (null = whole frame). Written by the capture thread. */
+    private volatile Rect viewRegion;
 
-    /** Temporary mat for color conversion if needed (e.g., BGRA->BGR). */
-    private final Mat convertedMat = new Mat();
+    /** Source frame size of the last frame (0 until the first frame). */
+    private volatile int sourceWidth;
+    private volatile int sourceHeight;
 
-    /** Cached raster byte array for BufferedImage (points to internal buffer). */
-    private byte[] imagePixels;
+    /** Cached ROI view of the capture frame (capture thread only). */
+    private Mat roiView;
+
+    /** Data address and size of the frame {@link #roiView} was taken from. */
+    private long roiViewAddr;
+    private int roiViewFrameRows;
+    private int roiViewFrameCols;
+
+    /** Drag selection corners in component coordinates (EDT only; null = not dragging). */
+    private Point dragStart;
+    private Point dragEnd;
+
+    /** Selects the ROI by dragging (checks {@link #roiEditable}). */
+    private final MouseAdapter roiDragHandler = new MouseAdapter() {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            if (!roiEditable || !SwingUtilities.isLeftMouseButton(e)) return;
+            dragStart = e.getPoint();
+            dragEnd = null;
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (dragStart == null) return;
+            dragEnd = e.getPoint();
+            repaint();
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            Point start = dragStart;
+            Point end = dragEnd;
+            dragStart = null;
+            dragEnd = null;
+            if (start == null || end == null) return;
+            repaint();
+            Rect view = currentView();
+            // Ignore tiny drags (clicks with a shaky hand)
+            if (view == null || Math.abs(end.x - start.x) < 4 || Math.abs(end.y - start.y) < 4) return;
+            setRoi(RegionOfInterest.toSource(start.x, start.y, end.x, end.y, view, getWidth(), getHeight()));
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (roiEditable && SwingUtilities.isRightMouseButton(e)) {
+                clearRoi();
+            }
+        }
+    };
 
     // -------------------- Snapshot buffers --------------------
 
@@ -105,6 +262,12 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      */
     private final Mat lastFrame = new Mat();
 
+    /** Sequence of {@link #lastFrame} (guarded by frameLock), tags snapshot events. */
+    private long lastFrameSequence = -1;
+
+    /** Region of the source {@link #lastFrame} covers (null = whole frame). */
+    private volatile Rect lastFrameRegion;
+
     // -------------------- Constructors --------------------
 
     /** Disable no-arg constructor. */
@@ -118,26 +281,56 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      * @param videoCapture capture instance (can be unopened initially)
      * @param apiPreference backend preference (0 = CAP_ANY)
      * @param deviceIndex device index (0..n)
+     * @throws IllegalArgumentException if videoCapture is null
      */
     public VideoPanel(VideoCapture videoCapture, int apiPreference, int deviceIndex) {
-        this.videoCapture = videoCapture;
-        this.apiPreference = apiPreference;
+        this(new VideoCaptureSource(videoCapture, deviceIndex, apiPreference), deviceIndex);
+    }
+
+    /**
+     * Creates a panel that displays frames from an arbitrary {@link IFrameSource}.
+     * Capture profiles only apply to {@link VideoCaptureSource}s.
+     *
+     * @param frameSource frame source (can be unopened initially)
+     * @param deviceIndex device index used for naming and grouping
+     * @throws IllegalArgumentException if frameSource is null
+     */
+    public VideoPanel(IFrameSource frameSource, int deviceIndex) {
+        if (frameSource == null) {
+            throw new IllegalArgumentException("VideoPanel requires a frame source");
+        }
+        this.frameSource = frameSource;
         this.deviceIndex = deviceIndex;
+        if (frameSource instanceof VideoCaptureSource) {
+            VideoCaptureSource source = (VideoCaptureSource) frameSource;
+            this.videoCapture = source.getVideoCapture();
+            this.apiPreference = source.getApiPreference();
+        } else {
+            this.videoCapture = null;
+            this.apiPreference = Videoio.CAP_ANY;
+        }
+        MatTracker.trackBuffer(lastFrame, "VideoPanel.lastFrame", deviceIndex);
+        displayBuffer.track("VideoPanel", deviceIndex);
 
         setLayout(new GridLayout(1, 1));
         setDoubleBuffered(true);
         setOpaque(true);
         setBackground(Color.BLACK);
+        addMouseListener(roiDragHandler);
+        addMouseMotionListener(roiDragHandler);
     }
 
     // -------------------- Public API --------------------
 
     /**
      * Starts the capture thread if not already running.
-     * Safe to call multiple times.
+     * Safe to call multiple times. Does nothing while the capture thread of the previous run is
+     * still exiting (see {@link #stop()}), so two threads never read the source.
      */
     public synchronized void start() {
         if (running) return;
+        if (exitingThread != null && exitingThread.isAlive()) return;
+        exitingThread = null;
 
         openCaptureIfNeeded();
 
@@ -147,27 +340,54 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
         captureThread.start();
     }
 
+    /** Whether the frame source is open (e.g. a camera that could be opened by {@link #start()}). */
+    boolean isSourceOpen() {
+        return frameSource != null && frameSource.isOpened();
+    }
+
     /**
      * Stops capture thread safely and releases the capture device.
      * Safe to call multiple times.
+     *
+     * <p>The capture thread releases the device itself as it exits. If it is blocked in a driver
+     * read, this method gives up waiting after 800 ms and the device is released once the read
+     * returns, never while it is in progress.</p>
      */
     public synchronized void stop() {
         running = false;
 
-        if (captureThread != null) {
-            captureThread.interrupt();
-            try {
-                captureThread.join(800);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                captureThread = null;
+        Thread thread = captureThread;
+        captureThread = null;
+        if (thread == null) {
+            // Not capturing (e.g. opened by a probe only): nothing else uses the source
+            if (frameSource != null) {
+                frameSource.release();
             }
+            return;
+        }
+
+        thread.interrupt();
+        try {
+            thread.join(800);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        if (thread.isAlive()) {
+            exitingThread = thread;
+        }
+    }
 
-        // Release capture
-        if (videoCapture != null && videoCapture.isOpened()) {
-            videoCapture.release();
+    /**
+     * Waits until the capture thread stopped by {@link #stop()} has exited and released the
+     * device (which may take as long as a blocked driver call).
+     */
+    void awaitCaptureExit() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = exitingThread;
+        }
+        if (thread != null) {
+            thread.join();
         }
     }
 
@@ -179,11 +399,9 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
     public void close() {
         stop();
         // Release Mats
+        displayBuffer.release();
         try {
-            resizedMat.release();
-        } catch (Exception ignored) {}
-        try {
-            convertedMat.release();
+            changeDetector.release();
         } catch (Exception ignored) {}
         try {
             synchronized (frameLock) {
@@ -200,28 +418,104 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      */
     public void setImageProcessingFilter(IProcessCapture filter) {
         this.imageProcessingFilter = filter;
+        this.regionDirty = true;
     }
 
     public IProcessCapture getImageProcessingFilter() {
         return imageProcessingFilter;
     }
 
+    /**
+     * @return the OpenCV capture, or null if this panel is fed by a non-camera source
+     */
     public VideoCapture getVideoCapture() {
         return videoCapture;
     }
 
+    public IFrameSource getFrameSource() {
+        return frameSource;
+    }
+
+    public int getDeviceIndex() {
+        return deviceIndex;
+    }
+
+    public List<CaptureProfile> getCaptureProfiles() {
+        return captureProfiles;
+    }
+
+    /**
+     * Sets capture format candidates. The first candidate the driver fully grants wins;
+     * if none does, the device keeps whatever it settled on for the last candidate.
+     * While running, the capture thread renegotiates between two frames; otherwise
+     * negotiation happens on the next {@link #start()}.
+     *
+     * @param profiles candidates (null or empty = request frameWidth x frameHeight only)
+     */
+    public void setCaptureProfiles(List<CaptureProfile> profiles) {
+        this.captureProfiles = (profiles == null || profiles.isEmpty())
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(profiles));
+        this.profileDirty = true;
+    }
+
+    public List<CaptureProfile> getCaptureProfileOverride() {
+        return captureProfileOverride;
+    }
+
+    /**
+     * Temporarily replaces the configured capture profiles without forgetting them
+     * (used by {@link DeviceGroup} focus mode to drop unfocused devices to thumbnail size).
+     * Does not block: the capture thread renegotiates between two frames, and the last
+     * displayed image stays on screen until frames at the new resolution arrive.
+     *
+     * @param profiles override candidates, or null to return to {@link #getCaptureProfiles()}
+     */
+    public void setCaptureProfileOverride(List<CaptureProfile> profiles) {
+        List<CaptureProfile> override = (profiles == null || profiles.isEmpty())
+                ? null
+                : Collections.unmodifiableList(new ArrayList<>(profiles));
+        if (override == null && captureProfileOverride == null) return;
+        if (override != null && override.equals(captureProfileOverride)) return;
+        this.captureProfileOverride = override;
+        this.profileDirty = true;
+    }
+
+    /**
+     * Returns the format the driver granted during the last negotiation.
+     *
+     * @return granted profile, or null if the device has not been started yet
+     */
+    public CaptureProfile getNegotiatedProfile() {
+        return negotiatedProfile;
+    }
+
+    /** Candidate that won the last negotiation, or null. */
+    CaptureProfile getNegotiatedCandidate() {
+        return negotiatedCandidate;
+    }
+
+    /**
+     * Makes negotiation try one candidate first (ignored unless it is one of the effective
+     * candidates).
+     *
+     * @param candidate candidate known to be granted, or null
+     */
+    void setPreferredCandidate(CaptureProfile candidate) {
+        this.preferredCandidate = candidate;
+    }
+
     public int getFrameWidth() {
         return frameWidth;
     }
 
     /**
-     * Requests new capture frame width. If device is opened, applies immediately.
+     * Requests new capture frame width (used when no capture profiles are configured).
+     * While running, the capture thread applies it between two frames; otherwise on next start.
      */
     public void setFrameWidth(int frameWidth) {
         this.frameWidth = frameWidth;
-        if (videoCapture != null && videoCapture.isOpened()) {
-            videoCapture.set(Videoio.CAP_PROP_FRAME_WIDTH, frameWidth);
-        }
+        this.profileDirty = true;
     }
 
     public int getFrameHeight() {
@@ -229,13 +523,74 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
     }
 
     /**
-     * Requests new capture frame height. If device is opened, applies immediately.
+     * Requests new capture frame height (used when no capture profiles are configured).
+     * While running, the capture thread applies it between two frames; otherwise on next start.
      */
     public void setFrameHeight(int frameHeight) {
         this.frameHeight = frameHeight;
-        if (videoCapture != null && videoCapture.isOpened()) {
-            videoCapture.set(Videoio.CAP_PROP_FRAME_HEIGHT, frameHeight);
-        }
+        this.profileDirty = true;
+    }
+
+    public double getChangeThreshold() {
+        return changeThreshold;
+    }
+
+    /**
+     * Enables duplicate-frame skipping. A frame none of whose sampled pixels differs from the
+     * last processed frame by more than {@code threshold} (per sample, 0..255) skips filtering,
+     * snapshot copy, conversion, resize and repaint. One strongly changed sample is enough, so
+     * small moving objects are not averaged away.
+     *
+     * @param threshold 0 = skip only identical samples, e.g. 10-20 to absorb sensor noise;
+     *                  negative = disabled
+     */
+    public void setChangeThreshold(double threshold) {
+        this.changeThreshold = threshold;
+    }
+
+    /** Number of frames processed and displayed since construction. */
+    public long getProcessedFrameCount() {
+        return processedFrameCount;
+    }
+
+    /** Number of frames skipped as duplicates since construction. */
+    public long getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * Sets the size frames are rendered at on the capture thread.
+     * Layouts call this once a cell size is settled, so that live window resizing only
+     * rescales the last image in {@link #paintComponent(Graphics)} instead of reallocating
+     * display buffers for every intermediate size.
+     *
+     * @param width display width (0 = not on screen, display work is skipped)
+     * @param height display height (0 = not on screen, display work is skipped)
+     */
+    public void setDisplaySize(int width, int height) {
+        this.displaySize = new Dimension(Math.max(0, width), Math.max(0, height));
+    }
+
+    /** Clears the assigned display size; frames follow the component size again. */
+    public void clearDisplaySize() {
+        this.displaySize = null;
+    }
+
+    /** Whether a display size has been assigned (see {@link #setDisplaySize(int, int)}). */
+    boolean hasDisplaySize() {
+        return displaySize != null;
+    }
+
+    /** Width frames are rendered at (assigned display size, else component width). */
+    public int getDisplayWidth() {
+        Dimension d = displaySize;
+        return d != null ? d.width : getWidth();
+    }
+
+    /** Height frames are rendered at (assigned display size, else component height). */
+    public int getDisplayHeight() {
+        Dimension d = displaySize;
+        return d != null ? d.height : getHeight();
     }
 
     public int getCaptureDelayMs() {
@@ -250,17 +605,118 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
         this.captureDelayMs = Math.max(0, captureDelayMs);
     }
 
+    // -------------------- Region of interest --------------------
+
+    /** Requested region of interest in source pixels, or null for the whole frame. */
+    public Rect getRoi() {
+        Rect r = roi;
+        return r == null ? null : r.clone();
+    }
+
+    /**
+     * Restricts per-frame work to a region of the source frame. The filter sees a view of that
+     * region only (no copy), snapshots hold only that region (see {@link #setFullFrameSnapshots}),
+     * and with {@link #setRoiZoom zoom} only that region is resized for display, so the cost of
+     * those stages drops with the region's area.
+     *
+     * <p>The region is clipped to each frame; one that ends up empty or covering the whole frame
+     * means "whole frame". The filter output is pasted back into the frame when the full frame is
+     * displayed or snapshotted; a filter that changes size or type is then visible in zoom and
+     * ROI snapshots only.</p>
+     *
+     * @param roi region in source pixels, or null for the whole frame
+     */
+    public void setRoi(Rect roi) {
+        this.roi = (roi == null || roi.width <= 0 || roi.height <= 0) ? null : roi.clone();
+        this.regionDirty = true;
+        SwingUtilities.invokeLater(this::repaint);
+    }
+
+    /** Same as {@code setRoi(null)}. */
+    public void clearRoi() {
+        setRoi(null);
+    }
+
+    /** ROI applied to the last frame (clipped to it), or null if the whole frame is used. */
+    public Rect getActiveRoi() {
+        Rect r = activeRoi;
+        return r == null ? null : r.clone();
+    }
+
+    public boolean isRoiZoom() {
+        return roiZoom;
+    }
+
+    /**
+     * Shows only the ROI, scaled to the panel (digital zoom). Otherwise the whole frame is shown
+     * with the ROI outlined.
+     */
+    public void setRoiZoom(boolean roiZoom) {
+        this.roiZoom = roiZoom;
+        this.regionDirty = true;
+    }
+
+    public boolean isFullFrameSnapshots() {
+        return fullFrameSnapshots;
+    }
+
+    /**
+     * Makes snapshots (and {@link #copyLastFrameTo(Mat)}) hold the whole frame, with the filtered
+     * ROI pasted in, instead of the ROI only. Costs a full-frame copy per frame again.
+     */
+    public void setFullFrameSnapshots(boolean fullFrameSnapshots) {
+        this.fullFrameSnapshots = fullFrameSnapshots;
+        this.regionDirty = true;
+    }
+
+    /**
+     * Region of the source that snapshots and {@link #copyLastFrameTo(Mat)} currently return,
+     * in source pixels (null = whole frame). Detections are normalized to this region.
+     */
+    public Rect getSnapshotRegion() {
+        Rect r = lastFrameRegion;
+        return r == null ? null : r.clone();
+    }
+
+    public boolean isRoiEditable() {
+        return roiEditable;
+    }
+
+    /**
+     * Lets the user select the ROI by dragging a rectangle on the panel (within the zoomed view
+     * when zoomed); a right click returns to the whole frame.
+     */
+    public void setRoiEditable(boolean roiEditable) {
+        this.roiEditable = roiEditable;
+        if (!roiEditable) {
+            dragStart = null;
+            dragEnd = null;
+        }
+    }
+
     // -------------------- Snapshot APIs --------------------
 
     /**
-     * Returns a clone of the latest captured/processed frame (not resized).
+     * Returns a clone of the latest captured/processed frame (not resized; only the ROI if one
+     * is set, see {@link #getSnapshotRegion()}).
      * <p>Caller owns the returned Mat and must {@link Mat#release()} it when done.</p>
      *
      * @return cloned snapshot Mat; may be empty if no frames yet
      */
     public Mat snapshotFrame() {
+        return snapshotFrame(null);
+    }
+
+    /**
+     * Like {@link #snapshotFrame()}, also returning the frame's sequence number (for tracing).
+     *
+     * @param sequence receives the sequence in element 0 (-1 if no frame yet); may be null
+     */
+    Mat snapshotFrame(long[] sequence) {
         synchronized (frameLock) {
-            return lastFrame.empty() ? new Mat() : lastFrame.clone();
+            if (sequence != null) sequence[0] = lastFrameSequence;
+            Mat snapshot = lastFrame.empty() ? new Mat() : lastFrame.clone();
+            return MatTracker.track(snapshot, "VideoPanel.snapshotFrame", deviceIndex);
         }
     }
 
@@ -271,97 +727,337 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      * @return true if saved successfully
      */
     public boolean saveSnapshot(Path file) {
-        Mat snap = snapshotFrame();
+        return writeSnapshot(file, null);
+    }
+
+    /**
+     * Saves a snapshot with explicit encoding options (quality, compression, downscale).
+     * The codec is selected by the file extension.
+     *
+     * @param file file path
+     * @param options encoding options
+     * @return true if saved successfully
+     * @see AsyncSnapshotWriter for high-rate, non-blocking snapshots
+     */
+    public boolean saveSnapshot(Path file, SnapshotOptions options) {
+        return writeSnapshot(file, options);
+    }
+
+    /**
+     * Encodes and writes a snapshot as two traced steps ({@link SnapshotEvent}).
+     *
+     * @param options encoding options, or null for OpenCV's defaults
+     */
+    private boolean writeSnapshot(Path file, SnapshotOptions options) {
+        long[] sequence = new long[1];
+        Consumer<Mat> burnIn = options != null && options.isBurnInOverlays() ? overlayBurnIn() : null;
+        Mat snap = snapshotFrame(sequence);
         try {
             if (snap.empty()) return false;
-            return Imgcodecs.imwrite(file.toString(), snap);
+            if (burnIn != null) burnIn.accept(snap);
+            String extension = SnapshotOptions.extensionOf(file.getFileName().toString());
+
+            SnapshotEvent encodeEvent = new SnapshotEvent();
+            encodeEvent.begin();
+            byte[] encoded = options != null ? options.encode(snap, extension) : encodeDefault(snap, extension);
+            encodeEvent.finish(deviceIndex, sequence[0], SnapshotEvent.ENCODE,
+                    encoded != null ? encoded.length : 0, file);
+            if (encoded == null) return false;
+
+            SnapshotEvent writeEvent = new SnapshotEvent();
+            writeEvent.begin();
+            Files.write(file, encoded);
+            writeEvent.finish(deviceIndex, sequence[0], SnapshotEvent.WRITE, encoded.length, file);
+            return true;
+        } catch (IOException e) {
+            return false;
         } finally {
             snap.release();
         }
     }
 
+    /** Encodes like {@code Imgcodecs.imwrite} with default parameters. */
+    private static byte[] encodeDefault(Mat frame, String extension) {
+        MatOfByte buf = new MatOfByte();
+        try {
+            return Imgcodecs.imencode("." + extension, frame, buf) ? buf.toArray() : null;
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * Copies the latest captured/processed frame into {@code dst} without allocating when
+     * {@code dst} already has the right size and type (unlike {@link #snapshotFrame()}).
+     * Meant for consumers polling every frame, e.g. {@link GroupInference}.
+     *
+     * @param dst destination, reallocated only if its size or type differs
+     * @return false if no frame has been captured yet
+     */
+    public boolean copyLastFrameTo(Mat dst) {
+        synchronized (frameLock) {
+            if (lastFrame.empty()) return false;
+            lastFrame.copyTo(dst);
+            return true;
+        }
+    }
+
+    // -------------------- Detections --------------------
+
+    public List<Detection> getDetections() {
+        return detections;
+    }
+
+    /**
+     * Replaces the detections drawn over the image (as the {@link #DETECTIONS_OVERLAY} overlay,
+     * so they can be burned into snapshots too). Safe to call from any thread; detections set
+     * before the first frame are drawn once it arrives.
+     *
+     * @param detections detections in normalized coordinates of the frame they were found in,
+     *                   i.e. of {@link #getSnapshotRegion()} (null or empty = none)
+     */
+    public void setDetections(List<Detection> detections) {
+        List<Detection> next = (detections == null || detections.isEmpty())
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(detections));
+        synchronized (overlayLock) {
+            if (next.isEmpty() && this.detections.isEmpty()) return;
+            this.detections = next;
+            Overlay overlay = toOverlay(next);
+            detectionsPending = overlay == null && !next.isEmpty();
+            setOverlay(DETECTIONS_OVERLAY, overlay);
+        }
+    }
+
+    /**
+     * Builds the overlay of detections set before the source size was known
+     * (capture thread, once the first frame is stored).
+     */
+    private void applyPendingDetections() {
+        synchronized (overlayLock) {
+            if (!detectionsPending) return;
+            Overlay overlay = toOverlay(detections);
+            if (overlay == null) return;
+            detectionsPending = false;
+            setOverlay(DETECTIONS_OVERLAY, overlay);
+        }
+    }
+
+    /**
+     * Converts detections to boxes in source pixels.
+     *
+     * @return overlay, or null if there are none or no frame has been seen yet
+     */
+    private Overlay toOverlay(List<Detection> list) {
+        Rect region = lastFrameRegion;
+        if (region == null) {
+            int w = sourceWidth;
+            int h = sourceHeight;
+            if (w <= 0 || h <= 0) return null;
+            region = new Rect(0, 0, w, h);
+        }
+        if (list.isEmpty()) return null;
+
+        Overlay.Builder builder = Overlay.builder().color(Color.GREEN);
+        for (Detection d : list) {
+            double x = region.x + d.getLeft() * region.width;
+            double y = region.y + d.getTop() * region.height;
+            builder.rect(x, y, (d.getRight() - d.getLeft()) * region.width, (d.getBottom() - d.getTop()) * region.height);
+            builder.text(d.getLabel() + " " + Math.round(d.getConfidence() * 100) + "%", x, y);
+        }
+        return builder.build();
+    }
+
+    // -------------------- Overlays --------------------
+
+    /**
+     * Sets or replaces a named overlay. Overlays are drawn in the order they were first added,
+     * at display resolution on every repaint, and never touch the frames (unless burned into a
+     * snapshot, see {@link SnapshotOptions#setBurnInOverlays}). Safe to call from any thread and
+     * at any rate; the panel repaints without waiting for the next frame.
+     *
+     * @param name overlay name, e.g. "osd" or "zones"
+     * @param overlay overlay, or null to remove it
+     */
+    public void setOverlay(String name, Overlay overlay) {
+        synchronized (overlayLock) {
+            Map<String, Overlay> current = overlays;
+            if (overlay == null && !current.containsKey(name)) return;
+            Map<String, Overlay> next = new LinkedHashMap<>(current);
+            if (overlay == null) {
+                next.remove(name);
+            } else {
+                next.put(name, overlay);
+            }
+            overlays = Collections.unmodifiableMap(next);
+        }
+        SwingUtilities.invokeLater(this::repaint);
+    }
+
+    /** Overlay set under a name, or null. */
+    public Overlay getOverlay(String name) {
+        return overlays.get(name);
+    }
+
+    /** All overlays by name, in drawing order. */
+    public Map<String, Overlay> getOverlays() {
+        return overlays;
+    }
+
+    /** Removes all overlays (including the detections). */
+    public void clearOverlays() {
+        synchronized (overlayLock) {
+            overlays = Collections.emptyMap();
+            detections = Collections.emptyList();
+            detectionsPending = false;
+        }
+        SwingUtilities.invokeLater(this::repaint);
+    }
+
+    /**
+     * Captures the current overlays for burning into a snapshot of the last frame.
+     * Strokes and fonts are scaled by the source pixels per panel pixel, so the snapshot looks
+     * like the panel.
+     *
+     * @return burn-in step for a snapshot Mat, or null if there are no overlays
+     */
+    Consumer<Mat> overlayBurnIn() {
+        Collection<Overlay> layers = overlays.values();
+        if (layers.isEmpty()) return null;
+        Rect region = lastFrameRegion;
+        Rect view = currentView();
+        int displayWidth = getDisplayWidth();
+        double scale = view != null && displayWidth > 0 ? Math.max(1.0, view.width / (double) displayWidth) : 1.0;
+        return frame -> Overlay.burnIn(frame, layers, region, scale);
+    }
+
     // -------------------- Capture Loop --------------------
 
     @Override
     public void run() {
-        final Mat frame = new Mat();
+        final Mat frame = MatTracker.trackBuffer(new Mat(), "VideoPanel.frame", deviceIndex);
+        changeDetector.reset();
+
+        // Frames read since the thread started; tags the trace events of each frame
+        long sequence = 0;
+
+        // Size of the last rendered image; a resized panel must re-render even duplicates
+        int renderedW = -1;
+        int renderedH = -1;
 
         try {
             while (running && !Thread.currentThread().isInterrupted()) {
 
-                // Read a frame (only this thread should read from VideoCapture)
-                boolean ok = videoCapture.read(frame);
+                // Apply capture format changes between two reads (never concurrently with read)
+                if (profileDirty && videoCapture != null) {
+                    // Cleared first: a change arriving during negotiation triggers another round
+                    profileDirty = false;
+                    negotiatedProfile = negotiateCaptureProfile();
+                    changeDetector.reset();
+                }
+
+                // Read a frame (only this thread should read from the source)
+                FrameStageEvent readEvent = new FrameStageEvent();
+                readEvent.begin();
+                boolean ok = frameSource.read(frame);
+                readEvent.finish(deviceIndex, sequence + 1, FrameStageEvent.READ);
+                // Stopped (or closed) while blocked in the read: do not touch the released buffers
+                if (!running) break;
                 if (!ok || frame.empty()) {
                     sleepQuietly(30);
                     continue;
                 }
+                sequence++;
+
+                // Determine display size once per frame (the layout may change it concurrently)
+                int targetW = getDisplayWidth();
+                int targetH = getDisplayHeight();
+
+                // Work on the ROI only (a cached view, no copy)
+                Mat region = regionOf(frame);
+                boolean cropped = region != frame;
+                boolean forced = regionDirty;
+                regionDirty = false;
+
+                // Skip all downstream work for repeated frames
+                boolean changed = changeDetector.hasChanged(region, changeThreshold);
+                if (!changed && !forced && targetW == renderedW && targetH == renderedH) {
+                    skippedFrameCount++;
+                    if (captureDelayMs > 0) {
+                        sleepQuietly(captureDelayMs);
+                    }
+                    continue;
+                }
 
                 // Apply optional filter
-                Mat processed = frame;
+                Mat processed = region;
+                // Display-ready output of a FrameGraph with display(); only rendered, never stored
+                Mat rendered = null;
                 IProcessCapture filter = this.imageProcessingFilter;
                 if (filter != null) {
+                    FrameStageEvent filterEvent = new FrameStageEvent();
+                    filterEvent.begin();
                     try {
-                        processed = filter.process(frame);
-                        if (processed == null) processed = frame; // safety fallback
+                        processed = filter.process(region);
+                        if (processed == null) processed = region; // safety fallback
+                        if (filter instanceof FrameGraph.Instance) {
+                            Mat full = ((FrameGraph.Instance) filter).getResult();
+                            if (full != null && full != processed) {
+                                rendered = processed;
+                                processed = full;
+                            }
+                        }
+                        // Checked here too: the owner name would otherwise be built on every frame
+                        if (MatTracker.ENABLED && processed != region) {
+                            MatTracker.track(processed, "filter:" + filter.getClass().getName(), deviceIndex);
+                        }
                     } catch (Exception ignored) {
-                        processed = frame; // keep running even if filter fails
+                        processed = region; // keep running even if filter fails
+                        rendered = null;
                     }
+                    filterEvent.finish(deviceIndex, sequence, FrameStageEvent.FILTER);
+                }
+
+                // The whole frame is shown or snapshotted: paste the filtered ROI back into it
+                boolean zoom = roiZoom;
+                boolean fullSnapshots = fullFrameSnapshots;
+                if (cropped && processed != region && (!zoom || fullSnapshots)
+                        && processed.size().equals(region.size()) && processed.type() == region.type()) {
+                    processed.copyTo(region);
                 }
+                Mat snapshotSource = cropped && fullSnapshots ? frame : processed;
+                Mat displaySource = cropped && !zoom ? frame : rendered != null ? rendered : processed;
 
                 // Keep a copy for snapshot (thread-safe).
                 // This stores the "processed" frame (before resizing).
+                FrameStageEvent copyEvent = new FrameStageEvent();
+                copyEvent.begin();
                 synchronized (frameLock) {
-                    processed.copyTo(lastFrame);
+                    snapshotSource.copyTo(lastFrame);
+                    lastFrameSequence = sequence;
+                    lastFrameRegion = cropped && !fullSnapshots ? activeRoi : null;
                 }
-
-                // Determine panel size (avoid getParent(); panel itself knows its size)
-                int w = Math.max(1, getWidth());
-                int h = Math.max(1, getHeight());
-
-                // Convert channels if needed:
-                // - OpenCV commonly uses BGR (3 channels) or BGRA (4 channels)
-                // - BufferedImage supports 1ch gray or 3ch BGR easily
-                Mat toDisplay = processed;
-                int ch = processed.channels();
-
-                if (ch == 4) {
-                    // BGRA -> BGR
-                    Imgproc.cvtColor(processed, convertedMat, Imgproc.COLOR_BGRA2BGR);
-                    toDisplay = convertedMat;
-                    ch = 3;
-                } else if (ch != 1 && ch != 3) {
-                    // Fallback: convert to BGR for unusual formats
-                    try {
-                        Imgproc.cvtColor(processed, convertedMat, Imgproc.COLOR_GRAY2BGR);
-                        toDisplay = convertedMat;
-                        ch = 3;
-                    } catch (Exception ignored) {
-                        // If conversion fails, try to display original anyway
-                        toDisplay = processed;
-                        ch = Math.min(3, Math.max(1, processed.channels()));
-                    }
+                copyEvent.finish(deviceIndex, sequence, FrameStageEvent.SNAPSHOT_COPY);
+                if (detectionsPending) {
+                    applyPendingDetections();
                 }
 
-                // Resize to panel size
-                Imgproc.resize(toDisplay, resizedMat, new Size(w, h));
-
-                // Determine BufferedImage type
-                int imageType = (ch == 1)
-                        ? BufferedImage.TYPE_BYTE_GRAY
-                        : BufferedImage.TYPE_3BYTE_BGR;
-
-                // Ensure image buffer matches size/type (reuse if possible)
-                BufferedImage img = ensureImageBuffer(w, h, imageType);
-
-                // Copy bytes from Mat to BufferedImage raster
-                int required = resizedMat.channels() * resizedMat.cols() * resizedMat.rows();
-                if (imagePixels == null || imagePixels.length < required) {
-                    // Rebuild buffer in rare cases
-                    img = ensureImageBuffer(w, h, imageType);
+                // Not on screen (e.g. another page of a camera wall): snapshots stay live,
+                // display work is skipped
+                renderedW = targetW;
+                renderedH = targetH;
+                if (targetW <= 0 || targetH <= 0) {
+                    processedFrameCount++;
+                    if (captureDelayMs > 0) {
+                        sleepQuietly(captureDelayMs);
+                    }
+                    continue;
                 }
-                resizedMat.get(0, 0, imagePixels);
 
-                imageForDisplay = img;
+                // Resize to display size, convert and copy into the reused BufferedImage
+                displayBuffer.render(displaySource, targetW, targetH, deviceIndex, sequence);
+                viewRegion = cropped && zoom ? activeRoi : null;
+                processedFrameCount++;
 
                 // Repaint safely on EDT
                 SwingUtilities.invokeLater(this::repaint);
@@ -375,6 +1071,11 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
             // In production, log this
         } finally {
             frame.release();
+            releaseRoiView();
+            // Only this thread reads the source, so only it can release it safely
+            if (frameSource != null) {
+                frameSource.release();
+            }
         }
     }
 
@@ -385,52 +1086,180 @@ public class VideoPanel extends JPanel implements Runnable, AutoCloseable {
      */
     @Override
     protected void paintComponent(Graphics g) {
+        FramePaintEvent paintEvent = new FramePaintEvent();
+        paintEvent.begin();
         super.paintComponent(g);
 
-        BufferedImage img = imageForDisplay;
-        if (img != null) {
-            g.drawImage(img, 0, 0, this);
-        } else {
+        // Scales the last image if the display size is not settled yet (e.g. during a window resize)
+        if (!displayBuffer.paint(g, this)) {
             // Optional: draw "No Signal"
             g.setColor(Color.DARK_GRAY);
             g.drawString("No Signal", 10, 20);
         }
+
+        paintRegion(g);
+        paintOverlays(g);
+        paintEvent.finish(deviceIndex, displayBuffer.getImageSequence());
+    }
+
+    /**
+     * Outlines the ROI (unless zoomed into it) and the drag selection in progress.
+     */
+    private void paintRegion(Graphics g) {
+        Rect active = activeRoi;
+        Rect view = currentView();
+        int w = getWidth();
+        int h = getHeight();
+        if (active != null && viewRegion == null && view != null) {
+            int x = RegionOfInterest.toComponentX(active.x, view, w);
+            int y = RegionOfInterest.toComponentY(active.y, view, h);
+            g.setColor(Color.YELLOW);
+            g.drawRect(x, y, RegionOfInterest.toComponentX(active.x + active.width, view, w) - x - 1,
+                    RegionOfInterest.toComponentY(active.y + active.height, view, h) - y - 1);
+        }
+
+        Point start = dragStart;
+        Point end = dragEnd;
+        if (start != null && end != null) {
+            g.setColor(Color.WHITE);
+            g.drawRect(Math.min(start.x, end.x), Math.min(start.y, end.y),
+                    Math.abs(end.x - start.x), Math.abs(end.y - start.y));
+        }
+    }
+
+    /**
+     * Draws the overlays over the region the display shows. Pinned overlays are drawn even
+     * before the first frame.
+     */
+    private void paintOverlays(Graphics g) {
+        Map<String, Overlay> layers = overlays;
+        if (layers.isEmpty()) return;
+
+        Rect view = currentView();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            Overlay.prepare(g2);
+            for (Overlay overlay : layers.values()) {
+                if (view != null || overlay.isPinned()) {
+                    overlay.paint(g2, view, getWidth(), getHeight(), 1.0);
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
     }
 
     // -------------------- Internal helpers --------------------
 
     /**
-     * Opens the capture device if needed and applies width/height requests.
+     * Opens the capture device if needed and negotiates the capture format.
+     * A device that was already opened (e.g. by DeviceGroup's probe) is negotiated too,
+     * otherwise it would keep the driver's defaults.
      */
     private void openCaptureIfNeeded() {
-        if (videoCapture != null && !videoCapture.isOpened()) {
-            videoCapture.open(deviceIndex, apiPreference);
-            videoCapture.set(Videoio.CAP_PROP_FRAME_WIDTH, frameWidth);
-            videoCapture.set(Videoio.CAP_PROP_FRAME_HEIGHT, frameHeight);
+        if (frameSource == null) return;
+
+        boolean opened = frameSource.isOpened();
+        if (!opened) {
+            opened = frameSource.open();
+            profileDirty = true;
+        }
+        if (opened && profileDirty && videoCapture != null) {
+            profileDirty = false;
+            negotiatedProfile = negotiateCaptureProfile();
         }
     }
 
     /**
-     * Ensures a BufferedImage exists with matching size/type; reuses when possible.
-     * Also refreshes the cached pixel array reference.
+     * Tries each capture profile candidate and reads back what the driver granted.
+     *
+     * The preferred candidate, if any, goes first.
+     *
+     * @return the granted profile of the first satisfied candidate, or of the last one tried
      */
-    private BufferedImage ensureImageBuffer(int width, int height, int imageType) {
-        BufferedImage img = imageForDisplay;
+    private CaptureProfile negotiateCaptureProfile() {
+        List<CaptureProfile> candidates = captureProfileOverride;
+        if (candidates == null) {
+            candidates = captureProfiles;
+        }
+        if (candidates.isEmpty()) {
+            candidates = Collections.singletonList(CaptureProfile.ofSize(frameWidth, frameHeight));
+        }
+        CaptureProfile preferred = preferredCandidate;
+        if (preferred != null && candidates.indexOf(preferred) > 0) {
+            candidates = new ArrayList<>(candidates);
+            candidates.remove(preferred);
+            candidates.add(0, preferred);
+        }
+
+        negotiatedCandidate = null;
+        CaptureProfile granted = null;
+        for (CaptureProfile candidate : candidates) {
+            try {
+                candidate.applyTo(videoCapture);
+                granted = CaptureProfile.readFrom(videoCapture);
+            } catch (Exception ignored) {
+                // Some backends throw on unsupported properties; try the next candidate
+                continue;
+            }
+            if (candidate.isSatisfiedBy(granted)) {
+                negotiatedCandidate = candidate;
+                break;
+            }
+        }
+        return granted;
+    }
 
-        boolean mustCreate = (img == null)
-                || img.getWidth() != width
-                || img.getHeight() != height
-                || img.getType() != imageType;
+    /**
+     * Returns the ROI view of a frame, or the frame itself when no ROI applies. The view is a
+     * header over the frame's pixels, recreated only when the ROI, the frame size or the frame's
+     * buffer changes (sources that reuse their frame Mat keep one view for good).
+     */
+    private Mat regionOf(Mat frame) {
+        int cols = frame.cols();
+        int rows = frame.rows();
+        if (sourceWidth != cols) sourceWidth = cols;
+        if (sourceHeight != rows) sourceHeight = rows;
+
+        Rect requested = roi;
+        Rect previous = activeRoi;
+        Rect clipped = requested == null ? null
+                : RegionOfInterest.clip(requested, cols, rows, frame.type() == CvType.CV_8UC2, previous);
+        if (clipped == null) {
+            activeRoi = null;
+            releaseRoiView();
+            return frame;
+        }
+        if (roiView == null || clipped != previous || roiViewAddr != frame.dataAddr()
+                || roiViewFrameRows != rows || roiViewFrameCols != cols) {
+            releaseRoiView();
+            roiView = frame.submat(clipped);
+            roiViewAddr = frame.dataAddr();
+            roiViewFrameRows = rows;
+            roiViewFrameCols = cols;
+        }
+        activeRoi = clipped;
+        return roiView;
+    }
 
-        if (mustCreate) {
-            img = new BufferedImage(width, height, imageType);
-            imagePixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
-            imageForDisplay = img;
-        } else if (imagePixels == null) {
-            imagePixels = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+    private void releaseRoiView() {
+        if (roiView != null) {
+            roiView.release();
+            roiView = null;
         }
+    }
 
-        return img;
+    /**
+     * Region of the source the component shows (the zoomed ROI or the whole frame).
+     *
+     * @return region in source pixels, or null before the first frame
+     */
+    private Rect currentView() {
+        Rect view = viewRegion;
+        if (view != null) return view;
+        int w = sourceWidth;
+        int h = sourceHeight;
+        return w > 0 && h > 0 ? new Rect(0, 0, w, h) : null;
     }
 
     /**
@@ -0,0 +1,41 @@
+package io.github.beatum.video;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event: one {@link VideoPanel} paint on the EDT, tagged with the sequence of
+ * the frame painted (see {@link FrameStageEvent}).
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Name("io.github.beatum.FramePaint")
+@Label("Frame Paint")
+@Category({"ActivityShow", "Display"})
+@Description("VideoPanel paint on the event dispatch thread")
+@StackTrace(false)
+final class FramePaintEvent extends Event {
+
+    @Label("Device")
+    int device;
+
+    @Label("Sequence")
+    @Description("Sequence of the frame painted, -1 if none yet")
+    long sequence;
+
+    /** Ends the event and commits it if a recording wants it. */
+    void finish(int device, long sequence) {
+        end();
+        if (shouldCommit()) {
+            this.device = device;
+            this.sequence = sequence;
+            commit();
+        }
+    }
+}
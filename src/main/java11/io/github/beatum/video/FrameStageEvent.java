@@ -0,0 +1,59 @@
+package io.github.beatum.video;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event: one stage of one frame in the {@link VideoPanel} capture loop.
+ *
+ * <p>Stages: {@value #READ}, {@value #FILTER}, {@value #SNAPSHOT_COPY}, {@value #CONVERT},
+ * {@value #RESIZE} and {@value #RASTER_COPY}. Events of the same frame share device and sequence,
+ * so a recording shows which stage of which frame stalled.</p>
+ *
+ * <p>Usage: {@code event.begin(); ...stage...; event.finish(device, sequence, stage);}. Without a
+ * recording {@link #shouldCommit()} is false and the (escape-analyzed) event costs next to
+ * nothing.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Name("io.github.beatum.FrameStage")
+@Label("Frame Stage")
+@Category({"ActivityShow", "Capture"})
+@Description("One stage of one frame in a VideoPanel capture loop")
+@StackTrace(false)
+final class FrameStageEvent extends Event {
+
+    static final String READ = "read";
+    static final String FILTER = "filter";
+    static final String SNAPSHOT_COPY = "snapshot copy";
+    static final String CONVERT = "convert";
+    static final String RESIZE = "resize";
+    static final String RASTER_COPY = "raster copy";
+
+    @Label("Device")
+    int device;
+
+    @Label("Sequence")
+    @Description("Frame number since the capture thread started")
+    long sequence;
+
+    @Label("Stage")
+    String stage;
+
+    /** Ends the event and commits it if a recording wants it. */
+    void finish(int device, long sequence, String stage) {
+        end();
+        if (shouldCommit()) {
+            this.device = device;
+            this.sequence = sequence;
+            this.stage = stage;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.beatum.video;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event: encoding ({@value #ENCODE}) or writing ({@value #WRITE}) one snapshot,
+ * from {@link VideoPanel#saveSnapshot} or {@link AsyncSnapshotWriter}.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+@Name("io.github.beatum.Snapshot")
+@Label("Snapshot")
+@Category({"ActivityShow", "Snapshot"})
+@Description("Snapshot encode or write")
+@StackTrace(false)
+final class SnapshotEvent extends Event {
+
+    static final String ENCODE = "encode";
+    static final String WRITE = "write";
+
+    @Label("Device")
+    @Description("Device index, -1 for frames not taken from a viewer")
+    int device;
+
+    @Label("Sequence")
+    @Description("Sequence of the frame, -1 if unknown")
+    long sequence;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Encoded Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Destination")
+    String destination;
+
+    /** Ends the event and commits it if a recording wants it. */
+    void finish(int device, long sequence, String phase, long bytes, Object destination) {
+        end();
+        if (shouldCommit()) {
+            this.device = device;
+            this.sequence = sequence;
+            this.phase = phase;
+            this.bytes = bytes;
+            this.destination = String.valueOf(destination);
+            commit();
+        }
+    }
+}
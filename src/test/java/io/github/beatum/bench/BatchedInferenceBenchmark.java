@@ -0,0 +1,209 @@
+
+package io.github.beatum.bench;
+
+import io.github.beatum.video.GroupInference;
+import io.github.beatum.video.SsdDetectionDecoder;
+import io.github.beatum.video.SyntheticFrameSource;
+import io.github.beatum.video.VideoPanel;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares {@link GroupInference} (one batched forward pass per round) with the per-camera
+ * approach (every camera runs its own batch-1 forward pass on its own thread).
+ *
+ * <p>Both modes run for the same time on the same synthetic cameras and report frames/s and
+ * frames/s per core, where "cores" is the process CPU time consumed during the run (minus the
+ * idle cost of the cameras themselves) divided by the wall time.</p>
+ *
+ * <pre>
+ * java -Djava.library.path=... io.github.beatum.bench.BatchedInferenceBenchmark
+ *      [--cameras 8] [--camera 640x360] [--seconds 5] [--input 300x300] [--threads 4]
+ *      [--model deploy.prototxt [--weights deploy.caffemodel]]
+ * </pre>
+ *
+ * <p>Without {@code --model} the bundled weightless {@code models/tiny_ssd.prototxt} is used.
+ * It checks the batching and dispatch plumbing but is too cheap to represent a real detector;
+ * pass a real Caffe SSD to measure meaningful numbers.</p>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class BatchedInferenceBenchmark {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private static final String TINY_MODEL = "/models/tiny_ssd.prototxt";
+
+    public static void main(String[] args) throws Exception {
+        int cameras = 8;
+        int seconds = 5;
+        int inputW = 300;
+        int inputH = 300;
+        int cameraW = 640;
+        int cameraH = 360;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String model = null;
+        String weights = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--cameras": cameras = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--model": model = args[i + 1]; break;
+                case "--weights": weights = args[i + 1]; break;
+                case "--input":
+                    String[] d = args[i + 1].split("x");
+                    inputW = Integer.parseInt(d[0]);
+                    inputH = Integer.parseInt(d[1]);
+                    break;
+                case "--camera":
+                    String[] c = args[i + 1].split("x");
+                    cameraW = Integer.parseInt(c[0]);
+                    cameraH = Integer.parseInt(c[1]);
+                    break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        byte[] prototxt = model != null ? Files.readAllBytes(Path.of(model)) : readResource(TINY_MODEL);
+        byte[] caffemodel = weights != null ? Files.readAllBytes(Path.of(weights)) : null;
+        Size inputSize = new Size(inputW, inputH);
+        double scale = 1 / 255.0;
+
+        Core.setNumThreads(threads);
+
+        // Cameras: 15 fps synthetic sources, no display work
+        List<VideoPanel> viewers = new ArrayList<>();
+        for (int i = 0; i < cameras; i++) {
+            VideoPanel viewer = new VideoPanel(new SyntheticFrameSource(cameraW, cameraH, 15), i);
+            viewer.setDisplaySize(0, 0);
+            viewer.start();
+            viewers.add(viewer);
+        }
+        Thread.sleep(500);
+
+        System.out.printf(Locale.ROOT, "%d cameras, input %dx%d, %d OpenCV threads, %d cores, %ds per mode, model %s%n",
+                cameras, inputW, inputH, threads, Runtime.getRuntime().availableProcessors(), seconds,
+                model != null ? model : "bundled tiny_ssd");
+
+        // Idle CPU of the capture threads, subtracted from both modes
+        long idleStart = processCpuNanos();
+        Thread.sleep(1000);
+        double idleCores = (processCpuNanos() - idleStart) / 1e9;
+        System.out.printf(Locale.ROOT, "cameras alone: %.2f cores busy%n", idleCores);
+
+        // Warm-up (first forward allocates the network)
+        Mat warmFrame = new Mat(inputH, inputW, CvType.CV_8UC3, new Scalar(0));
+        Net warmNet = loadNet(prototxt, caffemodel);
+        warmNet.setInput(Dnn.blobFromImage(warmFrame, scale, inputSize, new Scalar(0, 0, 0), false, false));
+        warmNet.forward().release();
+        warmFrame.release();
+
+        // -------------------- Per-camera --------------------
+        AtomicLong perCameraFrames = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        long perCameraDeadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long cpu0 = processCpuNanos();
+        long wall0 = System.nanoTime();
+        for (VideoPanel viewer : viewers) {
+            Net net = loadNet(prototxt, caffemodel); // nets are not thread-safe: one per camera
+            SsdDetectionDecoder decoder = new SsdDetectionDecoder(0.5f);
+            Thread worker = new Thread(() -> {
+                Mat frame = new Mat();
+                while (System.nanoTime() < perCameraDeadline) {
+                    if (!viewer.copyLastFrameTo(frame)) continue;
+                    Mat blob = Dnn.blobFromImage(frame, scale, inputSize, new Scalar(0, 0, 0), false, false);
+                    net.setInput(blob);
+                    Mat out = net.forward();
+                    viewer.setDetections(decoder.decode(out, 1).get(0));
+                    out.release();
+                    blob.release();
+                    perCameraFrames.incrementAndGet();
+                }
+                frame.release();
+            }, "PerCamera-" + viewer.getDeviceIndex());
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report("per-camera (batch 1)", perCameraFrames.get(), System.nanoTime() - wall0,
+                processCpuNanos() - cpu0, idleCores);
+
+        // -------------------- Batched --------------------
+        GroupInference inference = new GroupInference(viewers, loadNet(prototxt, caffemodel), inputSize);
+        inference.setScaleFactor(scale);
+        inference.setThreadCount(threads);
+        inference.setSkipUnchangedFrames(false); // measure the model, not the cameras' frame rate
+        inference.runOnce();
+        inference.resetStatistics();
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        cpu0 = processCpuNanos();
+        wall0 = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            inference.runOnce();
+        }
+        report("batched (batch " + cameras + ")", inference.getFrameCount(), System.nanoTime() - wall0,
+                processCpuNanos() - cpu0, idleCores);
+        System.out.printf(Locale.ROOT, "  avg forward %.2f ms per batch of %.1f%n",
+                inference.getAverageForwardMillis(), inference.getAverageBatchSize());
+
+        inference.close();
+        for (VideoPanel viewer : viewers) {
+            viewer.close();
+        }
+    }
+
+    private static Net loadNet(byte[] prototxt, byte[] caffemodel) {
+        Net net = caffemodel != null
+                ? Dnn.readNetFromCaffe(new MatOfByte(prototxt), new MatOfByte(caffemodel))
+                : Dnn.readNetFromCaffe(new MatOfByte(prototxt));
+        net.setPreferableBackend(Dnn.DNN_BACKEND_OPENCV);
+        net.setPreferableTarget(Dnn.DNN_TARGET_CPU);
+        return net;
+    }
+
+    private static void report(String mode, long frames, long wallNanos, long cpuNanos, double idleCores) {
+        double secs = wallNanos / 1e9;
+        double fps = frames / secs;
+        double cores = Math.max(0.01, cpuNanos / 1e9 / secs - idleCores);
+        System.out.printf(Locale.ROOT, "%-22s: %8.1f frames/s, %5.2f cores busy, %8.1f frames/s per core%n",
+                mode, fps, cores, fps / cores);
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = BatchedInferenceBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("Missing resource " + name);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.beatum.bench;
+
+import io.github.beatum.video.FrameGraph;
+import io.github.beatum.video.IProcessCapture;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Locale;
+
+/**
+ * Compares a compiled {@link FrameGraph} with the equivalent hand-written {@link IProcessCapture}
+ * lambda chain, both followed by VideoPanel's display resize.
+ *
+ * <p>Chain: BGR -> gray -> Gaussian blur 5x5 -> binary threshold -> display size.</p>
+ *
+ * <pre>
+ * java -Djava.library.path=... io.github.beatum.bench.FrameGraphBenchmark
+ *      [--width 1920] [--height 1080] [--display 480x270] [--frames 500]
+ * </pre>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class FrameGraphBenchmark {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public static void main(String[] args) {
+        int width = 1920;
+        int height = 1080;
+        int displayW = 480;
+        int displayH = 270;
+        int frames = 500;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--width": width = Integer.parseInt(args[i + 1]); break;
+                case "--height": height = Integer.parseInt(args[i + 1]); break;
+                case "--frames": frames = Integer.parseInt(args[i + 1]); break;
+                case "--display":
+                    String[] d = args[i + 1].split("x");
+                    displayW = Integer.parseInt(d[0]);
+                    displayH = Integer.parseInt(d[1]);
+                    break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        Mat input = new Mat(height, width, CvType.CV_8UC3);
+        Core.randu(input, 0, 256);
+        Size display = new Size(displayW, displayH);
+
+        // Typical hand-written chain: one new Mat per step
+        IProcessCapture lambdaChain = mat -> {
+            Mat gray = new Mat();
+            Imgproc.cvtColor(mat, gray, Imgproc.COLOR_BGR2GRAY);
+            Mat blurred = new Mat();
+            Imgproc.GaussianBlur(gray, blurred, new Size(5, 5), 0);
+            gray.release();
+            Mat binary = new Mat();
+            Imgproc.threshold(blurred, binary, 128, 255, Imgproc.THRESH_BINARY);
+            blurred.release();
+            return binary;
+        };
+
+        // Same chain as a graph; the fixed resize stands in for display() of a bound viewer
+        FrameGraph graph = FrameGraph.builder()
+                .cvtColor(Imgproc.COLOR_BGR2GRAY)
+                .gaussianBlur(5, 0)
+                .threshold(128, 255, Imgproc.THRESH_BINARY)
+                .resize(displayW, displayH, Imgproc.INTER_LINEAR)
+                .build();
+        FrameGraph.Instance instance = graph.instantiate();
+
+        Mat resized = new Mat();
+        System.out.printf(Locale.ROOT, "input %dx%d -> display %dx%d, %d frames%n",
+                width, height, displayW, displayH, frames);
+
+        for (int round = 0; round < 2; round++) {
+            // Round 0 is warm-up
+            long t0 = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                Mat out = lambdaChain.process(input);
+                Imgproc.resize(out, resized, display); // VideoPanel's own display resize
+                out.release();
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < frames; i++) {
+                Mat out = instance.process(input);
+                if (out.cols() != displayW || out.rows() != displayH) {
+                    Imgproc.resize(out, resized, display); // skipped: graph already at display size
+                }
+            }
+            long t2 = System.nanoTime();
+
+            if (round == 1) {
+                double lambdaMs = (t1 - t0) / 1e6 / frames;
+                double graphMs = (t2 - t1) / 1e6 / frames;
+                System.out.printf(Locale.ROOT, "lambda chain + panel resize : %7.3f ms/frame%n", lambdaMs);
+                System.out.printf(Locale.ROOT, "frame graph (display folded): %7.3f ms/frame (%.2fx)%n",
+                        graphMs, lambdaMs / graphMs);
+            }
+        }
+
+        instance.close();
+        resized.release();
+        input.release();
+    }
+}
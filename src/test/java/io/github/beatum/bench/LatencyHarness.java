@@ -0,0 +1,408 @@
+package io.github.beatum.bench;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+import io.github.beatum.video.AsyncSnapshotWriter;
+import io.github.beatum.video.FrameStamp;
+import io.github.beatum.video.SnapshotOptions;
+import io.github.beatum.video.SyntheticFrameSource;
+import io.github.beatum.video.VideoPanel;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Headless end-to-end latency harness for the {@link VideoPanel} pipeline.
+ *
+ * <p>Each panel is fed by a {@link SyntheticFrameSource} whose frames carry a {@link FrameStamp}.
+ * The stamp is recovered at every observed stage and compared with the source's capture time:</p>
+ * <ul>
+ *   <li><b>paint</b> - when the panel's repaint request runs on the EDT, the panel is painted into
+ *       an offscreen image and the stamp decoded from the painted pixels (capture-to-paint)</li>
+ *   <li><b>snapshot</b> - a sampler thread calls {@link VideoPanel#snapshotFrame()} on every panel
+ *       and decodes the stamp from the returned Mat (age of the frame a snapshot would save)</li>
+ *   <li><b>record</b> - a recorder thread records every panel through
+ *       {@link AsyncSnapshotWriter#record} into a temporary {@link SegmentStore} every
+ *       {@code --record-ms} (skipping panels while all encode threads are busy), reads
+ *       the frames back as soon as the store has written them and decodes their stamps
+ *       (capture-to-disk: encode, queueing and the store's write batching).
+ *       The run fails (exit 1) if any recorded frame could not be encoded or appended</li>
+ * </ul>
+ *
+ * <p>Usage (no camera or display needed):</p>
+ * <pre>
+ * java -Djava.awt.headless=true -Djava.library.path=... io.github.beatum.bench.LatencyHarness \
+ *      [--counts 1,6,16,64] [--seconds 10] [--width 1280] [--height 720] [--fps 30] [--record-ms 100]
+ * </pre>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class LatencyHarness {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /** Virtual screen the panels share (same as a maximised 1080p window). */
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        int[] counts = Arrays.stream(opts.getOrDefault("counts", "1,6,16,64").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        int seconds = Integer.parseInt(opts.getOrDefault("seconds", "10"));
+        int width = Integer.parseInt(opts.getOrDefault("width", "1280"));
+        int height = Integer.parseInt(opts.getOrDefault("height", "720"));
+        double fps = Double.parseDouble(opts.getOrDefault("fps", "30"));
+        int recordMs = Integer.parseInt(opts.getOrDefault("record-ms", "100"));
+
+        System.out.printf(Locale.ROOT, "source %dx%d @ %.1f fps, %d s per run%n", width, height, fps, seconds);
+        System.out.printf(Locale.ROOT, "%-8s %-9s %8s %8s %8s %8s %8s %8s%n",
+                "panels", "stage", "samples", "p50 ms", "p90 ms", "p99 ms", "max ms", "fps/cam");
+
+        List<String> notes = new ArrayList<>();
+        for (int count : counts) {
+            Map<String, LatencyRecorder> result = runOnce(count, seconds, width, height, fps, recordMs, notes);
+            for (Map.Entry<String, LatencyRecorder> e : result.entrySet()) {
+                LatencyRecorder r = e.getValue();
+                // Painted frames per camera; other stages are sampled, so their rate is meaningless
+                String rate = "paint".equals(e.getKey())
+                        ? String.format(Locale.ROOT, "%.1f", r.size() / (double) seconds / count)
+                        : "-";
+                System.out.printf(Locale.ROOT, "%-8d %-9s %8d %8.2f %8.2f %8.2f %8.2f %8s%n",
+                        count, e.getKey(), r.size(),
+                        r.percentileMillis(50), r.percentileMillis(90), r.percentileMillis(99), r.percentileMillis(100),
+                        rate);
+            }
+        }
+        for (String note : notes) {
+            System.out.println(note);
+        }
+    }
+
+    /**
+     * Runs {@code count} panels for {@code seconds} and returns latency per stage.
+     *
+     * @param recordMs interval between two recordings of a panel (0 = no record stage)
+     * @param notes receives a summary line of the record stage
+     */
+    static Map<String, LatencyRecorder> runOnce(int count, int seconds, int width, int height, double fps,
+                                                int recordMs, List<String> notes) throws Exception {
+        LatencyRecorder paint = new LatencyRecorder();
+        LatencyRecorder snapshot = new LatencyRecorder();
+        LatencyRecorder record = new LatencyRecorder();
+
+        // Same grid a DeviceGroup container would use: near-square, filling the screen
+        int cols = (int) Math.ceil(Math.sqrt(count));
+        int rows = (int) Math.ceil(count / (double) cols);
+        int cellW = SCREEN_WIDTH / cols;
+        int cellH = SCREEN_HEIGHT / rows;
+
+        List<SyntheticFrameSource> sources = new ArrayList<>();
+        List<VideoPanel> panels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            SyntheticFrameSource source = new SyntheticFrameSource(width, height, fps);
+            VideoPanel panel = new StampedPanel(source, i, paint);
+            panel.setSize(cellW, cellH);
+            sources.add(source);
+            panels.add(panel);
+        }
+
+        for (VideoPanel panel : panels) {
+            panel.start();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long warmup = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+
+        Recorder recorder = recordMs > 0 ? new Recorder(panels, sources, recordMs, warmup, record) : null;
+        if (recorder != null) {
+            recorder.start();
+        }
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < count; i++) {
+                Mat snap = panels.get(i).snapshotFrame();
+                try {
+                    long now = System.nanoTime();
+                    long captured = sources.get(i).captureTimeNanos(FrameStamp.decode(snap));
+                    if (captured > 0 && now > warmup) {
+                        snapshot.record(now - captured);
+                    }
+                } finally {
+                    snap.release();
+                }
+            }
+            Thread.sleep(10);
+        }
+
+        if (recorder != null) {
+            recorder.finish();
+            notes.add(recorder.summary(count));
+            if (recorder.getFailedCount() > 0) {
+                // A frame the store refused never shows up in the read-back, so the latency would lie
+                for (String note : notes) {
+                    System.out.println(note);
+                }
+                System.out.println("FAIL: " + recorder.getFailedCount() + " recorded frames were not appended");
+                System.exit(1);
+            }
+        }
+        for (VideoPanel panel : panels) {
+            panel.close();
+        }
+        // Let queued repaints drain before the next run reuses the EDT
+        SwingUtilities.invokeAndWait(() -> { });
+
+        Map<String, LatencyRecorder> result = new LinkedHashMap<>();
+        result.put("paint", paint);
+        result.put("snapshot", snapshot);
+        if (recorder != null) {
+            result.put("record", record);
+        }
+        return result;
+    }
+
+    /**
+     * Records all panels into a temporary {@link SegmentStore} and measures capture-to-disk
+     * latency by decoding the stamps of the stored frames as soon as they are readable.
+     */
+    private static final class Recorder extends Thread {
+
+        private final List<VideoPanel> panels;
+        private final List<SyntheticFrameSource> sources;
+        private final long intervalNanos;
+        private final long warmupUntil;
+        private final LatencyRecorder latency;
+
+        private final Path root;
+        private final SegmentStore store;
+        private final AsyncSnapshotWriter writer;
+        private final SnapshotOptions options = new SnapshotOptions();
+
+        /** Last stored frame read back, per panel. */
+        private final StoredFrame[] lastRead;
+
+        /** Last recording submitted, per panel. */
+        private final CompletableFuture<?>[] pending;
+
+        private volatile boolean running = true;
+        private final int threads = Runtime.getRuntime().availableProcessors();
+        private int first;
+        private long submitted;
+        private long skipped;
+        private long unreadable;
+
+        Recorder(List<VideoPanel> panels, List<SyntheticFrameSource> sources, int intervalMs,
+                 long warmupUntil, LatencyRecorder latency) throws Exception {
+            super("LatencyHarness-Recorder");
+            setDaemon(true);
+            this.panels = panels;
+            this.sources = sources;
+            this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+            this.warmupUntil = warmupUntil;
+            this.latency = latency;
+            this.lastRead = new StoredFrame[panels.size()];
+            this.pending = new CompletableFuture<?>[panels.size()];
+            this.root = Files.createTempDirectory("latency-harness");
+            this.store = new SegmentStore(root);
+            this.store.open();
+            // Parallel encodes; the writer still appends each camera's frames in submission order
+            this.writer = new AsyncSnapshotWriter(threads, 256L << 20);
+        }
+
+        @Override
+        public void run() {
+            long nextRecord = System.nanoTime();
+            while (running) {
+                long now = System.nanoTime();
+                if (now >= nextRecord) {
+                    // Like a recorder that falls behind: skip rather than grow a backlog that would
+                    // still be draining (and inflating the latency) after the run. At most one frame
+                    // per encode thread is in flight; the first panel rotates so all get recorded.
+                    int inFlight = 0;
+                    for (CompletableFuture<?> future : pending) {
+                        if (future != null && !future.isDone()) inFlight++;
+                    }
+                    for (int k = 0; k < panels.size(); k++) {
+                        int i = (first + k) % panels.size();
+                        VideoPanel panel = panels.get(i);
+                        // An empty snapshot would count as a failure
+                        if (panel.getProcessedFrameCount() == 0) continue;
+                        if (inFlight >= threads || (pending[i] != null && !pending[i].isDone())) {
+                            skipped++;
+                            continue;
+                        }
+                        pending[i] = writer.record(panel, store, ".jpg", options);
+                        inFlight++;
+                        submitted++;
+                    }
+                    first = (first + 1) % panels.size();
+                    nextRecord = now + intervalNanos;
+                }
+                readBack();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /** Decodes the stamps of frames the store has written since the last call. */
+        private void readBack() {
+            for (int i = 0; i < panels.size(); i++) {
+                int device = panels.get(i).getDeviceIndex();
+                StoredFrame frame = lastRead[i] == null ? store.first(device) : store.next(lastRead[i]);
+                while (frame != null) {
+                    long now = System.nanoTime();
+                    lastRead[i] = frame;
+                    byte[] bytes = store.read(frame);
+                    // The stamp bars survive a 1/4 decode, which keeps this thread cheap
+                    Mat decoded = bytes == null ? new Mat()
+                            : Imgcodecs.imdecode(new MatOfByte(bytes), Imgcodecs.IMREAD_REDUCED_COLOR_4);
+                    long captured = sources.get(i).captureTimeNanos(FrameStamp.decode(decoded));
+                    decoded.release();
+                    if (captured <= 0) {
+                        unreadable++;
+                    } else if (captured > warmupUntil) {
+                        latency.record(now - captured);
+                    }
+                    frame = store.next(frame);
+                }
+            }
+        }
+
+        /** Stops recording, waits for queued frames, reads back the rest and deletes the store. */
+        void finish() throws Exception {
+            running = false;
+            join();
+            writer.shutdown(10_000);
+            store.flush();
+            readBack();
+            store.close();
+            try (Stream<Path> files = Files.walk(root)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+
+        /** Frames that failed to encode or that the store refused to append. */
+        long getFailedCount() {
+            return writer.getFailedCount();
+        }
+
+        String summary(int count) {
+            return String.format(Locale.ROOT,
+                    "panels %d, record: %d submitted, %d skipped (encoders busy), %d written, "
+                            + "%d rejected (memory cap), %d failed, %d unreadable",
+                    count, submitted, skipped, writer.getCompletedCount(), writer.getRejectedCount(),
+                    writer.getFailedCount(), unreadable);
+        }
+    }
+
+    /**
+     * VideoPanel that, instead of relying on a (headless, absent) RepaintManager, paints itself
+     * offscreen whenever the capture thread requests a repaint and decodes the painted stamp.
+     */
+    private static final class StampedPanel extends VideoPanel {
+
+        private final SyntheticFrameSource source;
+        private final LatencyRecorder recorder;
+        private final long warmupUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        private BufferedImage canvas;
+
+        StampedPanel(SyntheticFrameSource source, int index, LatencyRecorder recorder) {
+            super(source, index);
+            this.source = source;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void repaint() {
+            // Also invoked by Swing during construction, before our fields are assigned
+            if (source == null || !SwingUtilities.isEventDispatchThread()) return;
+
+            int w = getWidth();
+            int h = getHeight();
+            if (w <= 0 || h <= 0) return;
+            if (canvas == null || canvas.getWidth() != w || canvas.getHeight() != h) {
+                canvas = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            }
+
+            Graphics2D g = canvas.createGraphics();
+            try {
+                paint(g);
+            } finally {
+                g.dispose();
+            }
+
+            long now = System.nanoTime();
+            long captured = source.captureTimeNanos(FrameStamp.decode(canvas, w, h));
+            if (captured > 0 && now > warmupUntil) {
+                recorder.record(now - captured);
+            }
+        }
+    }
+
+    /**
+     * Thread-safe growable store of latency samples in nanoseconds.
+     */
+    static final class LatencyRecorder {
+
+        private long[] samples = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * @param percentile 0..100 (100 = max)
+         * @return latency in milliseconds, NaN if no samples
+         */
+        synchronized double percentileMillis(double percentile) {
+            if (size == 0) return Double.NaN;
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, idx))] / 1_000_000.0;
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            opts.put(args[i].substring(2), args[i + 1]);
+        }
+        return opts;
+    }
+}
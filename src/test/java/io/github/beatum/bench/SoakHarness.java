@@ -0,0 +1,447 @@
+package io.github.beatum.bench;
+
+import io.github.beatum.utils.MatTracker;
+import io.github.beatum.video.AsyncSnapshotWriter;
+import io.github.beatum.video.DeviceGroup;
+import io.github.beatum.video.FrameStamp;
+import io.github.beatum.video.SnapshotOptions;
+import io.github.beatum.video.SyntheticFrameSource;
+import io.github.beatum.video.VideoPanel;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless soak and scale harness: runs many {@link SyntheticFrameSource}s through a
+ * {@link DeviceGroup} for a long time and fails when resource usage creeps or performance
+ * collapses.
+ *
+ * <p>While running, the harness continuously:</p>
+ * <ul>
+ *   <li>stops and restarts a random subset of devices every {@code --cycle-seconds}
+ *       (thread and native memory leaks across {@code start()}/{@code stop()})</li>
+ *   <li>takes asynchronous snapshots round-robin every {@code --snapshot-ms}</li>
+ *   <li>measures frame age (capture to {@code snapshotFrame()}) via {@link FrameStamp}s</li>
+ *   <li>samples RSS, heap (after a GC), thread count, fps per camera and latency every
+ *       {@code --sample-seconds}</li>
+ * </ul>
+ *
+ * <h2>Gates</h2>
+ * Evaluated over the samples after the warm-up; any failure exits with status 1:
+ * <ul>
+ *   <li>{@code --max-rss-mb}: RSS ceiling (0 = off)</li>
+ *   <li>{@code --max-rss-slope}: RSS trend in MB/hour (least squares)</li>
+ *   <li>{@code --max-heap-slope}: heap-after-GC trend in MB/hour</li>
+ *   <li>{@code --min-growth-mb}: a trend only fails once it amounts to this much growth over the
+ *       measured span, so allocator and JIT noise in short runs does not fail them</li>
+ *   <li>{@code --max-thread-growth}: threads above the first post-warm-up sample</li>
+ *   <li>{@code --min-fps-ratio}: lowest fps per camera as a fraction of the source fps</li>
+ *   <li>{@code --max-p99-ms}: highest per-sample p99 frame age</li>
+ *   <li>failed snapshots</li>
+ * </ul>
+ *
+ * <p>Usage (no camera or display needed):</p>
+ * <pre>
+ * java -Djava.awt.headless=true -Djava.library.path=... io.github.beatum.bench.SoakHarness \
+ *      [--cameras 32] [--width 640] [--height 360] [--fps 15] [--seconds 3600] \
+ *      [--sample-seconds 10] [--warmup-seconds 60] [--cycle-seconds 15] [--cycle-fraction 0.25] \
+ *      [--snapshot-ms 500] [--max-rss-mb 0] [--max-rss-slope 64] [--max-heap-slope 32] \
+ *      [--min-growth-mb 16] [--max-thread-growth 4] [--min-fps-ratio 0.8] [--max-p99-ms 500] [--csv soak.csv]
+ * </pre>
+ * Run with {@code -Dactivityshow.matTracker=true} to add tracked native Mat bytes to the samples.
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class SoakHarness {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /** Virtual screen the panels share (same as a maximised 1080p window). */
+    private static final int SCREEN_WIDTH = 1920;
+    private static final int SCREEN_HEIGHT = 1080;
+
+    /** Main loop tick. */
+    private static final long TICK_MS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        int cameras = Integer.parseInt(opts.getOrDefault("cameras", "32"));
+        int width = Integer.parseInt(opts.getOrDefault("width", "640"));
+        int height = Integer.parseInt(opts.getOrDefault("height", "360"));
+        double fps = Double.parseDouble(opts.getOrDefault("fps", "15"));
+        long seconds = Long.parseLong(opts.getOrDefault("seconds", "3600"));
+        long sampleSeconds = Long.parseLong(opts.getOrDefault("sample-seconds", "10"));
+        long warmupSeconds = Long.parseLong(opts.getOrDefault("warmup-seconds", String.valueOf(Math.min(60, seconds / 5))));
+        long cycleSeconds = Long.parseLong(opts.getOrDefault("cycle-seconds", "15"));
+        double cycleFraction = Double.parseDouble(opts.getOrDefault("cycle-fraction", "0.25"));
+        long snapshotMs = Long.parseLong(opts.getOrDefault("snapshot-ms", "500"));
+
+        Gates gates = new Gates();
+        gates.maxRssMb = Double.parseDouble(opts.getOrDefault("max-rss-mb", "0"));
+        gates.maxRssSlope = Double.parseDouble(opts.getOrDefault("max-rss-slope", "64"));
+        gates.maxHeapSlope = Double.parseDouble(opts.getOrDefault("max-heap-slope", "32"));
+        gates.minGrowthMb = Double.parseDouble(opts.getOrDefault("min-growth-mb", "16"));
+        gates.maxThreadGrowth = Integer.parseInt(opts.getOrDefault("max-thread-growth", "4"));
+        gates.minFps = fps * Double.parseDouble(opts.getOrDefault("min-fps-ratio", "0.8"));
+        gates.maxP99Ms = Double.parseDouble(opts.getOrDefault("max-p99-ms", "500"));
+
+        System.out.printf(Locale.ROOT, "%d cameras %dx%d @ %.1f fps for %d s (warm-up %d s), "
+                        + "restart %.0f%% every %d s, snapshot every %d ms%n",
+                cameras, width, height, fps, seconds, warmupSeconds, cycleFraction * 100, cycleSeconds, snapshotMs);
+
+        // Sources are created by the group's probe; kept to look up capture times
+        Map<Integer, SyntheticFrameSource> sources = new ConcurrentHashMap<>();
+        JPanel container = new JPanel();
+        DeviceGroup group = new DeviceGroup(container, cameras, index -> {
+            SyntheticFrameSource source = new SyntheticFrameSource(width, height, fps);
+            sources.put(index, source);
+            return source;
+        });
+        List<VideoPanel> viewers = group.getViewers();
+        if (viewers.size() != cameras) {
+            System.out.println("FAIL: only " + viewers.size() + " of " + cameras + " sources could be opened");
+            System.exit(1);
+        }
+
+        // Same grid a DeviceGroup container would use: near-square, filling the screen
+        int cols = (int) Math.ceil(Math.sqrt(cameras));
+        int rows = (int) Math.ceil(cameras / (double) cols);
+        for (VideoPanel viewer : viewers) {
+            viewer.setDisplaySize(SCREEN_WIDTH / cols, SCREEN_HEIGHT / rows);
+        }
+
+        Path snapshotDir = Files.createTempDirectory("soak-snapshots");
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(2, 64L << 20);
+        SnapshotOptions snapshotOptions = new SnapshotOptions();
+
+        List<Sample> samples = new ArrayList<>();
+        PrintWriter csv = opts.containsKey("csv")
+                ? new PrintWriter(Files.newBufferedWriter(Paths.get(opts.get("csv")), StandardCharsets.UTF_8))
+                : null;
+        if (csv != null) csv.println(Sample.CSV_HEADER);
+        System.out.println(Sample.HEADER);
+
+        Random random = new Random(42);
+        List<Long> windowLatencies = new ArrayList<>();
+        long framesAtLastSample = totalFrames(viewers);
+        int restarts = 0;
+        int nextSnapshot = 0;
+        int nextLatency = 0;
+
+        group.openAll();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long lastSample = start;
+        long nextSampleAt = start + TimeUnit.SECONDS.toNanos(sampleSeconds);
+        long nextCycleAt = start + TimeUnit.SECONDS.toNanos(cycleSeconds);
+        long nextSnapshotAt = start + TimeUnit.MILLISECONDS.toNanos(Math.max(snapshotMs, 1000));
+        try {
+            while (System.nanoTime() < end) {
+                long now = System.nanoTime();
+
+                // Frame age of one camera per tick (round-robin)
+                VideoPanel probed = viewers.get(nextLatency);
+                Mat snap = probed.snapshotFrame();
+                try {
+                    long captured = sources.get(probed.getDeviceIndex()).captureTimeNanos(FrameStamp.decode(snap));
+                    if (captured > 0) windowLatencies.add(System.nanoTime() - captured);
+                } finally {
+                    snap.release();
+                }
+                nextLatency = (nextLatency + 1) % viewers.size();
+
+                if (now >= nextSnapshotAt) {
+                    VideoPanel viewer = viewers.get(nextSnapshot);
+                    // One file per camera, overwritten: the disk does not fill up during long runs
+                    writer.submit(viewer, snapshotDir.resolve("cam" + viewer.getDeviceIndex() + ".jpg"), snapshotOptions);
+                    nextSnapshot = (nextSnapshot + 1) % viewers.size();
+                    nextSnapshotAt += TimeUnit.MILLISECONDS.toNanos(snapshotMs);
+                }
+
+                if (now >= nextCycleAt) {
+                    restarts += restartSubset(viewers, cycleFraction, random);
+                    nextCycleAt += TimeUnit.SECONDS.toNanos(cycleSeconds);
+                }
+
+                if (now >= nextSampleAt) {
+                    long frames = totalFrames(viewers);
+                    double dt = (now - lastSample) / 1e9;
+                    Sample sample = Sample.take((now - start) / 1e9, (frames - framesAtLastSample) / dt / viewers.size(),
+                            windowLatencies, restarts, writer);
+                    samples.add(sample);
+                    System.out.println(sample.format());
+                    if (csv != null) {
+                        csv.println(sample.csv());
+                        csv.flush();
+                    }
+                    windowLatencies.clear();
+                    framesAtLastSample = totalFrames(viewers);
+                    lastSample = System.nanoTime();
+                    nextSampleAt += TimeUnit.SECONDS.toNanos(sampleSeconds);
+                }
+
+                Thread.sleep(TICK_MS);
+            }
+        } finally {
+            group.releaseAll();
+            writer.close();
+            if (csv != null) csv.close();
+            deleteQuietly(snapshotDir);
+        }
+
+        List<Sample> steady = new ArrayList<>();
+        for (Sample s : samples) {
+            if (s.elapsedSeconds >= warmupSeconds) steady.add(s);
+        }
+        List<String> failures = gates.check(steady, writer.getFailedCount());
+        if (MatTracker.ENABLED) {
+            System.out.print(MatTracker.report());
+        }
+        if (failures.isEmpty()) {
+            System.out.println("PASS (" + steady.size() + " samples after warm-up, " + restarts + " restarts)");
+        } else {
+            for (String failure : failures) {
+                System.out.println("FAIL: " + failure);
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Stops a random subset of viewers and starts them again.
+     *
+     * @return number of viewers restarted
+     */
+    private static int restartSubset(List<VideoPanel> viewers, double fraction, Random random) {
+        List<VideoPanel> shuffled = new ArrayList<>(viewers);
+        Collections.shuffle(shuffled, random);
+        int n = Math.max(1, (int) Math.round(viewers.size() * fraction));
+        List<VideoPanel> subset = shuffled.subList(0, Math.min(n, shuffled.size()));
+        for (VideoPanel viewer : subset) {
+            viewer.stop();
+        }
+        for (VideoPanel viewer : subset) {
+            viewer.start();
+        }
+        return subset.size();
+    }
+
+    /** Frames read by all viewers since they were created (processed + skipped duplicates). */
+    private static long totalFrames(List<VideoPanel> viewers) {
+        long total = 0;
+        for (VideoPanel viewer : viewers) {
+            total += viewer.getProcessedFrameCount() + viewer.getSkippedFrameCount();
+        }
+        return total;
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try {
+            Files.walk(dir).sorted(Collections.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                    // Temp directory: left for the OS
+                }
+            });
+        } catch (IOException ignored) {
+            // Temp directory: left for the OS
+        }
+    }
+
+    /** Resident set size in MB from /proc/self/status (Linux), -1 elsewhere. */
+    static double readRssMb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    String kb = line.substring(6).trim().split("\\s+")[0];
+                    return Long.parseLong(kb) / 1024.0;
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    /**
+     * Least-squares slope of y over x.
+     *
+     * @return slope, or NaN with fewer than 3 points
+     */
+    static double slope(double[] x, double[] y) {
+        int n = x.length;
+        if (n < 3) return Double.NaN;
+        double mx = 0;
+        double my = 0;
+        for (int i = 0; i < n; i++) {
+            mx += x[i];
+            my += y[i];
+        }
+        mx /= n;
+        my /= n;
+        double sxy = 0;
+        double sxx = 0;
+        for (int i = 0; i < n; i++) {
+            sxy += (x[i] - mx) * (y[i] - my);
+            sxx += (x[i] - mx) * (x[i] - mx);
+        }
+        return sxx == 0 ? Double.NaN : sxy / sxx;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith("--")) {
+                opts.put(args[i].substring(2), args[i + 1]);
+            }
+        }
+        return opts;
+    }
+
+    /** One point of the time series. */
+    static final class Sample {
+
+        static final String HEADER = String.format(Locale.ROOT, "%8s %9s %9s %8s %8s %8s %8s %9s %9s %10s",
+                "t s", "rss MB", "heap MB", "threads", "fps/cam", "p50 ms", "p99 ms", "restarts", "snapshots", "mats MB");
+        static final String CSV_HEADER = "seconds,rss_mb,heap_mb,threads,fps_per_camera,p50_ms,p99_ms,restarts,snapshots,mat_mb";
+
+        double elapsedSeconds;
+        double rssMb;
+        double heapMb;
+        int threads;
+        double fpsPerCamera;
+        double p50Ms;
+        double p99Ms;
+        int restarts;
+        long snapshots;
+        double matMb;
+
+        static Sample take(double elapsedSeconds, double fpsPerCamera, List<Long> latencies, int restarts,
+                           AsyncSnapshotWriter writer) {
+            // Collect first: heap after GC is comparable between samples, and dropped Mats free
+            // their native memory, so RSS shows what is actually still referenced
+            System.gc();
+            Sample s = new Sample();
+            s.elapsedSeconds = elapsedSeconds;
+            s.rssMb = readRssMb();
+            s.heapMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1048576.0;
+            s.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            s.fpsPerCamera = fpsPerCamera;
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            s.p50Ms = percentileMillis(sorted, 50);
+            s.p99Ms = percentileMillis(sorted, 99);
+            s.restarts = restarts;
+            s.snapshots = writer.getCompletedCount();
+            s.matMb = MatTracker.ENABLED ? MatTracker.getLiveBytes() / 1048576.0 : -1;
+            return s;
+        }
+
+        private static double percentileMillis(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) return Double.NaN;
+            int i = (int) Math.min(sorted.size() - 1, Math.ceil(p / 100.0 * sorted.size()) - 1);
+            return sorted.get(Math.max(0, i)) / 1e6;
+        }
+
+        String format() {
+            return String.format(Locale.ROOT, "%8.0f %9.1f %9.1f %8d %8.1f %8.1f %8.1f %9d %9d %10.1f",
+                    elapsedSeconds, rssMb, heapMb, threads, fpsPerCamera, p50Ms, p99Ms, restarts, snapshots, matMb);
+        }
+
+        String csv() {
+            return String.format(Locale.ROOT, "%.1f,%.1f,%.1f,%d,%.2f,%.2f,%.2f,%d,%d,%.1f",
+                    elapsedSeconds, rssMb, heapMb, threads, fpsPerCamera, p50Ms, p99Ms, restarts, snapshots, matMb);
+        }
+    }
+
+    /** Regression thresholds. */
+    static final class Gates {
+
+        double maxRssMb;
+        double maxRssSlope;
+        double maxHeapSlope;
+        double minGrowthMb;
+        int maxThreadGrowth;
+        double minFps;
+        double maxP99Ms;
+
+        /**
+         * @param steady samples after the warm-up
+         * @param failedSnapshots snapshots that could not be encoded or written
+         * @return failure descriptions (empty = pass)
+         */
+        List<String> check(List<Sample> steady, long failedSnapshots) {
+            List<String> failures = new ArrayList<>();
+            if (steady.isEmpty()) {
+                failures.add("no samples after warm-up (run longer or shorten --warmup-seconds)");
+                return failures;
+            }
+
+            double[] hours = new double[steady.size()];
+            double[] rss = new double[steady.size()];
+            double[] heap = new double[steady.size()];
+            int baseThreads = steady.get(0).threads;
+            for (int i = 0; i < steady.size(); i++) {
+                Sample s = steady.get(i);
+                hours[i] = s.elapsedSeconds / 3600.0;
+                rss[i] = s.rssMb;
+                heap[i] = s.heapMb;
+
+                if (maxRssMb > 0 && s.rssMb > maxRssMb) {
+                    failures.add(String.format(Locale.ROOT, "RSS %.1f MB at %.0f s exceeds %.1f MB",
+                            s.rssMb, s.elapsedSeconds, maxRssMb));
+                }
+                if (s.threads - baseThreads > maxThreadGrowth) {
+                    failures.add(String.format(Locale.ROOT, "threads grew from %d to %d at %.0f s",
+                            baseThreads, s.threads, s.elapsedSeconds));
+                }
+                if (s.fpsPerCamera < minFps) {
+                    failures.add(String.format(Locale.ROOT, "fps per camera %.1f at %.0f s below %.1f",
+                            s.fpsPerCamera, s.elapsedSeconds, minFps));
+                }
+                if (s.p99Ms > maxP99Ms) {
+                    failures.add(String.format(Locale.ROOT, "p99 frame age %.1f ms at %.0f s exceeds %.1f ms",
+                            s.p99Ms, s.elapsedSeconds, maxP99Ms));
+                }
+            }
+
+            double span = hours[hours.length - 1] - hours[0];
+            double rssSlope = steady.get(0).rssMb < 0 ? Double.NaN : slope(hours, rss);
+            double heapSlope = slope(hours, heap);
+            System.out.printf(Locale.ROOT, "trend: RSS %+.1f MB/h, heap %+.1f MB/h over %.1f min%n",
+                    rssSlope, heapSlope, span * 60);
+            if (rssSlope > maxRssSlope && rssSlope * span > minGrowthMb) {
+                failures.add(String.format(Locale.ROOT, "RSS grows %.1f MB/h (max %.1f)", rssSlope, maxRssSlope));
+            }
+            if (heapSlope > maxHeapSlope && heapSlope * span > minGrowthMb) {
+                failures.add(String.format(Locale.ROOT, "heap grows %.1f MB/h (max %.1f)", heapSlope, maxHeapSlope));
+            }
+            if (failedSnapshots > 0) {
+                failures.add(failedSnapshots + " snapshots failed");
+            }
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.beatum.bench;
+
+import io.github.beatum.video.CaptureWorkerSupervisor;
+import io.github.beatum.video.DeviceGroup;
+import io.github.beatum.video.FrameRingSource;
+import io.github.beatum.video.VideoPanel;
+import org.opencv.core.Core;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless check of the multi-process capture mode on one host: every camera is a synthetic
+ * {@link io.github.beatum.video.CaptureWorker} JVM publishing into a shared-memory ring, and
+ * workers are killed with SIGKILL at random to prove the UI process survives and recovers.
+ *
+ * <p>Every second the harness prints fps per camera, the age of the newest frame the panels
+ * read (publish in the worker to read in the UI) and the restarts so far. It fails (exit 1) if a
+ * killed camera does not deliver frames again within {@code --max-recovery-ms}, if the supervisor
+ * restarted fewer workers than were killed, or if the average fps falls below
+ * {@code --min-fps-ratio} of the source fps.</p>
+ *
+ * <p>Usage (Linux, no camera or display needed):</p>
+ * <pre>
+ * java -Djava.awt.headless=true -Djava.library.path=... io.github.beatum.bench.WorkerCaptureHarness \
+ *      [--cameras 4] [--width 640] [--height 360] [--fps 15] [--seconds 30] [--kill-seconds 5] \
+ *      [--max-recovery-ms 5000] [--min-fps-ratio 0.5]
+ * </pre>
+ *
+ * @author Happy.He
+ * @version 1.0
+ * @since 2026-10-18
+ */
+public class WorkerCaptureHarness {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        int cameras = Integer.parseInt(opts.getOrDefault("cameras", "4"));
+        int width = Integer.parseInt(opts.getOrDefault("width", "640"));
+        int height = Integer.parseInt(opts.getOrDefault("height", "360"));
+        double fps = Double.parseDouble(opts.getOrDefault("fps", "15"));
+        long seconds = Long.parseLong(opts.getOrDefault("seconds", "30"));
+        long killSeconds = Long.parseLong(opts.getOrDefault("kill-seconds", "5"));
+        long maxRecoveryMs = Long.parseLong(opts.getOrDefault("max-recovery-ms", "5000"));
+        double minFpsRatio = Double.parseDouble(opts.getOrDefault("min-fps-ratio", "0.5"));
+
+        List<String> failures = new ArrayList<>();
+        try (CaptureWorkerSupervisor supervisor = new CaptureWorkerSupervisor()) {
+            supervisor.setSyntheticSource(width, height, fps);
+            supervisor.setJvmOptions(Collections.singletonList("-Xmx64m"));
+
+            long t0 = System.nanoTime();
+            supervisor.prestart(cameras);
+            DeviceGroup group = new DeviceGroup(new JPanel(), cameras, supervisor);
+            List<VideoPanel> viewers = group.getViewers();
+            System.out.printf(Locale.ROOT, "%d of %d workers up in %.1f s (rings in %s)%n", viewers.size(), cameras,
+                    (System.nanoTime() - t0) / 1e9, supervisor.getRingDirectory());
+            if (viewers.size() != cameras) {
+                System.out.println("FAIL: not every worker delivered a frame");
+                System.exit(1);
+            }
+            for (VideoPanel viewer : viewers) {
+                viewer.setDisplaySize(480, 270);
+            }
+            group.openAll();
+
+            Random random = new Random(42);
+            int kills = 0;
+            double fpsSum = 0;
+            int fpsSamples = 0;
+            long framesAtLastSample = totalFrames(viewers);
+            long start = System.currentTimeMillis();
+            long nextKillAt = start + TimeUnit.SECONDS.toMillis(killSeconds);
+            long nextSampleAt = start + 1000;
+
+            // Pending recovery: device index and kill time (-1 = none)
+            int killedIndex = -1;
+            long killedAt = 0;
+
+            System.out.printf(Locale.ROOT, "%6s %8s %10s %9s %s%n", "t s", "fps/cam", "age ms", "restarts", "event");
+            while (System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(seconds)) {
+                long now = System.currentTimeMillis();
+                String event = "";
+
+                if (killedIndex >= 0) {
+                    FrameRingSource source = (FrameRingSource) group.findViewer(killedIndex).getFrameSource();
+                    if (source.getLastFrameMillis() > killedAt) {
+                        long recovery = now - killedAt;
+                        event = "camera " + killedIndex + " recovered in " + recovery + " ms";
+                        if (recovery > maxRecoveryMs) {
+                            failures.add(event);
+                        }
+                        killedIndex = -1;
+                    } else if (now - killedAt > maxRecoveryMs) {
+                        failures.add("camera " + killedIndex + " did not recover within " + maxRecoveryMs + " ms");
+                        killedIndex = -1;
+                    }
+                }
+
+                if (killedIndex < 0 && now >= nextKillAt) {
+                    int index = viewers.get(random.nextInt(viewers.size())).getDeviceIndex();
+                    Process worker = supervisor.getWorkerProcess(index);
+                    if (worker != null) {
+                        worker.destroyForcibly();
+                        killedIndex = index;
+                        killedAt = System.currentTimeMillis();
+                        kills++;
+                        event = "killed worker " + worker.pid() + " of camera " + index;
+                    }
+                    nextKillAt = now + TimeUnit.SECONDS.toMillis(killSeconds);
+                }
+
+                if (now >= nextSampleAt) {
+                    long frames = totalFrames(viewers);
+                    double cameraFps = (frames - framesAtLastSample) / ((now - nextSampleAt + 1000) / 1000.0) / viewers.size();
+                    framesAtLastSample = frames;
+                    fpsSum += cameraFps;
+                    fpsSamples++;
+                    int restarts = 0;
+                    long maxAge = 0;
+                    for (VideoPanel viewer : viewers) {
+                        restarts += supervisor.getRestartCount(viewer.getDeviceIndex());
+                        long published = ((FrameRingSource) viewer.getFrameSource()).getLastFrameMillis();
+                        if (viewer.getDeviceIndex() != killedIndex && published > 0) {
+                            maxAge = Math.max(maxAge, now - published);
+                        }
+                    }
+                    System.out.printf(Locale.ROOT, "%6.0f %8.1f %10d %9d %s%n",
+                            (now - start) / 1000.0, cameraFps, maxAge, restarts, event);
+                    event = "";
+                    nextSampleAt += 1000;
+                }
+                if (!event.isEmpty()) {
+                    System.out.println("       " + event);
+                }
+                Thread.sleep(20);
+            }
+
+            int restarts = 0;
+            for (VideoPanel viewer : viewers) {
+                restarts += supervisor.getRestartCount(viewer.getDeviceIndex());
+            }
+            group.releaseAll();
+
+            if (restarts < kills) {
+                failures.add(kills + " workers killed but only " + restarts + " restarted");
+            }
+            double averageFps = fpsSamples > 0 ? fpsSum / fpsSamples : 0;
+            if (averageFps < fps * minFpsRatio) {
+                failures.add(String.format(Locale.ROOT, "average %.1f fps per camera < %.1f", averageFps, fps * minFpsRatio));
+            }
+            System.out.printf(Locale.ROOT, "%d kills, %d restarts, %.1f fps per camera on average%n", kills, restarts, averageFps);
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            for (String failure : failures) {
+                System.out.println("FAIL: " + failure);
+            }
+            System.exit(1);
+        }
+    }
+
+    /** Frames read by all viewers (processed + skipped duplicates). */
+    private static long totalFrames(List<VideoPanel> viewers) {
+        long total = 0;
+        for (VideoPanel viewer : viewers) {
+            total += viewer.getProcessedFrameCount() + viewer.getSkippedFrameCount();
+        }
+        return total;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].startsWith("--")) {
+                opts.put(args[i].substring(2), args[i + 1]);
+            }
+        }
+        return opts;
+    }
+}
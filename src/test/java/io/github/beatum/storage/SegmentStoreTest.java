@@ -0,0 +1,176 @@
+package io.github.beatum.storage;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link SegmentStore}.
+ */
+public class SegmentStoreTest extends TestCase {
+
+    private Path root;
+
+    @Override
+    protected void setUp() throws Exception {
+        root = Files.createTempDirectory("segments");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testQuerySeekAndStepAcrossSegments() throws Exception {
+        SegmentStore store = newStore(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(store.append(0, 1000 + i * 10, payload(i)));
+            }
+            store.flush();
+
+            List<StoredFrame> range = store.query(0, 1020, 1060);
+            assertEquals(4, range.size());
+            assertEquals(1020, range.get(0).getTimestamp());
+            assertEquals(1050, range.get(3).getTimestamp());
+            assertEquals(payload(3)[0], store.read(range.get(1))[0]);
+
+            assertEquals(1030, store.floor(0, 1039).getTimestamp());
+            assertEquals(1040, store.ceiling(0, 1031).getTimestamp());
+            assertNull(store.floor(0, 999));
+            assertNull(store.ceiling(0, 1091));
+
+            // Step over the segment boundary (4 frames per segment)
+            StoredFrame f = store.first(0);
+            for (int i = 1; i < 10; i++) {
+                f = store.next(f);
+                assertEquals(1000 + i * 10, f.getTimestamp());
+            }
+            assertNull(store.next(f));
+            assertEquals(1080, store.previous(f).getTimestamp());
+            assertEquals(1030, store.previous(store.ceiling(0, 1040)).getTimestamp());
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testRejectsTimestampsGoingBackwards() throws Exception {
+        SegmentStore store = newStore(4);
+        try {
+            assertTrue(store.append(1, 500, payload(0)));
+            assertTrue(store.append(1, 500, payload(1)));
+            assertFalse(store.append(1, 499, payload(2)));
+            assertTrue(store.append(2, 100, payload(3))); // other device, own clock
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testReopenKeepsFramesAndContinuesInNewSegment() throws Exception {
+        SegmentStore store = newStore(4);
+        for (int i = 0; i < 6; i++) {
+            store.append(3, 2000 + i, payload(i));
+        }
+        store.close();
+
+        SegmentStore reopened = newStore(4);
+        try {
+            assertEquals(6, reopened.query(3, 0, Long.MAX_VALUE).size());
+            assertFalse(reopened.append(3, 1999, payload(0)));
+            assertTrue(reopened.append(3, 2006, payload(6)));
+            reopened.flush();
+
+            List<StoredFrame> all = reopened.query(3, 0, Long.MAX_VALUE);
+            assertEquals(7, all.size());
+            assertEquals(payload(6)[0], reopened.read(all.get(6))[0]);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    public void testSizeCapEvictsOldestSegmentsFirst() throws Exception {
+        SegmentStore store = newStore(2);
+        // Each segment: 2 frames of 100 bytes + 56 bytes of index
+        store.setMaxTotalBytes(3 * 256);
+        try {
+            for (int i = 0; i < 10; i++) {
+                store.append(0, i, new byte[100]);
+            }
+            store.flush();
+
+            assertTrue(store.getTotalBytes() <= 3 * 256);
+            assertTrue(store.getEvictedSegments() >= 2);
+            assertEquals(9, store.last(0).getTimestamp());
+            assertTrue(store.first(0).getTimestamp() > 0);
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testRetentionDropsExpiredSegments() throws Exception {
+        SegmentStore store = newStore(1);
+        store.setRetentionMs(60_000);
+        try {
+            long now = System.currentTimeMillis();
+            store.append(0, now - 120_000, payload(0));
+            store.append(0, now - 90_000, payload(1));
+            store.append(0, now, payload(2));
+            store.append(0, now + 1, payload(3));
+            store.flush();
+
+            assertEquals(now, store.first(0).getTimestamp());
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testIndexIsCountedAtItsSizeOnDisk() throws Exception {
+        SegmentStore store = newStore(100);
+        try {
+            for (int i = 0; i < 3; i++) {
+                store.append(0, i, new byte[100]);
+            }
+            store.flush();
+            // Active segment: the index is mapped for all 100 entries
+            assertEquals(300 + 16 + 100 * 20, store.getTotalBytes());
+            assertEquals(store.getTotalBytes(), diskBytes());
+        } finally {
+            store.close();
+        }
+        // Sealed on close: the index shrinks to the 3 entries written
+        assertEquals(300 + 16 + 3 * 20, diskBytes());
+
+        SegmentStore reopened = newStore(100);
+        try {
+            assertEquals(diskBytes(), reopened.getTotalBytes());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private long diskBytes() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private SegmentStore newStore(int framesPerSegment) throws IOException {
+        SegmentStore store = new SegmentStore(root);
+        store.setSegmentMaxFrames(framesPerSegment);
+        store.open();
+        return store;
+    }
+
+    private static byte[] payload(int i) {
+        byte[] data = new byte[16 + i];
+        data[0] = (byte) (i + 1);
+        return data;
+    }
+}
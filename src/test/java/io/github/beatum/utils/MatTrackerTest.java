@@ -0,0 +1,77 @@
+package io.github.beatum.utils;
+
+import io.github.beatum.utils.MatTracker.Suspect;
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link MatTracker}. Tracking is normally off in tests, so Mats are registered
+ * through the package-private entry point; owners and devices are unique per test because the
+ * tracker is process-wide.
+ */
+public class MatTrackerTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public void testGaugesByOwnerAndDevice() {
+        Mat transientMat = new Mat(10, 10, CvType.CV_8UC3);
+        Mat buffer = new Mat(10, 20, CvType.CV_8UC3);
+        MatTracker.register(transientMat, "test.gauges.a", 901, false);
+        MatTracker.register(buffer, "test.gauges.b", 901, true);
+
+        assertEquals(Long.valueOf(300), MatTracker.getLiveBytesByOwner().get("test.gauges.a"));
+        assertEquals(Long.valueOf(600), MatTracker.getLiveBytesByOwner().get("test.gauges.b"));
+        assertEquals(Long.valueOf(900), MatTracker.getLiveBytesByDevice().get(901));
+
+        // Sizes are read on demand: a reused buffer that grows and a released Mat are seen as they are now
+        buffer.create(20, 20, CvType.CV_8UC3);
+        transientMat.release();
+        assertNull(MatTracker.getLiveBytesByOwner().get("test.gauges.a"));
+        assertEquals(Long.valueOf(1200), MatTracker.getLiveBytesByDevice().get(901));
+        buffer.release();
+        assertNull(MatTracker.getLiveBytesByDevice().get(901));
+    }
+
+    public void testTransientMatsBecomeSuspectsWithAge() throws Exception {
+        Mat leaked = new Mat(8, 8, CvType.CV_8UC1);
+        MatTracker.register(leaked, "test.suspects", 902, false);
+        Thread.sleep(20);
+
+        Suspect suspect = find(MatTracker.findSuspects(10), "test.suspects");
+        assertNotNull(suspect);
+        assertEquals(902, suspect.getDevice());
+        assertEquals(64, suspect.getBytes());
+        assertTrue(suspect.getAgeMs() >= 10);
+        assertTrue("allocation site recorded", suspect.getSite().length > 0);
+        assertNull("younger than the leak age", find(MatTracker.findSuspects(60_000), "test.suspects"));
+
+        leaked.release();
+        assertNull("released Mats are no suspects", find(MatTracker.findSuspects(0), "test.suspects"));
+    }
+
+    public void testRegisteringAgainMakesABuffer() {
+        Mat reused = new Mat(4, 4, CvType.CV_8UC1);
+        MatTracker.register(reused, "test.reuse.first", 903, false);
+        assertNotNull(find(MatTracker.findSuspects(0), "test.reuse.first"));
+
+        // e.g. a filter returning its own output Mat on every frame
+        MatTracker.register(reused, "test.reuse.second", 903, false);
+        assertNull(find(MatTracker.findSuspects(0), "test.reuse.first"));
+        assertEquals("first owner kept", Long.valueOf(16), MatTracker.getLiveBytesByOwner().get("test.reuse.first"));
+        assertNull(MatTracker.getLiveBytesByOwner().get("test.reuse.second"));
+        reused.release();
+    }
+
+    private static Suspect find(List<Suspect> suspects, String owner) {
+        for (Suspect s : suspects) {
+            if (s.getOwner().equals(owner)) return s;
+        }
+        return null;
+    }
+}
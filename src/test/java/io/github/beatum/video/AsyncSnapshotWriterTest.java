@@ -0,0 +1,236 @@
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link AsyncSnapshotWriter}.
+ */
+public class AsyncSnapshotWriterTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /** 80x60 BGR = 14400 bytes per frame. */
+    private static final long FRAME_BYTES = 80 * 60 * 3;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("snapshots");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testWritesFilesAndCountsThem() throws Exception {
+        SnapshotOptions options = new SnapshotOptions();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        try (AsyncSnapshotWriter writer = new AsyncSnapshotWriter(2, 16 * FRAME_BYTES)) {
+            for (String name : new String[]{"a.png", "b.jpg", "c.png"}) {
+                futures.add(writer.submit(frame(), dir.resolve(name), options));
+            }
+            long written = 0;
+            for (CompletableFuture<Boolean> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS));
+            }
+            for (String name : new String[]{"a.png", "b.jpg", "c.png"}) {
+                Path file = dir.resolve(name);
+                written += Files.size(file);
+                Mat decoded = Imgcodecs.imread(file.toString());
+                assertEquals(80, decoded.cols());
+                assertEquals(60, decoded.rows());
+                decoded.release();
+            }
+
+            assertEquals(3, writer.getCompletedCount());
+            assertEquals(0, writer.getFailedCount());
+            assertEquals(0, writer.getRejectedCount());
+            assertEquals(written, writer.getBytesWritten());
+            assertEquals(0, writer.getQueuedBytes());
+            assertTrue(writer.getEncodeNanos() > 0);
+            assertTrue(writer.getEncodeFramesPerSecond() > 0);
+        }
+    }
+
+    public void testFrameAboveTheByteCapIsRejected() throws Exception {
+        try (AsyncSnapshotWriter writer = new AsyncSnapshotWriter(1, FRAME_BYTES - 1)) {
+            Mat frame = frame();
+            CompletableFuture<Boolean> future = writer.submit(frame, dir.resolve("big.png"), new SnapshotOptions());
+
+            assertTrue("completed without waiting", future.isDone());
+            assertFalse(future.get());
+            assertTrue("ownership taken: released", frame.empty());
+            assertEquals(1, writer.getRejectedCount());
+            assertEquals(0, writer.getQueuedBytes());
+            assertFalse(Files.exists(dir.resolve("big.png")));
+        }
+    }
+
+    public void testFailuresCompleteWithFalse() throws Exception {
+        SnapshotOptions options = new SnapshotOptions();
+        try (AsyncSnapshotWriter writer = new AsyncSnapshotWriter(1, 16 * FRAME_BYTES)) {
+            assertFalse("empty frame", writer.submit(new Mat(), dir.resolve("empty.png"), options)
+                    .get(5, TimeUnit.SECONDS));
+            assertFalse("missing directory", writer.submit(frame(), dir.resolve("missing/x.png"), options)
+                    .get(5, TimeUnit.SECONDS));
+            assertFalse("unknown codec", writer.submit(frame(), dir.resolve("x.unknown"), options)
+                    .get(5, TimeUnit.SECONDS));
+
+            assertEquals(3, writer.getFailedCount());
+            assertEquals(0, writer.getCompletedCount());
+            assertEquals(0, writer.getQueuedBytes());
+        }
+    }
+
+    public void testClosedWriterRejects() throws Exception {
+        AsyncSnapshotWriter writer = new AsyncSnapshotWriter(1, 16 * FRAME_BYTES);
+        assertTrue(writer.shutdown(1000));
+        assertFalse(writer.submit(frame(), dir.resolve("late.png"), new SnapshotOptions()).get());
+        assertEquals(1, writer.getRejectedCount());
+        assertEquals(0, writer.getQueuedBytes());
+    }
+
+    public void testRecordAppliesTheCodecOptions() throws Exception {
+        VideoPanel viewer = new VideoPanel(new NoiseSource(320, 240), 0);
+        SegmentStore store = new SegmentStore(dir.resolve("store"));
+        store.open();
+        try (AsyncSnapshotWriter writer = new AsyncSnapshotWriter(1, 16L << 20)) {
+            viewer.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (viewer.getProcessedFrameCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // With and without the dot: both must use the JPEG options
+            SnapshotOptions low = new SnapshotOptions();
+            low.setJpegQuality(5);
+            SnapshotOptions high = new SnapshotOptions();
+            high.setJpegQuality(100);
+            assertTrue(writer.record(viewer, store, ".jpg", low).get(5, TimeUnit.SECONDS));
+            assertTrue(writer.record(viewer, store, "jpg", high).get(5, TimeUnit.SECONDS));
+            store.flush();
+
+            List<StoredFrame> frames = store.query(0, 0, Long.MAX_VALUE);
+            assertEquals(2, frames.size());
+            byte[] lowBytes = store.read(frames.get(0));
+            byte[] highBytes = store.read(frames.get(1));
+            assertTrue(lowBytes.length + " vs " + highBytes.length, lowBytes.length * 4 < highBytes.length);
+            Mat decoded = Imgcodecs.imdecode(new MatOfByte(lowBytes), Imgcodecs.IMREAD_UNCHANGED);
+            assertEquals(320, decoded.cols());
+            decoded.release();
+        } finally {
+            viewer.close();
+            store.close();
+        }
+    }
+
+    public void testParallelRecordsAreAppendedInOrder() throws Exception {
+        VideoPanel viewer = new VideoPanel(new SyntheticFrameSource(320, 240, 30), 0);
+        SegmentStore store = new SegmentStore(dir.resolve("store"));
+        store.open();
+        // Alternating quality makes later frames finish encoding before earlier ones
+        SnapshotOptions slow = new SnapshotOptions();
+        slow.setJpegQuality(100);
+        SnapshotOptions fast = new SnapshotOptions();
+        fast.setJpegQuality(5);
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        try (AsyncSnapshotWriter writer = new AsyncSnapshotWriter(4, 256L << 20)) {
+            viewer.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (viewer.getProcessedFrameCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            for (int i = 0; i < 200; i++) {
+                futures.add(writer.record(viewer, store, ".jpg", i % 2 == 0 ? slow : fast));
+            }
+            for (CompletableFuture<Boolean> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+            store.flush();
+
+            List<StoredFrame> frames = store.query(0, 0, Long.MAX_VALUE);
+            assertEquals(200, frames.size());
+            for (int i = 1; i < frames.size(); i++) {
+                assertTrue(frames.get(i - 1).getTimestamp() <= frames.get(i).getTimestamp());
+            }
+            assertEquals(200, writer.getCompletedCount());
+            assertEquals(0, writer.getFailedCount());
+        } finally {
+            viewer.close();
+            store.close();
+        }
+    }
+
+    /**
+     * Repeats one noisy frame. Flat synthetic frames encode to a few KB at any quality, so their
+     * JPEG sizes hardly tell the codec options apart.
+     */
+    private static final class NoiseSource implements IFrameSource {
+
+        private final Mat pattern;
+        private volatile boolean opened;
+
+        NoiseSource(int width, int height) {
+            pattern = new Mat(height, width, CvType.CV_8UC3);
+            Core.randu(pattern, 0, 256);
+        }
+
+        @Override
+        public boolean open() {
+            opened = true;
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return opened;
+        }
+
+        @Override
+        public boolean read(Mat frame) {
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            pattern.copyTo(frame);
+            return opened;
+        }
+
+        @Override
+        public void release() {
+            opened = false;
+        }
+    }
+
+    private static Mat frame() {
+        Mat frame = new Mat(60, 80, CvType.CV_8UC3, new Scalar(20, 120, 220));
+        assertEquals(FRAME_BYTES, frame.total() * frame.elemSize());
+        return frame;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Unit tests for {@link CameraWallLayout}.
+ */
+public class CameraWallLayoutTest extends TestCase {
+
+    public void testGridFollowsContainerAspect() {
+        // 16:9 cameras in a 16:9 window: 6 -> 3x2, 16 -> 4x4, 64 -> 8x8
+        assertEquals(new Dimension(3, 2), CameraWallLayout.computeGrid(6, 1920, 1080, 0, 0, 16 / 9.0));
+        assertEquals(new Dimension(4, 4), CameraWallLayout.computeGrid(16, 1920, 1080, 0, 0, 16 / 9.0));
+        assertEquals(new Dimension(8, 8), CameraWallLayout.computeGrid(64, 1920, 1080, 0, 0, 16 / 9.0));
+        // Tall window stacks cameras vertically
+        assertEquals(new Dimension(1, 4), CameraWallLayout.computeGrid(4, 400, 1200, 0, 0, 16 / 9.0));
+        assertEquals(new Dimension(0, 0), CameraWallLayout.computeGrid(0, 1920, 1080, 0, 0, 16 / 9.0));
+    }
+
+    public void testHiddenComponentsTakeNoCell() {
+        JPanel wall = new JPanel(new CameraWallLayout(0, 0));
+        wall.setSize(1600, 900);
+        JPanel hidden = new JPanel();
+        hidden.setVisible(false);
+        JPanel a = new JPanel();
+        JPanel b = new JPanel();
+        wall.add(a);
+        wall.add(hidden);
+        wall.add(b);
+        wall.doLayout();
+
+        // Two live cells side by side, full height
+        assertEquals(new Rectangle(0, 0, 800, 900), a.getBounds());
+        assertEquals(new Rectangle(800, 0, 800, 900), b.getBounds());
+    }
+
+    public void testPaginationParksOtherPages() {
+        CameraWallLayout layout = new CameraWallLayout(0, 0);
+        layout.setMaxPerPage(4);
+        JPanel wall = new JPanel(layout);
+        wall.setSize(1600, 900);
+        JPanel[] cells = new JPanel[6];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new JPanel();
+            wall.add(cells[i]);
+        }
+        assertEquals(2, layout.getPageCount(wall));
+
+        layout.setPage(1);
+        wall.doLayout();
+        assertEquals(new Rectangle(0, 0, 0, 0), cells[0].getBounds());
+        assertEquals(new Rectangle(0, 0, 800, 900), cells[4].getBounds());
+        assertEquals(new Rectangle(800, 0, 800, 900), cells[5].getBounds());
+
+        // Out-of-range page is clamped to the last one
+        layout.setPage(7);
+        wall.doLayout();
+        assertEquals(1, layout.getPage());
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link CaptureProfile} and {@link CaptureProfileStore}.
+ */
+public class CaptureProfileTest extends TestCase {
+
+    public void testParseAndSpecRoundTrip() {
+        CaptureProfile p = CaptureProfile.parse("mjpg 1920x1080@30 buf=1 rgb=0");
+        assertEquals("MJPG", p.getFourcc());
+        assertEquals(1920, p.getWidth());
+        assertEquals(1080, p.getHeight());
+        assertEquals(30.0, p.getFps());
+        assertEquals(1, p.getBufferSize());
+        assertEquals(Boolean.FALSE, p.getConvertRgb());
+        assertEquals("MJPG 1920x1080@30 buf=1 rgb=0", p.toSpec());
+        assertEquals(p, CaptureProfile.parse(p.toSpec()));
+    }
+
+    public void testParseRejectsUnknownToken() {
+        try {
+            CaptureProfile.parse("1280x720 turbo");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    public void testSatisfiedByIgnoresBestEffortProperties() {
+        CaptureProfile requested = CaptureProfile.parse("MJPG 1280x720@30 buf=1");
+        assertTrue(requested.isSatisfiedBy(CaptureProfile.parse("MJPG 1280x720@29.97 buf=4")));
+        assertFalse(requested.isSatisfiedBy(CaptureProfile.parse("YUYV 1280x720@30")));
+        assertFalse(requested.isSatisfiedBy(CaptureProfile.parse("MJPG 640x480@30")));
+    }
+
+    public void testDecodeFourcc() {
+        int mjpg = 'M' | ('J' << 8) | ('P' << 16) | ('G' << 24);
+        assertEquals("MJPG", CaptureProfile.decodeFourcc(mjpg));
+        assertNull(CaptureProfile.decodeFourcc(0));
+    }
+
+    public void testStoreKeepsCandidateOrder() throws Exception {
+        Path file = Files.createTempFile("profiles", ".properties");
+        try {
+            Map<Integer, List<CaptureProfile>> profiles = new HashMap<>();
+            profiles.put(2, Arrays.asList(
+                    CaptureProfile.parse("MJPG 1920x1080@30"),
+                    CaptureProfile.parse("YUYV 1280x720"),
+                    CaptureProfile.ofSize(640, 480)));
+            CaptureProfileStore.save(file, profiles);
+
+            Map<Integer, List<CaptureProfile>> loaded = CaptureProfileStore.load(file);
+            assertEquals(profiles, loaded);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link CaptureWorkerSupervisor}: ring sizing and workers whose frames do not fit.
+ */
+public class CaptureWorkerSupervisorTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private CaptureWorkerSupervisor workers;
+
+    @Override
+    protected void setUp() throws Exception {
+        workers = new CaptureWorkerSupervisor(Files.createTempDirectory("rings"));
+    }
+
+    @Override
+    protected void tearDown() {
+        workers.close();
+    }
+
+    public void testRingIsSizedForTheLargestProfile() {
+        workers.setCaptureProfiles(0, Arrays.asList(CaptureProfile.ofSize(1280, 720), CaptureProfile.ofSize(3840, 2160)));
+
+        assertEquals(3840L * 2160 * 3, ((FrameRingSource) workers.create(0)).getRing().getSlotBytes());
+        assertEquals("default", 1920L * 1080 * 3, ((FrameRingSource) workers.create(1)).getRing().getSlotBytes());
+    }
+
+    public void testOversizeFramesAreReportedInsteadOfDropped() {
+        workers.setSyntheticSource(640, 360, 30);
+        workers.setMaxFrameBytes(320 * 180 * 3);
+        workers.setOpenTimeoutMs(30_000);
+        IFrameSource source = workers.create(0);
+
+        long start = System.currentTimeMillis();
+        assertFalse(source.open());
+        assertTrue("gave up before the open timeout", System.currentTimeMillis() - start < 20_000);
+        String failure = workers.getFailure(0);
+        assertNotNull(failure);
+        assertTrue(failure, failure.contains(String.valueOf(320 * 180 * 3)));
+        assertEquals("not restarted", 0, workers.getRestartCount(0));
+        assertNull(workers.getWorkerProcess(0));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests for {@link DeviceCapabilityCache}.
+ */
+public class DeviceCapabilityCacheTest extends TestCase {
+
+    private static final int DSHOW = 700;
+    private static final int MSMF = 1400;
+
+    public void testSaveAndOpenRoundTrip() throws Exception {
+        Path file = Files.createTempFile("devices", ".properties");
+        try {
+            DeviceCapabilityCache cache = DeviceCapabilityCache.open(file);
+            cache.put(0, new DeviceCapabilityCache.Entry(DSHOW, "DSHOW", true,
+                    CaptureProfile.parse("MJPG 1920x1080@30 buf=1 rgb=1"),
+                    CaptureProfile.parse("MJPG 1920x1080@30"), 1234L));
+            cache.put(3, new DeviceCapabilityCache.Entry(DSHOW, null, false, null, null, 5678L));
+            cache.save();
+
+            DeviceCapabilityCache loaded = DeviceCapabilityCache.open(file);
+            DeviceCapabilityCache.Entry known = loaded.get(0);
+            assertNotNull(known);
+            assertEquals(DSHOW, known.getApiPreference());
+            assertEquals("DSHOW", known.getBackend());
+            assertTrue(known.isAvailable());
+            assertEquals("MJPG 1920x1080@30 buf=1 rgb=1", known.getProfile().toSpec());
+            assertEquals(CaptureProfile.parse("MJPG 1920x1080@30"), known.getCandidate());
+            assertEquals(1234L, known.getVerifiedAt());
+
+            DeviceCapabilityCache.Entry empty = loaded.get(3);
+            assertFalse(empty.isAvailable());
+            assertNull(empty.getProfile());
+            assertNull(empty.getCandidate());
+            assertNull(loaded.get(1));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testMissingOrCorruptFileGivesEmptyCache() throws Exception {
+        Path file = Files.createTempFile("devices", ".properties");
+        try {
+            Files.write(file, "device.0.api=700\ndevice.0.verified=oops\ndevice.x.verified=1\n".getBytes("ISO-8859-1"));
+            assertNull(DeviceCapabilityCache.open(file).get(0));
+            Files.delete(file);
+            assertNull(DeviceCapabilityCache.open(file).get(0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void testFreshness() {
+        DeviceCapabilityCache cache = DeviceCapabilityCache.open(Path.of("unused-devices.properties"));
+        long now = System.currentTimeMillis();
+        DeviceCapabilityCache.Entry known = new DeviceCapabilityCache.Entry(DSHOW, "DSHOW", true, null, null, now - 60_000);
+        DeviceCapabilityCache.Entry empty = new DeviceCapabilityCache.Entry(DSHOW, null, false, null, null, now - 60_000);
+
+        assertTrue(cache.isFresh(known, DSHOW));
+        assertFalse("other backend", cache.isFresh(known, MSMF));
+        assertFalse(cache.isFresh(null, DSHOW));
+        assertTrue(cache.isFresh(empty, DSHOW));
+
+        cache.setMaxFailureAgeMs(30_000);
+        assertFalse("empty indices expire sooner", cache.isFresh(empty, DSHOW));
+        assertTrue(cache.isFresh(known, DSHOW));
+
+        cache.setMaxAgeMs(30_000);
+        assertFalse(cache.isFresh(known, DSHOW));
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+
+import javax.swing.JPanel;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link DeviceGroup}: one device hanging in a driver call is abandoned at the
+ * lifecycle deadline while the others complete, and keeps the device until it returns; capture
+ * profile candidates fall back in order when a driver grants only part of one.
+ */
+public class DeviceGroupTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private static final long DEADLINE_MS = 400;
+
+    /** Lets hung driver calls return once the test is done. */
+    private final CountDownLatch driver = new CountDownLatch(1);
+
+    @Override
+    protected void tearDown() {
+        driver.countDown();
+    }
+
+    public void testHungReleaseIsAbandonedAtTheDeadline() throws Exception {
+        DeviceGroup group = new DeviceGroup(new JPanel(new GridLayout(1, 3)), 3,
+                index -> index == 1 ? new HangingSource(false, true) : new SyntheticFrameSource(64, 48, 30));
+        assertEquals(3, group.getViewers().size());
+        assertEquals(Map.of(0, LifecycleOutcome.COMPLETED, 1, LifecycleOutcome.COMPLETED, 2, LifecycleOutcome.COMPLETED),
+                group.openAllAsync(2000).get(3, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Map<Integer, LifecycleOutcome> outcomes = group.releaseAllAsync(DEADLINE_MS).get(3, TimeUnit.SECONDS);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Map.of(0, LifecycleOutcome.COMPLETED, 1, LifecycleOutcome.ABANDONED, 2, LifecycleOutcome.COMPLETED),
+                outcomes);
+        assertTrue("completed after " + elapsedMs + " ms", elapsedMs >= DEADLINE_MS - 50 && elapsedMs < DEADLINE_MS + 600);
+    }
+
+    public void testHungOpenIsAbandonedAtTheDeadline() throws Exception {
+        DeviceGroup group = new DeviceGroup(new JPanel(new GridLayout(1, 3)), 3,
+                index -> index == 1 ? new HangingSource(true, false) : new SyntheticFrameSource(64, 48, 30));
+        try {
+            // The probed sources stay open: stop them so the next start opens them again
+            assertEquals(Map.of(0, LifecycleOutcome.COMPLETED, 1, LifecycleOutcome.COMPLETED, 2, LifecycleOutcome.COMPLETED),
+                    group.stopAllAsync(2000).get(3, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            Map<Integer, LifecycleOutcome> outcomes = group.openAllAsync(DEADLINE_MS).get(3, TimeUnit.SECONDS);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(Map.of(0, LifecycleOutcome.COMPLETED, 1, LifecycleOutcome.ABANDONED, 2, LifecycleOutcome.COMPLETED),
+                    outcomes);
+            assertTrue("completed after " + elapsedMs + " ms", elapsedMs >= DEADLINE_MS - 50 && elapsedMs < DEADLINE_MS + 600);
+        } finally {
+            driver.countDown();
+            group.releaseAllAsync(2000).get(3, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testAbandonedDeviceIsNotReopenedUntilItFinishes() throws Exception {
+        HangingSource hanging = new HangingSource(false, true);
+        DeviceGroup group = new DeviceGroup(new JPanel(new GridLayout(1, 3)), 3,
+                index -> index == 1 ? hanging : new SyntheticFrameSource(64, 48, 30));
+        try {
+            group.openAllAsync(2000).get(3, TimeUnit.SECONDS);
+            assertEquals(LifecycleOutcome.ABANDONED, group.stopAllAsync(DEADLINE_MS).get(3, TimeUnit.SECONDS).get(1));
+            assertTrue(group.isAbandoned(1));
+            assertFalse(group.isAbandoned(0));
+
+            // Still being released: the open waits for it instead of racing it
+            Map<Integer, LifecycleOutcome> outcomes = group.openAllAsync(DEADLINE_MS).get(3, TimeUnit.SECONDS);
+            assertEquals(Map.of(0, LifecycleOutcome.COMPLETED, 1, LifecycleOutcome.ABANDONED, 2, LifecycleOutcome.COMPLETED),
+                    outcomes);
+            assertEquals("only the probe opened it", 1, hanging.opens.get());
+
+            // Once the release returns, the waiting open runs
+            driver.countDown();
+            long deadline = System.currentTimeMillis() + 3000;
+            while (group.isAbandoned(1) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(group.isAbandoned(1));
+            assertEquals(2, hanging.opens.get());
+            assertTrue(hanging.isOpened());
+        } finally {
+            group.releaseAllAsync(2000).get(3, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testReleasedGroupCannotBeOpened() throws Exception {
+        DeviceGroup group = new DeviceGroup(new JPanel(new GridLayout(1, 2)), 2,
+                index -> new SyntheticFrameSource(64, 48, 30));
+        group.releaseAll();
+        assertEquals(Map.of(0, LifecycleOutcome.FAILED, 1, LifecycleOutcome.FAILED),
+                group.openAllAsync(DEADLINE_MS).get(3, TimeUnit.SECONDS));
+    }
+
+    public void testPartiallyGrantedProfileFallsBackToTheNextCandidate() throws Exception {
+        PartialDriver driver = new PartialDriver();
+        DeviceGroup group = new DeviceGroup(new JPanel(new GridLayout(1, 1)), 1,
+                index -> new VideoCaptureSource(driver, index, Videoio.CAP_ANY));
+        CaptureProfile mjpg = CaptureProfile.parse("MJPG 1920x1080@30");
+        CaptureProfile yuyv = CaptureProfile.parse("YUYV 1280x720");
+        group.setCaptureProfiles(0, Arrays.asList(mjpg, yuyv, CaptureProfile.ofSize(640, 480)));
+        try {
+            assertEquals(LifecycleOutcome.COMPLETED, group.openAllAsync(2000).get(3, TimeUnit.SECONDS).get(0));
+
+            VideoPanel viewer = group.getViewers().get(0);
+            // MJPG is refused while its size is clamped to 1280x720: not satisfied, so YUYV is tried
+            assertEquals(yuyv, viewer.getNegotiatedCandidate());
+            assertEquals("YUYV", viewer.getNegotiatedProfile().getFourcc());
+            assertEquals(1280, viewer.getNegotiatedProfile().getWidth());
+            assertEquals("tried in order, stopped at the first satisfied", Arrays.asList(1920, 1280), driver.requestedWidths);
+        } finally {
+            group.releaseAllAsync(2000).get(3, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A capture driver that only delivers YUYV up to 1280x720: it ignores other formats and clamps
+     * larger sizes, like a camera granting only part of a profile.
+     */
+    private static final class PartialDriver extends VideoCapture {
+
+        private static final double YUYV = VideoWriter.fourcc('Y', 'U', 'Y', 'V');
+
+        private final List<Integer> requestedWidths = new ArrayList<>();
+        private volatile boolean opened;
+        private volatile int width = 640;
+        private volatile int height = 480;
+
+        @Override
+        public boolean open(int index, int apiPreference) {
+            opened = true;
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return opened;
+        }
+
+        @Override
+        public boolean read(Mat frame) {
+            if (!opened) return false;
+            frame.create(height, width, CvType.CV_8UC3);
+            frame.setTo(Scalar.all(128));
+            return true;
+        }
+
+        @Override
+        public void release() {
+            opened = false;
+        }
+
+        @Override
+        public boolean set(int property, double value) {
+            switch (property) {
+                case Videoio.CAP_PROP_FOURCC:
+                    return value == YUYV;
+                case Videoio.CAP_PROP_FRAME_WIDTH:
+                    requestedWidths.add((int) value);
+                    width = Math.min((int) value, 1280);
+                    return true;
+                case Videoio.CAP_PROP_FRAME_HEIGHT:
+                    height = Math.min((int) value, 720);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public double get(int property) {
+            switch (property) {
+                case Videoio.CAP_PROP_FOURCC:
+                    return YUYV;
+                case Videoio.CAP_PROP_FRAME_WIDTH:
+                    return width;
+                case Videoio.CAP_PROP_FRAME_HEIGHT:
+                    return height;
+                case Videoio.CAP_PROP_FPS:
+                    return 30;
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    /**
+     * A source whose driver blocks in {@code open()} (after the group's probe) or in
+     * {@code release()} until the test ends, ignoring interrupts.
+     */
+    private final class HangingSource extends SyntheticFrameSource {
+
+        private final boolean hangInOpen;
+        private final boolean hangInRelease;
+        private final AtomicInteger opens = new AtomicInteger();
+
+        HangingSource(boolean hangInOpen, boolean hangInRelease) {
+            super(64, 48, 30);
+            this.hangInOpen = hangInOpen;
+            this.hangInRelease = hangInRelease;
+        }
+
+        @Override
+        public boolean open() {
+            // The first open is DeviceGroup's probe; start() does not open an open source
+            if (opens.incrementAndGet() > 1 && hangInOpen) hang();
+            return super.open();
+        }
+
+        @Override
+        public void release() {
+            if (hangInRelease) hang();
+            super.release();
+        }
+
+        private void hang() {
+            while (true) {
+                try {
+                    if (driver.await(10, TimeUnit.SECONDS)) return;
+                } catch (InterruptedException ignored) {
+                    // a driver call does not notice interrupts
+                }
+            }
+        }
+    }
+}
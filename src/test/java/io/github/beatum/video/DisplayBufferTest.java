@@ -0,0 +1,112 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Unit tests for {@link DisplayBuffer}: resizing before the conversion must look like the old
+ * path (convert at source size, then resize) within rounding and chroma-siting differences.
+ */
+public class DisplayBufferTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /** Odd display size, so YUYV is resized to width + 1 and cropped. */
+    private static final int W = 161;
+    private static final int H = 121;
+
+    private static final int SRC_W = 640;
+    private static final int SRC_H = 480;
+
+    public void testGray() {
+        Mat src = pattern(1, CvType.CV_8U, 1);
+        assertMatches(src, src, 0, 0);
+    }
+
+    public void testBgra() {
+        Mat src = pattern(4, CvType.CV_8U, 1);
+        Mat converted = new Mat();
+        Imgproc.cvtColor(src, converted, Imgproc.COLOR_BGRA2BGR);
+        assertMatches(src, converted, 0, 0);
+    }
+
+    public void testYuyvWithOddDisplayWidth() {
+        Mat src = pattern(2, CvType.CV_8U, 1);
+        Mat converted = new Mat();
+        Imgproc.cvtColor(src, converted, Imgproc.COLOR_YUV2BGR_YUYV);
+        // Pairs are interpolated at pair sites and the odd width is resized to W + 1 and cropped,
+        // so steep chroma shifts by up to a display pixel
+        assertMatches(src, converted, 6, 40);
+    }
+
+    public void testSixteenBit() {
+        Mat src = pattern(1, CvType.CV_16U, 256);
+        Mat converted = new Mat();
+        src.convertTo(converted, CvType.CV_8U, 1 / 256.0);
+        assertMatches(src, converted, 0.5, 1);
+    }
+
+    /**
+     * Renders {@code src} and compares the image with {@code converted} resized to display size.
+     *
+     * @param maxMeanDiff allowed mean absolute difference per channel value
+     * @param maxDiff allowed largest difference of a single value
+     */
+    private static void assertMatches(Mat src, Mat converted, double maxMeanDiff, double maxDiff) {
+        Mat expected = new Mat();
+        Imgproc.resize(converted, expected, new Size(W, H));
+
+        DisplayBuffer buffer = new DisplayBuffer();
+        BufferedImage image = buffer.render(src, W, H);
+        assertEquals(W, image.getWidth());
+        assertEquals(H, image.getHeight());
+        assertEquals(expected.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR,
+                image.getType());
+
+        Mat actual = new Mat(H, W, expected.type());
+        actual.put(0, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+        Mat diff = new Mat();
+        Core.absdiff(actual, expected, diff);
+        Scalar sum = Core.sumElems(diff);
+        double mean = 0;
+        for (int c = 0; c < diff.channels(); c++) mean += sum.val[c];
+        mean /= diff.total() * diff.channels();
+        double max = Core.norm(diff, Core.NORM_INF);
+        assertTrue("mean difference " + mean, mean <= maxMeanDiff);
+        assertTrue("largest difference " + max, max <= maxDiff);
+
+        buffer.release();
+        for (Mat m : new Mat[]{src, converted, expected, actual, diff}) m.release();
+    }
+
+    /**
+     * A smooth source frame: each channel is a differently oriented gradient plus a ripple.
+     */
+    private static Mat pattern(int channels, int depth, int scale) {
+        Mat mat = new Mat(SRC_H, SRC_W, CvType.makeType(depth, channels));
+        int n = SRC_W * channels;
+        double[] row = new double[n];
+        for (int y = 0; y < SRC_H; y++) {
+            for (int x = 0; x < SRC_W; x++) {
+                for (int c = 0; c < channels; c++) {
+                    double v = c % 2 == 0
+                            ? 255.0 * (x + c * y) / (SRC_W + c * SRC_H)
+                            : 128 + 100 * Math.sin((x + y * c) / 40.0);
+                    row[x * channels + c] = Math.min(255, v) * scale;
+                }
+            }
+            mat.put(y, 0, row);
+        }
+        return mat;
+    }
+}
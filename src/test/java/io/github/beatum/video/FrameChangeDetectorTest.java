@@ -0,0 +1,106 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+
+/**
+ * Unit tests for {@link FrameChangeDetector}.
+ */
+public class FrameChangeDetectorTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private FrameChangeDetector detector;
+    private Mat frame;
+
+    @Override
+    protected void setUp() {
+        detector = new FrameChangeDetector();
+        frame = new Mat(360, 640, CvType.CV_8UC3);
+        Core.randu(frame, 20, 200);
+    }
+
+    @Override
+    protected void tearDown() {
+        detector.release();
+        frame.release();
+    }
+
+    public void testIdenticalFrameIsUnchanged() {
+        assertTrue("first frame", detector.hasChanged(frame, 0));
+        assertFalse(detector.hasChanged(frame, 0));
+        Mat copy = frame.clone();
+        assertFalse("same pixels in another buffer", detector.hasChanged(copy, 0));
+        copy.release();
+    }
+
+    public void testSubThresholdChangeIsIgnored() {
+        assertTrue(detector.hasChanged(frame, 3));
+        Core.add(frame, new Scalar(2, 2, 2), frame);
+        assertFalse(detector.hasChanged(frame, 3));
+        assertTrue("any change with threshold 0", detector.hasChanged(frame, 0));
+    }
+
+    public void testAboveThresholdChangeIsDetected() {
+        assertTrue(detector.hasChanged(frame, 3));
+        Core.add(frame, new Scalar(10, 10, 10), frame);
+        assertTrue(detector.hasChanged(frame, 3));
+        assertFalse("new reference", detector.hasChanged(frame, 3));
+    }
+
+    public void testSmallLocalizedChangeIsDetected() {
+        assertTrue(detector.hasChanged(frame, 3));
+        // A 20x20 object on a 640x360 frame: a handful of the 64x36 samples, far below 3 on average
+        Mat object = frame.submat(new Rect(300, 170, 20, 20));
+        object.setTo(new Scalar(255, 255, 255));
+        assertTrue(detector.hasChanged(frame, 3));
+        assertFalse(detector.hasChanged(frame, 3));
+        object.release();
+    }
+
+    public void testSlowDriftAccumulates() {
+        assertTrue(detector.hasChanged(frame, 3));
+        Core.add(frame, new Scalar(2, 2, 2), frame);
+        assertFalse(detector.hasChanged(frame, 3));
+        // Compared with the last changed frame, not the previous one: 4 > 3
+        Core.add(frame, new Scalar(2, 2, 2), frame);
+        assertTrue(detector.hasChanged(frame, 3));
+    }
+
+    public void testSizeOrTypeChangeIsDetected() {
+        assertTrue(detector.hasChanged(frame, 255));
+
+        Mat larger = new Mat(720, 1280, CvType.CV_8UC3, Scalar.all(0));
+        assertTrue("size", detector.hasChanged(larger, 255));
+        assertFalse(detector.hasChanged(larger, 255));
+
+        Mat gray = new Mat(720, 1280, CvType.CV_8UC1, Scalar.all(0));
+        assertTrue("type", detector.hasChanged(gray, 255));
+
+        Mat deep = new Mat(720, 1280, CvType.CV_16UC1, Scalar.all(0));
+        assertTrue("16-bit frames are not sampled", detector.hasChanged(deep, 255));
+        assertTrue(detector.hasChanged(deep, 255));
+
+        larger.release();
+        gray.release();
+        deep.release();
+    }
+
+    public void testNegativeThresholdDisablesDetection() {
+        assertTrue(detector.hasChanged(frame, -1));
+        assertTrue(detector.hasChanged(frame, -1));
+    }
+
+    public void testResetForgetsTheReference() {
+        assertTrue(detector.hasChanged(frame, 0));
+        detector.reset();
+        assertTrue(detector.hasChanged(frame, 0));
+        assertFalse(detector.hasChanged(frame, 0));
+    }
+}
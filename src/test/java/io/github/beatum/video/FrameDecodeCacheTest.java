@@ -0,0 +1,130 @@
+package io.github.beatum.video;
+
+import io.github.beatum.storage.SegmentStore;
+import io.github.beatum.storage.StoredFrame;
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Scalar;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link FrameDecodeCache} (no decode threads: requests are decoded with
+ * {@link FrameDecodeCache#decodeNext()}, so the order is deterministic).
+ */
+public class FrameDecodeCacheTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    /** Display size of every request: 40x30 BGR = 3600 bytes per cached frame. */
+    private static final int W = 40;
+    private static final int H = 30;
+    private static final long FRAME_BYTES = W * H * 3;
+
+    private Path root;
+    private SegmentStore store;
+    private List<StoredFrame> frames;
+
+    @Override
+    protected void setUp() throws Exception {
+        root = Files.createTempDirectory("decode-cache");
+        store = new SegmentStore(root);
+        store.open();
+        Mat image = new Mat(H * 2, W * 2, CvType.CV_8UC3);
+        MatOfByte png = new MatOfByte();
+        for (int i = 0; i < 8; i++) {
+            image.setTo(new Scalar(i * 30, 0, 0));
+            Imgcodecs.imencode(".png", image, png);
+            store.append(0, 1000 + i, png.toArray());
+        }
+        image.release();
+        png.release();
+        store.flush();
+        frames = store.query(0, 0, Long.MAX_VALUE);
+        assertEquals(8, frames.size());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        store.close();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testLruEvictionByBytes() {
+        FrameDecodeCache cache = new FrameDecodeCache(0, 2 * FRAME_BYTES, 16);
+        try {
+            request(cache, 0, false, null);
+            request(cache, 1, false, null);
+            while (cache.decodeNext()) { }
+            assertEquals(2 * FRAME_BYTES, cache.getCachedBytes());
+
+            // Touch frame 0, so frame 1 is the least recently used one
+            DisplayBuffer buffer = new DisplayBuffer();
+            assertTrue(cache.renderTo(frames.get(0), W, H, buffer));
+            buffer.release();
+
+            request(cache, 2, false, null);
+            cache.decodeNext();
+            assertEquals(2, cache.getCachedFrames());
+            assertTrue(cache.contains(frames.get(0), W, H));
+            assertFalse(cache.contains(frames.get(1), W, H));
+            assertTrue(cache.contains(frames.get(2), W, H));
+            assertTrue(cache.getCachedBytes() <= 2 * FRAME_BYTES);
+        } finally {
+            cache.close();
+        }
+    }
+
+    public void testUrgentRequestsAreDecodedFirst() {
+        FrameDecodeCache cache = new FrameDecodeCache(0, 64 * FRAME_BYTES, 16);
+        List<Integer> order = new ArrayList<>();
+        try {
+            request(cache, 0, false, order);
+            request(cache, 1, false, order);
+            request(cache, 2, true, order);
+            request(cache, 1, true, order); // promotes the queued prefetch
+            while (cache.decodeNext()) { }
+            assertEquals(List.of(1, 2, 0), order);
+        } finally {
+            cache.close();
+        }
+    }
+
+    public void testOverflowDropsOldestPrefetchesOnly() {
+        FrameDecodeCache cache = new FrameDecodeCache(0, 64 * FRAME_BYTES, 3);
+        List<Integer> order = new ArrayList<>();
+        try {
+            request(cache, 0, true, order);
+            request(cache, 1, false, order);
+            request(cache, 2, false, order);
+            request(cache, 3, false, order); // drops prefetch 1, the oldest
+            request(cache, 4, true, order);  // drops prefetch 2, never the urgent 0
+            while (cache.decodeNext()) { }
+            assertEquals(List.of(4, 0, 3), order);
+
+            // A dropped prefetch can be requested again
+            request(cache, 1, false, order);
+            assertTrue(cache.decodeNext());
+            assertTrue(cache.contains(frames.get(1), W, H));
+        } finally {
+            cache.close();
+        }
+    }
+
+    private void request(FrameDecodeCache cache, int index, boolean urgent, List<Integer> order) {
+        cache.request(store, frames.get(index), W, H, urgent, order == null ? null : () -> order.add(index));
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Unit tests for {@link FrameGraph}.
+ */
+public class FrameGraphTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public void testDisplayStageKeepsTheFullResult() {
+        Mat input = new Mat(60, 80, CvType.CV_16UC3, new Scalar(1000, 2000, 3000));
+        Imgproc.rectangle(input, new Point(10, 10), new Point(30, 30), new Scalar(60000, 0, 0), -1);
+        FrameGraph graph = FrameGraph.builder()
+                .gaussianBlur(5, 0)
+                .display()
+                .build();
+        FrameGraph.Instance instance = graph.instantiate();
+        try {
+            assertNull(instance.getResult());
+            Mat shown = instance.process(input);
+            Mat full = instance.getResult();
+
+            assertEquals(CvType.CV_8UC3, shown.type());
+            assertEquals(CvType.CV_16UC3, full.type());
+            assertEquals(input.size(), full.size());
+
+            Mat expected = new Mat();
+            Imgproc.GaussianBlur(input, expected, new Size(5, 5), 0);
+            assertEquals(0.0, Core.norm(expected, full, Core.NORM_INF));
+            expected.release();
+
+            // A second frame reuses the buffers without the display stage overwriting the result
+            Mat second = instance.process(input);
+            assertSame(shown, second);
+            assertSame(full, instance.getResult());
+            assertEquals(CvType.CV_16UC3, instance.getResult().type());
+        } finally {
+            instance.close();
+            input.release();
+        }
+    }
+
+    public void testResultIsTheOutputWithoutDisplay() {
+        Mat input = new Mat(20, 20, CvType.CV_8UC3, new Scalar(10, 20, 30));
+        FrameGraph.Instance instance = FrameGraph.builder()
+                .cvtColor(Imgproc.COLOR_BGR2GRAY)
+                .build()
+                .instantiate();
+        try {
+            Mat out = instance.process(input);
+            assertSame(out, instance.getResult());
+        } finally {
+            instance.close();
+            input.release();
+        }
+    }
+
+    public void testDisplayMustBeLast() {
+        FrameGraph.Builder builder = FrameGraph.builder().display();
+        try {
+            builder.medianBlur(3);
+            fail("node added after display()");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link FrameRing} (writer and reader use separate mappings, like two processes).
+ */
+public class FrameRingTest extends TestCase {
+
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = Files.createTempFile("frames", ".ring");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    public void testPublishAndAcquireLatest() throws Exception {
+        FrameRing writer = FrameRing.create(file, 3, 1000);
+        FrameRing reader = FrameRing.open(file);
+        assertEquals(3, reader.getSlotCount());
+        assertEquals(1000, reader.getSlotBytes());
+        assertEquals(-1, reader.acquire(0));
+
+        int first = writer.beginWrite();
+        writer.slotData(first).put(0, (byte) 7);
+        long seq1 = writer.publish(first, 10, 20, 16);
+        int second = writer.beginWrite();
+        assertTrue("latest slot is not rewritten", second != first);
+        long seq2 = writer.publish(second, 30, 40, 0);
+        assertTrue(seq2 > seq1);
+
+        int slot = reader.acquire(0);
+        assertEquals(second, slot);
+        assertEquals(seq2, reader.slotSequence(slot));
+        assertEquals(30, reader.slotRows(slot));
+        assertEquals(40, reader.slotCols(slot));
+        assertEquals(0, reader.slotType(slot));
+        assertEquals("nothing newer", -1, reader.acquire(seq2));
+    }
+
+    public void testWriterSkipsReaderSlotAndLatest() throws Exception {
+        FrameRing writer = FrameRing.create(file, 3, 64);
+        FrameRing reader = FrameRing.open(file);
+
+        writer.publish(writer.beginWrite(), 1, 1, 0);
+        int held = reader.acquire(0);
+        for (int i = 0; i < 20; i++) {
+            int slot = writer.beginWrite();
+            assertTrue("reader's slot must not be written", slot != held);
+            writer.publish(slot, 1, 1, 0);
+        }
+    }
+
+    public void testSequenceContinuesAfterWriterRestart() throws Exception {
+        FrameRing writer = FrameRing.create(file, 4, 64);
+        long last = 0;
+        for (int i = 0; i < 5; i++) {
+            last = writer.publish(writer.beginWrite(), 1, 1, 0);
+        }
+        writer.beginWrite(); // Crashes mid-write
+
+        FrameRing restarted = FrameRing.open(file);
+        assertEquals(last, restarted.getLatestSequence());
+        assertTrue(restarted.publish(restarted.beginWrite(), 1, 1, 0) > last);
+    }
+
+    public void testOpenRejectsOtherFiles() throws Exception {
+        Files.write(file, new byte[8192]);
+        try {
+            FrameRing.open(file);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    /** A concurrent writer must never change a frame the reader holds. */
+    public void testReaderNeverSeesTornFrames() throws Exception {
+        final int size = 64 * 1024;
+        FrameRing writerRing = FrameRing.create(file, 3, size);
+        FrameRing readerRing = FrameRing.open(file);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long end = System.currentTimeMillis() + 500;
+
+        Thread writer = new Thread(() -> {
+            byte[] pattern = new byte[size];
+            byte value = 0;
+            while (System.currentTimeMillis() < end) {
+                int slot = writerRing.beginWrite();
+                Arrays.fill(pattern, ++value);
+                ByteBuffer data = writerRing.slotData(slot).duplicate();
+                data.put(pattern);
+                writerRing.publish(slot, value, 1, 0);
+            }
+        });
+        writer.start();
+
+        long last = 0;
+        int frames = 0;
+        while (writer.isAlive()) {
+            int slot = readerRing.acquire(last);
+            if (slot < 0) {
+                Thread.yield();
+                continue;
+            }
+            long seq = readerRing.slotSequence(slot);
+            assertTrue(seq > last);
+            last = seq;
+            byte expected = (byte) readerRing.slotRows(slot);
+            ByteBuffer data = readerRing.slotData(slot);
+            // Hold the slot a while so the writer laps the ring
+            for (int pass = 0; pass < 3; pass++) {
+                for (int i = 0; i < size; i += 97) {
+                    if (data.get(i) != expected) {
+                        failure.set(new AssertionError("torn frame " + seq + " at byte " + i));
+                    }
+                }
+            }
+            frames++;
+        }
+        writer.join();
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertTrue("frames read: " + frames, frames > 10);
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Rect;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Unit tests for {@link Overlay} rendering (Java2D only, no frames).
+ */
+public class OverlayTest extends TestCase {
+
+    private static BufferedImage render(Overlay overlay, Rect view, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        overlay.paint(g, view, width, height, 1.0);
+        g.dispose();
+        return image;
+    }
+
+    public void testSourceCoordinatesFollowTheView() {
+        Overlay overlay = Overlay.builder().color(Color.RED).fillRect(1000, 500, 100, 100).build();
+
+        // Whole 2000x1000 frame on a 200x100 panel: the box lands at (100, 50) .. (110, 60)
+        BufferedImage full = render(overlay, new Rect(0, 0, 2000, 1000), 200, 100);
+        assertEquals(Color.RED.getRGB(), full.getRGB(105, 55));
+        assertEquals(Color.BLACK.getRGB(), full.getRGB(95, 55));
+
+        // Zoomed into (1000, 500, 200x100): the box fills the left half
+        BufferedImage zoomed = render(overlay, new Rect(1000, 500, 200, 100), 200, 100);
+        assertEquals(Color.RED.getRGB(), zoomed.getRGB(10, 10));
+        assertEquals(Color.RED.getRGB(), zoomed.getRGB(95, 95));
+        assertEquals(Color.BLACK.getRGB(), zoomed.getRGB(150, 50));
+    }
+
+    public void testPinnedUsesPanelPixels() {
+        Overlay overlay = Overlay.builder().pinned().color(Color.BLUE).fillRect(10, 10, 5, 5).build();
+        BufferedImage image = render(overlay, new Rect(400, 400, 50, 50), 100, 100);
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(12, 12));
+        assertTrue(overlay.isPinned());
+    }
+
+    public void testBuilderStyleAppliesToLaterShapes() {
+        Overlay overlay = Overlay.builder()
+                .color(Color.RED).fillRect(0, 0, 10, 10)
+                .color(Color.GREEN).fillRect(10, 0, 10, 10)
+                .build();
+        assertEquals(2, overlay.size());
+        BufferedImage image = render(overlay, new Rect(0, 0, 20, 10), 20, 10);
+        assertEquals(Color.RED.getRGB(), image.getRGB(5, 5));
+        assertEquals(Color.GREEN.getRGB(), image.getRGB(15, 5));
+    }
+}
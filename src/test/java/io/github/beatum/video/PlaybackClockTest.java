@@ -0,0 +1,40 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link PlaybackClock}.
+ */
+public class PlaybackClockTest extends TestCase {
+
+    public void testPausedClockDoesNotMove() throws Exception {
+        PlaybackClock clock = new PlaybackClock(1000);
+        Thread.sleep(20);
+        assertEquals(1000, clock.getPosition());
+        assertFalse(clock.isPlaying());
+    }
+
+    public void testPlaysAtSpeedAndStopsAtEnd() throws Exception {
+        PlaybackClock clock = new PlaybackClock(0);
+        clock.setEnd(10_000);
+        clock.setSpeed(16);
+        clock.play();
+        Thread.sleep(100);
+        long position = clock.getPosition();
+        assertTrue("position " + position, position >= 1600 && position < 10_000);
+
+        clock.seek(9_990);
+        Thread.sleep(20);
+        assertEquals(10_000, clock.getPosition());
+        assertFalse(clock.isPlaying());
+    }
+
+    public void testSpeedIsClampedAndDoesNotJump() {
+        PlaybackClock clock = new PlaybackClock(500);
+        clock.setSpeed(100);
+        assertEquals(PlaybackClock.MAX_SPEED, clock.getSpeed());
+        clock.setSpeed(0);
+        assertEquals(PlaybackClock.MIN_SPEED, clock.getSpeed());
+        assertEquals(500, clock.getPosition());
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Rect;
+
+/**
+ * Unit tests for {@link RegionOfInterest}.
+ */
+public class RegionOfInterestTest extends TestCase {
+
+    public void testClipToFrame() {
+        assertEquals(new Rect(600, 0, 40, 100), RegionOfInterest.clip(new Rect(600, -20, 100, 120), 640, 480, false, null));
+        assertNull("outside", RegionOfInterest.clip(new Rect(700, 0, 50, 50), 640, 480, false, null));
+        assertNull("whole frame", RegionOfInterest.clip(new Rect(-5, -5, 1000, 1000), 640, 480, false, null));
+    }
+
+    public void testClipReusesUnchangedRegion() {
+        Rect first = RegionOfInterest.clip(new Rect(10, 10, 100, 100), 640, 480, false, null);
+        assertSame(first, RegionOfInterest.clip(new Rect(10, 10, 100, 100), 640, 480, false, first));
+        assertNotSame(first, RegionOfInterest.clip(new Rect(12, 10, 100, 100), 640, 480, false, first));
+    }
+
+    public void testPackedRegionStartsOnPixelPair() {
+        Rect r = RegionOfInterest.clip(new Rect(11, 0, 101, 50), 640, 480, true, null);
+        assertEquals(10, r.x);
+        assertEquals(0, r.width % 2);
+    }
+
+    public void testComponentMapping() {
+        Rect view = new Rect(100, 50, 200, 100); // zoomed view shown on a 400x400 panel
+        assertEquals(0, RegionOfInterest.toComponentX(100, view, 400));
+        assertEquals(400, RegionOfInterest.toComponentX(300, view, 400));
+        assertEquals(200, RegionOfInterest.toComponentY(100, view, 400));
+
+        assertEquals(new Rect(150, 50, 50, 50), RegionOfInterest.toSource(200, 0, 100, 200, view, 400, 400));
+        assertEquals("clipped to the view", new Rect(100, 50, 200, 100),
+                RegionOfInterest.toSource(-50, -50, 900, 900, view, 400, 400));
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link SharedFrameSource}.
+ */
+public class SharedFrameSourceTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public void testSlowSubscriberDoesNotBlockOthers() throws Exception {
+        SharedFrameSource shared = new SharedFrameSource(new CountingSource(5), "test");
+        try {
+            SharedFrameSource.Subscription slow = shared.subscribe(frame -> sleep(300), "slow");
+            SharedFrameSource.Subscription fast = shared.subscribe(frame -> { }, "fast");
+            Thread.sleep(900);
+
+            assertTrue("fast got " + fast.getDeliveredCount(), fast.getDeliveredCount() >= 20);
+            assertTrue("slow got " + slow.getDeliveredCount(), slow.getDeliveredCount() <= 5);
+            assertTrue("frames for the slow subscriber are replaced", slow.getDroppedCount() > 0);
+        } finally {
+            shared.close();
+        }
+    }
+
+    public void testBufferIsReusedOnlyAfterTheLastRelease() throws Exception {
+        SharedFrameSource shared = new SharedFrameSource(new CountingSource(5), "test");
+        AtomicReference<SharedFrame> held = new AtomicReference<>();
+        AtomicReference<SharedFrame> released = new AtomicReference<>();
+        CountDownLatch reused = new CountDownLatch(1);
+        try {
+            shared.subscribe(frame -> {
+                if (held.get() == null) {
+                    held.set(frame.retain());
+                } else if (frame == released.get()) {
+                    reused.countDown();
+                }
+            }, "holder");
+            Thread.sleep(300);
+
+            // Still held: neither recycled nor overwritten by later reads
+            SharedFrame frame = held.get();
+            long sequence = frame.getSequence();
+            assertTrue(shared.getFramesRead() > sequence + 10);
+            assertEquals((double) (sequence % 256), frame.getMat().get(0, 0)[0]);
+
+            // After the last release the same buffer carries a later frame
+            released.set(frame);
+            frame.release();
+            assertTrue("released buffer reused", reused.await(2, TimeUnit.SECONDS));
+            assertTrue(frame.getSequence() > sequence);
+        } finally {
+            shared.close();
+        }
+    }
+
+    public void testDeviceIsNotReleasedWhileAReadIsBlocked() throws Exception {
+        CountDownLatch readEntered = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        AtomicReference<String> releaseThread = new AtomicReference<>();
+        boolean[] reading = {false};
+        IFrameSource stuck = new CountingSource(0) {
+            @Override
+            public boolean read(Mat frame) {
+                synchronized (reading) {
+                    reading[0] = true;
+                }
+                readEntered.countDown();
+                while (true) {
+                    try {
+                        if (unblock.await(5, TimeUnit.SECONDS)) break; // a driver ignoring interrupts
+                    } catch (InterruptedException ignored) {
+                        // keep blocking
+                    }
+                }
+                synchronized (reading) {
+                    reading[0] = false;
+                }
+                return super.read(frame);
+            }
+
+            @Override
+            public void release() {
+                synchronized (reading) {
+                    if (reading[0]) releaseThread.set("released during read");
+                }
+                if (releaseThread.get() == null) releaseThread.set(Thread.currentThread().getName());
+                released.countDown();
+            }
+        };
+
+        SharedFrameSource shared = new SharedFrameSource(stuck, "stuck");
+        shared.subscribe(frame -> { }, "sub");
+        assertTrue(readEntered.await(2, TimeUnit.SECONDS));
+
+        shared.close(); // gives up waiting for the reader
+        assertEquals("device released under a blocked read", 1, released.getCount());
+
+        unblock.countDown();
+        assertTrue(released.await(2, TimeUnit.SECONDS));
+        assertEquals("SharedFrameSource-Reader-stuck", releaseThread.get());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Produces small frames whose first pixel is the frame number modulo 256.
+     */
+    private static class CountingSource implements IFrameSource {
+
+        private final long intervalMs;
+        private volatile boolean opened;
+        private long count;
+
+        CountingSource(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        @Override
+        public boolean open() {
+            opened = true;
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return opened;
+        }
+
+        @Override
+        public boolean read(Mat frame) {
+            if (intervalMs > 0) sleep(intervalMs);
+            frame.create(4, 4, CvType.CV_8UC1);
+            frame.setTo(new Scalar(count++ % 256));
+            return true;
+        }
+
+        @Override
+        public void release() {
+            opened = false;
+        }
+    }
+}
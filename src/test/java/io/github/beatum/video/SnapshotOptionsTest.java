@@ -0,0 +1,92 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link SnapshotOptions}.
+ */
+public class SnapshotOptionsTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    public void testExtensionOf() {
+        assertEquals("jpg", SnapshotOptions.extensionOf("snap.jpg"));
+        assertEquals("JPEG", SnapshotOptions.extensionOf("SNAP.JPEG"));
+        assertEquals("png", SnapshotOptions.extensionOf("archive.tar.png"));
+        assertEquals("png", SnapshotOptions.extensionOf("noextension"));
+        assertEquals("png", SnapshotOptions.extensionOf("trailing."));
+    }
+
+    public void testMaxSizeKeepsAspectRatio() {
+        SnapshotOptions options = new SnapshotOptions();
+        assertNull("no limit", options.targetSize(640, 480));
+
+        options.setMaxSize(320, 0);
+        assertEquals(new Size(320, 240), options.targetSize(640, 480));
+        options.setMaxSize(0, 120);
+        assertEquals(new Size(160, 120), options.targetSize(640, 480));
+        options.setMaxSize(320, 120);
+        assertEquals("the tighter limit wins", new Size(160, 120), options.targetSize(640, 480));
+        options.setMaxSize(1000, 1000);
+        assertNull("never upscaled", options.targetSize(640, 480));
+    }
+
+    public void testEncodeDownscales() {
+        SnapshotOptions options = new SnapshotOptions();
+        options.setMaxSize(100, 100);
+        Mat frame = new Mat(300, 400, CvType.CV_8UC3);
+        Core.randu(frame, 0, 256);
+
+        byte[] encoded = options.encode(frame, "png");
+        Mat decoded = Imgcodecs.imdecode(new MatOfByte(encoded), Imgcodecs.IMREAD_UNCHANGED);
+        assertEquals(100, decoded.cols());
+        assertEquals(75, decoded.rows());
+        assertEquals("source untouched", 400, frame.cols());
+        frame.release();
+        decoded.release();
+    }
+
+    public void testCodecParams() {
+        SnapshotOptions options = new SnapshotOptions();
+        options.setJpegQuality(150);
+        options.setPngCompression(-1);
+        options.setPngStrategy(Imgcodecs.IMWRITE_PNG_STRATEGY_RLE);
+        options.setWebpQuality(0);
+
+        assertParams(options.toParams("JPG"), Imgcodecs.IMWRITE_JPEG_QUALITY, 100);
+        assertParams(options.toParams("jpeg"), Imgcodecs.IMWRITE_JPEG_QUALITY, 100);
+        assertParams(options.toParams("png"), Imgcodecs.IMWRITE_PNG_COMPRESSION, 0,
+                Imgcodecs.IMWRITE_PNG_STRATEGY, Imgcodecs.IMWRITE_PNG_STRATEGY_RLE);
+        assertParams(options.toParams("webp"), Imgcodecs.IMWRITE_WEBP_QUALITY, 1);
+        assertParams(options.toParams("bmp"));
+    }
+
+    public void testJpegQualityIsApplied() {
+        Mat frame = new Mat(120, 160, CvType.CV_8UC3);
+        Core.randu(frame, 0, 256);
+        SnapshotOptions options = new SnapshotOptions();
+        options.setJpegQuality(95);
+        byte[] high = options.encode(frame, "jpg");
+        options.setJpegQuality(10);
+        byte[] low = options.encode(frame, "jpg");
+        assertTrue(low.length < high.length);
+        frame.release();
+    }
+
+    private static void assertParams(MatOfInt params, int... expected) {
+        int[] actual = params.empty() ? new int[0] : params.toArray();
+        params.release();
+        assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.beatum.video;
+
+import junit.framework.TestCase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for {@link TiledFilter}: stripes on a 4-thread pool must give exactly the
+ * sequential result.
+ */
+public class TiledFilterTest extends TestCase {
+
+    static {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+    }
+
+    private ForkJoinPool pool;
+    private Mat input;
+
+    @Override
+    protected void setUp() {
+        pool = new ForkJoinPool(4);
+        // Odd height, so the stripes differ in size
+        input = new Mat(203, 160, CvType.CV_8UC3);
+        Core.randu(input, 0, 256);
+    }
+
+    @Override
+    protected void tearDown() {
+        input.release();
+        pool.shutdownNow();
+    }
+
+    public void testBlurIsIdenticalToSequential() {
+        IProcessCapture blur = mat -> {
+            Mat out = new Mat();
+            Imgproc.GaussianBlur(mat, out, new Size(9, 9), 0);
+            return out;
+        };
+        assertTiledEqualsSequential(blur, 4);
+    }
+
+    public void testMorphologyIsIdenticalToSequential() {
+        Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_ELLIPSE, new Size(7, 7));
+        IProcessCapture open = mat -> {
+            Mat out = new Mat();
+            Imgproc.morphologyEx(mat, out, Imgproc.MORPH_OPEN, kernel);
+            return out;
+        };
+        // Opening is an erosion followed by a dilation: each reads 3 rows
+        assertTiledEqualsSequential(open, 6);
+        kernel.release();
+    }
+
+    public void testResizingFilterFallsBackToSequential() {
+        IProcessCapture half = mat -> {
+            Mat out = new Mat();
+            Imgproc.resize(mat, out, new Size(mat.cols() / 2, mat.rows() / 2));
+            return out;
+        };
+        TiledFilter tiled = new TiledFilter(half, 0, pool);
+        tiled.setMinStripeRows(8);
+        try {
+            Mat expected = half.process(input);
+            assertEquals(0.0, Core.norm(expected, tiled.process(input), Core.NORM_INF));
+            assertFalse(tiled.isTiling());
+            expected.release();
+        } finally {
+            tiled.close();
+        }
+    }
+
+    private void assertTiledEqualsSequential(IProcessCapture filter, int halo) {
+        TiledFilter tiled = new TiledFilter(filter, halo, pool);
+        tiled.setMinStripeRows(8);
+        Mat expected = filter.process(input);
+        try {
+            // Twice: the second frame reuses the stripe and output buffers
+            for (int frame = 0; frame < 2; frame++) {
+                Mat actual = tiled.process(input);
+                assertTrue(tiled.isTiling());
+                assertEquals(expected.size(), actual.size());
+                assertEquals(expected.type(), actual.type());
+                assertEquals(0.0, Core.norm(expected, actual, Core.NORM_INF));
+            }
+        } finally {
+            expected.release();
+            tiled.close();
+        }
+    }
+}